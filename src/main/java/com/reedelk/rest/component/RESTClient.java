@@ -1,6 +1,8 @@
 package com.reedelk.rest.component;
 
+import com.reedelk.rest.component.client.Authentication;
 import com.reedelk.rest.component.client.BufferConfiguration;
+import com.reedelk.rest.component.client.HedgingConfiguration;
 import com.reedelk.rest.internal.attribute.RESTClientAttributes;
 import com.reedelk.rest.internal.client.HttpClient;
 import com.reedelk.rest.internal.client.HttpClientFactory;
@@ -9,10 +11,15 @@ import com.reedelk.rest.internal.client.body.BodyEvaluator;
 import com.reedelk.rest.internal.client.body.BodyProvider;
 import com.reedelk.rest.internal.client.header.HeaderProvider;
 import com.reedelk.rest.internal.client.header.HeadersEvaluator;
+import com.reedelk.rest.internal.client.hedging.RequestHedging;
 import com.reedelk.rest.internal.client.strategy.ExecutionStrategyBuilder;
 import com.reedelk.rest.internal.client.strategy.Strategy;
 import com.reedelk.rest.internal.client.uri.UriEvaluator;
 import com.reedelk.rest.internal.client.uri.UriProvider;
+import com.reedelk.rest.internal.commons.ClientEngine;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import com.reedelk.rest.internal.commons.PassThroughHeaders;
 import com.reedelk.rest.internal.commons.RestMethod;
 import com.reedelk.rest.internal.commons.StreamingMode;
 import com.reedelk.runtime.api.annotation.*;
@@ -29,6 +36,8 @@ import org.osgi.service.component.annotations.Reference;
 
 import java.net.URI;
 
+import static com.reedelk.rest.internal.commons.Messages.RestClient.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
 import static java.util.Objects.requireNonNull;
 import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
 
@@ -130,10 +139,61 @@ public class RESTClient implements ProcessorAsync {
             "will inspect the content of the body to determine the best strategy to send the HTTP request data.")
     private StreamingMode streaming = StreamingMode.AUTO;
 
+    @Property("Response Streaming")
+    @Group("Advanced")
+    @Example("ALWAYS")
+    @InitValue("NONE")
+    @DefaultValue("NONE")
+    @Description("Determines the strategy type the body of a successful response will be received from the server. " +
+            "When <i>Stream</i> the response body is published chunk by chunk, as it is received, without loading the entire content into memory. " +
+            "When <i>None</i> the body will be loaded into memory before the flow continues. When <i>Auto</i> the response body is streamed " +
+            "only if its length is unknown or larger than the response buffer size.")
+    private StreamingMode responseStreaming = StreamingMode.NONE;
+
+    @Property("Pass-through")
+    @Group("Advanced")
+    @Example("true")
+    @InitValue("false")
+    @DefaultValue("false")
+    @Description("If true the REST Client relays the request received by a REST Listener to the remote host, and the " +
+            "response back to the listener: the request body is streamed as it is received, with backpressure in both directions, " +
+            "and zero copy when the listener request body mode is <i>Zero copy</i>. The request headers are relayed, except hop-by-hop headers. " +
+            "Any response, whatever its status, becomes the output message: its body is streamed without being decompressed, " +
+            "and its status and headers are relayed by the REST Listener sending it as response, unless the listener response sets them. " +
+            "The target variable is ignored.")
+    private Boolean passThrough;
+
+    @Property("Pass-through excluded headers")
+    @Group("Advanced")
+    @Hint("Authorization, X-Internal-*")
+    @Example("Cookie, X-Forwarded-*")
+    @When(propertyName = "passThrough", propertyValue = "true")
+    @Description("Comma separated names of the request and response headers which must not be relayed in pass-through mode. " +
+            "A name ending with <b>*</b> excludes all the headers starting with the given prefix.")
+    private String passThroughExcludedHeaders;
+
     @Group("Advanced")
     @Property("Buffer Configuration")
     private BufferConfiguration bufferConfiguration;
 
+    @Property("Hedging")
+    @Group("Advanced")
+    @Example("true")
+    @InitValue("false")
+    @DefaultValue("false")
+    @When(propertyName = "method", propertyValue = "GET")
+    @When(propertyName = "method", propertyValue = "HEAD")
+    @When(propertyName = "method", propertyValue = "OPTIONS")
+    @Description("If true, a second attempt of the request is sent when the first one has not completed within the hedging delay. " +
+            "The first response is used and the other attempt is cancelled. The number of second attempts is bounded by the hedging budget. " +
+            "Only GET, HEAD and OPTIONS requests can be hedged.")
+    private Boolean hedging;
+
+    @Group("Advanced")
+    @Property("Hedging Configuration")
+    @When(propertyName = "hedging", propertyValue = "true")
+    private HedgingConfiguration hedgingConfiguration;
+
     @Reference
     private HttpClientFactory clientFactory;
     @Reference
@@ -146,6 +206,8 @@ public class RESTClient implements ProcessorAsync {
     private UriEvaluator uriEvaluator;
     private BodyEvaluator bodyEvaluator;
     private HeadersEvaluator headersEvaluator;
+    private PassThroughHeaders passThroughHeaders;
+    private RequestHedging requestHedging;
 
     @Override
     public void apply(FlowContext flowContext, Message message, OnResult callback) {
@@ -159,13 +221,24 @@ public class RESTClient implements ProcessorAsync {
         URI uri = uriProvider.uri();
 
         HttpClientResultCallback resultCallback =
-                new HttpClientResultCallback(uri, flowContext, message, target, callback, scriptEngine);
+                new HttpClientResultCallback(uri, flowContext, message, target, callback, scriptEngine, passThroughHeaders);
+
+        if (requestHedging != null) {
+            // The response of the winning attempt only is mapped, e.g. to the target variable.
+            requestHedging.execute(resultCallback, attemptCallback ->
+                    execution.execute(client, message, flowContext, uri, headerProvider, bodyProvider, attemptCallback));
+            return;
+        }
 
         execution.execute(client, message, flowContext, uri, headerProvider, bodyProvider, resultCallback);
     }
 
     @Override
     public synchronized void initialize() {
+        // Pass-through headers rules, null if the mode is not enabled.
+        passThroughHeaders = Boolean.TRUE.equals(passThrough) ?
+                PassThroughHeaders.excluding(passThroughExcludedHeaders) : null;
+
         // Init uri evaluator
         uriEvaluator = UriEvaluator.builder()
                 .queryParameters(queryParameters)
@@ -180,6 +253,8 @@ public class RESTClient implements ProcessorAsync {
         execution = ExecutionStrategyBuilder.builder()
                 .advancedConfig(bufferConfiguration)
                 .streaming(streaming)
+                .responseStreaming(responseStreaming)
+                .passThrough(passThroughHeaders != null)
                 .method(method)
                 .build();
 
@@ -196,10 +271,22 @@ public class RESTClient implements ProcessorAsync {
                 .scriptEngine(scriptEngine)
                 .headers(headers)
                 .body(body)
+                .passThrough(passThroughHeaders)
                 .build();
 
+        // Request hedging
+        if (Boolean.TRUE.equals(hedging)) {
+            requireTrue(RESTClient.class, isHedgingSupported(method),
+                    CLIENT_HEDGING_METHOD_NOT_SUPPORTED.format(method));
+            requestHedging = RequestHedging.from(hedgingConfiguration);
+        }
+
         // Init rest client
         if (configuration != null) {
+            requireTrue(RESTClient.class, isHttpVersionSupported(configuration),
+                    CLIENT_HTTP_VERSION_NOT_SUPPORTED.format(configuration.getHttpVersion(), configuration.getEngine(), configuration.getProtocol()));
+            requireTrue(RESTClient.class, isAuthenticationSupported(configuration),
+                    CLIENT_ENGINE_DIGEST_AUTH_NOT_SUPPORTED.format(configuration.getEngine()));
             client = clientFactory.create(this, configuration);
         } else {
             requireNonNull(baseURL, "RESTClient base URL must be defined");
@@ -214,9 +301,39 @@ public class RESTClient implements ProcessorAsync {
         uriEvaluator = null;
         bodyEvaluator = null;
         headersEvaluator = null;
+        passThroughHeaders = null;
+        requestHedging = null;
         clientFactory = null;
     }
 
+    /**
+     * HTTP/2 is supported by the Netty engine only: over TLS (h2) it requires the HTTPS
+     * protocol, while cleartext HTTP/2 (h2c) requires the HTTP protocol.
+     */
+    private static boolean isHttpVersionSupported(RESTClientConfiguration configuration) {
+        HttpProtocolVersion httpVersion = configuration.getHttpVersion();
+        if (httpVersion == null || HttpProtocolVersion.HTTP_1_1.equals(httpVersion)) {
+            return true;
+        } else if (!ClientEngine.NETTY.equals(configuration.getEngine())) {
+            return false;
+        } else if (HttpProtocolVersion.H2.equals(httpVersion)) {
+            return HttpProtocol.HTTPS.equals(configuration.getProtocol());
+        } else {
+            return HttpProtocol.HTTP.equals(configuration.getProtocol());
+        }
+    }
+
+    // Only idempotent requests without a body can be sent twice.
+    private static boolean isHedgingSupported(RestMethod method) {
+        return RestMethod.GET.equals(method) ||
+                RestMethod.HEAD.equals(method) || RestMethod.OPTIONS.equals(method);
+    }
+
+    private static boolean isAuthenticationSupported(RESTClientConfiguration configuration) {
+        return !(ClientEngine.NETTY.equals(configuration.getEngine()) &&
+                Authentication.DIGEST.equals(configuration.getAuthentication()));
+    }
+
     public void setMethod(RestMethod method) {
         this.method = method;
     }
@@ -241,6 +358,10 @@ public class RESTClient implements ProcessorAsync {
         this.streaming = streaming;
     }
 
+    public void setResponseStreaming(StreamingMode responseStreaming) {
+        this.responseStreaming = responseStreaming;
+    }
+
     public void setHeaders(DynamicStringMap headers) {
         this.headers = headers;
     }
@@ -257,6 +378,22 @@ public class RESTClient implements ProcessorAsync {
         this.bufferConfiguration = bufferConfiguration;
     }
 
+    public void setPassThrough(Boolean passThrough) {
+        this.passThrough = passThrough;
+    }
+
+    public void setPassThroughExcludedHeaders(String passThroughExcludedHeaders) {
+        this.passThroughExcludedHeaders = passThroughExcludedHeaders;
+    }
+
+    public void setHedging(Boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    public void setHedgingConfiguration(HedgingConfiguration hedgingConfiguration) {
+        this.hedgingConfiguration = hedgingConfiguration;
+    }
+
     public String getTarget() {
         return target;
     }
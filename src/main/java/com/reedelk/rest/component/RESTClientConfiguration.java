@@ -1,7 +1,9 @@
 package com.reedelk.rest.component;
 
 import com.reedelk.rest.component.client.*;
+import com.reedelk.rest.internal.commons.ClientEngine;
 import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.Implementor;
 import org.osgi.service.component.annotations.Component;
@@ -24,6 +26,38 @@ public class RESTClientConfiguration implements Implementor {
     private HttpProtocol protocol;
 
     // Base URL config
+    @Property("Engine")
+    @Example("NETTY")
+    @InitValue("APACHE")
+    @DefaultValue("APACHE")
+    @Description("The client engine used to send the requests. Possible values are: " +
+            "<b>APACHE</b>: HTTP/1.1 client with one pooled connection for each request in flight, " +
+            "<b>NETTY</b>: HTTP/1.1 and HTTP/2 client, HTTP/2 requests to the same host are multiplexed on a single connection. " +
+            "The Netty engine does not support digest authentication and it ignores the <i>Share connections</i> and <i>Expect continue</i> options.")
+    private ClientEngine engine = ClientEngine.APACHE;
+
+    @Property("HTTP version")
+    @Example("H2")
+    @InitValue("HTTP_1_1")
+    @DefaultValue("HTTP_1_1")
+    @When(propertyName = "engine", propertyValue = "NETTY")
+    @Description("The HTTP version used by the Netty engine. Possible values are: " +
+            "<b>HTTP_1_1</b>: HTTP/1.1 only, " +
+            "<b>H2C</b>: cleartext HTTP/2 with prior knowledge, requires protocol HTTP, " +
+            "<b>H2</b>: HTTP/2 over TLS negotiated with ALPN, falling back to HTTP/1.1, requires protocol HTTPS.")
+    private HttpProtocolVersion httpVersion = HttpProtocolVersion.HTTP_1_1;
+
+    @Property("Use listener event loops")
+    @Example("true")
+    @InitValue("false")
+    @DefaultValue("false")
+    @When(propertyName = "engine", propertyValue = "NETTY")
+    @Description("If true, the Netty engine runs on the event loop threads of the REST Listeners, " +
+            "when a listener is running, instead of its own threads: a flow receiving requests from a listener " +
+            "and sending them with this client runs on a single set of threads. " +
+            "The flow must not block when the response is processed on the event loop threads.")
+    private Boolean useListenerEventLoops;
+
     @Property("Host")
     @Hint("localhost")
     @Example("localhost")
@@ -76,6 +110,23 @@ public class RESTClientConfiguration implements Implementor {
     @Description("Max connections to be kept in the connection pool for all the requests to the given host.")
     private Integer maxPoolConnections;
 
+    @Property("Share connections")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, this configuration uses the IO reactor and the connection pool shared by all the configurations " +
+            "sharing connections: idle connections to the same host and port are reused across configurations. " +
+            "The max pool connections of each configuration are added to the limit of its host and port. " +
+            "Configurations trusting all certificates always use their own connection pool.")
+    private Boolean shareConnections;
+
+    @Property("IO reactor watchdog threshold (ms)")
+    @Hint("100")
+    @Example("100")
+    @Description("If set, the IO reactor threads of this client are watched: when a thread is busy for longer than the given time, " +
+            "e.g. because of a blocking call in a response callback, its stack trace is logged and the event is counted. " +
+            "The counts are exposed by REST Listener Configurations with metrics enabled.")
+    private Integer watchdogThreshold;
+
     @Property("Trust Certificates")
     @Example("true")
     @DefaultValue("false")
@@ -99,6 +150,21 @@ public class RESTClientConfiguration implements Implementor {
     @Description("If true keeps the TCP connection open for multiple HTTP requests/responses.")
     private Boolean keepAlive;
 
+    @Property("Idle connection timeout (ms)")
+    @Hint("30000")
+    @Example("30000")
+    @Description("If set, connections idle in the pool for longer than the given time are closed, even if the server " +
+            "allows a longer keep-alive duration with the <i>Keep-Alive</i> response header. It should be lower than the " +
+            "idle timeout of any load balancer between the client and the server.")
+    private Integer idleConnectionTimeout;
+
+    @Property("Connection time to live (ms)")
+    @Hint("300000")
+    @Example("300000")
+    @Description("If set, connections are closed once they have been open for the given time, " +
+            "e.g. to spread the load across servers behind a DNS name. Connections never expire if not set.")
+    private Integer connectionTimeToLive;
+
     @Property("Authentication")
     @Example("DIGEST")
     @InitValue("NONE")
@@ -125,6 +191,20 @@ public class RESTClientConfiguration implements Implementor {
     @When(propertyName = "proxy", propertyValue = "PROXY")
     private ProxyConfiguration proxyConfiguration;
 
+    @Property("Response cache")
+    @Example("true")
+    @InitValue("false")
+    @DefaultValue("false")
+    @Description("If true, GET responses are stored and reused according to their Cache-Control and Expires headers (RFC 7234). " +
+            "Fresh responses are returned without sending the request, stale responses are revalidated with ETag and Last-Modified, " +
+            "and served while they are revalidated in the background if allowed by <i>stale-while-revalidate</i>. " +
+            "Streamed responses are not stored.")
+    private Boolean cache;
+
+    @Property("Response cache configuration")
+    @When(propertyName = "cache", propertyValue = "true")
+    private CacheConfiguration cacheConfiguration;
+
     public String getId() {
         return id;
     }
@@ -197,6 +277,78 @@ public class RESTClientConfiguration implements Implementor {
         this.maxPoolConnections = maxPoolConnections;
     }
 
+    public ClientEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(ClientEngine engine) {
+        this.engine = engine;
+    }
+
+    public HttpProtocolVersion getHttpVersion() {
+        return httpVersion;
+    }
+
+    public void setHttpVersion(HttpProtocolVersion httpVersion) {
+        this.httpVersion = httpVersion;
+    }
+
+    public Boolean getUseListenerEventLoops() {
+        return useListenerEventLoops;
+    }
+
+    public void setUseListenerEventLoops(Boolean useListenerEventLoops) {
+        this.useListenerEventLoops = useListenerEventLoops;
+    }
+
+    public Boolean getShareConnections() {
+        return shareConnections;
+    }
+
+    public void setShareConnections(Boolean shareConnections) {
+        this.shareConnections = shareConnections;
+    }
+
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(Integer idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    public Integer getConnectionTimeToLive() {
+        return connectionTimeToLive;
+    }
+
+    public void setConnectionTimeToLive(Integer connectionTimeToLive) {
+        this.connectionTimeToLive = connectionTimeToLive;
+    }
+
+    public Boolean getCache() {
+        return cache;
+    }
+
+    public void setCache(Boolean cache) {
+        this.cache = cache;
+    }
+
+    public CacheConfiguration getCacheConfiguration() {
+        return cacheConfiguration;
+    }
+
+    public void setCacheConfiguration(CacheConfiguration cacheConfiguration) {
+        this.cacheConfiguration = cacheConfiguration;
+    }
+
+    public Integer getWatchdogThreshold() {
+        return watchdogThreshold;
+    }
+
+    public void setWatchdogThreshold(Integer watchdogThreshold) {
+        this.watchdogThreshold = watchdogThreshold;
+    }
+
     public Boolean getKeepAlive() {
         return keepAlive;
     }
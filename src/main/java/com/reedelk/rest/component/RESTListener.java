@@ -4,9 +4,17 @@ import com.reedelk.rest.component.listener.ErrorResponse;
 import com.reedelk.rest.component.listener.Response;
 import com.reedelk.rest.component.listener.openapi.v3.OperationObject;
 import com.reedelk.rest.internal.attribute.RESTListenerAttributes;
+import com.reedelk.rest.internal.commons.Defaults;
+import com.reedelk.rest.internal.commons.ExecutionModel;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import com.reedelk.rest.internal.commons.RequestBodyMode;
 import com.reedelk.rest.internal.commons.RestMethod;
 import com.reedelk.rest.internal.commons.StreamingMode;
 import com.reedelk.rest.internal.server.*;
+import com.reedelk.rest.internal.server.cache.ResponseCache;
+import com.reedelk.rest.internal.server.cache.ResponseCacheRegistry;
+import com.reedelk.rest.internal.server.mapper.MultipartSettings;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.AbstractInbound;
 import com.reedelk.runtime.api.exception.PlatformException;
@@ -15,9 +23,11 @@ import com.reedelk.runtime.api.type.MapOfAttachments;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 import static com.reedelk.rest.internal.commons.Messages.RestListener.LISTENER_CONFIG_MISSING;
+import static com.reedelk.rest.internal.commons.Messages.RestListener.LISTENER_HTTP_VERSION_NOT_SUPPORTED;
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
 import static com.reedelk.runtime.api.commons.StringUtils.isBlank;
@@ -26,7 +36,7 @@ import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
 @ModuleComponent("REST Listener")
 @ComponentOutput(
         attributes = RESTListenerAttributes.class,
-        payload = { byte[].class, String.class, MapOfAttachments.class})
+        payload = { byte[].class, String.class, ByteBuffer.class, MapOfAttachments.class})
 @Description("The REST Listener can be used to create a REST endpoint listening on " +
                 "a given port, post and path. The listening path might contain path segments which " +
                 "are matched whenever an HTTP request comes in. A REST Listener configuration might be shared " +
@@ -65,6 +75,141 @@ public class RESTListener extends AbstractInbound {
             "When set to Always <b>Transfer-Encoding: chunked</b> is always used, and when none <b>Content-Length</b> is always used instead.")
     private StreamingMode streaming = StreamingMode.AUTO;
 
+    @Property("Request body")
+    @Example("ZERO_COPY")
+    @InitValue("COPY")
+    @DefaultValue("COPY")
+    @Description("Determines the way the request body is delivered to the flow. " +
+            "When set to Copy the body is copied into byte arrays, or strings for text based mime types. " +
+            "When set to Zero copy the body is a stream of read-only <code>java.nio.ByteBuffer</code> backed by the network buffers, " +
+            "which are released once the response has been sent to the client. " +
+            "Flows forwarding the payload as response body never copy it onto the heap.")
+    private RequestBodyMode requestBody = RequestBodyMode.COPY;
+
+    @Property("Multipart memory threshold")
+    @Hint("16000")
+    @Example("1048576")
+    @DefaultValue("16000")
+    @Description("The size in bytes above which a part of a <b>multipart/form-data</b> request is written to " +
+            "a temporary file while it is being received, instead of being kept in memory.")
+    private Integer multipartMemoryThreshold;
+
+    @Property("Multipart max part size")
+    @Hint("10485760")
+    @Example("1048576")
+    @DefaultValue("10485760")
+    @Description("The maximum size in bytes of each part of a <b>multipart/form-data</b> request. " +
+            "Requests with a bigger part are rejected with status <b>413 Request Entity Too Large</b>. " +
+            "The decoded parts are kept in memory while the flow is executed: " +
+            "a negative value disables the limit.")
+    private Integer multipartMaxPartSize;
+
+    @Property("Multipart max request size")
+    @Hint("52428800")
+    @Example("10485760")
+    @DefaultValue("52428800")
+    @Description("The maximum size in bytes of the body of a <b>multipart/form-data</b> request. " +
+            "Bigger requests are rejected with status <b>413 Request Entity Too Large</b>. " +
+            "The decoded parts are kept in memory while the flow is executed: " +
+            "a negative value disables the limit.")
+    private Integer multipartMaxRequestSize;
+
+    @Property("Adaptive concurrency limit")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the number of requests processed concurrently by this listener is limited, " +
+            "with a limit adapted to the observed latency: the limit grows while the latency is stable and it shrinks as soon as requests start queueing up. " +
+            "Requests above the limit are rejected with status <b>503 Service Unavailable</b> and a <b>Retry-After</b> header, " +
+            "before the request is mapped and the flow is executed.")
+    private Boolean adaptiveConcurrencyLimit;
+
+    @Property("Initial concurrency limit")
+    @Hint("20")
+    @Example("50")
+    @DefaultValue("20")
+    @When(propertyName = "adaptiveConcurrencyLimit", propertyValue = "true")
+    @Description("The concurrency limit used before any latency has been observed.")
+    private Integer initialConcurrencyLimit;
+
+    @Property("Max concurrency limit")
+    @Hint("200")
+    @Example("500")
+    @DefaultValue("200")
+    @When(propertyName = "adaptiveConcurrencyLimit", propertyValue = "true")
+    @Description("The maximum value the adaptive concurrency limit can grow to.")
+    private Integer maxConcurrencyLimit;
+
+    @Property("Execution model")
+    @Example("THREAD_POOL")
+    @InitValue("INLINE")
+    @DefaultValue("INLINE")
+    @Description("Determines the threads executing the flow and mapping its result to the HTTP response. " +
+            "When set to Inline the flow is executed on the server event loop thread which received the request: " +
+            "a slow flow or script delays all the other connections served by the same event loop. " +
+            "When set to Thread pool the flow is executed on a bounded pool of threads, " +
+            "requests exceeding the pool queue are rejected with status <b>503 Service Unavailable</b>. " +
+            "When set to Virtual threads each request is executed on its own virtual thread, it requires Java 21 or later. " +
+            "In both cases the event loop threads only perform I/O and the response is written back on the event loop of the request.")
+    private ExecutionModel executionModel;
+
+    @Property("Execution pool size")
+    @Hint("64")
+    @Example("32")
+    @When(propertyName = "executionModel", propertyValue = "THREAD_POOL")
+    @Description("The number of threads executing the flow. If not set, eight times the number of available processors.")
+    private Integer executionPoolSize;
+
+    @Property("Execution queue size")
+    @Hint("1000")
+    @Example("500")
+    @DefaultValue("1000")
+    @When(propertyName = "executionModel", propertyValue = "THREAD_POOL")
+    @Description("The maximum number of requests waiting for a thread of the pool.")
+    private Integer executionQueueSize;
+
+    @Property("Response cache")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true and the method is GET, successful responses are cached in memory and sent to the following requests " +
+            "with the same cache key without executing the flow. Cached responses have <b>ETag</b> and <b>Last-Modified</b> headers, " +
+            "conditional requests with a matching <b>If-None-Match</b> are answered with <b>304 Not Modified</b>. " +
+            "Cached responses can be invalidated from a script with <code>HttpResponseCache.invalidate('/api/resource')</code>.")
+    private Boolean responseCache;
+
+    @Property("Cache time to live")
+    @Hint("60000")
+    @Example("300000")
+    @DefaultValue("60000")
+    @When(propertyName = "responseCache", propertyValue = "true")
+    @Description("The time in milliseconds after which a cached response expires.")
+    private Integer responseCacheTtl;
+
+    @Property("Cache max entries")
+    @Hint("1000")
+    @Example("500")
+    @DefaultValue("1000")
+    @When(propertyName = "responseCache", propertyValue = "true")
+    @Description("The maximum number of cached responses. The least recently used responses are evicted first.")
+    private Integer responseCacheMaxEntries;
+
+    @Property("Cache max size")
+    @Hint("16777216")
+    @Example("1048576")
+    @DefaultValue("16777216")
+    @When(propertyName = "responseCache", propertyValue = "true")
+    @Description("The maximum size in bytes of all the cached response bodies. The least recently used responses are evicted first.")
+    private Integer responseCacheMaxSize;
+
+    @Property("Cache key headers")
+    @Hint("Accept, Accept-Language")
+    @Example("Accept, Authorization")
+    @When(propertyName = "responseCache", propertyValue = "true")
+    @Description("Comma separated names of the request headers which are part of the cache key, together with the request path and query string. " +
+            "Requests with different values of these headers get different cached responses. " +
+            "Requests with an Authorization or Cookie header bypass the cache unless the header is listed here, " +
+            "and responses with a Vary header are only cached if all the headers it names are listed here.")
+    private String responseCacheKeyHeaders;
+
     @Group("Response")
     @Property("Response")
     private Response response;
@@ -81,8 +226,12 @@ public class RESTListener extends AbstractInbound {
     private ServerProvider provider;
     @Reference
     private ScriptEngineService scriptEngine;
+    @Reference
+    private ResponseCacheRegistry cacheRegistry;
 
     private RouteDefinition routeDefinition;
+    private ResponseCache cache;
+    private FlowExecutor executor;
 
     @Override
     public void onStart() {
@@ -90,12 +239,34 @@ public class RESTListener extends AbstractInbound {
         requireNotNull(RESTListener.class, configuration.getProtocol(), "RESTListener configuration protocol must be defined");
         requireNotNull(RESTListener.class, method, "RESTListener method must be defined");
         requireTrue(RESTListener.class, isBlank(path) || path.startsWith("/") ,"RESTListener path must start with '/'");
+        requireTrue(RESTListener.class, isHttpVersionSupported(configuration), LISTENER_HTTP_VERSION_NOT_SUPPORTED.format(configuration.getHttpVersion(), configuration.getProtocol()));
+
+        if (RestMethod.GET.equals(method) && Defaults.RestListener.responseCache(responseCache)) {
+            cache = new ResponseCache(
+                    Defaults.RestListener.responseCacheTtl(responseCacheTtl),
+                    Defaults.RestListener.responseCacheMaxEntries(responseCacheMaxEntries),
+                    Defaults.RestListener.responseCacheMaxSize(responseCacheMaxSize),
+                    responseCacheKeyHeaders);
+            cacheRegistry.register(cache);
+        }
+
+        executor = FlowExecutor.create(
+                Defaults.RestListener.executionModel(executionModel),
+                Defaults.RestListener.executionPoolSize(executionPoolSize),
+                Defaults.RestListener.executionQueueSize(executionQueueSize));
 
         HttpRequestHandler requestHandler = DefaultHttpRequestHandler.builder()
                         .inboundEventListener(RESTListener.this)
                         .errorResponse(errorResponse)
                         .scriptEngine(scriptEngine)
                         .streaming(streaming)
+                        .requestBody(requestBody)
+                        .multipart(new MultipartSettings(multipartMemoryThreshold, multipartMaxPartSize, multipartMaxRequestSize))
+                        .adaptiveConcurrencyLimit(adaptiveConcurrencyLimit)
+                        .initialConcurrencyLimit(initialConcurrencyLimit)
+                        .maxConcurrencyLimit(maxConcurrencyLimit)
+                        .responseCache(cache)
+                        .executor(executor)
                         .matchingPath(path)
                         .response(response)
                         .build();
@@ -112,17 +283,43 @@ public class RESTListener extends AbstractInbound {
 
     @Override
     public void onShutdown() {
-        provider.get(configuration).ifPresent(server -> {
-            server.removeRoute(routeDefinition);
+        if (cache != null) {
+            cacheRegistry.unregister(cache);
+            cache = null;
+        }
+        Optional<Server> server = provider.get(configuration);
+        // The route is removed first: no more flows are submitted to the executor.
+        server.ifPresent(current -> {
+            current.removeRoute(routeDefinition);
             this.routeDefinition = null;
+        });
+        if (executor != null) {
+            // Flows already submitted are completed.
+            executor.shutdown();
+            executor = null;
+        }
+        server.ifPresent(current -> {
             try {
-                provider.release(server);
+                provider.release(current);
             } catch (Exception exception) {
                 throw new PlatformException(exception);
             }
         });
     }
 
+    /**
+     * HTTP/2 over TLS (h2) requires the HTTPS protocol, while cleartext HTTP/2 (h2c) requires the HTTP protocol.
+     */
+    static boolean isHttpVersionSupported(RESTListenerConfiguration configuration) {
+        HttpProtocolVersion httpVersion = configuration.getHttpVersion();
+        if (HttpProtocolVersion.H2.equals(httpVersion)) {
+            return HttpProtocol.HTTPS.equals(configuration.getProtocol());
+        } else if (HttpProtocolVersion.H2C.equals(httpVersion)) {
+            return HttpProtocol.HTTP.equals(configuration.getProtocol());
+        }
+        return true;
+    }
+
     public void setConfiguration(RESTListenerConfiguration configuration) {
         this.configuration = configuration;
     }
@@ -147,6 +344,66 @@ public class RESTListener extends AbstractInbound {
         this.streaming = streaming;
     }
 
+    public void setRequestBody(RequestBodyMode requestBody) {
+        this.requestBody = requestBody;
+    }
+
+    public void setMultipartMemoryThreshold(Integer multipartMemoryThreshold) {
+        this.multipartMemoryThreshold = multipartMemoryThreshold;
+    }
+
+    public void setMultipartMaxPartSize(Integer multipartMaxPartSize) {
+        this.multipartMaxPartSize = multipartMaxPartSize;
+    }
+
+    public void setMultipartMaxRequestSize(Integer multipartMaxRequestSize) {
+        this.multipartMaxRequestSize = multipartMaxRequestSize;
+    }
+
+    public void setAdaptiveConcurrencyLimit(Boolean adaptiveConcurrencyLimit) {
+        this.adaptiveConcurrencyLimit = adaptiveConcurrencyLimit;
+    }
+
+    public void setInitialConcurrencyLimit(Integer initialConcurrencyLimit) {
+        this.initialConcurrencyLimit = initialConcurrencyLimit;
+    }
+
+    public void setMaxConcurrencyLimit(Integer maxConcurrencyLimit) {
+        this.maxConcurrencyLimit = maxConcurrencyLimit;
+    }
+
+    public void setExecutionModel(ExecutionModel executionModel) {
+        this.executionModel = executionModel;
+    }
+
+    public void setExecutionPoolSize(Integer executionPoolSize) {
+        this.executionPoolSize = executionPoolSize;
+    }
+
+    public void setExecutionQueueSize(Integer executionQueueSize) {
+        this.executionQueueSize = executionQueueSize;
+    }
+
+    public void setResponseCache(Boolean responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public void setResponseCacheTtl(Integer responseCacheTtl) {
+        this.responseCacheTtl = responseCacheTtl;
+    }
+
+    public void setResponseCacheMaxEntries(Integer responseCacheMaxEntries) {
+        this.responseCacheMaxEntries = responseCacheMaxEntries;
+    }
+
+    public void setResponseCacheMaxSize(Integer responseCacheMaxSize) {
+        this.responseCacheMaxSize = responseCacheMaxSize;
+    }
+
+    public void setResponseCacheKeyHeaders(String responseCacheKeyHeaders) {
+        this.responseCacheKeyHeaders = responseCacheKeyHeaders;
+    }
+
     public void setOpenApi(OperationObject openApi) {
         this.openApi = openApi;
     }
@@ -3,6 +3,8 @@ package com.reedelk.rest.component;
 import com.reedelk.rest.component.listener.SecurityConfiguration;
 import com.reedelk.rest.component.listener.openapi.v3.OpenApiObject;
 import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import com.reedelk.rest.internal.commons.Transport;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.Implementor;
 import org.osgi.service.component.annotations.Component;
@@ -20,6 +22,16 @@ public class RESTListenerConfiguration implements Implementor {
     @Description("The http protocol to use. Possible values are: <b>HTTP</b>, <b>HTTPS</b>.")
     private HttpProtocol protocol = HttpProtocol.HTTP;
 
+    @Property("HTTP version")
+    @Example("H2")
+    @InitValue("HTTP_1_1")
+    @DefaultValue("HTTP_1_1")
+    @Description("The HTTP versions accepted by this listener. Possible values are: " +
+            "<b>HTTP_1_1</b>: HTTP/1.1 only, " +
+            "<b>H2C</b>: HTTP/1.1 and cleartext HTTP/2 with prior knowledge or upgrade, requires protocol HTTP, " +
+            "<b>H2</b>: HTTP/1.1 and HTTP/2 over TLS negotiated with ALPN, requires protocol HTTPS.")
+    private HttpProtocolVersion httpVersion = HttpProtocolVersion.HTTP_1_1;
+
     @Property("Host")
     @Hint("localhost")
     @Example("localhost")
@@ -84,6 +96,21 @@ public class RESTListenerConfiguration implements Implementor {
     @Description("If true, open API is not exposed for all endpoints using this REST Listener Configuration.")
     private Boolean disableOpenApi;
 
+    @Property("Enable metrics")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the latency, response status and bytes metrics of all the endpoints using this REST Listener Configuration " +
+            "are exposed in Prometheus text format on the <b>/metrics</b> path.")
+    private Boolean enableMetrics;
+
+    @Property("Event loop watchdog threshold (ms)")
+    @Hint("100")
+    @Example("100")
+    @Description("If set, the server event loop threads are watched: when an event loop does not run tasks for longer than the given time, " +
+            "e.g. because of a slow script or a blocking call executed inline, the stack trace of the blocked thread is logged and the event is counted. " +
+            "The counts are exposed on the <b>/metrics</b> path when metrics are enabled.")
+    private Integer watchdogThreshold;
+
     @Property("Keep alive")
     @Example("true")
     @InitValue("true")
@@ -91,6 +118,30 @@ public class RESTListenerConfiguration implements Implementor {
     @Description("Enables socket keep alive for this listener.")
     private Boolean keepAlive;
 
+    @Property("Transport")
+    @Example("EPOLL")
+    @InitValue("AUTO")
+    @DefaultValue("AUTO")
+    @Description("The network transport used by this listener. Possible values are: <b>AUTO</b>, <b>NIO</b>, <b>EPOLL</b>. " +
+            "When <b>AUTO</b>, the native epoll transport is used if available on the current platform, NIO otherwise.")
+    private Transport transport = Transport.AUTO;
+
+    @Property("Boss threads")
+    @Hint("1")
+    @Example("2")
+    @DefaultValue("1")
+    @Description("The number of threads accepting incoming connections. " +
+            "Threads are shared by all the listeners using the same transport and number of threads.")
+    private Integer bossThreads;
+
+    @Property("Worker threads")
+    @Hint("8")
+    @Example("16")
+    @Description("The number of event loop threads handling the I/O of accepted connections. " +
+            "Threads are shared by all the listeners using the same transport and number of threads. " +
+            "Defaults to twice the number of available processors.")
+    private Integer workerThreads;
+
     @Property("Security configuration")
     @When(propertyName = "protocol", propertyValue = "HTTPS")
     private SecurityConfiguration securityConfiguration;
@@ -124,6 +175,14 @@ public class RESTListenerConfiguration implements Implementor {
         this.protocol = protocol;
     }
 
+    public HttpProtocolVersion getHttpVersion() {
+        return httpVersion;
+    }
+
+    public void setHttpVersion(HttpProtocolVersion httpVersion) {
+        this.httpVersion = httpVersion;
+    }
+
     public Boolean getKeepAlive() {
         return keepAlive;
     }
@@ -132,6 +191,30 @@ public class RESTListenerConfiguration implements Implementor {
         this.keepAlive = keepAlive;
     }
 
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public Integer getBossThreads() {
+        return bossThreads;
+    }
+
+    public void setBossThreads(Integer bossThreads) {
+        this.bossThreads = bossThreads;
+    }
+
+    public Integer getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(Integer workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
     public Integer getReadTimeoutMillis() {
         return readTimeoutMillis;
     }
@@ -211,4 +294,20 @@ public class RESTListenerConfiguration implements Implementor {
     public void setDisableOpenApi(Boolean disableOpenApi) {
         this.disableOpenApi = disableOpenApi;
     }
+
+    public Boolean getEnableMetrics() {
+        return enableMetrics;
+    }
+
+    public void setEnableMetrics(Boolean enableMetrics) {
+        this.enableMetrics = enableMetrics;
+    }
+
+    public Integer getWatchdogThreshold() {
+        return watchdogThreshold;
+    }
+
+    public void setWatchdogThreshold(Integer watchdogThreshold) {
+        this.watchdogThreshold = watchdogThreshold;
+    }
 }
@@ -0,0 +1,91 @@
+package com.reedelk.rest.component.client;
+
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.Implementor;
+import org.osgi.service.component.annotations.Component;
+
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@Component(service = CacheConfiguration.class, scope = PROTOTYPE)
+public class CacheConfiguration implements Implementor {
+
+    @Property("Max entries")
+    @Hint("1000")
+    @Example("5000")
+    @DefaultValue("1000")
+    @Description("The maximum number of responses kept in memory. When full, the least recently used response " +
+            "is moved to the disk cache, if enabled, or discarded otherwise.")
+    private Integer maxEntries;
+
+    @Property("Max entry size")
+    @Hint("1048576")
+    @Example("65536")
+    @DefaultValue("1048576")
+    @Description("The size in bytes above which a response body is not stored in the cache.")
+    private Integer maxEntrySize;
+
+    @Property("Disk cache")
+    @Example("true")
+    @InitValue("false")
+    @DefaultValue("false")
+    @Description("If true, the responses evicted from memory are stored in memory-mapped files, " +
+            "and they are moved back to memory when they are used again.")
+    private Boolean diskCache;
+
+    @Property("Disk cache directory")
+    @Hint("/var/cache/reedelk")
+    @Example("/var/cache/reedelk")
+    @DefaultValue("A temporary directory")
+    @When(propertyName = "diskCache", propertyValue = "true")
+    @Description("The directory where the disk cache files are written. The files are deleted when the client is closed.")
+    private String diskCacheDirectory;
+
+    @Property("Disk cache max size (MB)")
+    @Hint("256")
+    @Example("1024")
+    @DefaultValue("256")
+    @When(propertyName = "diskCache", propertyValue = "true")
+    @Description("The maximum total size in megabytes of the disk cache files. When full, " +
+            "the least recently used responses are deleted.")
+    private Integer diskCacheMaxSize;
+
+    public Integer getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(Integer maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Integer getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(Integer maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public Boolean getDiskCache() {
+        return diskCache;
+    }
+
+    public void setDiskCache(Boolean diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    public String getDiskCacheDirectory() {
+        return diskCacheDirectory;
+    }
+
+    public void setDiskCacheDirectory(String diskCacheDirectory) {
+        this.diskCacheDirectory = diskCacheDirectory;
+    }
+
+    public Integer getDiskCacheMaxSize() {
+        return diskCacheMaxSize;
+    }
+
+    public void setDiskCacheMaxSize(Integer diskCacheMaxSize) {
+        this.diskCacheMaxSize = diskCacheMaxSize;
+    }
+}
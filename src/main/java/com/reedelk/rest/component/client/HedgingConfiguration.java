@@ -0,0 +1,58 @@
+package com.reedelk.rest.component.client;
+
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.Implementor;
+import org.osgi.service.component.annotations.Component;
+
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@Component(service = HedgingConfiguration.class, scope = PROTOTYPE)
+public class HedgingConfiguration implements Implementor {
+
+    @Property("Hedging delay (ms)")
+    @Hint("100")
+    @Example("50")
+    @DefaultValue("100")
+    @Description("The time after which a second attempt is sent if the first one has not completed yet. " +
+            "When a latency percentile is set, it is used until enough latencies have been observed.")
+    private Integer delay;
+
+    @Property("Latency percentile")
+    @Hint("95")
+    @Example("99")
+    @Description("If set, the hedging delay is the given percentile of the latencies observed by this REST Client, " +
+            "e.g. with 95 a second attempt is sent for the 5% slowest requests.")
+    private Integer percentile;
+
+    @Property("Budget (%)")
+    @Hint("10")
+    @Example("5")
+    @DefaultValue("10")
+    @Description("The maximum number of second attempts, as a percentage of the requests sent by this REST Client, " +
+            "so that the load on the remote host stays bounded when it is slow for every request.")
+    private Integer budget;
+
+    public Integer getDelay() {
+        return delay;
+    }
+
+    public void setDelay(Integer delay) {
+        this.delay = delay;
+    }
+
+    public Integer getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(Integer percentile) {
+        this.percentile = percentile;
+    }
+
+    public Integer getBudget() {
+        return budget;
+    }
+
+    public void setBudget(Integer budget) {
+        this.budget = budget;
+    }
+}
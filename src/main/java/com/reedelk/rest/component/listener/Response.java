@@ -22,14 +22,16 @@ public class Response implements Implementor {
     @Property("Status")
     @Hint("200")
     @InitValue("200")
-    @Description("The status code of the response might be a static or a dynamic value, e.g. could be a variable defined in the flow context: <i>context.myResponseStatus</i>.")
+    @Description("The status code of the response might be a static or a dynamic value, e.g. could be a variable defined in the flow context: <i>context.myResponseStatus</i>. " +
+            "When the message is a response relayed by a REST Client in pass-through mode and the status is not set, the relayed status is used.")
     private DynamicInteger status;
 
     @Property("Response Headers")
     @TabGroup("Response Headers")
     @KeyName("Header Name")
     @ValueName("Header Value")
-    @Description("Additional headers to be set in the HTTP response.")
+    @Description("Additional headers to be set in the HTTP response. " +
+            "They override the headers relayed by a REST Client in pass-through mode, including the content type.")
     private DynamicStringMap headers = DynamicStringMap.empty();
 
     public DynamicByteArray getBody() {
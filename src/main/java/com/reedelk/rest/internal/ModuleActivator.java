@@ -2,6 +2,7 @@ package com.reedelk.rest.internal;
 
 import com.reedelk.rest.internal.client.HttpClientFactory;
 import com.reedelk.rest.internal.script.GlobalFunctions;
+import com.reedelk.rest.internal.server.cache.ResponseCacheRegistry;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
@@ -19,11 +20,13 @@ public class ModuleActivator {
     private HttpClientFactory factory;
     @Reference
     private ScriptEngineService scriptEngine;
+    @Reference
+    private ResponseCacheRegistry responseCacheRegistry;
 
     @Activate
     public void start(BundleContext context) {
         long moduleId = context.getBundle().getBundleId();
-        GlobalFunctions globalFunctions = new GlobalFunctions(moduleId);
+        GlobalFunctions globalFunctions = new GlobalFunctions(moduleId, responseCacheRegistry);
         scriptEngine.register(globalFunctions);
     }
 
@@ -0,0 +1,10 @@
+package com.reedelk.rest.internal;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class RequestEntityTooLargeException extends PlatformException {
+
+    public RequestEntityTooLargeException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,101 @@
+package com.reedelk.rest.internal.attribute;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Serializable map whose content is computed on first access and then cached.
+ * When serialized it is replaced by the map it wraps, therefore a deserialized
+ * lazy map is not distinguishable from an eagerly computed one.
+ */
+class LazyMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private transient Supplier<? extends Map<K, V>> supplier;
+    private transient volatile Map<K, V> delegate;
+
+    LazyMap(Supplier<? extends Map<K, V>> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public int size() {
+        return delegate().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate().isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return delegate().containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return delegate().containsValue(value);
+    }
+
+    @Override
+    public V get(Object key) {
+        return delegate().get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return delegate().put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return delegate().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate().clear();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate().keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return delegate().values();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return delegate().entrySet();
+    }
+
+    boolean isMaterialized() {
+        return delegate != null;
+    }
+
+    private Map<K, V> delegate() {
+        Map<K, V> current = delegate;
+        if (current == null) {
+            synchronized (this) {
+                current = delegate;
+                if (current == null) {
+                    current = supplier.get();
+                    delegate = current;
+                    supplier = null;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Object writeReplace() {
+        return delegate();
+    }
+}
@@ -1,6 +1,7 @@
 package com.reedelk.rest.internal.attribute;
 
 import com.reedelk.rest.internal.commons.HttpHeadersAsMap;
+import com.reedelk.rest.internal.commons.PassThroughHeaders;
 import com.reedelk.runtime.api.annotation.Type;
 import com.reedelk.runtime.api.annotation.TypeProperty;
 import com.reedelk.runtime.api.message.MessageAttributes;
@@ -15,11 +16,19 @@ import static com.reedelk.rest.internal.attribute.RESTClientAttributes.*;
 @TypeProperty(name = REASON_PHRASE, type = String.class)
 @TypeProperty(name = STATUS_CODE, type = int.class)
 @TypeProperty(name = HEADERS, type = Map.class)
+@TypeProperty(name = PASS_THROUGH, type = boolean.class)
 public class RESTClientAttributes extends MessageAttributes {
 
     public static final String REASON_PHRASE = "reasonPhrase";
     public static final String STATUS_CODE = "statusCode";
+    /**
+     * The response headers, in both modes a case insensitive {@code TreeMap<String, List<String>>}
+     * from the header name to its values. Comma separated values are split, except in pass-through
+     * mode, where each value is kept as received, e.g. each 'Set-Cookie' header is a distinct value,
+     * and the headers which are not relayed are left out.
+     */
     public static final String HEADERS =  "headers";
+    public static final String PASS_THROUGH = "passThrough";
 
     public RESTClientAttributes(HttpResponse response) {
         StatusLine statusLine = response.getStatusLine();
@@ -27,5 +36,17 @@ public class RESTClientAttributes extends MessageAttributes {
         put(REASON_PHRASE, statusLine.getReasonPhrase());
         put(STATUS_CODE, statusLine.getStatusCode());
     }
+
+    /**
+     * The attributes of a response relayed in pass-through mode: the headers are the ones
+     * relayed back to the client, and their values are kept as they have been received.
+     */
+    public RESTClientAttributes(HttpResponse response, PassThroughHeaders passThroughHeaders) {
+        StatusLine statusLine = response.getStatusLine();
+        put(HEADERS, passThroughHeaders.response(response.getAllHeaders()));
+        put(REASON_PHRASE, statusLine.getReasonPhrase());
+        put(STATUS_CODE, statusLine.getStatusCode());
+        put(PASS_THROUGH, true);
+    }
 }
 
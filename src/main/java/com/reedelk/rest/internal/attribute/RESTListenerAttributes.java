@@ -41,20 +41,22 @@ public class RESTListenerAttributes extends MessageAttributes {
         put(MATCHING_PATH, matchingPath);
         put(METHOD, request.method());
         put(SCHEME, request.scheme());
-        put(HEADERS, request.headers());
         put(VERSION, request.version());
-        put(PATH_PARAMS, request.params());
         put(REQUEST_URI, request.requestUri());
         put(REQUEST_PATH, request.requestPath());
-        put(QUERY_PARAMS, request.queryParams());
         put(QUERY_STRING, request.queryString());
         put(REMOTE_ADDRESS, request.remoteAddress());
 
+        // Headers, path and query params are built only if and when
+        // they are accessed, e.g. by a script using the message attributes.
+        put(HEADERS, new LazyMap<>(request::headers));
+        put(PATH_PARAMS, new LazyMap<>(request::params));
+        put(QUERY_PARAMS, new LazyMap<>(request::queryParams));
+
         // We must set the correlation ID in the Attributes if X-Correlation-ID header is
         // present in the Request Headers, so that the Flow context can use it to set
         // the 'correlationId' context variable available in each flow execution instance.
-        if (request.headers().containsKey(HttpHeader.X_CORRELATION_ID)) {
-            put(CORRELATION_ID, request.headers().get(HttpHeader.X_CORRELATION_ID).get(0));
-        }
+        request.headerFirstValue(HttpHeader.X_CORRELATION_ID)
+                .ifPresent(correlationId -> put(CORRELATION_ID, correlationId));
     }
 }
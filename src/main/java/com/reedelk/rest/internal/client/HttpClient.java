@@ -1,7 +1,9 @@
 package com.reedelk.rest.internal.client;
 
+import com.reedelk.rest.internal.client.cache.ResponseCache;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
 import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
@@ -18,18 +20,36 @@ public class HttpClient {
 
     private final CloseableHttpAsyncClient delegate;
     private final HttpClientContextProvider contextProvider;
+    private final ResponseCache cache;
 
     HttpClient(CloseableHttpAsyncClient delegate) {
         this.delegate = requireNonNull(delegate, "delegate http client");
         this.contextProvider = null;
+        this.cache = null;
     }
 
     HttpClient(CloseableHttpAsyncClient delegate, HttpClientContextProvider contextProvider) {
+        this(delegate, contextProvider, null);
+    }
+
+    /**
+     * @param cache the response cache of the client, or null if responses are not cached.
+     */
+    HttpClient(CloseableHttpAsyncClient delegate, HttpClientContextProvider contextProvider, ResponseCache cache) {
         this.delegate = delegate;
         this.contextProvider = contextProvider;
+        this.cache = cache;
+    }
+
+    public Future<HttpResponse> execute(HttpAsyncRequestProducer requestProducer, HttpAsyncResponseConsumer<HttpResponse> responseConsumer, FutureCallback<HttpResponse> callback) {
+        if (cache != null) {
+            // Requests answered by the cache do not acquire a connection.
+            return cache.execute(requestProducer, responseConsumer, callback, this::send);
+        }
+        return send(requestProducer, responseConsumer, callback);
     }
 
-    public Future<HttpResponse> execute(HttpAsyncRequestProducer requestProducer, HttpAsyncResponseConsumer<HttpResponse> responseConsumer, HttpClientResultCallback callback) {
+    private Future<HttpResponse> send(HttpAsyncRequestProducer requestProducer, HttpAsyncResponseConsumer<HttpResponse> responseConsumer, FutureCallback<HttpResponse> callback) {
         if (contextProvider != null) {
             HttpClientContext context = contextProvider.provide();
             return delegate.execute(requestProducer, responseConsumer, context, callback);
@@ -44,6 +64,7 @@ public class HttpClient {
         } catch (Exception e) {
             logger.warn("Error while closing http client", e);
         }
+        if (cache != null) cache.close();
     }
 
     public void start() {
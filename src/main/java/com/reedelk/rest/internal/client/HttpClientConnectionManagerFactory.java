@@ -1,6 +1,7 @@
 package com.reedelk.rest.internal.client;
 
 import com.reedelk.rest.component.RESTClientConfiguration;
+import com.reedelk.rest.internal.metrics.BlockingWatchdog;
 import com.reedelk.runtime.api.exception.PlatformException;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
@@ -8,6 +9,7 @@ import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
 import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.nio.conn.NHttpClientConnectionManager;
 import org.apache.http.nio.conn.NoopIOSessionStrategy;
 import org.apache.http.nio.conn.SchemeIOSessionStrategy;
@@ -18,30 +20,52 @@ import org.apache.http.ssl.SSLContexts;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class HttpClientConnectionManagerFactory {
 
-    private static final int DEFAULT_CONNECTIONS_CLIENT = 10;
+    static final int DEFAULT_CONNECTIONS_CLIENT = 10;
+    private static final String IO_REACTOR_POOL_NAME = "rest-client-io-reactor";
 
     private HttpClientConnectionManagerFactory() {
     }
 
-    public static NHttpClientConnectionManager create(RESTClientConfiguration configuration) {
-            boolean isTrustCertificates = Optional.ofNullable(configuration.getTrustCertificates()).orElse(false);
-            Registry<SchemeIOSessionStrategy> registry = createRegistry(isTrustCertificates);
-            int maxConnections = Optional.ofNullable(configuration.getMaxPoolConnections()).orElse(DEFAULT_CONNECTIONS_CLIENT);
+    /**
+     * @param watchdog the watchdog of the IO reactor threads, used only when the configuration defines a watchdog threshold.
+     */
+    public static NHttpClientConnectionManager create(RESTClientConfiguration configuration, BlockingWatchdog watchdog) {
+        boolean isTrustCertificates = Optional.ofNullable(configuration.getTrustCertificates()).orElse(false);
+        int maxConnections = maxConnections(configuration);
+        PoolingNHttpClientConnectionManager pool =
+                createPool(isTrustCertificates, configuration.getConnectionTimeToLive(), configuration.getWatchdogThreshold(), watchdog);
+        pool.setDefaultMaxPerRoute(maxConnections);
+        pool.setMaxTotal(maxConnections);
+        return pool;
+    }
 
+    /**
+     * Creates a pool whose limits are set by the caller. Connections are closed once the given
+     * time to live has elapsed, if not null. The IO reactor threads are watched by the given
+     * watchdog only if the watchdog threshold is not null.
+     */
+    static PoolingNHttpClientConnectionManager createPool(boolean isTrustCertificates, Integer timeToLive, Integer watchdogThreshold, BlockingWatchdog watchdog) {
+        Registry<SchemeIOSessionStrategy> registry = createRegistry(isTrustCertificates);
         try {
-            DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor();
-            PoolingNHttpClientConnectionManager pool = new PoolingNHttpClientConnectionManager(ioReactor, registry);
-            pool.setDefaultMaxPerRoute(maxConnections);
-            pool.setMaxTotal(maxConnections);
-            return pool;
+            DefaultConnectingIOReactor ioReactor = watchdogThreshold == null ?
+                    new DefaultConnectingIOReactor() :
+                    new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT, watchdog.threadFactory(IO_REACTOR_POOL_NAME, watchdogThreshold));
+            // A non positive time to live means that connections never expire.
+            long timeToLiveMillis = timeToLive == null ? -1 : timeToLive;
+            return new PoolingNHttpClientConnectionManager(ioReactor, null, registry, null, null, timeToLiveMillis, TimeUnit.MILLISECONDS);
         } catch (Exception exception) {
             throw new PlatformException(exception);
         }
     }
 
+    public static int maxConnections(RESTClientConfiguration configuration) {
+        return Optional.ofNullable(configuration.getMaxPoolConnections()).orElse(DEFAULT_CONNECTIONS_CLIENT);
+    }
+
     // Allow all certificates: don't verify hostname and always trust any certificate.
     private static Registry<SchemeIOSessionStrategy> createRegistry(boolean isTrustCertificates) {
         try {
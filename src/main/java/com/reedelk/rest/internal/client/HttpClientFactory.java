@@ -3,21 +3,32 @@ package com.reedelk.rest.internal.client;
 import com.reedelk.rest.component.RESTClient;
 import com.reedelk.rest.component.RESTClientConfiguration;
 import com.reedelk.rest.component.client.*;
+import com.reedelk.rest.internal.client.cache.ResponseCache;
+import com.reedelk.rest.internal.client.netty.NettyHttpClientFactory;
+import com.reedelk.rest.internal.commons.ClientEngine;
+import com.reedelk.rest.internal.metrics.BlockingWatchdog;
+import com.reedelk.rest.internal.server.ServerProvider;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.NoConnectionReuseStrategy;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
 import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import java.util.*;
 
+import static com.reedelk.rest.internal.commons.Defaults.RestClient.*;
 import static com.reedelk.rest.internal.commons.Messages.RestClient.*;
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
 import static org.osgi.service.component.annotations.ServiceScope.SINGLETON;
@@ -25,13 +36,36 @@ import static org.osgi.service.component.annotations.ServiceScope.SINGLETON;
 @Component(service = HttpClientFactory.class, scope = SINGLETON)
 public class HttpClientFactory {
 
-    private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 6000;
-    private static final int DEFAULT_CONNECT_TIMEOUT = 6000;
-    private static final int DEFAULT_SOCKET_TIMEOUT = 60000;
+    @Reference
+    private BlockingWatchdog watchdog;
+    @Reference
+    private ServerProvider serverProvider;
 
     private final Map<String, HttpClient> configIdClientMap = new HashMap<>();
     private final Map<String, List<RESTClient>> configIdClients = new HashMap<>();
 
+    private final Map<String, NHttpClientConnectionManager> configIdConnectionManager = new HashMap<>();
+    private final IdleConnectionEvictor evictor = new IdleConnectionEvictor();
+
+    // Listener event loops retained by the Netty clients running on them.
+    private final Map<String, ListenerEventLoops> configIdEventLoops = new HashMap<>();
+
+    private SharedConnectionManager sharedConnectionManager;
+
+    // The client shared by all the REST Clients defined with a base URL only.
+    private HttpClient baseUrlClient;
+    private NHttpClientConnectionManager baseUrlConnectionManager;
+    private int baseUrlClientReferences;
+
+    private int baseUrlMaxConnections = baseUrlMaxConnections(null);
+    private int baseUrlMaxConnectionsPerRoute = baseUrlMaxConnectionsPerRoute(null);
+
+    @Activate
+    public void activate(BundleContext context) {
+        baseUrlMaxConnections = baseUrlMaxConnections(context.getProperty(BASE_URL_MAX_CONNECTIONS_PROPERTY));
+        baseUrlMaxConnectionsPerRoute = baseUrlMaxConnectionsPerRoute(context.getProperty(BASE_URL_MAX_CONNECTIONS_PER_ROUTE_PROPERTY));
+    }
+
     public synchronized HttpClient create(RESTClient listener, RESTClientConfiguration configuration) {
         String configId = configuration.getId();
         if (configIdClientMap.containsKey(configId)) {
@@ -48,6 +82,13 @@ public class HttpClientFactory {
 
         // We need to create a new client...
 
+        if (ClientEngine.NETTY.equals(configuration.getEngine())) {
+            // Connections are pooled by the Netty client itself.
+            ListenerEventLoops eventLoops = listenerEventLoops(configuration);
+            HttpClient client = new HttpClient(NettyHttpClientFactory.create(configuration, eventLoops), null, createCache(configuration));
+            return register(listener, configuration, client);
+        }
+
         HttpAsyncClientBuilder builder = HttpAsyncClients.custom();
 
         HttpClientContext context = HttpClientContext.create();
@@ -55,8 +96,24 @@ public class HttpClientFactory {
         CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
 
         // Connection Pool
-        NHttpClientConnectionManager poolConnectionManager =
-                HttpClientConnectionManagerFactory.create(configuration);
+        boolean isSharedConnectionManager = SharedConnectionManager.isShareable(configuration);
+        NHttpClientConnectionManager poolConnectionManager;
+        if (isSharedConnectionManager) {
+            SharedConnectionManager shared = sharedConnectionManager(configuration);
+            poolConnectionManager = shared.register(configuration);
+            evictor.register(shared.connectionManager(), shared.idleTimeout());
+        } else {
+            poolConnectionManager = HttpClientConnectionManagerFactory.create(configuration, watchdog);
+            configIdConnectionManager.put(configId, poolConnectionManager);
+            evictor.register(poolConnectionManager, idleConnectionTimeout(configuration.getIdleConnectionTimeout()));
+        }
+
+        // Keep alive: connections are not reused if keep alive is disabled.
+        if (Boolean.FALSE.equals(configuration.getKeepAlive())) {
+            builder.setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE);
+        } else {
+            builder.setKeepAliveStrategy(new KeepAliveStrategy(configuration.getIdleConnectionTimeout()));
+        }
 
         // Request config
         RequestConfig requestConfig = createRequestConfig(configuration);
@@ -89,34 +146,42 @@ public class HttpClientFactory {
         CloseableHttpAsyncClient asyncClient = builder
                 .setDefaultRequestConfig(requestConfig)
                 .setConnectionManager(poolConnectionManager)
+                .setConnectionManagerShared(isSharedConnectionManager)
                 .setDefaultCredentialsProvider(credentialsProvider)
                 .build();
 
         HttpClientContextProvider contextProvider = new HttpClientContextProvider(authHost, configuration.getBasicAuthentication(), configuration.getDigestAuthentication());
-        HttpClient client = new HttpClient(asyncClient, contextProvider);
-
-        List<RESTClient> listeners;
-        if (!configIdClients.containsKey(configId)) {
-            listeners = new ArrayList<>();
-            configIdClients.put(configId, listeners);
-        } else {
-            listeners = configIdClients.get(configId);
-        }
-        listeners.add(listener);
-        configIdClientMap.put(configId, client);
-
-        client.start();
-        return client;
+        HttpClient client = new HttpClient(asyncClient, contextProvider, createCache(configuration));
+        return register(listener, configuration, client);
     }
 
+    /**
+     * Returns the client shared by all the REST Clients defined with a base URL only.
+     * Its connections are pooled by route, i.e. by scheme, host and port. The client
+     * is closed when it has been released by all the REST Clients using it. Cookies are
+     * not managed: a cookie set by a server would otherwise be sent by every REST Client.
+     */
     public synchronized HttpClient create() {
-        RequestConfig defaultRequestConfig = newDefaultRequestConfig();
-        CloseableHttpAsyncClient client = HttpAsyncClientBuilder.create()
-                .setDefaultRequestConfig(defaultRequestConfig)
-                .build();
-        HttpClient wrapper = new HttpClient(client);
-        wrapper.start();
-        return wrapper;
+        if (baseUrlClient == null) {
+            PoolingNHttpClientConnectionManager pool =
+                    HttpClientConnectionManagerFactory.createPool(false, null, null, watchdog);
+            pool.setMaxTotal(baseUrlMaxConnections);
+            pool.setDefaultMaxPerRoute(baseUrlMaxConnectionsPerRoute);
+
+            RequestConfig defaultRequestConfig = newDefaultRequestConfig();
+            CloseableHttpAsyncClient client = HttpAsyncClientBuilder.create()
+                    .setDefaultRequestConfig(defaultRequestConfig)
+                    .setConnectionManager(pool)
+                    .setKeepAliveStrategy(new KeepAliveStrategy(null))
+                    .disableCookieManagement()
+                    .build();
+            baseUrlClient = new HttpClient(client);
+            baseUrlClient.start();
+            baseUrlConnectionManager = pool;
+            evictor.register(pool, idleConnectionTimeout(null));
+        }
+        baseUrlClientReferences++;
+        return baseUrlClient;
     }
 
     public synchronized void shutdown() {
@@ -128,11 +193,35 @@ public class HttpClientFactory {
         });
         configIdClientMap.clear();
         configIdClients.clear();
+        configIdConnectionManager.clear();
+        evictor.shutdown();
+
+        // The clients running on the listener event loops have been closed.
+        configIdEventLoops.values().forEach(ListenerEventLoops::release);
+        configIdEventLoops.clear();
+
+        if (sharedConnectionManager != null) {
+            sharedConnectionManager.close();
+            sharedConnectionManager = null;
+        }
+
+        if (baseUrlClient != null) {
+            baseUrlClient.close();
+            baseUrlClient = null;
+            baseUrlConnectionManager = null;
+            baseUrlClientReferences = 0;
+        }
     }
 
     public synchronized void release(RESTClientConfiguration connectionConfig, RESTClient client, HttpClient httpClient) {
         if (connectionConfig == null) {
-            httpClient.close();
+            if (httpClient == baseUrlClient && --baseUrlClientReferences == 0) {
+                // There are no more users of the client.
+                baseUrlClient.close();
+                baseUrlClient = null;
+                evictor.unregister(baseUrlConnectionManager);
+                baseUrlConnectionManager = null;
+            }
         } else {
             String configId = connectionConfig.getId();
             if (configIdClients.containsKey(configId)) {
@@ -145,12 +234,80 @@ public class HttpClientFactory {
                         if (removed != null) {
                             removed.close();
                         }
+                        NHttpClientConnectionManager removedConnectionManager = configIdConnectionManager.remove(configId);
+                        if (removedConnectionManager != null) {
+                            evictor.unregister(removedConnectionManager);
+                        }
+                        ListenerEventLoops removedEventLoops = configIdEventLoops.remove(configId);
+                        if (removedEventLoops != null) {
+                            removedEventLoops.release();
+                        }
+                        releaseSharedConnectionManager(connectionConfig);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Returns the worker event loops of the REST Listeners if the configuration uses them.
+     * They are resolved on the first request and retained until the client is released,
+     * so that they are not shut down while the client is running on them.
+     */
+    private ListenerEventLoops listenerEventLoops(RESTClientConfiguration configuration) {
+        if (!Boolean.TRUE.equals(configuration.getUseListenerEventLoops())) {
+            return null;
+        }
+        ListenerEventLoops eventLoops = new ListenerEventLoops(configuration.getId(), serverProvider);
+        configIdEventLoops.put(configuration.getId(), eventLoops);
+        return eventLoops;
+    }
+
+    private static ResponseCache createCache(RESTClientConfiguration configuration) {
+        return Boolean.TRUE.equals(configuration.getCache()) ?
+                ResponseCache.create(configuration.getId(), configuration.getCacheConfiguration()) :
+                null;
+    }
+
+    private HttpClient register(RESTClient listener, RESTClientConfiguration configuration, HttpClient client) {
+        String configId = configuration.getId();
+        List<RESTClient> listeners;
+        if (!configIdClients.containsKey(configId)) {
+            listeners = new ArrayList<>();
+            configIdClients.put(configId, listeners);
+        } else {
+            listeners = configIdClients.get(configId);
+        }
+        listeners.add(listener);
+        configIdClientMap.put(configId, client);
+
+        client.start();
+        return client;
+    }
+
+    // The shared IO reactor threads are watched, and the shared connections expire, according to
+    // the watchdog threshold and the time to live of the first configuration sharing them: the
+    // configurations defining different ones are rejected when they are registered.
+    private SharedConnectionManager sharedConnectionManager(RESTClientConfiguration configuration) {
+        if (sharedConnectionManager == null) {
+            sharedConnectionManager = new SharedConnectionManager(configuration.getConnectionTimeToLive(), configuration.getWatchdogThreshold(), watchdog);
+        }
+        return sharedConnectionManager;
+    }
+
+    private void releaseSharedConnectionManager(RESTClientConfiguration configuration) {
+        if (sharedConnectionManager != null && SharedConnectionManager.isShareable(configuration)) {
+            if (sharedConnectionManager.unregister(configuration)) {
+                // There are no more configurations sharing connections.
+                evictor.unregister(sharedConnectionManager.connectionManager());
+                sharedConnectionManager.close();
+                sharedConnectionManager = null;
+            } else {
+                evictor.register(sharedConnectionManager.connectionManager(), sharedConnectionManager.idleTimeout());
+            }
+        }
+    }
+
     private void configureBasicAuth(HttpHost host, BasicAuthenticationConfiguration basicAuthConfig, CredentialsProvider credentialsProvider, HttpClientContext context) {
         addCredentialsFor(credentialsProvider, host, basicAuthConfig.getUsername(), basicAuthConfig.getPassword());
     }
@@ -187,15 +344,15 @@ public class HttpClientFactory {
                 .ifPresent(builder::setExpectContinueEnabled);
 
         Integer connectionRequestTimeout = Optional.ofNullable(configuration.getRequestTimeout())
-                .orElse(DEFAULT_CONNECTION_REQUEST_TIMEOUT);
+                .orElse(CONNECTION_REQUEST_TIMEOUT);
         builder.setConnectionRequestTimeout(connectionRequestTimeout);
 
         Integer connectTimeout = Optional.ofNullable(configuration.getConnectTimeout())
-                .orElse(DEFAULT_CONNECT_TIMEOUT);
+                .orElse(CONNECT_TIMEOUT);
         builder.setConnectTimeout(connectTimeout);
 
         Integer socketTimeout = Optional.ofNullable(configuration.getSocketTimeout())
-                .orElse(DEFAULT_SOCKET_TIMEOUT);
+                .orElse(SOCKET_TIMEOUT);
         builder.setSocketTimeout(socketTimeout);
 
         return builder.build();
@@ -204,9 +361,9 @@ public class HttpClientFactory {
     // See Request Config for documentation on how to set the values correctly.
     private RequestConfig newDefaultRequestConfig() {
         return RequestConfig.custom()
-                .setConnectionRequestTimeout(DEFAULT_CONNECTION_REQUEST_TIMEOUT)
-                .setConnectTimeout(DEFAULT_CONNECT_TIMEOUT)
-                .setSocketTimeout(DEFAULT_SOCKET_TIMEOUT)
+                .setConnectionRequestTimeout(CONNECTION_REQUEST_TIMEOUT)
+                .setConnectTimeout(CONNECT_TIMEOUT)
+                .setSocketTimeout(SOCKET_TIMEOUT)
                 .build();
     }
 
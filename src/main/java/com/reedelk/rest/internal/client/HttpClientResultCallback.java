@@ -1,8 +1,10 @@
 package com.reedelk.rest.internal.client;
 
 import com.reedelk.rest.internal.client.response.HttpResponseMessageMapper;
+import com.reedelk.rest.internal.client.response.ResponseStreamEntity;
 import com.reedelk.rest.internal.commons.HttpHeadersAsMap;
 import com.reedelk.rest.internal.commons.IsSuccessfulStatus;
+import com.reedelk.rest.internal.commons.PassThroughHeaders;
 import com.reedelk.runtime.api.commons.StackTraceUtils;
 import com.reedelk.runtime.api.component.OnResult;
 import com.reedelk.runtime.api.exception.PlatformException;
@@ -18,10 +20,12 @@ import org.apache.http.util.EntityUtils;
 import java.net.URI;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.reedelk.rest.internal.commons.Messages.RestClient.REQUEST_CANCELLED;
 import static com.reedelk.rest.internal.commons.Messages.RestClient.REQUEST_FAILED;
 import static com.reedelk.runtime.api.commons.StringUtils.isNotBlank;
+import static reactor.core.scheduler.Schedulers.elastic;
 
 public class HttpClientResultCallback implements FutureCallback<HttpResponse> {
 
@@ -31,22 +35,67 @@ public class HttpClientResultCallback implements FutureCallback<HttpResponse> {
     private final String target;
     private final Message originalMessage;
     private final ScriptEngineService scriptEngine;
+    private final PassThroughHeaders passThroughHeaders;
+
+    // A streamed response is notified as soon as its headers have been received, before
+    // the exchange completes: the completion or failure of the exchange must then be ignored.
+    private final AtomicBoolean notified = new AtomicBoolean(false);
 
     public HttpClientResultCallback(URI uri, FlowContext flowContext, Message message, String target, OnResult callback, ScriptEngineService scriptEngine) {
+        this(uri, flowContext, message, target, callback, scriptEngine, null);
+    }
+
+    /**
+     * @param passThroughHeaders the rules of the relayed response headers, or null if the response is not relayed.
+     */
+    public HttpClientResultCallback(URI uri, FlowContext flowContext, Message message, String target, OnResult callback, ScriptEngineService scriptEngine, PassThroughHeaders passThroughHeaders) {
         this.uri = uri;
         this.target = target;
         this.callback = callback;
         this.originalMessage = message;
         this.flowContext = flowContext;
         this.scriptEngine = scriptEngine;
+        this.passThroughHeaders = passThroughHeaders;
     }
 
     @Override
     public void completed(HttpResponse response) {
+        if (!notified.compareAndSet(false, true)) return;
+
+        if (response.getEntity() instanceof ResponseStreamEntity) {
+            // The flow must not consume the stream on the IO reactor
+            // thread, which is the thread reading the response body.
+            elastic().schedule(() -> onCompleted(response));
+        } else {
+            onCompleted(response);
+        }
+    }
+
+    @Override
+    public void failed(Exception ex) {
+        if (!notified.compareAndSet(false, true)) return;
+        String errorMessage = StackTraceUtils.rootCauseMessageOf(ex);
+        PlatformException exception = new PlatformException(REQUEST_FAILED.format(uri.toString(), errorMessage), ex);
+        callback.onError(flowContext, exception);
+    }
+
+    @Override
+    public void cancelled() {
+        if (!notified.compareAndSet(false, true)) return;
+        PlatformException exception = new PlatformException(REQUEST_CANCELLED.format(uri.toString()));
+        callback.onError(flowContext, exception);
+    }
+
+    private void onCompleted(HttpResponse response) {
         try {
             StatusLine statusLine = response.getStatusLine();
 
-            if (IsSuccessfulStatus.status(statusLine.getStatusCode())) {
+            if (passThroughHeaders != null) {
+                // Pass-through: any response, successful or not, is relayed as it is.
+                Message message = HttpResponseMessageMapper.mapPassThrough(response, passThroughHeaders);
+                callback.onResult(flowContext, message);
+
+            } else if (IsSuccessfulStatus.status(statusLine.getStatusCode())) {
 
                 // If the target variable has been set, we assign to a context variable
                 // the result of the HTTP response and we return the original message.
@@ -79,17 +128,4 @@ public class HttpClientResultCallback implements FutureCallback<HttpResponse> {
             callback.onError(flowContext, thrown);
         }
     }
-
-    @Override
-    public void failed(Exception ex) {
-        String errorMessage = StackTraceUtils.rootCauseMessageOf(ex);
-        PlatformException exception = new PlatformException(REQUEST_FAILED.format(uri.toString(), errorMessage), ex);
-        callback.onError(flowContext, exception);
-    }
-
-    @Override
-    public void cancelled() {
-        PlatformException exception = new PlatformException(REQUEST_CANCELLED.format(uri.toString()));
-        callback.onError(flowContext, exception);
-    }
 }
@@ -0,0 +1,68 @@
+package com.reedelk.rest.internal.client;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Closes on a schedule the pooled connections which have expired, either because their time
+ * to live has elapsed or because they have been idle for longer than their keep-alive duration,
+ * and the connections idle for longer than the idle timeout of their pool, whatever keep-alive
+ * duration the server allowed. Connections are not checked before being leased from the pool,
+ * therefore a connection closed by the server, or by a load balancer, would otherwise be reset
+ * when the next request is sent.
+ */
+class IdleConnectionEvictor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdleConnectionEvictor.class);
+
+    private static final long EVICTION_INTERVAL_MILLIS = 5000;
+    private static final String EVICTOR_THREAD_NAME = "rest-client-connection-evictor";
+
+    private final Map<NHttpClientConnectionManager, Long> poolIdleTimeout = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Registers the given pool, or updates its idle timeout if it is registered already.
+     */
+    synchronized void register(NHttpClientConnectionManager pool, long idleTimeoutMillis) {
+        poolIdleTimeout.put(pool, idleTimeoutMillis);
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory(EVICTOR_THREAD_NAME, true));
+            scheduler.scheduleWithFixedDelay(this::evict, EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, MILLISECONDS);
+        }
+    }
+
+    synchronized void unregister(NHttpClientConnectionManager pool) {
+        poolIdleTimeout.remove(pool);
+        if (poolIdleTimeout.isEmpty()) shutdown();
+    }
+
+    synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        poolIdleTimeout.clear();
+    }
+
+    void evict() {
+        poolIdleTimeout.forEach((pool, idleTimeoutMillis) -> {
+            try {
+                pool.closeExpiredConnections();
+                pool.closeIdleConnections(idleTimeoutMillis, MILLISECONDS);
+            } catch (Exception exception) {
+                logger.warn("Error while closing expired connections", exception);
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.reedelk.rest.internal.client;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Keeps a connection alive for the duration given by the server in the 'Keep-Alive'
+ * response header, but never longer than the idle connection timeout, if any:
+ * load balancers might close idle connections before the server does.
+ */
+class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    private final Integer idleTimeoutMillis;
+
+    KeepAliveStrategy(Integer idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        // A negative duration means that the connection can be kept alive indefinitely.
+        long serverDuration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        if (idleTimeoutMillis == null) return serverDuration;
+        return serverDuration > 0 ? Math.min(serverDuration, idleTimeoutMillis) : idleTimeoutMillis;
+    }
+}
@@ -0,0 +1,198 @@
+package com.reedelk.rest.internal.client;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The connections of a single REST Client configuration leased from the shared pool. At most
+ * max connections are leased at the same time: further lease requests wait until one of the
+ * leased connections is released. The lease timeout of a waiting request is checked when the
+ * request is handed over to the shared pool, which applies the time left to its own wait.
+ */
+class LimitedConnectionManager implements NHttpClientConnectionManager {
+
+    private final NHttpClientConnectionManager delegate;
+    private final int maxConnections;
+
+    // Guarded by this: the lease requests handed over to the shared pool and not released yet.
+    private final Set<NHttpClientConnection> leased = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Deque<Lease> waiting = new ArrayDeque<>();
+    private int inUse;
+
+    LimitedConnectionManager(NHttpClientConnectionManager delegate, int maxConnections) {
+        this.delegate = delegate;
+        this.maxConnections = maxConnections;
+    }
+
+    int maxConnections() {
+        return maxConnections;
+    }
+
+    synchronized int leasedConnections() {
+        return inUse;
+    }
+
+    @Override
+    public Future<NHttpClientConnection> requestConnection(HttpRoute route, Object state, long connectTimeout, long leaseTimeout, TimeUnit timeUnit, FutureCallback<NHttpClientConnection> callback) {
+        Lease lease = new Lease(route, state, connectTimeout, leaseTimeout, timeUnit, callback);
+        boolean acquired;
+        synchronized (this) {
+            acquired = inUse < maxConnections;
+            if (acquired) inUse++;
+            else waiting.add(lease);
+        }
+        if (acquired) lease.start();
+        return lease;
+    }
+
+    @Override
+    public void releaseConnection(NHttpClientConnection connection, Object newState, long validDuration, TimeUnit timeUnit) {
+        delegate.releaseConnection(connection, newState, validDuration, timeUnit);
+        boolean wasLeased;
+        synchronized (this) {
+            wasLeased = leased.remove(connection);
+        }
+        if (wasLeased) release();
+    }
+
+    @Override
+    public void startRoute(NHttpClientConnection connection, HttpRoute route, HttpContext context) throws IOException {
+        delegate.startRoute(connection, route, context);
+    }
+
+    @Override
+    public void upgrade(NHttpClientConnection connection, HttpRoute route, HttpContext context) throws IOException {
+        delegate.upgrade(connection, route, context);
+    }
+
+    @Override
+    public void routeComplete(NHttpClientConnection connection, HttpRoute route, HttpContext context) {
+        delegate.routeComplete(connection, route, context);
+    }
+
+    @Override
+    public boolean isRouteComplete(NHttpClientConnection connection) {
+        return delegate.isRouteComplete(connection);
+    }
+
+    @Override
+    public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+        delegate.closeIdleConnections(idleTime, timeUnit);
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        delegate.closeExpiredConnections();
+    }
+
+    @Override
+    public void execute(IOEventDispatch eventDispatch) throws IOException {
+        delegate.execute(eventDispatch);
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        // The shared pool is shut down when the last configuration using it is released.
+    }
+
+    // The connection slot of a lease is handed over to the first waiting lease, if any.
+    private void release() {
+        Lease next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) inUse--;
+        }
+        if (next != null) next.start();
+    }
+
+    private synchronized boolean removeWaiting(Lease lease) {
+        return waiting.remove(lease);
+    }
+
+    private class Lease extends BasicFuture<NHttpClientConnection> {
+
+        private final HttpRoute route;
+        private final Object state;
+        private final long connectTimeout;
+        private final long leaseTimeout;
+        private final TimeUnit timeUnit;
+        private final long requestNanos = System.nanoTime();
+
+        private volatile Future<NHttpClientConnection> pooled;
+
+        Lease(HttpRoute route, Object state, long connectTimeout, long leaseTimeout, TimeUnit timeUnit, FutureCallback<NHttpClientConnection> callback) {
+            super(callback);
+            this.route = route;
+            this.state = state;
+            this.connectTimeout = connectTimeout;
+            this.leaseTimeout = leaseTimeout;
+            this.timeUnit = timeUnit;
+        }
+
+        // Called once this lease holds a connection slot.
+        void start() {
+            if (isCancelled()) {
+                release();
+                return;
+            }
+            long timeLeft = leaseTimeout;
+            if (leaseTimeout > 0) {
+                timeLeft = leaseTimeout - timeUnit.convert(System.nanoTime() - requestNanos, TimeUnit.NANOSECONDS);
+                if (timeLeft <= 0) {
+                    release();
+                    failed(new TimeoutException("Connection lease request time out"));
+                    return;
+                }
+            }
+            pooled = delegate.requestConnection(route, state, connectTimeout, timeLeft, timeUnit, new FutureCallback<NHttpClientConnection>() {
+                @Override
+                public void completed(NHttpClientConnection connection) {
+                    synchronized (LimitedConnectionManager.this) {
+                        leased.add(connection);
+                    }
+                    if (!Lease.this.completed(connection)) {
+                        // The lease has been cancelled in the meantime.
+                        releaseConnection(connection, null, 0, MILLISECONDS);
+                    }
+                }
+
+                @Override
+                public void failed(Exception exception) {
+                    release();
+                    Lease.this.failed(exception);
+                }
+
+                @Override
+                public void cancelled() {
+                    release();
+                    Lease.this.cancel();
+                }
+            });
+            // The lease might have been cancelled before the pooled request was assigned.
+            if (isCancelled()) pooled.cancel(true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && !removeWaiting(this)) {
+                Future<NHttpClientConnection> current = pooled;
+                if (current != null) current.cancel(true);
+            }
+            return cancelled;
+        }
+    }
+}
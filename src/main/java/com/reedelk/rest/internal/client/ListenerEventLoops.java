@@ -0,0 +1,56 @@
+package com.reedelk.rest.internal.client;
+
+import com.reedelk.rest.internal.server.ServerProvider;
+import io.netty.channel.EventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+import static com.reedelk.rest.internal.commons.Messages.RestClient.LISTENER_EVENT_LOOPS_NOT_AVAILABLE;
+
+/**
+ * The worker event loops of the REST Listeners a Netty client runs on. They are resolved
+ * when the client sends its first request, so that listeners started after the client has
+ * been created are found as well, and retained until the client is released. If no listener
+ * is running when the first request is sent, the client runs on its own event loops.
+ */
+class ListenerEventLoops implements Supplier<EventLoopGroup> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerEventLoops.class);
+
+    private final String configId;
+    private final ServerProvider serverProvider;
+
+    private EventLoopGroup workerGroup;
+    private boolean resolved;
+
+    ListenerEventLoops(String configId, ServerProvider serverProvider) {
+        this.configId = configId;
+        this.serverProvider = serverProvider;
+    }
+
+    /**
+     * @return the worker event loops of the listeners, or null if the client must run on its own event loops.
+     */
+    @Override
+    public synchronized EventLoopGroup get() {
+        if (!resolved) {
+            resolved = true;
+            workerGroup = serverProvider.retainWorkerEventLoops().orElse(null);
+            if (workerGroup == null) {
+                logger.warn(LISTENER_EVENT_LOOPS_NOT_AVAILABLE.format(configId));
+            }
+        }
+        return workerGroup;
+    }
+
+    synchronized void release() {
+        // Requests sent after the release do not retain the event loops again.
+        resolved = true;
+        if (workerGroup != null) {
+            serverProvider.releaseWorkerEventLoops(workerGroup);
+            workerGroup = null;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.reedelk.rest.internal.client;
+
+import com.reedelk.rest.component.RESTClientConfiguration;
+import com.reedelk.rest.component.client.Proxy;
+import com.reedelk.rest.component.client.ProxyConfiguration;
+import com.reedelk.rest.internal.commons.ClientEngine;
+import com.reedelk.rest.internal.commons.Defaults;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.metrics.BlockingWatchdog;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static com.reedelk.rest.internal.client.HttpClientConnectionManagerFactory.DEFAULT_CONNECTIONS_CLIENT;
+import static com.reedelk.rest.internal.commons.Messages.RestClient.CLIENT_SHARED_CONNECTIONS_CONFLICT;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+/**
+ * A single IO reactor and connection pool shared by the REST Client configurations which
+ * share connections. Connections are pooled by route, i.e. by target host, port and proxy,
+ * therefore configurations pointing to the same host reuse each other's idle connections.
+ * The limit of a route is the sum of the max pool connections of the configurations using
+ * the route, and the total limit is the sum of the max pool connections of all of them. Each
+ * configuration leases at most its own max pool connections from the pool at the same time.
+ * <p>
+ * The time to live of the connections and the watchdog of the IO reactor threads apply to the
+ * whole pool: a configuration defining different ones cannot share connections.
+ */
+class SharedConnectionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedConnectionManager.class);
+
+    private final PoolingNHttpClientConnectionManager pool;
+    // The clients using the pool are created with a shared connection manager: they do not
+    // run the IO reactor. This client runs it, and it shuts the pool down when it is closed.
+    private final CloseableHttpAsyncClient reactorClient;
+
+    private final Integer timeToLive;
+    private final Integer watchdogThreshold;
+
+    private final Map<String, HttpRoute> configIdRoute = new HashMap<>();
+    private final Map<String, LimitedConnectionManager> configIdConnectionManager = new HashMap<>();
+    private final Map<String, Integer> configIdIdleTimeout = new HashMap<>();
+    private final Set<HttpRoute> limitedRoutes = new HashSet<>();
+
+    SharedConnectionManager(Integer timeToLive, Integer watchdogThreshold, BlockingWatchdog watchdog) {
+        this.timeToLive = timeToLive;
+        this.watchdogThreshold = watchdogThreshold;
+        this.pool = HttpClientConnectionManagerFactory.createPool(false, timeToLive, watchdogThreshold, watchdog);
+        this.pool.setDefaultMaxPerRoute(DEFAULT_CONNECTIONS_CLIENT);
+        this.reactorClient = HttpAsyncClients.custom()
+                .setConnectionManager(pool)
+                .build();
+        this.reactorClient.start();
+    }
+
+    static boolean isShareable(RESTClientConfiguration configuration) {
+        boolean isShared = Boolean.TRUE.equals(configuration.getShareConnections());
+        // Certificates are verified by all the connections of the shared pool.
+        boolean isTrustCertificates = Boolean.TRUE.equals(configuration.getTrustCertificates());
+        // Connections of the Netty engine are pooled by the Netty client.
+        boolean isNettyEngine = ClientEngine.NETTY.equals(configuration.getEngine());
+        return isShared && !isTrustCertificates && !isNettyEngine;
+    }
+
+    /**
+     * @return the connection manager of the given configuration, leasing connections from the shared pool.
+     * @throws com.reedelk.runtime.api.exception.ComponentConfigurationException if the configuration
+     * defines a connection time to live or a watchdog threshold different from the shared pool ones.
+     */
+    synchronized NHttpClientConnectionManager register(RESTClientConfiguration configuration) {
+        String configId = configuration.getId();
+        if (!configIdRoute.containsKey(configId)) {
+            requireTrue(RESTClientConfiguration.class, timeToLiveMillis(timeToLive) == timeToLiveMillis(configuration.getConnectionTimeToLive()),
+                    CLIENT_SHARED_CONNECTIONS_CONFLICT.format(configId, "connectionTimeToLive", configuration.getConnectionTimeToLive(), timeToLive));
+            requireTrue(RESTClientConfiguration.class, Objects.equals(watchdogThreshold, configuration.getWatchdogThreshold()),
+                    CLIENT_SHARED_CONNECTIONS_CONFLICT.format(configId, "watchdogThreshold", configuration.getWatchdogThreshold(), watchdogThreshold));
+            int maxConnections = HttpClientConnectionManagerFactory.maxConnections(configuration);
+            configIdRoute.put(configId, routeOf(configuration));
+            configIdConnectionManager.put(configId, new LimitedConnectionManager(pool, maxConnections));
+            configIdIdleTimeout.put(configId, Defaults.RestClient.idleConnectionTimeout(configuration.getIdleConnectionTimeout()));
+            updateLimits();
+        }
+        return configIdConnectionManager.get(configId);
+    }
+
+    /**
+     * @return true if there are no more configurations using the pool.
+     */
+    synchronized boolean unregister(RESTClientConfiguration configuration) {
+        String configId = configuration.getId();
+        if (configIdRoute.containsKey(configId)) {
+            configIdRoute.remove(configId);
+            configIdConnectionManager.remove(configId);
+            configIdIdleTimeout.remove(configId);
+            updateLimits();
+        }
+        return configIdRoute.isEmpty();
+    }
+
+    /**
+     * @return the longest idle connection timeout of the configurations using the pool: the
+     * connections of the configurations with a shorter one are closed earlier by their keep-alive strategy.
+     */
+    synchronized long idleTimeout() {
+        return configIdIdleTimeout.values().stream()
+                .max(Integer::compare)
+                .orElse(Defaults.RestClient.idleConnectionTimeout(null));
+    }
+
+    NHttpClientConnectionManager connectionManager() {
+        return pool;
+    }
+
+    synchronized void close() {
+        try {
+            reactorClient.close();
+        } catch (Exception exception) {
+            logger.warn("Error while closing shared http client connection manager", exception);
+        }
+    }
+
+    private void updateLimits() {
+        Map<HttpRoute, Integer> routeMaxConnections = new HashMap<>();
+        int maxTotal = 0;
+        for (Map.Entry<String, HttpRoute> entry : configIdRoute.entrySet()) {
+            int maxConnections = configIdConnectionManager.get(entry.getKey()).maxConnections();
+            routeMaxConnections.merge(entry.getValue(), maxConnections, Integer::sum);
+            maxTotal += maxConnections;
+        }
+        pool.setMaxTotal(Math.max(maxTotal, DEFAULT_CONNECTIONS_CLIENT));
+        routeMaxConnections.forEach(pool::setMaxPerRoute);
+
+        // Routes not used anymore by any configuration are reset to the default limit.
+        limitedRoutes.removeIf(route -> {
+            if (routeMaxConnections.containsKey(route)) return false;
+            pool.setMaxPerRoute(route, DEFAULT_CONNECTIONS_CLIENT);
+            return true;
+        });
+        limitedRoutes.addAll(routeMaxConnections.keySet());
+    }
+
+    // A non positive time to live, as a null one, means that connections never expire.
+    private static long timeToLiveMillis(Integer timeToLive) {
+        return timeToLive == null || timeToLive <= 0 ? -1 : timeToLive;
+    }
+
+    // Same as the route computed by the default route planners of the client.
+    static HttpRoute routeOf(RESTClientConfiguration configuration) {
+        HttpHost target = new HttpHost(configuration.getHost(), configuration.getPort(), configuration.getProtocol().name());
+        boolean isSecure = HttpProtocol.HTTPS.equals(configuration.getProtocol());
+        ProxyConfiguration proxyConfig = configuration.getProxyConfiguration();
+        if (Proxy.PROXY.equals(configuration.getProxy()) && proxyConfig != null) {
+            HttpHost proxyHost = new HttpHost(proxyConfig.getHost(), proxyConfig.getPort());
+            return new HttpRoute(target, null, proxyHost, isSecure);
+        }
+        return new HttpRoute(target, null, isSecure);
+    }
+}
@@ -4,6 +4,8 @@ import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import org.reactivestreams.Publisher;
 
+import java.nio.ByteBuffer;
+
 public interface BodyProvider {
 
     /**
@@ -19,6 +21,13 @@ public interface BodyProvider {
      */
     Publisher<byte[]> getAsStream(Message message, FlowContext flowContext);
 
+    /**
+     * Used by the pass-through mode. A message payload made of byte buffers,
+     * e.g. a zero copy REST Listener request body, is returned as it is.
+     * @return the byte buffer stream to be sent to the remote host.
+     */
+    Publisher<ByteBuffer> getAsBufferStream(Message message, FlowContext flowContext);
+
     /**
      * Checks whether the content is streamable or not.
      * @return true if the content is a stream based content, false otherwise.
@@ -5,11 +5,14 @@ import com.reedelk.runtime.api.converter.ConverterService;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.message.content.Attachment;
+import com.reedelk.runtime.api.message.content.TypedContent;
 import com.reedelk.runtime.api.message.content.TypedPublisher;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public class DefaultBodyProvider implements BodyProvider {
@@ -47,6 +50,19 @@ public class DefaultBodyProvider implements BodyProvider {
         return converter.convert(objectTypedPublisher, byte[].class);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Publisher<ByteBuffer> getAsBufferStream(Message message, FlowContext flowContext) {
+        TypedContent<?, ?> content = message.content();
+        if (isEvaluateMessagePayloadBody &&
+                content != null &&
+                content.isStream() &&
+                ByteBuffer.class.equals(content.type())) {
+            return (Publisher<ByteBuffer>) content.stream();
+        }
+        return Flux.from(getAsStream(message, flowContext)).map(ByteBuffer::wrap);
+    }
+
     @Override
     public boolean streamable(Message message) {
         if (isEvaluateMessagePayloadBody) {
@@ -4,6 +4,8 @@ import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import org.reactivestreams.Publisher;
 
+import java.nio.ByteBuffer;
+
 class EmptyBodyProvider implements BodyProvider {
 
     static final BodyProvider INSTANCE = new EmptyBodyProvider();
@@ -21,6 +23,11 @@ class EmptyBodyProvider implements BodyProvider {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Publisher<ByteBuffer> getAsBufferStream(Message message, FlowContext flowContext) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public boolean streamable(Message message) {
         return false;
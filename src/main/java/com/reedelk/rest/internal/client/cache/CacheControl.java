@@ -0,0 +1,120 @@
+package com.reedelk.rest.internal.client.cache;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+
+import static com.reedelk.rest.internal.commons.HttpHeader.CACHE_CONTROL;
+import static com.reedelk.rest.internal.commons.HttpHeader.PRAGMA;
+
+/**
+ * The Cache-Control directives (RFC 7234, section 5.2) of a request or of a response
+ * relevant to a shared cache, together with the stale-while-revalidate extension (RFC 5861).
+ * Directives with a missing or invalid delta-seconds argument are ignored.
+ */
+class CacheControl {
+
+    static final long NOT_SET = -1;
+
+    private boolean noStore;
+    private boolean noCache;
+    private boolean mustRevalidate;
+    private boolean publicResponse;
+    private boolean privateResponse;
+    private long maxAge = NOT_SET;
+    private long sMaxAge = NOT_SET;
+    private long staleWhileRevalidate = NOT_SET;
+
+    private CacheControl() {
+    }
+
+    static CacheControl from(Header[] headers) {
+        CacheControl cacheControl = new CacheControl();
+        for (Header header : headers) {
+            if (CACHE_CONTROL.equalsIgnoreCase(header.getName())) {
+                for (HeaderElement element : header.getElements()) {
+                    cacheControl.directive(element.getName().toLowerCase(), element.getValue());
+                }
+            } else if (PRAGMA.equalsIgnoreCase(header.getName()) && header.getValue().contains("no-cache")) {
+                // HTTP/1.0 caches (RFC 7234, section 5.4).
+                cacheControl.noCache = true;
+            }
+        }
+        return cacheControl;
+    }
+
+    boolean isNoStore() {
+        return noStore;
+    }
+
+    boolean isNoCache() {
+        return noCache;
+    }
+
+    boolean isMustRevalidate() {
+        return mustRevalidate;
+    }
+
+    boolean isPublic() {
+        return publicResponse;
+    }
+
+    boolean isPrivate() {
+        return privateResponse;
+    }
+
+    long getMaxAge() {
+        return maxAge;
+    }
+
+    long getSMaxAge() {
+        return sMaxAge;
+    }
+
+    long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    private void directive(String name, String value) {
+        switch (name) {
+            case "no-store":
+                noStore = true;
+                break;
+            case "no-cache":
+                noCache = true;
+                break;
+            case "must-revalidate":
+            case "proxy-revalidate":
+                mustRevalidate = true;
+                break;
+            case "public":
+                publicResponse = true;
+                break;
+            case "private":
+                privateResponse = true;
+                break;
+            case "max-age":
+                maxAge = deltaSeconds(value);
+                break;
+            case "s-maxage":
+                // It also has the semantics of proxy-revalidate (RFC 7234, section 5.2.2.9).
+                sMaxAge = deltaSeconds(value);
+                mustRevalidate = true;
+                break;
+            case "stale-while-revalidate":
+                staleWhileRevalidate = deltaSeconds(value);
+                break;
+            default:
+                // Other directives do not apply to this cache.
+        }
+    }
+
+    private static long deltaSeconds(String value) {
+        if (value == null) return NOT_SET;
+        try {
+            long seconds = Long.parseLong(value.trim());
+            return seconds >= 0 ? seconds : NOT_SET;
+        } catch (NumberFormatException exception) {
+            return NOT_SET;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.reedelk.rest.internal.client.cache;
+
+interface CacheStore {
+
+    CachedResponse get(String key);
+
+    void put(String key, CachedResponse response);
+
+    void remove(String key);
+
+    void close();
+
+}
@@ -0,0 +1,302 @@
+package com.reedelk.rest.internal.client.cache;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHttpResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.reedelk.rest.internal.commons.HttpHeader.*;
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+
+/**
+ * A response stored by the REST Client response cache, together with the values of the
+ * request headers it varies on and the times it has been requested and received, which
+ * are needed to compute its age (RFC 7234, section 4.2.3). Instances are immutable.
+ */
+class CachedResponse {
+
+    private final int statusCode;
+    private final String reasonPhrase;
+    private final Header[] headers;
+    private final Map<String, String> varyValues;
+    private final long requestTime;
+    private final long responseTime;
+    private final byte[] body;
+
+    private CachedResponse(int statusCode, String reasonPhrase, Header[] headers, Map<String, String> varyValues,
+                           long requestTime, long responseTime, byte[] body) {
+        this.statusCode = statusCode;
+        this.reasonPhrase = reasonPhrase;
+        this.headers = headers;
+        this.varyValues = varyValues;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+        this.body = body;
+    }
+
+    static CachedResponse of(HttpRequest request, HttpResponse response, byte[] body, long requestTime, long responseTime) {
+        Header[] responseHeaders = Arrays.stream(response.getAllHeaders())
+                // The body is stored as a whole: its framing is not kept.
+                .filter(header -> !TRANSFER_ENCODING.equalsIgnoreCase(header.getName()))
+                .toArray(Header[]::new);
+        return new CachedResponse(
+                response.getStatusLine().getStatusCode(),
+                Optional.ofNullable(response.getStatusLine().getReasonPhrase()).orElse(""),
+                responseHeaders,
+                varyValuesOf(request, responseHeaders),
+                requestTime,
+                responseTime,
+                body);
+    }
+
+    /**
+     * Returns true if the stored response can be used for the given request,
+     * i.e. the request headers nominated by the Vary header have the same values.
+     */
+    boolean matches(HttpRequest request) {
+        for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+            if (!vary.getValue().equals(headerValue(request.getHeaders(vary.getKey())))) return false;
+        }
+        return true;
+    }
+
+    boolean isFresh(long now) {
+        return freshnessLifetime() > currentAge(now);
+    }
+
+    /**
+     * Returns true if the response is stale but it can still be served while it is
+     * revalidated in the background, as allowed by its stale-while-revalidate directive.
+     */
+    boolean isStaleWhileRevalidate(long now) {
+        CacheControl cacheControl = cacheControl();
+        if (cacheControl.isMustRevalidate() || cacheControl.isNoCache() ||
+                cacheControl.getStaleWhileRevalidate() == CacheControl.NOT_SET) {
+            return false;
+        }
+        long staleness = currentAge(now) - freshnessLifetime();
+        return staleness <= cacheControl.getStaleWhileRevalidate() * 1000;
+    }
+
+    boolean isNoCache() {
+        return cacheControl().isNoCache();
+    }
+
+    /**
+     * Returns true if the response can be used for requests with an Authorization
+     * header, because its origin has explicitly allowed shared caches to store it
+     * (RFC 7234, section 3.2).
+     */
+    boolean isAuthorizationShared() {
+        return isAuthorizationShared(cacheControl());
+    }
+
+    static boolean isAuthorizationShared(CacheControl cacheControl) {
+        return cacheControl.isPublic() || cacheControl.getSMaxAge() != CacheControl.NOT_SET;
+    }
+
+    boolean hasValidators() {
+        return etag() != null || lastModified() != null;
+    }
+
+    String etag() {
+        return firstValue(ETAG);
+    }
+
+    String lastModified() {
+        return firstValue(LAST_MODIFIED);
+    }
+
+    int size() {
+        return body.length;
+    }
+
+    /**
+     * Returns a copy of this response updated with the headers of a 304 Not Modified
+     * response received while revalidating it (RFC 7234, section 4.3.4).
+     */
+    CachedResponse revalidated(HttpResponse notModified, long newRequestTime, long newResponseTime) {
+        Set<String> updated = new TreeSet<>(CASE_INSENSITIVE_ORDER);
+        for (Header header : notModified.getAllHeaders()) {
+            if (!CONTENT_LENGTH.equalsIgnoreCase(header.getName())) updated.add(header.getName());
+        }
+        List<Header> merged = new ArrayList<>();
+        for (Header header : headers) {
+            if (!updated.contains(header.getName())) merged.add(header);
+        }
+        for (Header header : notModified.getAllHeaders()) {
+            if (updated.contains(header.getName())) merged.add(header);
+        }
+        return new CachedResponse(statusCode, reasonPhrase, merged.toArray(new Header[0]), varyValues,
+                newRequestTime, newResponseTime, body);
+    }
+
+    /**
+     * Returns a new response with the stored status, headers and body, and the current age.
+     */
+    HttpResponse toHttpResponse(long now) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, reasonPhrase);
+        for (Header header : headers) {
+            if (!AGE.equalsIgnoreCase(header.getName())) response.addHeader(header);
+        }
+        response.addHeader(AGE, String.valueOf(currentAge(now) / 1000));
+        if (body.length > 0) {
+            ByteArrayEntity entity = new ByteArrayEntity(body);
+            entity.setContentType(response.getFirstHeader(CONTENT_TYPE));
+            entity.setContentEncoding(response.getFirstHeader(CONTENT_ENCODING));
+            response.setEntity(entity);
+        }
+        return response;
+    }
+
+    // Binary format used by the disk tier: sizes are written before each value.
+
+    int serializedSize() {
+        int size = 4 + sizeOf(reasonPhrase) + 8 + 8 + 4;
+        for (Header header : headers) size += sizeOf(header.getName()) + sizeOf(header.getValue());
+        size += 4;
+        for (Map.Entry<String, String> vary : varyValues.entrySet()) size += sizeOf(vary.getKey()) + sizeOf(vary.getValue());
+        return size + 4 + body.length;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(statusCode);
+        putString(buffer, reasonPhrase);
+        buffer.putLong(requestTime);
+        buffer.putLong(responseTime);
+        buffer.putInt(headers.length);
+        for (Header header : headers) {
+            putString(buffer, header.getName());
+            putString(buffer, header.getValue());
+        }
+        buffer.putInt(varyValues.size());
+        varyValues.forEach((name, value) -> {
+            putString(buffer, name);
+            putString(buffer, value);
+        });
+        buffer.putInt(body.length);
+        buffer.put(body);
+    }
+
+    static CachedResponse readFrom(ByteBuffer buffer) {
+        int statusCode = buffer.getInt();
+        String reasonPhrase = getString(buffer);
+        long requestTime = buffer.getLong();
+        long responseTime = buffer.getLong();
+        Header[] headers = new Header[buffer.getInt()];
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = new BasicHeader(getString(buffer), getString(buffer));
+        }
+        int varyCount = buffer.getInt();
+        Map<String, String> varyValues = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < varyCount; i++) {
+            varyValues.put(getString(buffer), getString(buffer));
+        }
+        byte[] body = new byte[buffer.getInt()];
+        buffer.get(body);
+        return new CachedResponse(statusCode, reasonPhrase, headers, varyValues, requestTime, responseTime, body);
+    }
+
+    private long currentAge(long now) {
+        long dateValue = dateOf(DATE, responseTime);
+        long apparentAge = Math.max(0, responseTime - dateValue);
+        long ageValue = ageValue();
+        long responseDelay = responseTime - requestTime;
+        long correctedAgeValue = ageValue + responseDelay;
+        long correctedInitialAge = Math.max(apparentAge, correctedAgeValue);
+        long residentTime = now - responseTime;
+        return correctedInitialAge + residentTime;
+    }
+
+    // No heuristic freshness: responses without an explicit expiration time are always revalidated.
+    private long freshnessLifetime() {
+        CacheControl cacheControl = cacheControl();
+        if (cacheControl.getSMaxAge() != CacheControl.NOT_SET) {
+            return cacheControl.getSMaxAge() * 1000;
+        }
+        if (cacheControl.getMaxAge() != CacheControl.NOT_SET) {
+            return cacheControl.getMaxAge() * 1000;
+        }
+        String expires = firstValue(EXPIRES);
+        if (expires != null) {
+            // An invalid date, e.g. '0', represents a time in the past.
+            long expiresValue = dateOf(EXPIRES, Long.MIN_VALUE);
+            if (expiresValue == Long.MIN_VALUE) return 0;
+            return Math.max(0, expiresValue - dateOf(DATE, responseTime));
+        }
+        return 0;
+    }
+
+    private CacheControl cacheControl() {
+        return CacheControl.from(headers);
+    }
+
+    private long ageValue() {
+        String age = firstValue(AGE);
+        if (age == null) return 0;
+        try {
+            return Math.max(0, Long.parseLong(age.trim()) * 1000);
+        } catch (NumberFormatException exception) {
+            return 0;
+        }
+    }
+
+    private long dateOf(String headerName, long defaultValue) {
+        String value = firstValue(headerName);
+        Date date = value == null ? null : DateUtils.parseDate(value);
+        return date == null ? defaultValue : date.getTime();
+    }
+
+    private String firstValue(String headerName) {
+        for (Header header : headers) {
+            if (headerName.equalsIgnoreCase(header.getName())) return header.getValue();
+        }
+        return null;
+    }
+
+    private static Map<String, String> varyValuesOf(HttpRequest request, Header[] responseHeaders) {
+        Map<String, String> varyValues = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        for (Header header : responseHeaders) {
+            if (!VARY.equalsIgnoreCase(header.getName())) continue;
+            for (String name : header.getValue().split(",")) {
+                String trimmed = name.trim();
+                if (!trimmed.isEmpty()) varyValues.put(trimmed, headerValue(request.getHeaders(trimmed)));
+            }
+        }
+        return varyValues;
+    }
+
+    private static String headerValue(Header[] headers) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Header header : headers) joiner.add(header.getValue());
+        return joiner.toString();
+    }
+
+    private static int sizeOf(String value) {
+        return 4 + bytesOf(value).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = bytesOf(value);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,173 @@
+package com.reedelk.rest.internal.client.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Stores each response in a file of the given directory, written and read as a whole
+ * with a single buffer. The total size of the files is bounded: the least recently used
+ * responses are deleted when the store is full. Only the index is guarded by the lock of
+ * the store: files are written, read and deleted outside of it, and each response is
+ * written to a new file, so that a read never sees a partially written response.
+ * The index is kept in memory, therefore the stored responses do not survive restarts.
+ */
+class DiskCacheStore implements CacheStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskCacheStore.class);
+
+    private final Path directory;
+    private final long maxSize;
+    private final Map<String, DiskEntry> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+    private long fileCounter;
+    private boolean closed;
+
+    DiskCacheStore(Path directory, long maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public CachedResponse get(String key) {
+        DiskEntry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+        if (entry == null) return null;
+
+        try (FileChannel channel = FileChannel.open(entry.file, READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new EOFException("Truncated cached response file " + entry.file);
+            }
+            buffer.flip();
+            return CachedResponse.readFrom(buffer);
+        } catch (IOException | BufferUnderflowException exception) {
+            // The file might have been evicted while it was being read.
+            if (remove(key, entry)) {
+                logger.warn("Could not read cached response from file " + entry.file, exception);
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, CachedResponse response) {
+        int entrySize = response.serializedSize();
+        if (entrySize > maxSize) {
+            remove(key);
+            return;
+        }
+
+        Path file;
+        synchronized (this) {
+            if (closed) return;
+            file = directory.resolve("response-" + (fileCounter++) + ".bin");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(entrySize);
+        response.writeTo(buffer);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, WRITE)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException exception) {
+            logger.warn("Could not write cached response to file " + file, exception);
+            delete(file);
+            return;
+        }
+
+        List<Path> deleted = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                deleted.add(file);
+            } else {
+                DiskEntry replaced = index.put(key, new DiskEntry(file, entrySize));
+                if (replaced != null) {
+                    size -= replaced.size;
+                    deleted.add(replaced.file);
+                }
+                size += entrySize;
+
+                Iterator<DiskEntry> leastRecentlyUsed = index.values().iterator();
+                while (size > maxSize && leastRecentlyUsed.hasNext()) {
+                    DiskEntry evicted = leastRecentlyUsed.next();
+                    leastRecentlyUsed.remove();
+                    size -= evicted.size;
+                    deleted.add(evicted.file);
+                }
+            }
+        }
+        deleted.forEach(DiskCacheStore::delete);
+    }
+
+    @Override
+    public void remove(String key) {
+        DiskEntry removed;
+        synchronized (this) {
+            removed = index.remove(key);
+            if (removed != null) size -= removed.size;
+        }
+        if (removed != null) delete(removed.file);
+    }
+
+    @Override
+    public void close() {
+        List<DiskEntry> removed;
+        synchronized (this) {
+            closed = true;
+            removed = new ArrayList<>(index.values());
+            index.clear();
+            size = 0;
+        }
+        removed.forEach(entry -> delete(entry.file));
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    // Removes the entry only if it has not been replaced meanwhile.
+    private boolean remove(String key, DiskEntry entry) {
+        synchronized (this) {
+            if (!index.remove(key, entry)) return false;
+            size -= entry.size;
+        }
+        delete(entry.file);
+        return true;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            logger.warn("Could not delete cached response file " + file, exception);
+        }
+    }
+
+    private static class DiskEntry {
+
+        final Path file;
+        final int size;
+
+        DiskEntry(Path file, int size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
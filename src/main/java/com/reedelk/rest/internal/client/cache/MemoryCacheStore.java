@@ -0,0 +1,144 @@
+package com.reedelk.rest.internal.client.cache;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Keeps at most the given number of responses in memory, evicting the least recently
+ * used one when full. Evicted responses are moved to the disk tier, if there is one,
+ * and responses found in the disk tier are moved back to memory when they are used.
+ * <p>
+ * The lock of the store only guards the in-memory state: responses are written to and
+ * deleted from the disk tier by a single spill thread, in the order the operations have
+ * been decided under the lock, and they are read from the disk tier by the calling thread
+ * after the lock has been released. Lookups therefore never wait for disk IO.
+ */
+class MemoryCacheStore implements CacheStore {
+
+    private static final String SPILL_THREAD_NAME = "rest-client-cache-spill";
+
+    private final Map<String, CachedResponse> entries;
+    private final CacheStore diskTier;
+    private final ExecutorService spillQueue;
+
+    // Responses evicted from memory which are being written to the disk tier.
+    private final Map<String, CachedResponse> spilling = new HashMap<>();
+    // Keys of the responses written to the disk tier.
+    private final Set<String> spilled = new HashSet<>();
+    // Keys of the responses being read from the disk tier, with the read they belong to.
+    private final Map<String, Object> promoting = new HashMap<>();
+
+    private boolean closed;
+
+    MemoryCacheStore(int maxEntries, CacheStore diskTier) {
+        this.diskTier = diskTier;
+        this.spillQueue = diskTier == null ? null :
+                Executors.newSingleThreadExecutor(new DefaultThreadFactory(SPILL_THREAD_NAME, true));
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() <= maxEntries) return false;
+                if (diskTier != null) spill(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public CachedResponse get(String key) {
+        Object read = new Object();
+        synchronized (this) {
+            CachedResponse response = entries.get(key);
+            if (response != null) return response;
+
+            // The spill thread deletes the file once it has been written.
+            response = spilling.remove(key);
+            if (response != null) {
+                entries.put(key, response);
+                return response;
+            }
+
+            if (!spilled.remove(key)) return null;
+            promoting.put(key, read);
+        }
+
+        CachedResponse response = diskTier.get(key);
+
+        synchronized (this) {
+            // The response has been replaced or removed while it was being read:
+            // the file has already been scheduled for deletion.
+            if (!promoting.remove(key, read)) return response;
+            if (response != null) entries.put(key, response);
+            enqueue(() -> diskTier.remove(key));
+        }
+        return response;
+    }
+
+    @Override
+    public synchronized void put(String key, CachedResponse response) {
+        if (closed) return;
+        discardSpilled(key);
+        entries.put(key, response);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        discardSpilled(key);
+        entries.remove(key);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            entries.clear();
+            spilling.clear();
+            spilled.clear();
+            promoting.clear();
+        }
+        if (diskTier != null) {
+            spillQueue.shutdown();
+            try {
+                spillQueue.awaitTermination(5, SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            diskTier.close();
+        }
+    }
+
+    // Called with the lock held.
+    private void spill(String key, CachedResponse response) {
+        spilling.put(key, response);
+        enqueue(() -> {
+            diskTier.put(key, response);
+            synchronized (this) {
+                if (spilling.remove(key, response)) {
+                    spilled.add(key);
+                    return;
+                }
+            }
+            // Promoted, replaced or removed while it was being written.
+            diskTier.remove(key);
+        });
+    }
+
+    // Called with the lock held.
+    private void discardSpilled(String key) {
+        if (diskTier == null) return;
+        spilling.remove(key);
+        boolean onDisk = spilled.remove(key);
+        onDisk |= promoting.remove(key) != null;
+        if (onDisk) enqueue(() -> diskTier.remove(key));
+    }
+
+    // Called with the lock held: the spill thread is shut down once the store is closed.
+    private void enqueue(Runnable task) {
+        if (!closed) spillQueue.execute(task);
+    }
+}
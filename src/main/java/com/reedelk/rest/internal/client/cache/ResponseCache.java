@@ -0,0 +1,307 @@
+package com.reedelk.rest.internal.client.cache;
+
+import com.reedelk.rest.component.client.CacheConfiguration;
+import com.reedelk.rest.internal.client.response.BufferSizeAwareResponseConsumer;
+import com.reedelk.rest.internal.client.response.ResponseStreamEntity;
+import com.reedelk.runtime.api.exception.PlatformException;
+import org.apache.http.*;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import static com.reedelk.rest.internal.commons.Defaults.RestClient.*;
+import static com.reedelk.rest.internal.commons.HttpHeader.*;
+import static com.reedelk.rest.internal.commons.Messages.RestClient.CACHE_DIRECTORY_ERROR;
+
+/**
+ * Shared HTTP cache of a REST Client configuration (RFC 7234): it is used by every REST
+ * Client and flow using the configuration, therefore it follows the rules of a shared
+ * cache. GET responses are stored if their status is cacheable by default, they are not
+ * private and they have an explicit expiration time or validators. Responses to requests
+ * with an Authorization header are only stored and served if they are public or have an
+ * s-maxage directive; the request headers set by the flows are matched through Vary.
+ * <p>
+ * A fresh stored response completes the request straight away, without acquiring a
+ * connection. A stale one is revalidated with a conditional request, and a 304 Not
+ * Modified response completes the request with the stored response, updated with the
+ * 304 headers. Stale responses within their stale-while-revalidate window are served
+ * straight away while they are revalidated in the background.
+ */
+public class ResponseCache {
+
+    private static final String GET = "GET";
+    private static final String RANGE = "range";
+
+    // Status codes cacheable by default (RFC 7231, section 6.1).
+    private static final Set<Integer> CACHEABLE_STATUS_CODES =
+            new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 404, 405, 410, 414, 501));
+
+    private static final Set<String> SAFE_METHODS = new HashSet<>(Arrays.asList(GET, "HEAD", "OPTIONS"));
+
+    private final CacheStore store;
+    private final int maxEntrySize;
+
+    // The keys of the stale responses being revalidated in the background.
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    ResponseCache(CacheStore store, int maxEntrySize) {
+        this.store = store;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public static ResponseCache create(String configId, CacheConfiguration configuration) {
+        Optional<CacheConfiguration> config = Optional.ofNullable(configuration);
+        int maxEntries = config.map(CacheConfiguration::getMaxEntries).orElse(CACHE_MAX_ENTRIES);
+        int maxEntrySize = config.map(CacheConfiguration::getMaxEntrySize).orElse(CACHE_MAX_ENTRY_SIZE);
+
+        CacheStore diskTier = null;
+        if (config.map(CacheConfiguration::getDiskCache).orElse(false)) {
+            long maxSizeMb = config.map(CacheConfiguration::getDiskCacheMaxSize).orElse(CACHE_DISK_MAX_SIZE_MB);
+            Path directory = config.map(CacheConfiguration::getDiskCacheDirectory)
+                    .map(path -> Paths.get(path, configId))
+                    .orElse(null);
+            try {
+                if (directory == null) directory = Files.createTempDirectory("rest-client-cache-");
+                diskTier = new DiskCacheStore(directory, maxSizeMb * 1024 * 1024);
+            } catch (IOException exception) {
+                throw new PlatformException(CACHE_DIRECTORY_ERROR.format(directory, exception.getMessage()), exception);
+            }
+        }
+        return new ResponseCache(new MemoryCacheStore(maxEntries, diskTier), maxEntrySize);
+    }
+
+    /**
+     * Executes the request with the given executor unless it can be answered with a stored response.
+     */
+    public Future<HttpResponse> execute(HttpAsyncRequestProducer requestProducer,
+                                        HttpAsyncResponseConsumer<HttpResponse> responseConsumer,
+                                        FutureCallback<HttpResponse> callback,
+                                        Executor executor) {
+        HttpRequest request;
+        try {
+            request = requestProducer.generateRequest();
+        } catch (IOException | HttpException exception) {
+            return executor.execute(requestProducer, responseConsumer, callback);
+        }
+
+        String key = keyOf(requestProducer.getTarget(), request);
+        String method = request.getRequestLine().getMethod();
+        if (!GET.equalsIgnoreCase(method)) {
+            // Unsafe methods invalidate the stored response (RFC 7234, section 4.4).
+            if (!SAFE_METHODS.contains(method.toUpperCase())) store.remove(key);
+            return executor.execute(requestProducer, responseConsumer, callback);
+        }
+
+        CacheControl requestCacheControl = CacheControl.from(request.getAllHeaders());
+        if (requestCacheControl.isNoStore() || isUserConditional(request)) {
+            return executor.execute(requestProducer, responseConsumer, callback);
+        }
+
+        long now = System.currentTimeMillis();
+        CachedResponse cached = store.get(key);
+        if (cached != null && !cached.matches(request)) cached = null;
+        // A response might have been received for different credentials.
+        if (cached != null && isAuthorized(request) && !cached.isAuthorizationShared()) cached = null;
+
+        if (cached != null && !isRevalidationRequired(requestCacheControl, cached)) {
+            if (cached.isFresh(now)) {
+                release(requestProducer, responseConsumer);
+                return completed(cached.toHttpResponse(now), callback);
+            }
+            if (cached.isStaleWhileRevalidate(now)) {
+                Future<HttpResponse> future = completed(cached.toHttpResponse(now), callback);
+                if (revalidating.add(key)) {
+                    addValidators(request, cached);
+                    // The consumer of the caller might notify its callback directly, e.g. when the
+                    // response is streamed: the revalidation response is buffered by a consumer of its own.
+                    release(responseConsumer);
+                    HttpAsyncResponseConsumer<HttpResponse> revalidationConsumer =
+                            BufferSizeAwareResponseConsumer.createConsumer(RESPONSE_BUFFER_SIZE);
+                    executor.execute(requestProducer, revalidationConsumer, new StoringCallback(key, request, cached, now, null));
+                } else {
+                    release(requestProducer, responseConsumer);
+                }
+                return future;
+            }
+        }
+
+        if (cached != null && cached.hasValidators()) {
+            addValidators(request, cached);
+        } else {
+            cached = null;
+        }
+        return executor.execute(requestProducer, responseConsumer, new StoringCallback(key, request, cached, now, callback));
+    }
+
+    public void close() {
+        store.close();
+    }
+
+    /**
+     * Executes a request on the connections of the client.
+     */
+    @FunctionalInterface
+    public interface Executor {
+
+        Future<HttpResponse> execute(HttpAsyncRequestProducer requestProducer,
+                                     HttpAsyncResponseConsumer<HttpResponse> responseConsumer,
+                                     FutureCallback<HttpResponse> callback);
+    }
+
+    private class StoringCallback implements FutureCallback<HttpResponse> {
+
+        private final String key;
+        private final HttpRequest request;
+        private final CachedResponse cached;
+        private final long requestTime;
+        private final FutureCallback<HttpResponse> delegate;
+
+        /**
+         * @param cached   the stored response being revalidated, or null if none.
+         * @param delegate the callback to be notified, or null if the response is revalidated in the background.
+         */
+        StoringCallback(String key, HttpRequest request, CachedResponse cached, long requestTime, FutureCallback<HttpResponse> delegate) {
+            this.key = key;
+            this.request = request;
+            this.cached = cached;
+            this.requestTime = requestTime;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void completed(HttpResponse response) {
+            revalidating.remove(key);
+            long responseTime = System.currentTimeMillis();
+
+            HttpResponse result = response;
+            try {
+                if (cached != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    CachedResponse updated = cached.revalidated(response, requestTime, responseTime);
+                    store.put(key, updated);
+                    result = updated.toHttpResponse(responseTime);
+
+                } else if (isStorable(request, response)) {
+                    byte[] body = bufferedBody(response);
+                    if (body != null) {
+                        store.put(key, CachedResponse.of(request, response, body, requestTime, responseTime));
+                    } else {
+                        store.remove(key);
+                    }
+                } else {
+                    store.remove(key);
+                }
+            } catch (IOException exception) {
+                failed(exception);
+                return;
+            }
+
+            if (delegate != null) delegate.completed(result);
+        }
+
+        @Override
+        public void failed(Exception exception) {
+            revalidating.remove(key);
+            if (delegate != null) delegate.failed(exception);
+        }
+
+        @Override
+        public void cancelled() {
+            revalidating.remove(key);
+            if (delegate != null) delegate.cancelled();
+        }
+    }
+
+    // Returns the body of a buffered response, or null if it is streamed or too large to be stored.
+    // The entity of the response is replaced, since the buffered content can only be read once.
+    private byte[] bufferedBody(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) return new byte[0];
+        if (entity instanceof ResponseStreamEntity || entity.getContentLength() > maxEntrySize) return null;
+
+        byte[] body = EntityUtils.toByteArray(entity);
+        ByteArrayEntity bufferedEntity = new ByteArrayEntity(body);
+        bufferedEntity.setContentType(entity.getContentType());
+        bufferedEntity.setContentEncoding(entity.getContentEncoding());
+        response.setEntity(bufferedEntity);
+        return body.length > maxEntrySize ? null : body;
+    }
+
+    private static boolean isStorable(HttpRequest request, HttpResponse response) {
+        if (!CACHEABLE_STATUS_CODES.contains(response.getStatusLine().getStatusCode())) return false;
+
+        CacheControl cacheControl = CacheControl.from(response.getAllHeaders());
+        if (cacheControl.isNoStore() || cacheControl.isPrivate()) return false;
+        if (isAuthorized(request) && !CachedResponse.isAuthorizationShared(cacheControl)) return false;
+
+        for (Header vary : response.getHeaders(VARY)) {
+            if (vary.getValue().trim().equals("*")) return false;
+        }
+        return cacheControl.getMaxAge() != CacheControl.NOT_SET ||
+                cacheControl.getSMaxAge() != CacheControl.NOT_SET ||
+                response.containsHeader(EXPIRES) ||
+                response.containsHeader(ETAG) ||
+                response.containsHeader(LAST_MODIFIED);
+    }
+
+    private static boolean isRevalidationRequired(CacheControl requestCacheControl, CachedResponse cached) {
+        return requestCacheControl.isNoCache() || requestCacheControl.getMaxAge() == 0 || cached.isNoCache();
+    }
+
+    // Conditional and range requests defined by the user are always sent to the remote host.
+    private static boolean isUserConditional(HttpRequest request) {
+        return request.containsHeader(IF_NONE_MATCH) ||
+                request.containsHeader(IF_MODIFIED_SINCE) ||
+                request.containsHeader(RANGE);
+    }
+
+    private static boolean isAuthorized(HttpRequest request) {
+        return request.containsHeader(AUTHORIZATION);
+    }
+
+    private static void addValidators(HttpRequest request, CachedResponse cached) {
+        if (cached.etag() != null) request.setHeader(IF_NONE_MATCH, cached.etag());
+        if (cached.lastModified() != null) request.setHeader(IF_MODIFIED_SINCE, cached.lastModified());
+    }
+
+    private static Future<HttpResponse> completed(HttpResponse response, FutureCallback<HttpResponse> callback) {
+        BasicFuture<HttpResponse> future = new BasicFuture<>(callback);
+        future.completed(response);
+        return future;
+    }
+
+    private static String keyOf(HttpHost target, HttpRequest request) {
+        if (request instanceof HttpUriRequest) {
+            URI uri = ((HttpUriRequest) request).getURI();
+            if (uri.isAbsolute()) return uri.toASCIIString();
+        }
+        return target.toURI() + request.getRequestLine().getUri();
+    }
+
+    // The request is answered by the cache: the producer and the consumer are not used.
+    private static void release(Closeable... unused) {
+        for (Closeable closeable : unused) {
+            try {
+                closeable.close();
+            } catch (IOException exception) {
+                // Nothing to do, nothing has been sent or received.
+            }
+        }
+    }
+}
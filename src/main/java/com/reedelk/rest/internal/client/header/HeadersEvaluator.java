@@ -1,34 +1,52 @@
 package com.reedelk.rest.internal.client.header;
 
 import com.reedelk.rest.internal.commons.ContentType;
+import com.reedelk.rest.internal.commons.PassThroughHeaders;
 import com.reedelk.runtime.api.commons.ScriptUtils;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicmap.DynamicStringMap;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicObject;
 
-import java.util.HashMap;
+import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
+import static com.reedelk.rest.internal.attribute.RESTListenerAttributes.HEADERS;
+import static com.reedelk.rest.internal.attribute.RESTListenerAttributes.METHOD;
 import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_TYPE;
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
 
 public class HeadersEvaluator {
 
     private ScriptEngineService scriptEngine;
     private DynamicStringMap userHeaders;
     private DynamicObject body;
+    private PassThroughHeaders passThroughHeaders;
 
     private HeadersEvaluator(ScriptEngineService scriptEngine,
                              DynamicStringMap userHeaders,
-                             DynamicObject body) {
+                             DynamicObject body,
+                             PassThroughHeaders passThroughHeaders) {
         this.scriptEngine = scriptEngine;
         this.userHeaders = userHeaders;
         this.body = body;
+        this.passThroughHeaders = passThroughHeaders;
     }
 
     public HeaderProvider provider(Message message, FlowContext flowContext) {
-        Map<String, String> headers = new HashMap<>();
+        // Case insensitive: content type and user-defined headers
+        // replace the relayed headers having the same name.
+        Map<String, String> headers = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+
+        if (passThroughHeaders != null) {
+            listenerRequestHeaders(message)
+                    .ifPresent(requestHeaders -> headers.putAll(passThroughHeaders.request(requestHeaders)));
+        }
 
         if (ScriptUtils.isEvaluateMessagePayload(body)) {
             ContentType.from(message)
@@ -44,6 +62,17 @@ public class HeadersEvaluator {
         return () -> headers;
     }
 
+    // The headers of the request received by a REST Listener, if the input message is one.
+    @SuppressWarnings("unchecked")
+    private static Optional<Map<String, List<String>>> listenerRequestHeaders(Message message) {
+        MessageAttributes attributes = message.attributes();
+        if (attributes == null || !attributes.containsKey(METHOD)) return Optional.empty();
+        Serializable requestHeaders = attributes.get(HEADERS);
+        return requestHeaders instanceof Map ?
+                Optional.of((Map<String, List<String>>) requestHeaders) :
+                Optional.empty();
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -53,6 +82,7 @@ public class HeadersEvaluator {
         private ScriptEngineService scriptEngine;
         private DynamicStringMap headers;
         private DynamicObject body;
+        private PassThroughHeaders passThroughHeaders;
 
         public Builder scriptEngine(ScriptEngineService scriptEngine) {
             this.scriptEngine = scriptEngine;
@@ -69,8 +99,16 @@ public class HeadersEvaluator {
             return this;
         }
 
+        /**
+         * @param passThroughHeaders the rules of the request headers relayed from a REST Listener, or null if none is relayed.
+         */
+        public Builder passThrough(PassThroughHeaders passThroughHeaders) {
+            this.passThroughHeaders = passThroughHeaders;
+            return this;
+        }
+
         public HeadersEvaluator build() {
-            return new HeadersEvaluator(scriptEngine, headers, body);
+            return new HeadersEvaluator(scriptEngine, headers, body, passThroughHeaders);
         }
     }
 }
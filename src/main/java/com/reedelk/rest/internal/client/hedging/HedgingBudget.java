@@ -0,0 +1,35 @@
+package com.reedelk.rest.internal.client.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of hedged attempts to a percentage of the requests: each request
+ * deposits a fraction of a token, and each hedged attempt withdraws a whole token.
+ * Tokens do not accumulate beyond a small maximum, so that a long quiet period
+ * can not be followed by a burst of hedged attempts.
+ */
+class HedgingBudget {
+
+    private static final long TOKEN = 1000;
+    private static final long MAX_BALANCE = 10 * TOKEN;
+
+    private final long deposit;
+    private final AtomicLong balance = new AtomicLong();
+
+    HedgingBudget(int percent) {
+        this.deposit = Math.max(0, Math.min(100, percent)) * TOKEN / 100;
+    }
+
+    void onRequest() {
+        balance.updateAndGet(current -> Math.min(MAX_BALANCE, current + deposit));
+    }
+
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) return false;
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package com.reedelk.rest.internal.client.hedging;
+
+import java.util.Arrays;
+
+/**
+ * A percentile of the most recent latencies. The latencies are kept in a fixed size
+ * ring buffer, and the percentile is recomputed once every few samples rather than
+ * for each request, since sorting the samples is not free.
+ */
+class LatencyPercentile {
+
+    private static final int SAMPLES = 1000;
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_INTERVAL = 50;
+
+    private final int percentile;
+    private final long[] samples = new long[SAMPLES];
+
+    private int count;
+    private int next;
+    private int sinceRecompute;
+    private volatile long value = -1;
+
+    LatencyPercentile(int percentile) {
+        this.percentile = Math.max(1, Math.min(100, percentile));
+    }
+
+    synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % SAMPLES;
+        if (count < SAMPLES) count++;
+        if (count >= MIN_SAMPLES && (value < 0 || ++sinceRecompute >= RECOMPUTE_INTERVAL)) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            value = sorted[Math.max(0, index)];
+        }
+    }
+
+    /**
+     * @return the percentile in milliseconds, or -1 if not enough latencies have been observed yet.
+     */
+    long value() {
+        return value;
+    }
+}
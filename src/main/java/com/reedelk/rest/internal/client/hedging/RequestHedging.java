@@ -0,0 +1,198 @@
+package com.reedelk.rest.internal.client.hedging;
+
+import com.reedelk.rest.component.client.HedgingConfiguration;
+import com.reedelk.rest.internal.client.response.ResponseStreamEntity;
+import com.reedelk.rest.internal.commons.IsSuccessfulStatus;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import reactor.core.Disposable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.reedelk.rest.internal.commons.Defaults.RestClient.HEDGING_BUDGET_PERCENT;
+import static com.reedelk.rest.internal.commons.Defaults.RestClient.HEDGING_DELAY;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static reactor.core.scheduler.Schedulers.parallel;
+
+/**
+ * Hedges the requests of a REST Client: if the first attempt has not completed within
+ * the hedging delay, a second attempt is sent. The winner is picked on the raw responses,
+ * before they are mapped to a message, so that only the winning response has effects on
+ * the flow. The first response wins, unless it is not successful and another attempt is
+ * still in flight; the same holds for failed attempts. The losing attempt is cancelled
+ * through the future returned by the client, and the body of a losing streamed response
+ * is cancelled, which releases its connection. Hedging must only be used for idempotent requests.
+ */
+public class RequestHedging {
+
+    private final long delay;
+    private final HedgingBudget budget;
+    private final LatencyPercentile percentile;
+
+    RequestHedging(long delay, int budgetPercent, Integer percentile) {
+        this.delay = delay;
+        this.budget = new HedgingBudget(budgetPercent);
+        this.percentile = percentile == null ? null : new LatencyPercentile(percentile);
+    }
+
+    public static RequestHedging from(HedgingConfiguration configuration) {
+        Optional<HedgingConfiguration> config = Optional.ofNullable(configuration);
+        int delay = config.map(HedgingConfiguration::getDelay).orElse(HEDGING_DELAY);
+        int budgetPercent = config.map(HedgingConfiguration::getBudget).orElse(HEDGING_BUDGET_PERCENT);
+        Integer percentile = config.map(HedgingConfiguration::getPercentile).orElse(null);
+        return new RequestHedging(delay, budgetPercent, percentile);
+    }
+
+    /**
+     * @param callback the callback notified with the response, or the failure, of the winning attempt only.
+     */
+    public void execute(FutureCallback<HttpResponse> callback, Attempt attempt) {
+        budget.onRequest();
+        HedgedRequest request = new HedgedRequest(callback, attempt);
+        request.send();
+        request.scheduleHedge(currentDelay());
+    }
+
+    /**
+     * Sends one attempt of the request, notifying the given callback with its response.
+     */
+    @FunctionalInterface
+    public interface Attempt {
+
+        Future<HttpResponse> send(FutureCallback<HttpResponse> callback);
+    }
+
+    long currentDelay() {
+        long observed = percentile == null ? -1 : percentile.value();
+        return observed >= 0 ? Math.max(1, observed) : delay;
+    }
+
+    private class HedgedRequest {
+
+        private final FutureCallback<HttpResponse> callback;
+        private final Attempt attempt;
+
+        // The latency of the request is measured from the first attempt, whichever attempt wins:
+        // measuring the latency of a winning hedged attempt from its own start would feed
+        // shorter and shorter samples back into the percentile.
+        private final long startNanos = System.nanoTime();
+
+        // The attempt which has completed the request, either with a response or with an error.
+        private final AtomicReference<AttemptResult> winner = new AtomicReference<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final List<AttemptResult> attempts = new CopyOnWriteArrayList<>();
+
+        private volatile Disposable hedgeTimer;
+
+        HedgedRequest(FutureCallback<HttpResponse> callback, Attempt attempt) {
+            this.callback = callback;
+            this.attempt = attempt;
+        }
+
+        void scheduleHedge(long delayMillis) {
+            if (isDone()) return;
+            hedgeTimer = parallel().schedule(this::hedge, delayMillis, MILLISECONDS);
+            // The request might have completed while the hedge was being scheduled.
+            if (isDone()) hedgeTimer.dispose();
+        }
+
+        void send() {
+            AttemptResult result = new AttemptResult();
+            attempts.add(result);
+            inFlight.incrementAndGet();
+            Future<HttpResponse> future = attempt.send(result);
+            result.future = future;
+            // The request might have completed before the future was available.
+            if (isLoser(result) && future != null) future.cancel(true);
+        }
+
+        private void hedge() {
+            if (isDone() || !budget.tryAcquire()) return;
+            try {
+                send();
+            } catch (Exception exception) {
+                attempts.get(attempts.size() - 1).failed(exception);
+            }
+        }
+
+        private boolean win(AttemptResult result) {
+            if (!winner.compareAndSet(null, result)) return false;
+            Disposable timer = hedgeTimer;
+            if (timer != null) timer.dispose();
+            for (AttemptResult attemptResult : attempts) {
+                Future<HttpResponse> future = attemptResult.future;
+                if (isLoser(attemptResult) && future != null) future.cancel(true);
+            }
+            return true;
+        }
+
+        private boolean isDone() {
+            return winner.get() != null;
+        }
+
+        private boolean isLoser(AttemptResult result) {
+            AttemptResult theWinner = winner.get();
+            return theWinner != null && theWinner != result;
+        }
+
+        private class AttemptResult implements FutureCallback<HttpResponse> {
+
+            // A streamed response is notified as soon as its headers have been received, before
+            // the exchange completes: the completion or failure of the exchange must then be ignored.
+            private final AtomicBoolean notified = new AtomicBoolean(false);
+
+            private volatile Future<HttpResponse> future;
+
+            @Override
+            public void completed(HttpResponse response) {
+                if (!notified.compareAndSet(false, true)) return;
+                // Another attempt in flight might still be successful.
+                boolean hasOtherAttempts = inFlight.decrementAndGet() > 0;
+                if ((isFailure(response) && hasOtherAttempts) || !win(this)) {
+                    release(response);
+                    return;
+                }
+                if (percentile != null && !isFailure(response)) {
+                    percentile.record(NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                }
+                callback.completed(response);
+            }
+
+            @Override
+            public void failed(Exception exception) {
+                if (!notified.compareAndSet(false, true)) return;
+                if (inFlight.decrementAndGet() > 0 || !win(this)) return;
+                callback.failed(exception);
+            }
+
+            @Override
+            public void cancelled() {
+                if (!notified.compareAndSet(false, true)) return;
+                if (inFlight.decrementAndGet() > 0 || !win(this)) return;
+                callback.cancelled();
+            }
+        }
+    }
+
+    // Error responses are buffered, unless they are relayed in pass-through mode.
+    private static boolean isFailure(HttpResponse response) {
+        return !(response.getEntity() instanceof ResponseStreamEntity) &&
+                !IsSuccessfulStatus.status(response.getStatusLine().getStatusCode());
+    }
+
+    // The body of a losing streamed response is never consumed: cancelling it
+    // shuts its connection down, which would otherwise stay input-suspended.
+    private static void release(HttpResponse response) {
+        if (response.getEntity() instanceof ResponseStreamEntity) {
+            ResponseStreamEntity entity = (ResponseStreamEntity) response.getEntity();
+            entity.stream().subscribe(chunk -> {}, error -> {}).dispose();
+        }
+    }
+}
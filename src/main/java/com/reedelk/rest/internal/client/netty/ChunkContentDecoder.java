@@ -0,0 +1,17 @@
+package com.reedelk.rest.internal.client.netty;
+
+import org.apache.http.nio.ContentDecoder;
+
+/**
+ * A content decoder which reads the received content directly into byte array
+ * chunks, so that the content is copied once from the Netty buffers to the chunks
+ * of the response stream, instead of through an intermediate byte buffer.
+ */
+public interface ChunkContentDecoder extends ContentDecoder {
+
+    /**
+     * @return at most max length bytes of the received content, or an empty
+     * array if no content is available at the moment.
+     */
+    byte[] readChunk(int maxLength);
+}
@@ -0,0 +1,343 @@
+package com.reedelk.rest.internal.client.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.http.*;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.Connection;
+import reactor.netty.NettyOutbound;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.http.client.HttpClientResponse;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+
+/**
+ * A request/response exchange executed by the Netty engine on behalf of the Apache request producer
+ * and response consumer created by the execution strategies. The response content is fed to the
+ * consumer as it is received, one buffer at a time: the next buffer is read from the connection only
+ * once the consumer has consumed the current one, and not while the consumer has suspended the input.
+ * All the consumer methods are called on the event loop of the connection.
+ */
+class Exchange<T> implements ChunkContentDecoder, IOControl {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final HttpAsyncRequestProducer producer;
+    private final HttpAsyncResponseConsumer<T> consumer;
+    private final HttpContext context;
+    private final BasicFuture<T> future;
+
+    private volatile Disposable disposable;
+    private volatile Connection connection;
+    private volatile EventLoop eventLoop;
+    private volatile boolean suspended;
+
+    // Accessed by the event loop of the connection only.
+    private boolean hasEntity;
+    private boolean endOfStream;
+    private ByteBuf current;
+    private MonoSink<Void> currentConsumed;
+
+    Exchange(HttpAsyncRequestProducer producer, HttpAsyncResponseConsumer<T> consumer, HttpContext context, FutureCallback<T> callback) {
+        this.producer = producer;
+        this.consumer = consumer;
+        this.context = context;
+        this.future = new BasicFuture<>(new CancellableCallback(callback));
+    }
+
+    Future<T> future() {
+        return future;
+    }
+
+    void execute(HttpClient client) {
+        HttpRequest request;
+        try {
+            request = producer.generateRequest();
+        } catch (Exception exception) {
+            failed(exception);
+            return;
+        }
+
+        String method = request.getRequestLine().getMethod();
+        URI uri = uriOf(request, producer.getTarget());
+        HttpEntity entity = request instanceof HttpEntityEnclosingRequest ?
+                ((HttpEntityEnclosingRequest) request).getEntity() :
+                null;
+
+        disposable = client
+                .request(HttpMethod.valueOf(method))
+                .uri(uri.toString())
+                .send((nettyRequest, outbound) -> send(request, entity, nettyRequest, outbound))
+                .responseConnection((response, connection) -> receive(method, response, connection))
+                .then()
+                .doFinally(signalType -> release())
+                .subscribe(null, this::failed, this::completed);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+        if (current == null || !current.isReadable()) {
+            return endOfStream ? -1 : 0;
+        }
+        int length = Math.min(dst.remaining(), current.readableBytes());
+        int limit = dst.limit();
+        dst.limit(dst.position() + length);
+        current.readBytes(dst);
+        dst.limit(limit);
+        return length;
+    }
+
+    @Override
+    public byte[] readChunk(int maxLength) {
+        if (current == null || !current.isReadable()) {
+            return EMPTY;
+        }
+        byte[] chunk = new byte[Math.min(maxLength, current.readableBytes())];
+        current.readBytes(chunk);
+        return chunk;
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return endOfStream && (current == null || !current.isReadable());
+    }
+
+    @Override
+    public void requestInput() {
+        suspended = false;
+        EventLoop theEventLoop = eventLoop;
+        if (theEventLoop != null) theEventLoop.execute(this::feedCurrent);
+    }
+
+    @Override
+    public void suspendInput() {
+        suspended = true;
+    }
+
+    @Override
+    public void requestOutput() {
+        // Not applicable: the request content is produced by the request content publisher.
+    }
+
+    @Override
+    public void suspendOutput() {
+        // Not applicable: the request content is produced by the request content publisher.
+    }
+
+    @Override
+    public void shutdown() {
+        Connection theConnection = connection;
+        if (theConnection != null) theConnection.dispose();
+    }
+
+    private NettyOutbound send(HttpRequest request, HttpEntity entity, HttpClientRequest nettyRequest, NettyOutbound outbound) {
+        for (Header header : request.getAllHeaders()) {
+            nettyRequest.addHeader(header.getName(), header.getValue());
+        }
+        if (entity == null) {
+            return outbound;
+        }
+
+        // Entity headers are added by the Apache client request interceptors.
+        if (entity.getContentType() != null && !request.containsHeader(HttpHeaderNames.CONTENT_TYPE.toString())) {
+            nettyRequest.header(HttpHeaderNames.CONTENT_TYPE, entity.getContentType().getValue());
+        }
+        if (entity.getContentEncoding() != null && !request.containsHeader(HttpHeaderNames.CONTENT_ENCODING.toString())) {
+            nettyRequest.header(HttpHeaderNames.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+        }
+        if (entity.getContentLength() >= 0) {
+            nettyRequest.header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(entity.getContentLength()));
+        }
+
+        RequestContentPublisher content = new RequestContentPublisher(producer, outbound.alloc());
+        return outbound.send(content.publisher());
+    }
+
+    private Mono<Void> receive(String method, HttpClientResponse response, Connection connection) {
+        this.connection = connection;
+        this.eventLoop = connection.channel().eventLoop();
+        try {
+            producer.requestCompleted(context);
+            HttpResponse apacheResponse = apacheResponseOf(method, response);
+            hasEntity = apacheResponse.getEntity() != null;
+            consumer.responseReceived(apacheResponse);
+        } catch (Exception exception) {
+            return Mono.error(exception);
+        }
+
+        return connection.inbound()
+                .receive()
+                .retain()
+                .concatMap(this::feed, 1)
+                .then(Mono.fromRunnable(this::endOfStream));
+    }
+
+    private Mono<Void> feed(ByteBuf buffer) {
+        if (!hasEntity) {
+            buffer.release();
+            return Mono.empty();
+        }
+        return Mono.create(sink -> {
+            current = buffer;
+            currentConsumed = sink;
+            feedCurrent();
+        });
+    }
+
+    private void feedCurrent() {
+        ByteBuf buffer = current;
+        if (buffer == null) return;
+        try {
+            while (buffer.isReadable() && !suspended) {
+                int readable = buffer.readableBytes();
+                consumer.consumeContent(this, this);
+                if (buffer.readableBytes() == readable && !suspended) {
+                    // The consumer could not consume anything: it will be called again later.
+                    eventLoop.execute(this::feedCurrent);
+                    return;
+                }
+            }
+        } catch (Exception exception) {
+            releaseCurrent().error(exception);
+            return;
+        }
+        if (!buffer.isReadable()) {
+            releaseCurrent().success();
+        }
+    }
+
+    private MonoSink<Void> releaseCurrent() {
+        MonoSink<Void> consumed = currentConsumed;
+        current.release();
+        current = null;
+        currentConsumed = null;
+        return consumed;
+    }
+
+    private void endOfStream() {
+        endOfStream = true;
+        try {
+            // The consumer reads the end of the stream.
+            if (hasEntity) consumer.consumeContent(this, this);
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+        consumer.responseCompleted(context);
+    }
+
+    private void completed() {
+        Exception exception = consumer.getException();
+        if (exception != null) {
+            future.failed(exception);
+        } else {
+            future.completed(consumer.getResult());
+        }
+    }
+
+    private void failed(Throwable throwable) {
+        Exception exception = throwable instanceof Exception ?
+                (Exception) throwable :
+                new IllegalStateException(throwable);
+        producer.failed(exception);
+        consumer.failed(exception);
+        future.failed(exception);
+    }
+
+    private void release() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+        try {
+            producer.close();
+        } catch (Exception exception) {
+            // Nothing to do, the exchange is over.
+        }
+        try {
+            consumer.close();
+        } catch (Exception exception) {
+            // Nothing to do, the exchange is over.
+        }
+    }
+
+    private static URI uriOf(HttpRequest request, HttpHost target) {
+        URI uri = request instanceof HttpUriRequest ?
+                ((HttpUriRequest) request).getURI() :
+                URI.create(request.getRequestLine().getUri());
+        return uri.isAbsolute() ? uri : URI.create(target.toURI()).resolve(uri);
+    }
+
+    // Same as the entity set by the Apache client connection on responses which can have a body.
+    private static HttpResponse apacheResponseOf(String method, HttpClientResponse response) {
+        HttpResponseStatus status = response.status();
+        ProtocolVersion version = new ProtocolVersion("HTTP", response.version().majorVersion(), response.version().minorVersion());
+        BasicHttpResponse apacheResponse = new BasicHttpResponse(new BasicStatusLine(version, status.code(), status.reasonPhrase()));
+
+        HttpHeaders headers = response.responseHeaders();
+        headers.forEach(header -> apacheResponse.addHeader(header.getKey(), header.getValue()));
+
+        if (canResponseHaveBody(method, status.code())) {
+            BasicHttpEntity entity = new BasicHttpEntity();
+            String contentLength = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+            entity.setContentLength(contentLength == null ? -1 : Long.parseLong(contentLength.trim()));
+            entity.setContentType(apacheResponse.getFirstHeader(HttpHeaderNames.CONTENT_TYPE.toString()));
+            entity.setContentEncoding(apacheResponse.getFirstHeader(HttpHeaderNames.CONTENT_ENCODING.toString()));
+            apacheResponse.setEntity(entity);
+        }
+        return apacheResponse;
+    }
+
+    private static boolean canResponseHaveBody(String method, int status) {
+        return !HttpMethod.HEAD.name().equalsIgnoreCase(method) &&
+                status >= HttpStatus.SC_OK &&
+                status != HttpStatus.SC_NO_CONTENT &&
+                status != HttpStatus.SC_NOT_MODIFIED &&
+                status != HttpStatus.SC_RESET_CONTENT;
+    }
+
+    private class CancellableCallback implements FutureCallback<T> {
+
+        private final FutureCallback<T> delegate;
+
+        CancellableCallback(FutureCallback<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void completed(T result) {
+            if (delegate != null) delegate.completed(result);
+        }
+
+        @Override
+        public void failed(Exception exception) {
+            if (delegate != null) delegate.failed(exception);
+        }
+
+        @Override
+        public void cancelled() {
+            Disposable theDisposable = disposable;
+            if (theDisposable != null) theDisposable.dispose();
+            consumer.cancel();
+            if (delegate != null) delegate.cancelled();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.reedelk.rest.internal.client.netty;
+
+/**
+ * A request producer whose content buffers are never modified once they have been written
+ * to the content encoder, e.g. the chunks of a message stream. The Netty engine sends them
+ * wrapped as Netty buffers, without copying them.
+ */
+public interface ImmutableContentProducer {
+}
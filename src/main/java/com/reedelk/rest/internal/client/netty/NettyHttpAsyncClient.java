@@ -0,0 +1,62 @@
+package com.reedelk.rest.internal.client.netty;
+
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.Future;
+
+/**
+ * Executes the requests of the REST Client with a Reactor Netty http client, so that the
+ * execution strategies, the request producers and the response consumers are the same for
+ * both engines. With HTTP/2 the requests in flight to the same host are multiplexed as
+ * streams of a single connection, instead of using one pooled connection each.
+ */
+public class NettyHttpAsyncClient extends CloseableHttpAsyncClient {
+
+    private final HttpClient client;
+    private final ConnectionProvider connectionProvider;
+
+    private volatile boolean running;
+
+    NettyHttpAsyncClient(HttpClient client, ConnectionProvider connectionProvider) {
+        this.client = client;
+        this.connectionProvider = connectionProvider;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        connectionProvider.dispose();
+    }
+
+    @Override
+    public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer,
+                                 HttpAsyncResponseConsumer<T> responseConsumer,
+                                 HttpContext context,
+                                 FutureCallback<T> callback) {
+        if (!running) {
+            BasicFuture<T> future = new BasicFuture<>(callback);
+            future.failed(new IllegalStateException("Request cannot be executed: the client is not running"));
+            return future;
+        }
+        Exchange<T> exchange = new Exchange<>(requestProducer, responseConsumer, context, callback);
+        exchange.execute(client);
+        return exchange.future();
+    }
+}
@@ -0,0 +1,145 @@
+package com.reedelk.rest.internal.client.netty;
+
+import com.reedelk.rest.component.RESTClientConfiguration;
+import com.reedelk.rest.component.client.*;
+import com.reedelk.rest.internal.client.HttpClientConnectionManagerFactory;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.ProxyProvider;
+import reactor.netty.tcp.TcpClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.reedelk.rest.internal.commons.Defaults.RestClient.*;
+import static com.reedelk.rest.internal.commons.Messages.RestClient.BASIC_AUTH_MISSING;
+import static com.reedelk.rest.internal.commons.Messages.RestClient.PROXY_CONFIG_MISSING;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+
+public class NettyHttpClientFactory {
+
+    private static final String CONNECTION_PROVIDER_NAME_PREFIX = "rest-client-";
+    private static final String READ_TIMEOUT_HANDLER = "rest-client-read-timeout";
+
+    private NettyHttpClientFactory() {
+    }
+
+    /**
+     * @param eventLoopGroup supplies the event loops the client runs on, e.g. the worker event loops of the
+     *                       REST Listeners, when the client connects. If the supplier is null, or it supplies
+     *                       null, the client runs on the default Reactor Netty event loops.
+     */
+    public static NettyHttpAsyncClient create(RESTClientConfiguration configuration, Supplier<EventLoopGroup> eventLoopGroup) {
+        ConnectionProvider connectionProvider = createConnectionProvider(configuration);
+
+        int connectTimeout = Optional.ofNullable(configuration.getConnectTimeout()).orElse(CONNECT_TIMEOUT);
+        int socketTimeout = Optional.ofNullable(configuration.getSocketTimeout()).orElse(SOCKET_TIMEOUT);
+
+        HttpClient client = HttpClient.create(connectionProvider)
+                .tcpConfiguration(tcpClient -> configureTcp(tcpClient, configuration, eventLoopGroup, connectTimeout))
+                // The socket timeout applies to requests in flight only: a read timeout handler on the
+                // connection would also close idle pooled connections and HTTP/2 parent connections.
+                .doAfterRequest((request, connection) ->
+                        connection.addHandlerLast(READ_TIMEOUT_HANDLER, new ReadTimeoutHandler(socketTimeout, TimeUnit.MILLISECONDS)))
+                .doAfterResponse((response, connection) -> connection.removeHandler(READ_TIMEOUT_HANDLER))
+                .protocol(protocolsOf(configuration.getHttpVersion()))
+                .followRedirect(!Boolean.FALSE.equals(configuration.getFollowRedirects()))
+                .keepAlive(!Boolean.FALSE.equals(configuration.getKeepAlive()));
+
+        if (HttpProtocol.HTTPS.equals(configuration.getProtocol())) {
+            client = configureSecurity(client, configuration);
+        }
+
+        // Basic authentication config: the credentials are sent preemptively.
+        if (Authentication.BASIC.equals(configuration.getAuthentication())) {
+            BasicAuthenticationConfiguration basicConfig =
+                    requireNotNull(RESTClientConfiguration.class, configuration.getBasicAuthentication(), BASIC_AUTH_MISSING.format());
+            String authorization = basicAuthorization(basicConfig.getUsername(), basicConfig.getPassword());
+            client = client.headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, authorization));
+        }
+
+        return new NettyHttpAsyncClient(client, connectionProvider);
+    }
+
+    private static ConnectionProvider createConnectionProvider(RESTClientConfiguration configuration) {
+        int maxConnections = HttpClientConnectionManagerFactory.maxConnections(configuration);
+        int requestTimeout = Optional.ofNullable(configuration.getRequestTimeout()).orElse(CONNECTION_REQUEST_TIMEOUT);
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(CONNECTION_PROVIDER_NAME_PREFIX + configuration.getId())
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(requestTimeout));
+        Optional.ofNullable(configuration.getIdleConnectionTimeout())
+                .ifPresent(idleTimeout -> builder.maxIdleTime(Duration.ofMillis(idleTimeout)));
+        Optional.ofNullable(configuration.getConnectionTimeToLive())
+                .ifPresent(timeToLive -> builder.maxLifeTime(Duration.ofMillis(timeToLive)));
+        return builder.build();
+    }
+
+    // The tcp configuration is applied when the client connects, not when the client is created.
+    private static TcpClient configureTcp(TcpClient tcpClient, RESTClientConfiguration configuration, Supplier<EventLoopGroup> eventLoopGroupSupplier, int connectTimeout) {
+        // Request and response content is read and written with pooled buffers.
+        TcpClient configured = tcpClient
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout);
+
+        EventLoopGroup eventLoopGroup = eventLoopGroupSupplier == null ? null : eventLoopGroupSupplier.get();
+        if (eventLoopGroup != null) {
+            configured = configured.runOn(eventLoopGroup);
+        }
+
+        // Proxy config
+        if (Proxy.PROXY.equals(configuration.getProxy())) {
+            ProxyConfiguration proxyConfig =
+                    requireNotNull(RESTClientConfiguration.class, configuration.getProxyConfiguration(), PROXY_CONFIG_MISSING.format());
+            configured = configured.proxy(spec -> {
+                ProxyProvider.Builder proxy = spec.type(ProxyProvider.Proxy.HTTP)
+                        .host(proxyConfig.getHost())
+                        .port(proxyConfig.getPort());
+                if (ProxyAuthentication.BASIC.equals(proxyConfig.getAuthentication())) {
+                    ProxyBasicAuthenticationConfiguration basicAuthConfig = proxyConfig.getBasicAuthentication();
+                    proxy.username(basicAuthConfig.getUsername())
+                            .password(username -> basicAuthConfig.getPassword());
+                }
+            });
+        }
+        return configured;
+    }
+
+    private static HttpClient configureSecurity(HttpClient client, RESTClientConfiguration configuration) {
+        SslContextBuilder contextBuilder = SslContextBuilder.forClient();
+        if (Boolean.TRUE.equals(configuration.getTrustCertificates())) {
+            contextBuilder.trustManager(InsecureTrustManagerFactory.INSTANCE);
+        }
+        // The context is built by the http client, which adds
+        // the ALPN configuration and the ciphers required by HTTP/2.
+        return client.secure(sslContextSpec -> sslContextSpec.sslContext(contextBuilder));
+    }
+
+    private static reactor.netty.http.HttpProtocol[] protocolsOf(HttpProtocolVersion httpVersion) {
+        if (HttpProtocolVersion.H2.equals(httpVersion)) {
+            // HTTP/1.1 is used when the server does not negotiate h2 with ALPN.
+            return new reactor.netty.http.HttpProtocol[] { reactor.netty.http.HttpProtocol.H2, reactor.netty.http.HttpProtocol.HTTP11 };
+        } else if (HttpProtocolVersion.H2C.equals(httpVersion)) {
+            return new reactor.netty.http.HttpProtocol[] { reactor.netty.http.HttpProtocol.H2C };
+        }
+        return new reactor.netty.http.HttpProtocol[] { reactor.netty.http.HttpProtocol.HTTP11 };
+    }
+
+    private static String basicAuthorization(String username, String password) {
+        String credentials = username + ":" + password;
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,115 @@
+package com.reedelk.rest.internal.client.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the request content written by an Apache request producer, e.g. the
+ * streaming request producer, as Netty buffers. The producer is asked for content only
+ * when the connection has requested it, and it is not asked again while it has suspended
+ * the output, until it requests the output again.
+ */
+class RequestContentPublisher implements ContentEncoder, IOControl {
+
+    private final HttpAsyncRequestProducer producer;
+    private final ByteBufAllocator allocator;
+    private final boolean isImmutableContent;
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile FluxSink<ByteBuf> sink;
+    private volatile boolean suspended;
+    private volatile boolean completed;
+
+    RequestContentPublisher(HttpAsyncRequestProducer producer, ByteBufAllocator allocator) {
+        this.producer = producer;
+        this.allocator = allocator;
+        this.isImmutableContent = producer instanceof ImmutableContentProducer;
+    }
+
+    Flux<ByteBuf> publisher() {
+        return Flux.create(newSink -> {
+            sink = newSink;
+            newSink.onRequest(requested -> drain());
+        });
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        int length = src.remaining();
+        if (length == 0) return 0;
+        ByteBuf buffer;
+        if (isImmutableContent) {
+            buffer = Unpooled.wrappedBuffer(src.slice());
+            src.position(src.limit());
+        } else {
+            // Producers might reuse their buffers: the content must be copied.
+            buffer = allocator.buffer(length);
+            buffer.writeBytes(src);
+        }
+        sink.next(buffer);
+        return length;
+    }
+
+    @Override
+    public void complete() {
+        completed = true;
+        sink.complete();
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public void requestOutput() {
+        suspended = false;
+        drain();
+    }
+
+    @Override
+    public void suspendOutput() {
+        suspended = true;
+    }
+
+    @Override
+    public void requestInput() {
+        // Not applicable: the response is consumed by the response exchange.
+    }
+
+    @Override
+    public void suspendInput() {
+        // Not applicable: the response is consumed by the response exchange.
+    }
+
+    @Override
+    public void shutdown() {
+        completed = true;
+        sink.error(new IllegalStateException("Request content producer has shut down the connection"));
+    }
+
+    // The producer is never called concurrently: the thread which finds
+    // the work in progress counter at zero produces on behalf of the others.
+    private void drain() {
+        if (wip.getAndIncrement() != 0) return;
+        do {
+            try {
+                while (!completed && !suspended && sink.requestedFromDownstream() > 0) {
+                    producer.produceContent(this, this);
+                }
+            } catch (Exception exception) {
+                completed = true;
+                sink.error(exception);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+}
@@ -40,6 +40,15 @@ public class BufferSizeAwareResponseConsumer extends AbstractAsyncResponseConsum
     @Override
     protected void onEntityEnclosed(
             final HttpEntity entity, final ContentType contentType) throws IOException {
+        this.buf = createBuffer(entity, responseBufferSize);
+        this.response.setEntity(new ContentBufferEntity(entity, this.buf));
+    }
+
+    /**
+     * Creates the buffer the given entity content is aggregated into. It is initially
+     * as big as the content length, if known, but not bigger than the response buffer size.
+     */
+    static SimpleInputBuffer createBuffer(HttpEntity entity, int responseBufferSize) throws ContentTooLongException {
         long len = entity.getContentLength();
         if (len > Integer.MAX_VALUE) {
             throw new ContentTooLongException("Entity content is too long: " + len);
@@ -48,8 +57,7 @@ public class BufferSizeAwareResponseConsumer extends AbstractAsyncResponseConsum
             len = 4096;
         }
         final int initialBufferSize = Math.min((int) len, responseBufferSize);
-        this.buf = new SimpleInputBuffer(initialBufferSize, new HeapByteBufferAllocator());
-        this.response.setEntity(new ContentBufferEntity(entity, this.buf));
+        return new SimpleInputBuffer(initialBufferSize, new HeapByteBufferAllocator());
     }
 
     @Override
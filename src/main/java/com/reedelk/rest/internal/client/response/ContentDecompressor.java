@@ -0,0 +1,83 @@
+package com.reedelk.rest.internal.client.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decompresses a response body chunk by chunk, as it is received, according
+ * to the Content-Encoding header. Unknown content encodings are left as they are,
+ * like the decompressing strategies of {@link HttpResponseMessageMapper}.
+ */
+class ContentDecompressor {
+
+    private final EmbeddedChannel channel;
+
+    private ContentDecompressor(EmbeddedChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return the decompressor for the given Content-Encoding header or null
+     * if the content does not need to be decompressed.
+     */
+    static ContentDecompressor from(Header contentEncoding) {
+        if (contentEncoding == null) return null;
+
+        // We need to apply decompression in the reverse order they where
+        // applied, e.g Content-Encoding: deflate, gzip: first we need to
+        // gunzip and then inflate. Inbound handlers are applied in order.
+        HeaderElement[] elements = contentEncoding.getElements();
+        List<ChannelHandler> decoders = new ArrayList<>();
+        for (int i = elements.length - 1; i >= 0; i--) {
+            String name = elements[i].getName();
+            if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                decoders.add(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+            } else if ("deflate".equalsIgnoreCase(name)) {
+                decoders.add(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.ZLIB_OR_NONE));
+            }
+        }
+        return decoders.isEmpty() ?
+                null :
+                new ContentDecompressor(new EmbeddedChannel(decoders.toArray(new ChannelHandler[0])));
+    }
+
+    void decode(byte[] compressed, Consumer<byte[]> decompressed) {
+        channel.writeInbound(Unpooled.wrappedBuffer(compressed));
+        drain(decompressed);
+    }
+
+    void finish(Consumer<byte[]> decompressed) {
+        if (channel.finish()) {
+            drain(decompressed);
+        }
+    }
+
+    void release() {
+        channel.finishAndReleaseAll();
+    }
+
+    private void drain(Consumer<byte[]> decompressed) {
+        ByteBuf buffer;
+        while ((buffer = channel.readInbound()) != null) {
+            try {
+                if (buffer.isReadable()) {
+                    byte[] bytes = new byte[buffer.readableBytes()];
+                    buffer.readBytes(bytes);
+                    decompressed.accept(bytes);
+                }
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.reedelk.rest.internal.client.response;
 import com.reedelk.rest.component.RESTClient;
 import com.reedelk.rest.internal.attribute.RESTClientAttributes;
 import com.reedelk.rest.internal.commons.MimeTypeExtract;
+import com.reedelk.rest.internal.commons.PassThroughHeaders;
+import com.reedelk.runtime.api.commons.StreamUtils;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.message.MessageAttributes;
 import com.reedelk.runtime.api.message.MessageBuilder;
 import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
 import org.apache.http.HttpEntity;
@@ -31,6 +34,9 @@ public class HttpResponseMessageMapper {
         if (entity == null) {
             return null;
         }
+        if (entity instanceof ResponseStreamEntity) {
+            return asTypedPublisher((ResponseStreamEntity) entity, mimeType);
+        }
         entity = applyDecompressStrategyFrom(entity);
         if (String.class == mimeType.javaType()) {
             return EntityUtils.toString(entity);
@@ -56,6 +62,15 @@ public class HttpResponseMessageMapper {
                     .build();
         }
 
+        // Streamed response: the content is published as it is received.
+        if (entity instanceof ResponseStreamEntity) {
+            TypedPublisher<?> typedPublisher = asTypedPublisher((ResponseStreamEntity) entity, mimeType);
+            return MessageBuilder.get(RESTClient.class)
+                    .withTypedPublisher(typedPublisher, mimeType)
+                    .attributes(attributes)
+                    .build();
+        }
+
         entity = applyDecompressStrategyFrom(entity);
 
         // Convert the response to string if the mime type is
@@ -75,6 +90,46 @@ public class HttpResponseMessageMapper {
         }
     }
 
+    /**
+     * Maps a response relayed in pass-through mode, whatever its status: the body
+     * is kept binary and it is not decompressed, since it is relayed as received.
+     */
+    public static Message mapPassThrough(HttpResponse response, PassThroughHeaders passThroughHeaders) throws IOException {
+
+        MessageAttributes attributes = new RESTClientAttributes(response, passThroughHeaders);
+
+        MimeType mimeType = MimeTypeExtract.from(response.getAllHeaders());
+
+        HttpEntity entity = response.getEntity();
+
+        if (entity instanceof ResponseStreamEntity) {
+            return MessageBuilder.get(RESTClient.class)
+                    .withBinary(((ResponseStreamEntity) entity).stream(), mimeType)
+                    .attributes(attributes)
+                    .build();
+        }
+
+        // Buffered response, e.g. a response served by the client response cache.
+        if (entity != null) {
+            return MessageBuilder.get(RESTClient.class)
+                    .withBinary(EntityUtils.toByteArray(entity), mimeType)
+                    .attributes(attributes)
+                    .build();
+        }
+
+        // Empty payload, e.g. a response to a HEAD request.
+        return MessageBuilder.get(RESTClient.class)
+                .attributes(attributes)
+                .empty()
+                .build();
+    }
+
+    // The stream might be converted to a string stream if the mime type is for instance
+    // application/json or text/plain and so on. Otherwise it is kept binary.
+    private static TypedPublisher<?> asTypedPublisher(ResponseStreamEntity entity, MimeType mimeType) {
+        return StreamUtils.FromByteArray.fromMimeType(entity.stream(), mimeType);
+    }
+
     public static HttpEntity applyDecompressStrategyFrom(HttpEntity entity) {
         // We apply auto-decompression if needed.
         HttpEntity resultingEntity = entity;
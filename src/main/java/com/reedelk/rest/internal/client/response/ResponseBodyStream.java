@@ -0,0 +1,177 @@
+package com.reedelk.rest.internal.client.response;
+
+import com.reedelk.rest.internal.client.netty.ChunkContentDecoder;
+import org.apache.http.Header;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+
+import static com.reedelk.rest.internal.commons.Messages.RestClient.STREAM_NOT_SUBSCRIBED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static reactor.core.scheduler.Schedulers.elastic;
+import static reactor.core.scheduler.Schedulers.parallel;
+
+/**
+ * The body of a response published chunk by chunk as it is received. Content is read
+ * from the connection only when the subscriber has requested it: the connection input
+ * is suspended otherwise, so that at most a few chunks are held in memory. Chunks are
+ * published on a separate thread, never on the IO reactor thread. If the stream is not
+ * subscribed within the subscription timeout, the body is discarded and the connection
+ * is released, instead of being held suspended forever.
+ */
+class ResponseBodyStream {
+
+    // Number of chunks requested in advance from the IO reactor thread.
+    private static final int PREFETCH = 4;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ByteBuffer readBuffer;
+    private final ContentDecompressor decompressor;
+    private final Flux<byte[]> stream;
+    private final Disposable subscriptionTimeout;
+
+    private volatile FluxSink<byte[]> sink;
+    private volatile IOControl ioControl;
+    private volatile boolean completed;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+
+    ResponseBodyStream(int responseBufferSize, Header contentEncoding, long subscriptionTimeoutMillis) {
+        this.readBuffer = ByteBuffer.allocate(responseBufferSize);
+        this.decompressor = ContentDecompressor.from(contentEncoding);
+        this.stream = Flux.<byte[]>create(this::subscribed).publishOn(elastic(), PREFETCH);
+        this.subscriptionTimeout = parallel().schedule(() ->
+                notSubscribed(subscriptionTimeoutMillis), subscriptionTimeoutMillis, MILLISECONDS);
+    }
+
+    Flux<byte[]> stream() {
+        return stream;
+    }
+
+    /**
+     * Called by the IO reactor thread when content is available.
+     */
+    void consume(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        this.ioControl = ioControl;
+
+        if (cancelled) {
+            // Cancelled before any content was available.
+            ioControl.shutdown();
+            return;
+        }
+
+        FluxSink<byte[]> theSink = sink;
+        if (!hasDemand(theSink)) {
+            ioControl.suspendInput();
+            // The demand might have been signaled after it has been checked.
+            if (hasDemand(sink)) ioControl.requestInput();
+            return;
+        }
+
+        byte[] chunk = decoder instanceof ChunkContentDecoder ?
+                ((ChunkContentDecoder) decoder).readChunk(readBuffer.capacity()) :
+                readChunk(decoder);
+        if (chunk.length > 0) {
+            if (decompressor != null) {
+                decompressor.decode(chunk, theSink::next);
+            } else {
+                theSink.next(chunk);
+            }
+        }
+    }
+
+    /**
+     * Called by the IO reactor thread when the whole body has been received.
+     */
+    void complete() {
+        FluxSink<byte[]> theSink = sink;
+        if (theSink != null && decompressor != null) {
+            decompressor.finish(theSink::next);
+        }
+        completed = true;
+        if (theSink != null) theSink.complete();
+    }
+
+    /**
+     * Called when the exchange has failed or it has been cancelled before the body has been received.
+     */
+    void error(Throwable throwable) {
+        if (completed || error != null) return;
+        error = throwable == null ? new CancellationException("Response stream cancelled") : throwable;
+        FluxSink<byte[]> theSink = sink;
+        if (theSink != null) theSink.error(error);
+    }
+
+    void release() {
+        subscriptionTimeout.dispose();
+        if (decompressor != null) decompressor.release();
+    }
+
+    private void subscribed(FluxSink<byte[]> newSink) {
+        if (sink != null) {
+            newSink.error(new IllegalStateException("The response stream can only be consumed once"));
+            return;
+        }
+        subscriptionTimeout.dispose();
+        newSink.onRequest(requested -> requestInput());
+        newSink.onCancel(this::cancelled);
+        sink = newSink;
+
+        // The body might have been received, or the exchange might have
+        // failed, before the stream has been subscribed.
+        if (error != null) {
+            newSink.error(error);
+        } else if (completed) {
+            newSink.complete();
+        } else {
+            requestInput();
+        }
+    }
+
+    private void notSubscribed(long subscriptionTimeoutMillis) {
+        if (sink != null || completed) return;
+        error(new TimeoutException(STREAM_NOT_SUBSCRIBED.format(subscriptionTimeoutMillis)));
+        cancelled();
+    }
+
+    private void requestInput() {
+        IOControl theIoControl = ioControl;
+        if (theIoControl != null) theIoControl.requestInput();
+    }
+
+    // The subscriber is not interested in the rest of the body: the connection
+    // can not be reused because the body has not been entirely read.
+    private void cancelled() {
+        cancelled = true;
+        IOControl theIoControl = ioControl;
+        if (!completed && theIoControl != null) {
+            try {
+                theIoControl.shutdown();
+            } catch (IOException exception) {
+                // Nothing to do, the connection is being discarded.
+            }
+        }
+    }
+
+    private byte[] readChunk(ContentDecoder decoder) throws IOException {
+        readBuffer.clear();
+        int read = decoder.read(readBuffer);
+        if (read <= 0) return EMPTY;
+        byte[] chunk = new byte[read];
+        readBuffer.flip();
+        readBuffer.get(chunk);
+        return chunk;
+    }
+
+    private static boolean hasDemand(FluxSink<byte[]> sink) {
+        return sink != null && sink.requestedFromDownstream() > 0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.reedelk.rest.internal.client.response;
+
+import com.reedelk.rest.internal.commons.StreamingMode;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+
+import static com.reedelk.rest.internal.commons.StreamingMode.NONE;
+
+public class ResponseConsumerFactory {
+
+    private final int responseBufferSize;
+    private final StreamingMode streaming;
+    private final boolean passThrough;
+
+    public ResponseConsumerFactory(int responseBufferSize, StreamingMode streaming) {
+        this(responseBufferSize, streaming, false);
+    }
+
+    /**
+     * @param passThrough true if the responses must be relayed as they are received: every response
+     *                    is streamed, whatever its status, and its body is never decompressed.
+     */
+    public ResponseConsumerFactory(int responseBufferSize, StreamingMode streaming, boolean passThrough) {
+        this.responseBufferSize = responseBufferSize;
+        this.streaming = streaming == null ? NONE : streaming;
+        this.passThrough = passThrough;
+    }
+
+    /**
+     * @param callback the callback notified as soon as the headers of a streamed response have been received.
+     */
+    public HttpAsyncResponseConsumer<HttpResponse> create(FutureCallback<HttpResponse> callback) {
+        if (passThrough) {
+            return new StreamResponseConsumer(responseBufferSize, streaming, true, callback);
+        }
+        return NONE.equals(streaming) ?
+                BufferSizeAwareResponseConsumer.createConsumer(responseBufferSize) :
+                new StreamResponseConsumer(responseBufferSize, streaming, false, callback);
+    }
+}
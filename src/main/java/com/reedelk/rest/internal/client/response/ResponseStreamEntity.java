@@ -0,0 +1,49 @@
+package com.reedelk.rest.internal.client.response;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The entity of a streamed response: its content, already decompressed unless relayed in pass-through mode,
+ * is published as it is received and it can only be consumed once.
+ */
+public class ResponseStreamEntity extends AbstractHttpEntity {
+
+    private final Flux<byte[]> stream;
+
+    ResponseStreamEntity(Flux<byte[]> stream) {
+        this.stream = stream;
+    }
+
+    public Flux<byte[]> stream() {
+        return stream;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public InputStream getContent() {
+        throw new UnsupportedOperationException("The response content is streamed");
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) {
+        throw new UnsupportedOperationException("The response content is streamed");
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return true;
+    }
+}
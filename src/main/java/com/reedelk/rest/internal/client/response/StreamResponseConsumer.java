@@ -0,0 +1,106 @@
+package com.reedelk.rest.internal.client.response;
+
+import com.reedelk.rest.internal.commons.IsSuccessfulStatus;
+import com.reedelk.rest.internal.commons.StreamingMode;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+import static com.reedelk.rest.internal.commons.Defaults.RestClient.STREAM_SUBSCRIPTION_TIMEOUT;
+import static com.reedelk.rest.internal.commons.StreamingMode.ALWAYS;
+
+/**
+ * Streams the body of successful responses: the callback is notified as soon as the
+ * headers have been received, with a response whose entity is a {@link ResponseStreamEntity}.
+ * When the streaming mode is AUTO, only responses whose length is unknown or larger than
+ * the response buffer size are streamed. Other responses are buffered as usual.
+ * In pass-through mode every response is streamed, and its body is relayed as received.
+ * The connection of a streamed response is released if the stream is not subscribed in time.
+ */
+class StreamResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse> {
+
+    private final int responseBufferSize;
+    private final StreamingMode streaming;
+    private final boolean passThrough;
+    private final FutureCallback<HttpResponse> callback;
+
+    private HttpResponse response;
+    private SimpleInputBuffer buf;
+    private ResponseBodyStream stream;
+
+    StreamResponseConsumer(int responseBufferSize, StreamingMode streaming, boolean passThrough, FutureCallback<HttpResponse> callback) {
+        this.responseBufferSize = responseBufferSize;
+        this.streaming = streaming;
+        this.passThrough = passThrough;
+        this.callback = callback;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        long len = entity.getContentLength();
+        if (shouldStream(len)) {
+            // A relayed body keeps its content encoding, which is relayed as well.
+            Header contentEncoding = passThrough ? null : entity.getContentEncoding();
+            stream = new ResponseBodyStream(responseBufferSize, contentEncoding, STREAM_SUBSCRIPTION_TIMEOUT);
+            ResponseStreamEntity streamEntity = new ResponseStreamEntity(stream.stream());
+            streamEntity.setContentType(entity.getContentType());
+            response.setEntity(streamEntity);
+            // The result is available before the body has been received.
+            callback.completed(response);
+            return;
+        }
+
+        buf = BufferSizeAwareResponseConsumer.createBuffer(entity, responseBufferSize);
+        response.setEntity(new ContentBufferEntity(entity, buf));
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        if (stream != null) {
+            stream.consume(decoder, ioControl);
+        } else {
+            buf.consumeContent(decoder);
+        }
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) {
+        if (stream != null) stream.complete();
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (stream != null) {
+            // No-op if the body has been completely received.
+            stream.error(getException());
+            stream.release();
+        }
+        response = null;
+        stream = null;
+        buf = null;
+    }
+
+    // Error responses are buffered: their body is mapped to the
+    // message of the exception thrown by the REST Client.
+    private boolean shouldStream(long contentLength) {
+        if (passThrough) return true;
+        if (!IsSuccessfulStatus.status(response.getStatusLine().getStatusCode())) return false;
+        return ALWAYS.equals(streaming) || contentLength < 0 || contentLength > responseBufferSize;
+    }
+}
@@ -1,6 +1,7 @@
 package com.reedelk.rest.internal.client.strategy;
 
 import com.reedelk.rest.component.client.BufferConfiguration;
+import com.reedelk.rest.internal.client.response.ResponseConsumerFactory;
 import com.reedelk.rest.internal.commons.RestMethod;
 import com.reedelk.rest.internal.commons.StreamingMode;
 import org.apache.http.client.methods.*;
@@ -17,7 +18,9 @@ public class ExecutionStrategyBuilder {
 
     private BufferConfiguration bufferConfiguration;
     private StreamingMode streaming;
+    private StreamingMode responseStreaming;
     private RestMethod method;
+    private boolean passThrough;
 
     private ExecutionStrategyBuilder() {
     }
@@ -36,18 +39,31 @@ public class ExecutionStrategyBuilder {
         return this;
     }
 
+    public ExecutionStrategyBuilder responseStreaming(StreamingMode responseStreaming) {
+        this.responseStreaming = responseStreaming;
+        return this;
+    }
+
     public ExecutionStrategyBuilder method(RestMethod method) {
         this.method = method;
         return this;
     }
 
+    /**
+     * @param passThrough true if the request body must be relayed as received and the response relayed as it is.
+     */
+    public ExecutionStrategyBuilder passThrough(boolean passThrough) {
+        this.passThrough = passThrough;
+        return this;
+    }
+
     public Strategy build() {
         if (GET.equals(method)) {
-            return new StrategyWithoutBody(HttpGet::new, getResponseBufferSize());
+            return new StrategyWithoutBody(HttpGet::new, responseConsumerFactory());
         } else if (HEAD.equals(method)) {
-            return new StrategyWithoutBody(HttpHead::new, getResponseBufferSize());
+            return new StrategyWithoutBody(HttpHead::new, responseConsumerFactory());
         } else if (OPTIONS.equals(method)) {
-            return new StrategyWithoutBody(HttpOptions::new, getResponseBufferSize());
+            return new StrategyWithoutBody(HttpOptions::new, responseConsumerFactory());
         } else if (POST.equals(method)) {
             return strategyWithBody(HttpPost::new);
         } else if (PUT.equals(method)) {
@@ -60,20 +76,27 @@ public class ExecutionStrategyBuilder {
     }
 
     private Strategy strategyWithBody(RequestWithBodyFactory requestFactory) {
-        int responseBufferSize = getResponseBufferSize();
-        if (NONE.equals(streaming)) {
-            return new StrategyWithBody(requestFactory, responseBufferSize);
+        ResponseConsumerFactory responseConsumerFactory = responseConsumerFactory();
+        if (passThrough) {
+            int requestBufferSize = getRequestBufferSize();
+            return new StrategyWithPassThroughBody(requestFactory, requestBufferSize, responseConsumerFactory);
+        } else if (NONE.equals(streaming)) {
+            return new StrategyWithBody(requestFactory, responseConsumerFactory);
         } else if (ALWAYS.equals(streaming)) {
             int requestBufferSize = getRequestBufferSize();
-            return new StrategyWithStreamBody(requestFactory, requestBufferSize, responseBufferSize);
+            return new StrategyWithStreamBody(requestFactory, requestBufferSize, responseConsumerFactory);
         } else if (AUTO.equals(streaming)) {
             int requestBufferSize = getRequestBufferSize();
-            return new StrategyWithAutoStreamBody(requestFactory, requestBufferSize, responseBufferSize);
+            return new StrategyWithAutoStreamBody(requestFactory, requestBufferSize, responseConsumerFactory);
         } else {
             throw new IllegalArgumentException(format("Execution strategy not available for streaming mode '%s'", streaming));
         }
     }
 
+    private ResponseConsumerFactory responseConsumerFactory() {
+        return new ResponseConsumerFactory(getResponseBufferSize(), responseStreaming, passThrough);
+    }
+
     private int getResponseBufferSize() {
         return Optional.ofNullable(bufferConfiguration)
                 .flatMap(config -> Optional.ofNullable(config.getResponseBufferSize()))
@@ -1,12 +1,12 @@
 package com.reedelk.rest.internal.client.strategy;
 
 import com.reedelk.rest.internal.client.HttpClient;
-import com.reedelk.rest.internal.client.HttpClientResultCallback;
 import com.reedelk.rest.internal.client.body.BodyProvider;
 import com.reedelk.rest.internal.client.header.HeaderProvider;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
 
 import java.net.URI;
 import java.util.concurrent.Future;
@@ -19,5 +19,5 @@ public interface Strategy {
                                  URI uri,
                                  HeaderProvider headerProvider,
                                  BodyProvider bodyProvider,
-                                 HttpClientResultCallback callback);
+                                 FutureCallback<HttpResponse> callback);
 }
@@ -1,12 +1,13 @@
 package com.reedelk.rest.internal.client.strategy;
 
 import com.reedelk.rest.internal.client.HttpClient;
-import com.reedelk.rest.internal.client.HttpClientResultCallback;
 import com.reedelk.rest.internal.client.body.BodyProvider;
 import com.reedelk.rest.internal.client.header.HeaderProvider;
+import com.reedelk.rest.internal.client.response.ResponseConsumerFactory;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
 
 import java.net.URI;
 import java.util.concurrent.Future;
@@ -16,13 +17,13 @@ public class StrategyWithAutoStreamBody implements Strategy {
     private StrategyWithBody strategyWithBody;
     private StrategyWithStreamBody strategyWithStreamBody;
 
-    StrategyWithAutoStreamBody(RequestWithBodyFactory requestFactory, int requestBufferSize, int responseBufferSize) {
-        this.strategyWithBody = new StrategyWithBody(requestFactory, responseBufferSize);
-        this.strategyWithStreamBody = new StrategyWithStreamBody(requestFactory, requestBufferSize, responseBufferSize);
+    StrategyWithAutoStreamBody(RequestWithBodyFactory requestFactory, int requestBufferSize, ResponseConsumerFactory responseConsumerFactory) {
+        this.strategyWithBody = new StrategyWithBody(requestFactory, responseConsumerFactory);
+        this.strategyWithStreamBody = new StrategyWithStreamBody(requestFactory, requestBufferSize, responseConsumerFactory);
     }
 
     @Override
-    public Future<HttpResponse> execute(HttpClient client, Message input, FlowContext flowContext, URI uri, HeaderProvider headerProvider, BodyProvider bodyProvider, HttpClientResultCallback callback) {
+    public Future<HttpResponse> execute(HttpClient client, Message input, FlowContext flowContext, URI uri, HeaderProvider headerProvider, BodyProvider bodyProvider, FutureCallback<HttpResponse> callback) {
         if (bodyProvider.streamable(input)) {
             return strategyWithStreamBody
                     .execute(client, input, flowContext, uri, headerProvider, bodyProvider, callback);
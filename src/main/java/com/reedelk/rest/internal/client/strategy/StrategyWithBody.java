@@ -1,17 +1,17 @@
 package com.reedelk.rest.internal.client.strategy;
 
 import com.reedelk.rest.internal.client.HttpClient;
-import com.reedelk.rest.internal.client.HttpClientResultCallback;
 import com.reedelk.rest.internal.client.body.BodyProvider;
 import com.reedelk.rest.internal.client.body.BodyResult;
 import com.reedelk.rest.internal.client.header.HeaderProvider;
-import com.reedelk.rest.internal.client.response.BufferSizeAwareResponseConsumer;
+import com.reedelk.rest.internal.client.response.ResponseConsumerFactory;
 import com.reedelk.rest.internal.commons.HttpHeader;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.nio.client.methods.HttpAsyncMethods;
 import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
 import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
@@ -24,12 +24,12 @@ import java.util.concurrent.Future;
  */
 public class StrategyWithBody implements Strategy {
 
-    private final int responseBufferSize;
+    private final ResponseConsumerFactory responseConsumerFactory;
     private final RequestWithBodyFactory requestFactory;
 
-    StrategyWithBody(RequestWithBodyFactory requestFactory, int responseBufferSize) {
+    StrategyWithBody(RequestWithBodyFactory requestFactory, ResponseConsumerFactory responseConsumerFactory) {
         this.requestFactory = requestFactory;
-        this.responseBufferSize = responseBufferSize;
+        this.responseConsumerFactory = responseConsumerFactory;
     }
 
     @Override
@@ -39,7 +39,7 @@ public class StrategyWithBody implements Strategy {
                                         URI uri,
                                         HeaderProvider headerProvider,
                                         BodyProvider bodyProvider,
-                                        HttpClientResultCallback callback) {
+                                        FutureCallback<HttpResponse> callback) {
 
         BodyResult bodyResult = bodyProvider.get(input, flowContext);
 
@@ -54,7 +54,7 @@ public class StrategyWithBody implements Strategy {
         addHttpHeaders(headerProvider, bodyResult, request);
 
         HttpAsyncRequestProducer requestProducer = HttpAsyncMethods.create(request);
-        HttpAsyncResponseConsumer<HttpResponse> responseConsumer = BufferSizeAwareResponseConsumer.createConsumer(responseBufferSize);
+        HttpAsyncResponseConsumer<HttpResponse> responseConsumer = responseConsumerFactory.create(callback);
         return client.execute(requestProducer, responseConsumer, callback);
     }
 
@@ -0,0 +1,63 @@
+package com.reedelk.rest.internal.client.strategy;
+
+import com.reedelk.rest.internal.client.HttpClient;
+import com.reedelk.rest.internal.client.body.BodyProvider;
+import com.reedelk.rest.internal.client.header.HeaderProvider;
+import com.reedelk.rest.internal.client.response.ResponseConsumerFactory;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.reactivestreams.Publisher;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+
+import static org.apache.http.client.utils.URIUtils.extractHost;
+
+/**
+ * Body is relayed as a stream of byte buffers: when the input message payload is a zero copy
+ * REST Listener request body, the network buffers are written as they are received, and
+ * they are requested from the listener only as fast as the remote host accepts them.
+ * Transfer-Encoding header set to chunked.
+ */
+public class StrategyWithPassThroughBody implements Strategy {
+
+    private final int requestBufferSize;
+    private final ResponseConsumerFactory responseConsumerFactory;
+    private final RequestWithBodyFactory requestFactory;
+
+    StrategyWithPassThroughBody(RequestWithBodyFactory requestFactory, int requestBufferSize, ResponseConsumerFactory responseConsumerFactory) {
+        this.requestFactory = requestFactory;
+        this.requestBufferSize = requestBufferSize;
+        this.responseConsumerFactory = responseConsumerFactory;
+    }
+
+    @Override
+    public Future<HttpResponse> execute(HttpClient client,
+                                        Message input,
+                                        FlowContext flowContext,
+                                        URI uri,
+                                        HeaderProvider headerProvider,
+                                        BodyProvider bodyProvider,
+                                        FutureCallback<HttpResponse> callback) {
+
+        Publisher<ByteBuffer> body = bodyProvider.getAsBufferStream(input, flowContext);
+        BasicHttpEntity entity = new BasicHttpEntity();
+
+        HttpEntityEnclosingRequestBase request = requestFactory.create();
+        request.setURI(uri);
+        request.setEntity(entity);
+
+        headerProvider.headers().forEach(request::addHeader);
+
+        StreamRequestProducer requestProducer = StreamRequestProducer.ofBuffers(extractHost(uri), request, body, requestBufferSize);
+        HttpAsyncResponseConsumer<HttpResponse> responseConsumer = responseConsumerFactory.create(callback);
+
+        return client.execute(requestProducer, responseConsumer, callback);
+    }
+}
@@ -1,14 +1,14 @@
 package com.reedelk.rest.internal.client.strategy;
 
 import com.reedelk.rest.internal.client.HttpClient;
-import com.reedelk.rest.internal.client.HttpClientResultCallback;
 import com.reedelk.rest.internal.client.body.BodyProvider;
 import com.reedelk.rest.internal.client.header.HeaderProvider;
-import com.reedelk.rest.internal.client.response.BufferSizeAwareResponseConsumer;
+import com.reedelk.rest.internal.client.response.ResponseConsumerFactory;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
 import org.reactivestreams.Publisher;
@@ -24,13 +24,13 @@ import static org.apache.http.client.utils.URIUtils.extractHost;
 public class StrategyWithStreamBody implements Strategy {
 
     private final int requestBufferSize;
-    private final int responseBufferSize;
+    private final ResponseConsumerFactory responseConsumerFactory;
     private final RequestWithBodyFactory requestFactory;
 
-    StrategyWithStreamBody(RequestWithBodyFactory requestFactory, int requestBufferSize, int responseBufferSize) {
+    StrategyWithStreamBody(RequestWithBodyFactory requestFactory, int requestBufferSize, ResponseConsumerFactory responseConsumerFactory) {
         this.requestFactory = requestFactory;
         this.requestBufferSize = requestBufferSize;
-        this.responseBufferSize = responseBufferSize;
+        this.responseConsumerFactory = responseConsumerFactory;
     }
 
     @Override
@@ -40,7 +40,7 @@ public class StrategyWithStreamBody implements Strategy {
                                         URI uri,
                                         HeaderProvider headerProvider,
                                         BodyProvider bodyProvider,
-                                        HttpClientResultCallback callback) {
+                                        FutureCallback<HttpResponse> callback) {
 
         Publisher<byte[]> body = bodyProvider.getAsStream(input, flowContext);
         BasicHttpEntity entity = new BasicHttpEntity();
@@ -52,7 +52,7 @@ public class StrategyWithStreamBody implements Strategy {
         headerProvider.headers().forEach(request::addHeader);
 
         StreamRequestProducer requestProducer = new StreamRequestProducer(extractHost(uri), request, body, requestBufferSize);
-        HttpAsyncResponseConsumer<HttpResponse> responseConsumer = BufferSizeAwareResponseConsumer.createConsumer(responseBufferSize);
+        HttpAsyncResponseConsumer<HttpResponse> responseConsumer = responseConsumerFactory.create(callback);
 
         return client.execute(requestProducer, responseConsumer, callback);
     }
@@ -1,16 +1,16 @@
 package com.reedelk.rest.internal.client.strategy;
 
 import com.reedelk.rest.internal.client.HttpClient;
-import com.reedelk.rest.internal.client.HttpClientResultCallback;
 import com.reedelk.rest.internal.client.body.BodyProvider;
 import com.reedelk.rest.internal.client.header.HeaderProvider;
-import com.reedelk.rest.internal.client.response.BufferSizeAwareResponseConsumer;
+import com.reedelk.rest.internal.client.response.ResponseConsumerFactory;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
 
 import java.net.URI;
@@ -21,12 +21,12 @@ import java.util.concurrent.Future;
  */
 public class StrategyWithoutBody implements Strategy {
 
-    private final int responseBufferSize;
+    private final ResponseConsumerFactory responseConsumerFactory;
     private final RequestWithoutBodyFactory requestFactory;
 
-    StrategyWithoutBody(RequestWithoutBodyFactory requestFactory, int responseBufferSize) {
+    StrategyWithoutBody(RequestWithoutBodyFactory requestFactory, ResponseConsumerFactory responseConsumerFactory) {
         this.requestFactory = requestFactory;
-        this.responseBufferSize = responseBufferSize;
+        this.responseConsumerFactory = responseConsumerFactory;
     }
 
     @Override
@@ -36,7 +36,7 @@ public class StrategyWithoutBody implements Strategy {
                                         URI uri,
                                         HeaderProvider headerProvider,
                                         BodyProvider bodyProvider,
-                                        HttpClientResultCallback callback) {
+                                        FutureCallback<HttpResponse> callback) {
 
         HttpRequestBase baseRequest = requestFactory.create();
 
@@ -47,7 +47,7 @@ public class StrategyWithoutBody implements Strategy {
         HttpHost httpHost = URIUtils.extractHost(uri);
 
         EmptyStreamRequestProducer requestProducer = new EmptyStreamRequestProducer(httpHost, baseRequest);
-        HttpAsyncResponseConsumer<HttpResponse> responseConsumer = BufferSizeAwareResponseConsumer.createConsumer(responseBufferSize);
+        HttpAsyncResponseConsumer<HttpResponse> responseConsumer = responseConsumerFactory.create(callback);
 
         return client.execute(requestProducer, responseConsumer, callback);
     }
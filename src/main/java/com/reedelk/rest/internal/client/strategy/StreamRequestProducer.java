@@ -1,6 +1,6 @@
 package com.reedelk.rest.internal.client.strategy;
 
-import com.reedelk.rest.internal.commons.DataMarker;
+import com.reedelk.rest.internal.client.netty.ImmutableContentProducer;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHost;
 import org.apache.http.nio.ContentEncoder;
@@ -8,101 +8,139 @@ import org.apache.http.nio.IOControl;
 import org.apache.http.nio.entity.HttpAsyncContentProducer;
 import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedTransferQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static reactor.core.scheduler.Schedulers.elastic;
 
-class StreamRequestProducer extends BasicAsyncRequestProducer {
+class StreamRequestProducer extends BasicAsyncRequestProducer implements ImmutableContentProducer {
 
     StreamRequestProducer(HttpHost target, HttpEntityEnclosingRequest request, Publisher<byte[]> stream, int requestBufferSize) {
         super(target, request, new StreamProducer(stream, requestBufferSize));
     }
 
-    static class StreamProducer implements HttpAsyncContentProducer {
-
-        private int requestBufferSize;
-        private Throwable throwable;
-        private ByteBuffer byteBuffer;
-        private BlockingQueue<byte[]> queue = new LinkedTransferQueue<>();
-
-        StreamProducer(Publisher<byte[]> stream, int requestBufferSize) {
+    private StreamRequestProducer(HttpHost target, HttpEntityEnclosingRequest request, StreamProducer producer) {
+        super(target, request, producer);
+    }
 
-            this.requestBufferSize = requestBufferSize;
+    /**
+     * The body is a stream of byte buffers, e.g. the network buffers of a zero copy request
+     * body received by a REST Listener: the buffers are written as they are, without copying them.
+     */
+    static StreamRequestProducer ofBuffers(HttpHost target, HttpEntityEnclosingRequest request, Publisher<ByteBuffer> buffers, int requestBufferSize) {
+        return new StreamRequestProducer(target, request, new StreamProducer(requestBufferSize, buffers));
+    }
 
-            this.byteBuffer = ByteBuffer.allocate(requestBufferSize);
+    /**
+     * Writes the body stream chunks to the connection as they arrive, without blocking the IO reactor
+     * thread: when there are no chunks to write the connection output is suspended, and it is requested
+     * again as soon as a chunk arrives. Chunks are requested in small batches, and no more chunks are
+     * requested while the buffered chunks exceed the request buffer size, so that memory stays bounded.
+     */
+    static class StreamProducer implements HttpAsyncContentProducer, Subscriber<ByteBuffer> {
 
-            Flux.from(stream).subscribeOn(elastic())
+        private static final int PREFETCH = 8;
+        private static final int REPLENISH_THRESHOLD = PREFETCH / 2;
 
-                    .doOnComplete(() -> queue.offer(DataMarker.END))
+        private final long requestBufferSize;
+        private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+        private final AtomicLong bufferedBytes = new AtomicLong();
 
-                    .doOnError((throwable) -> {
+        private volatile Subscription subscription;
+        private volatile IOControl ioControl;
+        private volatile Throwable error;
+        private volatile boolean completed;
+        private volatile boolean cancelled;
 
-                        this.throwable = throwable;
+        // Accessed by the IO reactor thread only.
+        private ByteBuffer current;
+        private int currentLength;
+        private int consumed;
 
-                        queue.offer(DataMarker.ERROR);
+        StreamProducer(Publisher<byte[]> stream, int requestBufferSize) {
+            this(requestBufferSize, Flux.from(stream).map(ByteBuffer::wrap));
+        }
 
-                    })
-                    .subscribe(bytes -> queue.offer(bytes));
+        StreamProducer(int requestBufferSize, Publisher<ByteBuffer> buffers) {
+            this.requestBufferSize = requestBufferSize;
+            // The publisher is subscribed, and its chunks are requested, on a separate
+            // thread: a publisher producing data synchronously never runs on the IO reactor.
+            Flux.from(buffers).subscribeOn(elastic()).subscribe(this);
         }
 
         @Override
-        public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
-            try {
-
-                byte[] take = queue.take();
-
-                if (take == DataMarker.ERROR) {
-
-                    queue = null;
-
-                    throw new IOException(throwable);
-
-                } else if (take == DataMarker.END) {
-
-                    encoder.complete();
-
-                    queue = null;
-
-                    byteBuffer = null;
-
-                } else {
-
-                    int remaining;
-
-                    int offset = 0;
-
-                    int length = take.length > requestBufferSize ? requestBufferSize : take.length;
-
-                    while (length > 0) {
-
-                        byteBuffer.clear();
-
-                        byteBuffer.put(take, offset, length);
-
-                        byteBuffer.flip();
-
-                        encoder.write(byteBuffer);
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(PREFETCH);
+            }
+        }
 
-                        offset += requestBufferSize;
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            bufferedBytes.addAndGet(chunk.remaining());
+            chunks.offer(chunk);
+            resumeOutput();
+        }
 
-                        remaining = take.length - offset;
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            resumeOutput();
+        }
 
-                        length = remaining > requestBufferSize ? requestBufferSize : remaining;
+        @Override
+        public void onComplete() {
+            this.completed = true;
+            resumeOutput();
+        }
 
+        @Override
+        public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+            this.ioControl = ioControl;
+
+            while (true) {
+                if (current == null) {
+                    // The completed flag must be read before polling: all the
+                    // chunks have been offered before the stream completed.
+                    boolean isCompleted = completed;
+                    current = chunks.poll();
+
+                    if (current == null) {
+                        if (error != null) {
+                            throw new IOException(error);
+                        } else if (isCompleted) {
+                            encoder.complete();
+                        } else {
+                            replenish(true);
+                            suspendOutput(ioControl);
+                        }
+                        return;
                     }
+                    currentLength = current.remaining();
                 }
 
-            } catch (InterruptedException e) {
-
-                queue = null;
+                // The whole chunk is written, without copying it.
+                encoder.write(current);
 
-                Thread.currentThread().interrupt();
+                if (current.hasRemaining()) {
+                    // The connection can not accept more data: we will be called again once it is writable.
+                    return;
+                }
 
+                bufferedBytes.addAndGet(-currentLength);
+                current = null;
+                consumed++;
+                replenish(false);
             }
         }
 
@@ -113,7 +151,34 @@ class StreamRequestProducer extends BasicAsyncRequestProducer {
 
         @Override
         public void close() {
+            cancelled = true;
+            Subscription theSubscription = subscription;
+            if (theSubscription != null) theSubscription.cancel();
+            chunks.clear();
+            current = null;
+        }
+
+        private void replenish(boolean isQueueEmpty) {
+            if (consumed == 0) return;
+            if (isQueueEmpty || (consumed >= REPLENISH_THRESHOLD && bufferedBytes.get() < requestBufferSize)) {
+                long requested = consumed;
+                consumed = 0;
+                subscription.request(requested);
+            }
+        }
+
+        private void suspendOutput(IOControl ioControl) {
+            ioControl.suspendOutput();
+            // A chunk, an error or the completion might have arrived after the
+            // queue has been polled and before the output has been suspended.
+            if (!chunks.isEmpty() || error != null || completed) {
+                ioControl.requestOutput();
+            }
+        }
 
+        private void resumeOutput() {
+            IOControl theIoControl = ioControl;
+            if (theIoControl != null) theIoControl.requestOutput();
         }
     }
 }
@@ -0,0 +1,10 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum ClientEngine {
+    @DisplayName("Apache HttpAsyncClient")
+    APACHE,
+    @DisplayName("Netty")
+    NETTY
+}
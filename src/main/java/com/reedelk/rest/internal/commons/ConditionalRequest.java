@@ -0,0 +1,84 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.commons.StringUtils;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+/**
+ * Validators (ETag and Last-Modified) of a response and evaluation of the
+ * conditional request headers If-None-Match and If-Modified-Since (RFC 7232).
+ */
+public class ConditionalRequest {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ConditionalRequest() {
+    }
+
+    /**
+     * Returns a strong entity tag computed from the given content.
+     */
+    public static String strongETag(byte[] content) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException exception) {
+            // Every Java platform implementation must support SHA-256.
+            throw new IllegalStateException(exception);
+        }
+        // The first 128 bits of the digest are more than enough to tell apart representations.
+        StringBuilder etag = new StringBuilder(34).append('"');
+        for (int i = 0; i < 16; i++) {
+            etag.append(HEX[(digest[i] >> 4) & 0xF]).append(HEX[digest[i] & 0xF]);
+        }
+        return etag.append('"').toString();
+    }
+
+    public static String httpDate(long epochMillis) {
+        return DateFormatter.format(new Date(epochMillis));
+    }
+
+    /**
+     * Returns true if the client already holds the representation with the given validators,
+     * and it can be answered with 304 Not Modified. If-Modified-Since is only evaluated when
+     * If-None-Match is not present.
+     *
+     * @param lastModifiedMillis the last modification time, or a negative value if not known.
+     */
+    public static boolean isNotModified(HttpHeaders requestHeaders, String etag, long lastModifiedMillis) {
+        String ifNoneMatch = requestHeaders.get(HttpHeader.IF_NONE_MATCH);
+        if (StringUtils.isNotBlank(ifNoneMatch)) {
+            return matches(ifNoneMatch, etag);
+        }
+
+        String ifModifiedSince = requestHeaders.get(HttpHeader.IF_MODIFIED_SINCE);
+        if (StringUtils.isNotBlank(ifModifiedSince) && lastModifiedMillis >= 0) {
+            Date since = DateFormatter.parseHttpDate(ifModifiedSince);
+            // HTTP dates have a precision of one second.
+            return since != null && lastModifiedMillis / 1000 <= since.getTime() / 1000;
+        }
+        return false;
+    }
+
+    // If-None-Match uses the weak comparison function.
+    private static boolean matches(String ifNoneMatch, String etag) {
+        String opaqueTag = opaqueTagOf(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (ANY.equals(trimmed) || opaqueTag.equals(opaqueTagOf(trimmed))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTagOf(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+}
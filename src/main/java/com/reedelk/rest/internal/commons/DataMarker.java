@@ -1,10 +0,0 @@
-package com.reedelk.rest.internal.commons;
-
-public class DataMarker {
-
-    private DataMarker() {
-    }
-
-    public static final byte[] END = new byte[0];
-    public static final byte[] ERROR = new byte[0];
-}
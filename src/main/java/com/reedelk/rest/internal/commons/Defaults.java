@@ -1,6 +1,8 @@
 package com.reedelk.rest.internal.commons;
 
 import com.reedelk.runtime.api.commons.StringUtils;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
+import io.netty.util.NettyRuntime;
 import reactor.netty.http.HttpDecoderSpec;
 
 public class Defaults {
@@ -15,6 +17,55 @@ public class Defaults {
 
         public static final int RESPONSE_BUFFER_SIZE = 16 * 1024;
         public static final int REQUEST_BUFFER_SIZE = 16 * 1024;
+
+        public static final int CONNECTION_REQUEST_TIMEOUT = 6000;
+        public static final int CONNECT_TIMEOUT = 6000;
+        public static final int SOCKET_TIMEOUT = 60000;
+
+        public static final int CACHE_MAX_ENTRIES = 1000;
+        public static final int CACHE_MAX_ENTRY_SIZE = 1024 * 1024;
+        public static final int CACHE_DISK_MAX_SIZE_MB = 256;
+
+        // Pooled connections idle for longer are closed, even if the server allows a longer
+        // keep-alive: it is below the 60 seconds idle timeout of common load balancers.
+        private static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 50000;
+
+        // A streamed response body not subscribed within this time is discarded, and its
+        // connection released: the flow is not going to read it, e.g. it has failed.
+        public static final int STREAM_SUBSCRIPTION_TIMEOUT = 60000;
+
+        public static final int HEDGING_DELAY = 100;
+        public static final int HEDGING_BUDGET_PERCENT = 10;
+
+        // Limits of the connection pool shared by the REST Clients defined with a
+        // base URL only. They can be set with the following framework properties.
+        public static final String BASE_URL_MAX_CONNECTIONS_PROPERTY = "reedelk.rest.client.baseurl.max.connections";
+        public static final String BASE_URL_MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "reedelk.rest.client.baseurl.max.connections.per.route";
+
+        private static final int DEFAULT_BASE_URL_MAX_CONNECTIONS = 200;
+        private static final int DEFAULT_BASE_URL_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+        public static int idleConnectionTimeout(Integer actual) {
+            return actual == null || actual <= 0 ? DEFAULT_IDLE_CONNECTION_TIMEOUT : actual;
+        }
+
+        public static int baseUrlMaxConnections(String actual) {
+            return positiveOrDefault(actual, DEFAULT_BASE_URL_MAX_CONNECTIONS);
+        }
+
+        public static int baseUrlMaxConnectionsPerRoute(String actual) {
+            return positiveOrDefault(actual, DEFAULT_BASE_URL_MAX_CONNECTIONS_PER_ROUTE);
+        }
+
+        private static int positiveOrDefault(String actual, int defaultValue) {
+            if (StringUtils.isBlank(actual)) return defaultValue;
+            try {
+                int value = Integer.parseInt(actual.trim());
+                return value > 0 ? value : defaultValue;
+            } catch (NumberFormatException exception) {
+                return defaultValue;
+            }
+        }
     }
 
     public static class RestListener {
@@ -50,6 +101,76 @@ public class Defaults {
             return actual == null ? DEFAULT_MAX_HEADER_SIZE : actual;
         }
 
+        public static int bossThreads(Integer actual) {
+            return actual == null ? DEFAULT_BOSS_THREADS : actual;
+        }
+
+        public static int workerThreads(Integer actual) {
+            return actual == null ? DEFAULT_WORKER_THREADS : actual;
+        }
+
+        public static long multipartMemoryThreshold(Integer actual) {
+            return actual == null ? DEFAULT_MULTIPART_MEMORY_THRESHOLD : actual;
+        }
+
+        /**
+         * A negative value means that the size of the parts is not limited.
+         */
+        public static long multipartMaxPartSize(Integer actual) {
+            return actual == null ? DEFAULT_MULTIPART_MAX_PART_SIZE : actual;
+        }
+
+        /**
+         * A negative value means that the size of the request is not limited.
+         */
+        public static long multipartMaxRequestSize(Integer actual) {
+            return actual == null ? DEFAULT_MULTIPART_MAX_REQUEST_SIZE : actual;
+        }
+
+        public static boolean adaptiveConcurrencyLimit(Boolean actual) {
+            return actual == null ? DEFAULT_ADAPTIVE_CONCURRENCY_LIMIT : actual;
+        }
+
+        public static int initialConcurrencyLimit(Integer actual) {
+            return actual == null ? DEFAULT_INITIAL_CONCURRENCY_LIMIT : actual;
+        }
+
+        public static int maxConcurrencyLimit(Integer actual) {
+            return actual == null ? DEFAULT_MAX_CONCURRENCY_LIMIT : actual;
+        }
+
+        public static boolean enableMetrics(Boolean actual) {
+            return actual == null ? DEFAULT_ENABLE_METRICS : actual;
+        }
+
+        public static boolean responseCache(Boolean actual) {
+            return actual == null ? DEFAULT_RESPONSE_CACHE : actual;
+        }
+
+        public static long responseCacheTtl(Integer actual) {
+            return actual == null ? DEFAULT_RESPONSE_CACHE_TTL : actual;
+        }
+
+        public static int responseCacheMaxEntries(Integer actual) {
+            return actual == null ? DEFAULT_RESPONSE_CACHE_MAX_ENTRIES : actual;
+        }
+
+        public static long responseCacheMaxSize(Integer actual) {
+            return actual == null ? DEFAULT_RESPONSE_CACHE_MAX_SIZE : actual;
+        }
+
+        public static ExecutionModel executionModel(ExecutionModel actual) {
+            return actual == null ? DEFAULT_EXECUTION_MODEL : actual;
+        }
+
+        public static int executionPoolSize(Integer actual) {
+            return actual == null ? DEFAULT_EXECUTION_POOL_SIZE : actual;
+        }
+
+        public static int executionQueueSize(Integer actual) {
+            return actual == null ? DEFAULT_EXECUTION_QUEUE_SIZE : actual;
+        }
+
         public static String path() {
             return "/";
         }
@@ -65,6 +186,24 @@ public class Defaults {
         private static final int DEFAULT_HTTPS_PORT = 8443;
         private static final int DEFAULT_MAX_CHUNK_SIZE = HttpDecoderSpec.DEFAULT_MAX_CHUNK_SIZE;
         private static final int DEFAULT_MAX_HEADER_SIZE = HttpDecoderSpec.DEFAULT_MAX_HEADER_SIZE;
+        private static final int DEFAULT_BOSS_THREADS = 1;
+        private static final int DEFAULT_WORKER_THREADS = NettyRuntime.availableProcessors() * 2;
+        private static final long DEFAULT_MULTIPART_MEMORY_THRESHOLD = DefaultHttpDataFactory.MINSIZE;
+        // The decoded parts are kept in memory until the flow completes, whether they have
+        // been written to a temporary file while being received or not.
+        private static final long DEFAULT_MULTIPART_MAX_PART_SIZE = 10 * 1024 * 1024;
+        private static final long DEFAULT_MULTIPART_MAX_REQUEST_SIZE = 50 * 1024 * 1024;
+        private static final boolean DEFAULT_ADAPTIVE_CONCURRENCY_LIMIT = false;
+        private static final int DEFAULT_INITIAL_CONCURRENCY_LIMIT = 20;
+        private static final int DEFAULT_MAX_CONCURRENCY_LIMIT = 200;
+        private static final boolean DEFAULT_ENABLE_METRICS = false;
+        private static final boolean DEFAULT_RESPONSE_CACHE = false;
+        private static final long DEFAULT_RESPONSE_CACHE_TTL = 60_000;
+        private static final int DEFAULT_RESPONSE_CACHE_MAX_ENTRIES = 1000;
+        private static final long DEFAULT_RESPONSE_CACHE_MAX_SIZE = 16 * 1024 * 1024;
+        private static final ExecutionModel DEFAULT_EXECUTION_MODEL = ExecutionModel.INLINE;
+        private static final int DEFAULT_EXECUTION_POOL_SIZE = NettyRuntime.availableProcessors() * 8;
+        private static final int DEFAULT_EXECUTION_QUEUE_SIZE = 1000;
 
     }
 }
@@ -0,0 +1,12 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum ExecutionModel {
+    @DisplayName("Inline")
+    INLINE,
+    @DisplayName("Thread pool")
+    THREAD_POOL,
+    @DisplayName("Virtual threads")
+    VIRTUAL_THREADS
+}
@@ -6,6 +6,22 @@ public interface HttpHeader {
     String CONTENT_LENGTH = "content-length";
     String X_CORRELATION_ID = "x-correlation-id";
     String TRANSFER_ENCODING = "transfer-encoding";
+    String RETRY_AFTER = "retry-after";
+    String ETAG = "etag";
+    String LAST_MODIFIED = "last-modified";
+    String IF_NONE_MATCH = "if-none-match";
+    String IF_MODIFIED_SINCE = "if-modified-since";
+    String CACHE_CONTROL = "cache-control";
+    String SET_COOKIE = "set-cookie";
+    String COOKIE = "cookie";
+    String ACCEPT_ENCODING = "accept-encoding";
+    String CONTENT_ENCODING = "content-encoding";
+    String VARY = "vary";
+    String AGE = "age";
+    String DATE = "date";
+    String EXPIRES = "expires";
+    String PRAGMA = "pragma";
+    String AUTHORIZATION = "authorization";
     String ACCESS_CONTROL_ALLOW_ORIGIN = "Access-Control-Allow-Origin";
 
 }
@@ -0,0 +1,12 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum HttpProtocolVersion {
+    @DisplayName("HTTP/1.1")
+    HTTP_1_1,
+    @DisplayName("HTTP/2 cleartext (h2c)")
+    H2C,
+    @DisplayName("HTTP/2 over TLS (h2)")
+    H2
+}
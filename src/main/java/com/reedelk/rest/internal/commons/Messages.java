@@ -17,7 +17,14 @@ public class Messages {
         BASIC_AUTH_MISSING("Basic Authentication Configuration must be present in the JSON definition when 'authentication' property is 'BASIC'"),
         PROXY_CONFIG_MISSING("Proxy Configuration must be present in the JSON definition when 'proxy' property is 'PROXY'"),
         MULTIPART_PART_NULL("Part with name %s is null and it will not be added to the HttpEntity"),
-        MULTIPART_PART_CONTENT_UNSUPPORTED("Part with Java Content Type %s is not supported and it will not be added to the HttpEntity");
+        MULTIPART_PART_CONTENT_UNSUPPORTED("Part with Java Content Type %s is not supported and it will not be added to the HttpEntity"),
+        CLIENT_HTTP_VERSION_NOT_SUPPORTED("RESTClient configuration HTTP version [%s] is not supported with engine [%s] and protocol [%s]"),
+        CLIENT_ENGINE_DIGEST_AUTH_NOT_SUPPORTED("RESTClient configuration engine [%s] does not support digest authentication"),
+        CACHE_DIRECTORY_ERROR("Could not create the response cache directory [%s]: %s"),
+        CLIENT_HEDGING_METHOD_NOT_SUPPORTED("RESTClient hedging is not supported with method [%s]: only GET, HEAD and OPTIONS requests can be hedged"),
+        LISTENER_EVENT_LOOPS_NOT_AVAILABLE("RESTClient configuration [%s] uses the REST Listener event loops, but no REST Listener is running: the client runs on its own event loops"),
+        CLIENT_SHARED_CONNECTIONS_CONFLICT("RESTClient configuration [%s] cannot share connections: its %s [%s] differs from [%s] of the shared connections"),
+        STREAM_NOT_SUBSCRIBED("Response stream has not been subscribed within %d ms: its connection has been released");
 
         private String message;
 
@@ -34,11 +41,16 @@ public class Messages {
     public enum RestListener implements FormattedMessage {
 
         LISTENER_CONFIG_MISSING("RESTListener 'configuration' property must not be null in the JSON definition"),
+        LISTENER_HTTP_VERSION_NOT_SUPPORTED("RESTListener configuration HTTP version [%s] is not supported with protocol [%s]"),
         ERROR_MULTIPART_ATTRIBUTE_VALUE("Error extracting Multipart attribute value for part named '%s'"),
         ERROR_MULTIPART_FILE_UPLOAD_VALUE("Error extracting Multipart file upload value for part named '%s'"),
         ERROR_MULTIPART_NOT_SUPPORTED("Multipart Content-Type is only supported for requests with method POST and HTTP version 1.1"),
+        ERROR_MULTIPART_REQUEST_TOO_LARGE("Multipart request size exceeds the maximum allowed size of %d bytes"),
+        ERROR_MULTIPART_PART_TOO_LARGE("Multipart part named '%s' exceeds the maximum allowed part size of %d bytes"),
         ERROR_BASE_PATH_NOT_CONSISTENT("There are two server configurations on the same host and port with different base paths. Existing server path: [%s], wanted server path: [%s]."),
-        ERROR_ROUTE_ALREADY_DEFINED("Route for method [%s] and path [%s] is already defined.");
+        ERROR_ROUTE_ALREADY_DEFINED("Route for method [%s] and path [%s] is already defined."),
+        ERROR_TRANSPORT_NOT_AVAILABLE("Transport [%s] is not available on this platform: %s"),
+        ERROR_VIRTUAL_THREADS_NOT_AVAILABLE("Virtual threads execution model requires Java 21 or later, current Java version is [%s]");
 
         private String message;
 
@@ -0,0 +1,118 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.commons.StringUtils;
+import org.apache.http.Header;
+
+import java.util.*;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
+
+/**
+ * Rules for the headers relayed by a REST Client in pass-through mode, from the request
+ * received by a REST Listener to the remote host, and from the remote host response back
+ * to the listener. Hop-by-hop headers (RFC 7230, section 6.1), the headers listed in the
+ * 'Connection' header and the headers describing the message framing are never relayed,
+ * because they only apply to the connection they were received on. Further headers can
+ * be excluded by name: a name ending with '*' excludes all the headers with that prefix.
+ */
+public class PassThroughHeaders {
+
+    private static final Set<String> NOT_RELAYED;
+
+    static {
+        Set<String> tmp = new TreeSet<>(CASE_INSENSITIVE_ORDER);
+        tmp.add("connection");
+        tmp.add("keep-alive");
+        tmp.add("proxy-connection");
+        tmp.add("proxy-authenticate");
+        tmp.add("proxy-authorization");
+        tmp.add("te");
+        tmp.add("trailer");
+        tmp.add("upgrade");
+        tmp.add("host");
+        tmp.add("expect");
+        tmp.add(HttpHeader.TRANSFER_ENCODING);
+        tmp.add(HttpHeader.CONTENT_LENGTH);
+        NOT_RELAYED = Collections.unmodifiableSet(tmp);
+    }
+
+    private final Set<String> excludedNames = new TreeSet<>(CASE_INSENSITIVE_ORDER);
+    private final List<String> excludedPrefixes = new ArrayList<>();
+
+    private PassThroughHeaders(String excludedHeaders) {
+        if (StringUtils.isBlank(excludedHeaders)) return;
+        for (String excluded : excludedHeaders.split(",")) {
+            String name = excluded.trim();
+            if (name.isEmpty()) continue;
+            if (name.endsWith("*")) {
+                excludedPrefixes.add(name.substring(0, name.length() - 1).toLowerCase());
+            } else {
+                excludedNames.add(name);
+            }
+        }
+    }
+
+    /**
+     * @param excludedHeaders comma separated names of the headers which must not be relayed, e.g. 'Authorization, X-Internal-*'.
+     */
+    public static PassThroughHeaders excluding(String excludedHeaders) {
+        return new PassThroughHeaders(excludedHeaders);
+    }
+
+    /**
+     * Returns the relayed request headers, joining the values of each header
+     * with a comma, since the listener splits comma separated header values.
+     */
+    public Map<String, String> request(Map<String, List<String>> headers) {
+        Set<String> connectionHeaders = connectionHeaders(headers.get("connection"));
+        Map<String, String> relayed = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        headers.forEach((name, values) -> {
+            if (isRelayed(name, connectionHeaders) && values != null && !values.isEmpty()) {
+                relayed.put(name, String.join(", ", values));
+            }
+        });
+        return relayed;
+    }
+
+    /**
+     * Returns the relayed response headers: the values of each header are kept
+     * as received, e.g. several 'Set-Cookie' headers are kept as distinct values.
+     */
+    public TreeMap<String, List<String>> response(Header[] headers) {
+        List<String> connectionValues = new ArrayList<>();
+        for (Header header : headers) {
+            if ("connection".equalsIgnoreCase(header.getName())) connectionValues.add(header.getValue());
+        }
+        Set<String> connectionHeaders = connectionHeaders(connectionValues);
+
+        TreeMap<String, List<String>> relayed = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        for (Header header : headers) {
+            if (isRelayed(header.getName(), connectionHeaders)) {
+                relayed.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+            }
+        }
+        return relayed;
+    }
+
+    private boolean isRelayed(String name, Set<String> connectionHeaders) {
+        if (NOT_RELAYED.contains(name) || connectionHeaders.contains(name) || excludedNames.contains(name)) {
+            return false;
+        }
+        String lowerCaseName = name.toLowerCase();
+        for (String prefix : excludedPrefixes) {
+            if (lowerCaseName.startsWith(prefix)) return false;
+        }
+        return true;
+    }
+
+    private static Set<String> connectionHeaders(List<String> connectionValues) {
+        Set<String> names = new TreeSet<>(CASE_INSENSITIVE_ORDER);
+        if (connectionValues == null) return names;
+        for (String value : connectionValues) {
+            for (String token : value.split(",")) {
+                if (!token.trim().isEmpty()) names.add(token.trim());
+            }
+        }
+        return names;
+    }
+}
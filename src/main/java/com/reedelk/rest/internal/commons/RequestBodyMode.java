@@ -0,0 +1,10 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum RequestBodyMode {
+    @DisplayName("Copy")
+    COPY,
+    @DisplayName("Zero copy")
+    ZERO_COPY
+}
@@ -0,0 +1,76 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.commons.ScriptUtils;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicMap;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicInteger;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dynamic values which are not scripts are constant: they can be computed once, when
+ * the route is built, instead of being evaluated by the script engine for each request.
+ */
+public class StaticValue {
+
+    private StaticValue() {
+    }
+
+    public static boolean isStatic(DynamicValue<?> dynamicValue) {
+        return dynamicValue == null || dynamicValue.isNull() || !dynamicValue.isScript();
+    }
+
+    public static boolean isStatic(DynamicMap<?> dynamicMap) {
+        if (dynamicMap == null) return true;
+        for (Object value : dynamicMap.values()) {
+            if (value instanceof DynamicValue) {
+                if (!isStatic((DynamicValue<?>) value)) return false;
+            } else if (ScriptUtils.isScript(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param dynamicInteger a static dynamic value, see {@link #isStatic(DynamicValue)}.
+     */
+    public static Optional<Integer> of(DynamicInteger dynamicInteger) {
+        Object value = valueOf(dynamicInteger);
+        if (value == null) return Optional.empty();
+        if (value instanceof Number) return Optional.of(((Number) value).intValue());
+        return Optional.of(Integer.parseInt(value.toString().trim()));
+    }
+
+    /**
+     * @param dynamicByteArray a static dynamic value, see {@link #isStatic(DynamicValue)}.
+     */
+    public static Optional<byte[]> of(DynamicByteArray dynamicByteArray) {
+        Object value = valueOf(dynamicByteArray);
+        if (value == null) return Optional.empty();
+        if (value instanceof byte[]) return Optional.of((byte[]) value);
+        return Optional.of(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param dynamicMap a static dynamic map, see {@link #isStatic(DynamicMap)}.
+     */
+    public static Map<String, String> of(DynamicMap<?> dynamicMap) {
+        if (dynamicMap == null) return Collections.emptyMap();
+        Map<String, String> values = new LinkedHashMap<>();
+        dynamicMap.forEach((key, value) -> {
+            Object actual = value instanceof DynamicValue ? valueOf((DynamicValue<?>) value) : value;
+            if (actual != null) values.put(key, actual.toString());
+        });
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static Object valueOf(DynamicValue<?> dynamicValue) {
+        return dynamicValue == null || dynamicValue.isNull() ? null : dynamicValue.value();
+    }
+}
@@ -0,0 +1,12 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum Transport {
+    @DisplayName("Auto")
+    AUTO,
+    @DisplayName("NIO")
+    NIO,
+    @DisplayName("Epoll")
+    EPOLL
+}
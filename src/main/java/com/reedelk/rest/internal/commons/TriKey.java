@@ -0,0 +1,43 @@
+package com.reedelk.rest.internal.commons;
+
+import java.util.Objects;
+
+public abstract class TriKey<T1,T2,T3> {
+
+    private final T1 value1;
+    private final T2 value2;
+    private final T3 value3;
+
+    public TriKey(T1 value1, T2 value2, T3 value3) {
+        this.value1 = value1;
+        this.value2 = value2;
+        this.value3 = value3;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TriKey<?, ?, ?> triKey = (TriKey<?, ?, ?>) o;
+        return value1.equals(triKey.value1) &&
+                value2.equals(triKey.value2) &&
+                value3.equals(triKey.value3);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value1, value2, value3);
+    }
+
+    public T1 getValue1() {
+        return value1;
+    }
+
+    public T2 getValue2() {
+        return value2;
+    }
+
+    public T3 getValue3() {
+        return value3;
+    }
+}
@@ -7,6 +7,10 @@ import java.nio.charset.StandardCharsets;
 public class URLDecoderUtil {
 
     public static String decode(String value) {
+        if (value == null || (value.indexOf('%') == -1 && value.indexOf('+') == -1)) {
+            // Nothing to decode, we avoid copying the value.
+            return value;
+        }
         try {
             return URLDecoder.decode(value, StandardCharsets.UTF_8.toString());
         } catch (UnsupportedEncodingException e) {
@@ -0,0 +1,218 @@
+package com.reedelk.rest.internal.metrics;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.osgi.service.component.annotations.ServiceScope.SINGLETON;
+
+/**
+ * Detects event loop threads (Netty server event loops and client IO reactor threads)
+ * blocked by a task running longer than a threshold, e.g. a flow script or a blocking call.
+ * The stack trace of a blocked thread is logged, so that the offending route or component
+ * can be found, and blocked threads are counted by thread pool.
+ */
+@Component(service = BlockingWatchdog.class, scope = SINGLETON)
+public class BlockingWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockingWatchdog.class);
+
+    private static final long SAMPLING_INTERVAL_MILLIS = 50;
+    private static final String SAMPLER_THREAD_NAME = "rest-blocking-watchdog";
+
+    // Keyed by the watched event executor or thread.
+    private final Map<Object, Probe> probes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> blockedCounts = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sampler;
+
+    /**
+     * Watches the event loops of the given group. An event loop is blocked when it does not
+     * run a task submitted by the watchdog within the threshold.
+     */
+    public void watch(String poolName, EventExecutorGroup group, long thresholdMillis) {
+        for (EventExecutor executor : group) {
+            probes.computeIfAbsent(executor, key -> new EventLoopProbe(poolName, executor, MILLISECONDS.toNanos(thresholdMillis)));
+        }
+        startSampling();
+    }
+
+    /**
+     * Returns a thread factory whose threads are watched. A thread is blocked when its stack trace
+     * shows that it has not been waiting for I/O events in the selector for longer than the threshold.
+     */
+    public ThreadFactory threadFactory(String poolName, long thresholdMillis) {
+        ThreadFactory delegate = new DefaultThreadFactory(poolName, true);
+        return runnable -> {
+            Thread thread = delegate.newThread(runnable);
+            probes.put(thread, new SelectorThreadProbe(poolName, thread, MILLISECONDS.toNanos(thresholdMillis)));
+            startSampling();
+            return thread;
+        };
+    }
+
+    /**
+     * @return the number of times a thread has been detected as blocked, by thread pool name.
+     */
+    public Map<String, Long> blockedCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        blockedCounts.forEach((poolName, count) -> counts.put(poolName, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    @Deactivate
+    public synchronized void dispose() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+        probes.clear();
+    }
+
+    private synchronized void startSampling() {
+        if (sampler != null) return;
+        sampler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory(SAMPLER_THREAD_NAME, true));
+        sampler.scheduleWithFixedDelay(this::sample, SAMPLING_INTERVAL_MILLIS, SAMPLING_INTERVAL_MILLIS, MILLISECONDS);
+    }
+
+    private void sample() {
+        long now = System.nanoTime();
+        probes.values().removeIf(probe -> {
+            try {
+                return !probe.sample(now);
+            } catch (Exception exception) {
+                logger.warn("Error while sampling thread pool [{}], the pool is not watched anymore", probe.poolName, exception);
+                return true;
+            }
+        });
+    }
+
+    private void onBlocked(String poolName, Thread thread, long blockedNanos) {
+        blockedCounts.computeIfAbsent(poolName, key -> new LongAdder()).increment();
+        if (logger.isWarnEnabled()) {
+            StringBuilder stackTrace = new StringBuilder();
+            if (thread != null) {
+                for (StackTraceElement element : thread.getStackTrace()) {
+                    stackTrace.append("\n\tat ").append(element);
+                }
+            }
+            logger.warn("Thread [{}] of pool [{}] has been blocked for more than {} ms{}",
+                    thread == null ? "unknown" : thread.getName(),
+                    poolName,
+                    MILLISECONDS.convert(blockedNanos, TimeUnit.NANOSECONDS),
+                    stackTrace);
+        }
+    }
+
+    private abstract class Probe {
+
+        final String poolName;
+        final long thresholdNanos;
+
+        // Whether the current blocking has already been reported.
+        boolean reported;
+
+        Probe(String poolName, long thresholdNanos) {
+            this.poolName = poolName;
+            this.thresholdNanos = thresholdNanos;
+        }
+
+        /**
+         * @return false if the watched thread is gone and the probe must be removed.
+         */
+        abstract boolean sample(long now);
+
+        void check(Thread thread, long busySince, long now) {
+            if (busySince < 0) {
+                reported = false;
+            } else if (!reported && now - busySince > thresholdNanos) {
+                reported = true;
+                onBlocked(poolName, thread, now - busySince);
+            }
+        }
+    }
+
+    private class EventLoopProbe extends Probe {
+
+        private static final long IDLE = -1;
+
+        private final EventExecutor executor;
+
+        private volatile Thread thread;
+        private volatile long heartbeatSentAt = IDLE;
+
+        EventLoopProbe(String poolName, EventExecutor executor, long thresholdNanos) {
+            super(poolName, thresholdNanos);
+            this.executor = executor;
+        }
+
+        @Override
+        boolean sample(long now) {
+            if (executor.isShuttingDown()) return false;
+
+            long sentAt = heartbeatSentAt;
+            if (sentAt == IDLE) {
+                heartbeatSentAt = now;
+                try {
+                    executor.execute(() -> {
+                        thread = Thread.currentThread();
+                        heartbeatSentAt = IDLE;
+                    });
+                } catch (RejectedExecutionException exception) {
+                    return false;
+                }
+            }
+            check(thread, sentAt, now);
+            return true;
+        }
+    }
+
+    private class SelectorThreadProbe extends Probe {
+
+        private final Thread thread;
+
+        private long busySince = -1;
+        private boolean started;
+
+        SelectorThreadProbe(String poolName, Thread thread, long thresholdNanos) {
+            super(poolName, thresholdNanos);
+            this.thread = thread;
+        }
+
+        @Override
+        boolean sample(long now) {
+            if (!thread.isAlive()) {
+                // The thread might not have been started yet.
+                return !started;
+            }
+            started = true;
+
+            if (isWaitingForEvents(thread.getStackTrace())) {
+                busySince = -1;
+            } else if (busySince < 0) {
+                busySince = now;
+            }
+            check(thread, busySince, now);
+            return true;
+        }
+
+        // Selector implementations are named after the platform, e.g. EPollSelectorImpl, KQueueSelectorImpl.
+        private boolean isWaitingForEvents(StackTraceElement[] stackTrace) {
+            for (StackTraceElement element : stackTrace) {
+                if (element.getClassName().endsWith("SelectorImpl")) return true;
+            }
+            return false;
+        }
+    }
+}
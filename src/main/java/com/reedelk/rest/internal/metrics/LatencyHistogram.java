@@ -0,0 +1,80 @@
+package com.reedelk.rest.internal.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * Each power of two microseconds range is split into linear sub buckets, which gives
+ * a relative error of at most 1/8 (12.5%) for any recorded value. Recording a value
+ * only increments atomic counters and it does not allocate.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_VALUE_BITS = 40; // ~12.7 days in microseconds
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    public void recordNanos(long nanos) {
+        long micros = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        counts.incrementAndGet(indexOf(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    public double sumSeconds() {
+        return totalMicros.sum() / 1_000_000.0;
+    }
+
+    /**
+     * Returns the value at the given quantile in seconds, i.e. the upper bound of the bucket
+     * containing the value. Values recorded concurrently might or might not be taken into account.
+     *
+     * @param quantile a value between 0 and 1.
+     */
+    public double quantileSeconds(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank) {
+                return upperBoundOf(i) / 1_000_000.0;
+            }
+        }
+        return upperBoundOf(BUCKET_COUNT - 1) / 1_000_000.0;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+        return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) return index + 1;
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        int subBucket = index & (SUB_BUCKET_COUNT - 1);
+        return (long) (SUB_BUCKET_COUNT + subBucket + 1) << shift;
+    }
+}
@@ -0,0 +1,50 @@
+package com.reedelk.rest.internal.metrics;
+
+import com.reedelk.rest.internal.commons.HttpHeader;
+import com.reedelk.rest.internal.server.HttpRequestHandler;
+import com.reedelk.rest.internal.server.HttpRouteHandler;
+import com.reedelk.rest.internal.server.Server;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MetricsRequestHandler implements HttpRequestHandler {
+
+    private final Server server;
+    private final BlockingWatchdog watchdog;
+
+    /**
+     * @param watchdog the watchdog whose blocked thread counts are exposed, null if not available.
+     */
+    MetricsRequestHandler(Server server, BlockingWatchdog watchdog) {
+        this.server = server;
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
+        // The metrics route itself is not reported.
+        List<RouteMetrics> routes = server.handlers()
+                .stream()
+                .filter(routeHandler -> !routeHandler.isHandledBy(this))
+                .map(HttpRouteHandler::metrics)
+                .collect(Collectors.toList());
+
+        Map<String, Long> blockedCounts = watchdog == null ?
+                Collections.emptyMap() :
+                watchdog.blockedCounts();
+
+        byte[] body = PrometheusTextFormat.serialize(routes, blockedCounts).getBytes(StandardCharsets.UTF_8);
+
+        response.addHeader(HttpHeader.CONTENT_TYPE, PrometheusTextFormat.CONTENT_TYPE);
+        response.addHeader(HttpHeader.CONTENT_LENGTH, String.valueOf(body.length));
+        return response.sendByteArray(Mono.just(body));
+    }
+}
@@ -0,0 +1,69 @@
+package com.reedelk.rest.internal.metrics;
+
+import com.reedelk.rest.internal.server.HttpRequestHandler;
+import com.reedelk.rest.internal.server.HttpRouteHandler;
+import com.reedelk.rest.internal.server.RouteDefinition;
+import com.reedelk.rest.internal.server.Server;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.reedelk.rest.internal.commons.RestMethod.GET;
+
+public class MetricsServerDecorator implements Server {
+
+    private static final String metricsPath = "/metrics";
+
+    private final Server delegate;
+    private final RouteDefinition metricsRoute;
+    private final MetricsRequestHandler metricsRequestHandler;
+
+    public MetricsServerDecorator(Server delegate, BlockingWatchdog watchdog) {
+        this.delegate = delegate;
+        this.metricsRequestHandler = new MetricsRequestHandler(delegate, watchdog);
+
+        // Add metrics route.
+        // Response, error response and operation object are NOT used by the delegate.
+        this.metricsRoute = new RouteDefinition(metricsPath, GET);
+
+        delegate.addRoute(metricsRoute, metricsRequestHandler);
+    }
+
+    @Override
+    public void addRoute(RouteDefinition routeDefinition, HttpRequestHandler httpHandler) {
+        delegate.addRoute(routeDefinition, httpHandler);
+    }
+
+    @Override
+    public void removeRoute(RouteDefinition routeDefinition) {
+        delegate.removeRoute(routeDefinition);
+    }
+
+    @Override
+    public String getBasePath() {
+        return delegate.getBasePath();
+    }
+
+    @Override
+    public boolean hasEmptyRoutes() {
+        return handlers().isEmpty();
+    }
+
+    /**
+     * The metrics route is not returned, so that decorators wrapping this
+     * server only see the routes they, or the listeners, have added.
+     */
+    @Override
+    public List<HttpRouteHandler> handlers() {
+        return delegate.handlers()
+                .stream()
+                .filter(routeHandler -> !routeHandler.isHandledBy(metricsRequestHandler))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void stop() {
+        delegate.removeRoute(metricsRoute);
+        delegate.stop();
+    }
+}
@@ -0,0 +1,117 @@
+package com.reedelk.rest.internal.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Serializes route metrics in the Prometheus text exposition format (version 0.0.4).
+ */
+class PrometheusTextFormat {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String PREFIX = "reedelk_rest_listener_";
+    private static final String BLOCKED_THREADS = "reedelk_rest_blocked_threads_total";
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private PrometheusTextFormat() {
+    }
+
+    static String serialize(Collection<RouteMetrics> routes) {
+        return serialize(routes, Collections.emptyMap());
+    }
+
+    /**
+     * @param blockedCounts the number of times a thread has been blocked, by thread pool name.
+     */
+    static String serialize(Collection<RouteMetrics> routes, Map<String, Long> blockedCounts) {
+        StringBuilder builder = new StringBuilder();
+
+        summary(builder, routes, "routing_seconds", "Time taken to find the route matching the request.", RouteMetrics::routingTime);
+        summary(builder, routes, "flow_seconds", "Time taken by the flow to process the request.", RouteMetrics::flowTime);
+        summary(builder, routes, "response_write_seconds", "Time taken to write the response to the client.", RouteMetrics::writeTime);
+
+        header(builder, "responses_total", "Number of responses sent, by status class.", "counter");
+        for (RouteMetrics route : routes) {
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                sample(builder, "responses_total", route, "status", statusClass + "xx", route.responses(statusClass));
+            }
+        }
+
+        counter(builder, routes, "request_bytes_total", "Number of request body bytes received, as declared by the Content-Length header.", RouteMetrics::bytesIn);
+        counter(builder, routes, "response_bytes_total", "Number of response body bytes sent.", RouteMetrics::bytesOut);
+
+        gauge(builder, routes, "concurrency_limit", "Current adaptive concurrency limit.", RouteMetrics::concurrencyLimit);
+        gauge(builder, routes, "in_flight_requests", "Number of requests currently admitted by the concurrency limiter.", RouteMetrics::inFlight);
+        header(builder, "rejected_requests_total", "Number of requests rejected by the concurrency limiter.", "counter");
+        for (RouteMetrics route : routes) {
+            if (route.hasConcurrencyLimit()) {
+                sample(builder, "rejected_requests_total", route, null, null, route.rejected());
+            }
+        }
+
+        if (!blockedCounts.isEmpty()) {
+            builder.append("# HELP ").append(BLOCKED_THREADS)
+                    .append(" Number of times an event loop thread has been blocked longer than the watchdog threshold.\n");
+            builder.append("# TYPE ").append(BLOCKED_THREADS).append(" counter\n");
+            blockedCounts.forEach((poolName, count) ->
+                    builder.append(BLOCKED_THREADS).append("{pool=\"").append(escape(poolName)).append("\"} ")
+                            .append(count).append('\n'));
+        }
+
+        return builder.toString();
+    }
+
+    private static void summary(StringBuilder builder, Collection<RouteMetrics> routes, String name, String help, Function<RouteMetrics, LatencyHistogram> histogramOf) {
+        header(builder, name, help, "summary");
+        for (RouteMetrics route : routes) {
+            LatencyHistogram histogram = histogramOf.apply(route);
+            for (double quantile : QUANTILES) {
+                sample(builder, name, route, "quantile", String.valueOf(quantile), histogram.quantileSeconds(quantile));
+            }
+            sample(builder, name + "_sum", route, null, null, histogram.sumSeconds());
+            sample(builder, name + "_count", route, null, null, histogram.count());
+        }
+    }
+
+    private static void counter(StringBuilder builder, Collection<RouteMetrics> routes, String name, String help, ToLongFunction<RouteMetrics> valueOf) {
+        header(builder, name, help, "counter");
+        for (RouteMetrics route : routes) {
+            sample(builder, name, route, null, null, valueOf.applyAsLong(route));
+        }
+    }
+
+    private static void gauge(StringBuilder builder, Collection<RouteMetrics> routes, String name, String help, ToLongFunction<RouteMetrics> valueOf) {
+        header(builder, name, help, "gauge");
+        for (RouteMetrics route : routes) {
+            if (route.hasConcurrencyLimit()) {
+                sample(builder, name, route, null, null, valueOf.applyAsLong(route));
+            }
+        }
+    }
+
+    private static void header(StringBuilder builder, String name, String help, String type) {
+        builder.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder builder, String name, RouteMetrics route, String extraLabel, String extraLabelValue, Object value) {
+        builder.append(PREFIX).append(name)
+                .append("{method=\"").append(escape(route.method()))
+                .append("\",path=\"").append(escape(route.path())).append('"');
+        if (extraLabel != null) {
+            builder.append(',').append(extraLabel).append("=\"").append(escape(extraLabelValue)).append('"');
+        }
+        builder.append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,124 @@
+package com.reedelk.rest.internal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histograms and counters of a single route, i.e. method and path.
+ * Recording does not lock and it does not allocate.
+ */
+public class RouteMetrics {
+
+    private static final int STATUS_CLASSES = 5;
+
+    private final String method;
+    private final String path;
+
+    private final LatencyHistogram routingTime = new LatencyHistogram();
+    private final LatencyHistogram flowTime = new LatencyHistogram();
+    private final LatencyHistogram writeTime = new LatencyHistogram();
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder[] responsesByStatusClass = new LongAdder[STATUS_CLASSES];
+
+    private volatile IntSupplier concurrencyLimit;
+    private volatile IntSupplier inFlight;
+    private volatile LongSupplier rejected;
+
+    public RouteMetrics(String method, String path) {
+        this.method = method;
+        this.path = path;
+        for (int i = 0; i < STATUS_CLASSES; i++) {
+            responsesByStatusClass[i] = new LongAdder();
+        }
+    }
+
+    public void recordRoutingTime(long nanos) {
+        routingTime.recordNanos(nanos);
+    }
+
+    public void recordFlowTime(long nanos) {
+        flowTime.recordNanos(nanos);
+    }
+
+    public void recordWriteTime(long nanos) {
+        writeTime.recordNanos(nanos);
+    }
+
+    public void recordBytesIn(long bytes) {
+        if (bytes > 0) bytesIn.add(bytes);
+    }
+
+    public void recordBytesOut(long bytes) {
+        if (bytes > 0) bytesOut.add(bytes);
+    }
+
+    public void recordStatus(int statusCode) {
+        int statusClass = statusCode / 100;
+        if (statusClass >= 1 && statusClass <= STATUS_CLASSES) {
+            responsesByStatusClass[statusClass - 1].increment();
+        }
+    }
+
+    /**
+     * Publishes the admission control state of the route.
+     */
+    public void concurrencyLimit(IntSupplier concurrencyLimit, IntSupplier inFlight, LongSupplier rejected) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.inFlight = inFlight;
+        this.rejected = rejected;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    LatencyHistogram routingTime() {
+        return routingTime;
+    }
+
+    LatencyHistogram flowTime() {
+        return flowTime;
+    }
+
+    LatencyHistogram writeTime() {
+        return writeTime;
+    }
+
+    long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    long bytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * @param statusClass the status class, from 1 (1xx) to 5 (5xx).
+     */
+    long responses(int statusClass) {
+        return responsesByStatusClass[statusClass - 1].sum();
+    }
+
+    boolean hasConcurrencyLimit() {
+        return concurrencyLimit != null;
+    }
+
+    int concurrencyLimit() {
+        return concurrencyLimit.getAsInt();
+    }
+
+    int inFlight() {
+        return inFlight.getAsInt();
+    }
+
+    long rejected() {
+        return rejected.getAsLong();
+    }
+}
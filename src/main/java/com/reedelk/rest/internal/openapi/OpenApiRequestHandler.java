@@ -7,31 +7,85 @@ import com.reedelk.rest.component.listener.Response;
 import com.reedelk.rest.component.listener.openapi.v3.OpenApiSerializableContext;
 import com.reedelk.rest.component.listener.openapi.v3.OperationObject;
 import com.reedelk.rest.component.listener.openapi.v3.OperationObjectUtils;
+import com.reedelk.rest.internal.commons.ConditionalRequest;
 import com.reedelk.rest.internal.commons.Defaults;
 import com.reedelk.rest.internal.commons.HttpHeader;
 import com.reedelk.rest.internal.commons.RestMethod;
 import com.reedelk.rest.internal.server.HttpRequestHandler;
 import com.reedelk.rest.internal.server.RouteDefinition;
+import com.reedelk.runtime.api.commons.StringUtils;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
 
 public class OpenApiRequestHandler implements HttpRequestHandler {
 
+    private static final String GZIP = "gzip";
+    private static final long NO_LAST_MODIFIED = -1;
+
     private final Serializer serializer;
     private final RESTListenerConfiguration configuration;
     private final List<RouteDefinition> routeDefinitionList = new ArrayList<>();
 
+    // Null when the routes have changed and the document must be serialized again.
+    private volatile SerializedDocument document;
+
     protected OpenApiRequestHandler(RESTListenerConfiguration configuration, Serializer serializer) {
         this.configuration = configuration;
         this.serializer = serializer;
     }
 
+    /**
+     * The document is serialized only the first time it is requested after the routes have changed,
+     * the following requests are served from the serialized bytes, gzip compressed if the client accepts it.
+     */
     @Override
     public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
+        SerializedDocument current = document();
+
+        boolean gzip = acceptsGzip(request);
+        byte[] body = gzip ? current.gzip : current.identity;
+        String etag = gzip ? current.gzipETag : current.identityETag;
+
+        // Content Type depends on the formatter. It could be 'application/json' or 'application/x-yaml'.
+        response.addHeader(HttpHeader.CONTENT_TYPE, serializer.contentType());
+        response.addHeader(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+        response.addHeader(HttpHeader.ETAG, etag);
+
+        if (ConditionalRequest.isNotModified(request.requestHeaders(), etag, NO_LAST_MODIFIED)) {
+            return response.status(NOT_MODIFIED).send();
+        }
+
+        if (gzip) response.addHeader(HttpHeader.CONTENT_ENCODING, GZIP);
+        response.addHeader(HttpHeader.CONTENT_LENGTH, String.valueOf(body.length));
+        return response.sendByteArray(Mono.just(body));
+    }
+
+    private SerializedDocument document() {
+        SerializedDocument current = document;
+        if (current == null) {
+            synchronized (this) {
+                current = document;
+                if (current == null) {
+                    current = new SerializedDocument(serializeOpenApi().getBytes(StandardCharsets.UTF_8));
+                    document = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private String serializeOpenApi() {
         // Prepare the context
         OpenApiSerializableContext context = new OpenApiSerializableContext();
 
@@ -63,12 +117,7 @@ public class OpenApiRequestHandler implements HttpRequestHandler {
         context.getExamples().forEach((exampleId, exampleObject) ->
                 components.getExamples().put(exampleId, exampleObject));
 
-        String serializedOpenAPI = serializer.serialize(openAPI);
-
-        // Content Type depends on the formatter. It could be 'application/json' or 'application/x-yaml'.
-        response.addHeader(HttpHeader.CONTENT_TYPE, serializer.contentType());
-        response.addHeader(HttpHeader.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
-        return response.sendByteArray(Mono.just(serializedOpenAPI.getBytes()));
+        return serializer.serialize(openAPI);
     }
 
     private void buildOperationObjectFromRoute(OpenApiSerializableContext context, PathsObject pathsObject, RouteDefinition routeDefinition) {
@@ -92,12 +141,15 @@ public class OpenApiRequestHandler implements HttpRequestHandler {
         }
     }
 
-    public void add(RouteDefinition routeDefinition) {
+    public synchronized void add(RouteDefinition routeDefinition) {
         routeDefinitionList.add(routeDefinition);
+        document = null;
     }
 
-    public void remove(RouteDefinition routeDefinition) {
-        routeDefinitionList.remove(routeDefinition);
+    public synchronized void remove(RouteDefinition routeDefinition) {
+        if (routeDefinitionList.remove(routeDefinition)) {
+            document = null;
+        }
     }
 
     private Map<com.reedelk.openapi.v3.model.RestMethod, com.reedelk.openapi.v3.model.OperationObject> findOperationByPath(PathsObject pathsObject, String path) {
@@ -113,9 +165,49 @@ public class OpenApiRequestHandler implements HttpRequestHandler {
         return path == null ? Defaults.RestListener.pathSeparator() : path;
     }
 
+    private static boolean acceptsGzip(HttpServerRequest request) {
+        String acceptEncoding = request.requestHeaders().get(HttpHeader.ACCEPT_ENCODING);
+        if (StringUtils.isBlank(acceptEncoding)) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] codingAndWeight = coding.split(";");
+            if (GZIP.equalsIgnoreCase(codingAndWeight[0].trim())) {
+                // 'gzip;q=0' means that gzip is not acceptable.
+                return codingAndWeight.length == 1 || !codingAndWeight[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
     private Boolean shouldExcludeApiPath(OperationObject operationObject) {
         return Optional.ofNullable(operationObject)
                 .flatMap(config -> Optional.ofNullable(config.getExclude()))
                 .orElse(false);
     }
+
+    private static class SerializedDocument {
+
+        private final byte[] identity;
+        private final byte[] gzip;
+        private final String identityETag;
+        private final String gzipETag;
+
+        SerializedDocument(byte[] identity) {
+            this.identity = identity;
+            this.gzip = gzip(identity);
+            // Each content coding is a different representation, with its own strong ETag.
+            this.identityETag = ConditionalRequest.strongETag(identity);
+            this.gzipETag = ConditionalRequest.strongETag(gzip);
+        }
+
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(data);
+            } catch (IOException exception) {
+                // Writing to a byte array stream does not throw.
+                throw new IllegalStateException(exception);
+            }
+            return compressed.toByteArray();
+        }
+    }
 }
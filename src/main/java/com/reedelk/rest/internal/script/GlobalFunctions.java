@@ -1,5 +1,6 @@
 package com.reedelk.rest.internal.script;
 
+import com.reedelk.rest.internal.server.cache.ResponseCacheRegistry;
 import com.reedelk.runtime.api.script.ScriptGlobalFunctions;
 
 import java.util.HashMap;
@@ -9,9 +10,11 @@ import java.util.Map;
 public class GlobalFunctions implements ScriptGlobalFunctions {
 
     private final long moduleId;
+    private final ResponseCacheRegistry responseCacheRegistry;
 
-    public GlobalFunctions(long moduleId) {
+    public GlobalFunctions(long moduleId, ResponseCacheRegistry responseCacheRegistry) {
         this.moduleId = moduleId;
+        this.responseCacheRegistry = responseCacheRegistry;
     }
 
     @Override
@@ -23,6 +26,7 @@ public class GlobalFunctions implements ScriptGlobalFunctions {
     public Map<String, Object> bindings() {
         Map<String, Object> bindings = new HashMap<>();
         bindings.put("HttpPartBuilder", new HttpPartBuilder());
+        bindings.put("HttpResponseCache", new HttpResponseCache(responseCacheRegistry));
         return bindings;
     }
 }
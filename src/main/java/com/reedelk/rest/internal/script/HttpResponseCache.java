@@ -0,0 +1,31 @@
+package com.reedelk.rest.internal.script;
+
+import com.reedelk.rest.internal.server.cache.ResponseCacheRegistry;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeFunction;
+
+@Type(global = true,
+        description = "The HttpResponseCache invalidates the responses cached by the REST Listeners with response cache enabled.")
+public class HttpResponseCache {
+
+    private final ResponseCacheRegistry registry;
+
+    HttpResponseCache(ResponseCacheRegistry registry) {
+        this.registry = registry;
+    }
+
+    @TypeFunction(signature = "invalidate(String path)",
+            example = "HttpResponseCache.invalidate('/api/products')",
+            description = "Removes the cached responses of the requests with the given path, " +
+                    "base path included, whatever their query string.")
+    public void invalidate(String path) {
+        registry.invalidate(path);
+    }
+
+    @TypeFunction(signature = "invalidateAll()",
+            example = "HttpResponseCache.invalidateAll()",
+            description = "Removes all the cached responses.")
+    public void invalidateAll() {
+        registry.invalidateAll();
+    }
+}
@@ -0,0 +1,101 @@
+package com.reedelk.rest.internal.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for a route. It limits the number of requests in flight with a limit
+ * adapted to the observed latency, in the style of a gradient (Vegas like) algorithm:
+ * the limit grows while the latency of the requests stays close to the long term average
+ * latency and it shrinks as soon as the latency grows because requests are queueing up.
+ * Requests above the limit are rejected straight away.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private static final int MIN_LIMIT = 1;
+    private static final double SMOOTHING = 0.2;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double LONG_RTT_WINDOW = 600;
+    private static final double LONG_RTT_DECAY = 0.95;
+
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long samples;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit) {
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.estimatedLimit = clamp(initialLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * @return true if the request is admitted, the caller must then call {@link #release(long)}
+     * once the request has been completed. False if the request must be rejected.
+     */
+    boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases an admitted request and updates the limit with its latency.
+     *
+     * @param rttNanos the time taken to process the request, a negative value if the
+     *                 request did not complete normally and must not be sampled.
+     */
+    void release(long rttNanos) {
+        int currentInFlight = inFlight.getAndDecrement();
+        if (rttNanos > 0) onSample(rttNanos, currentInFlight);
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    long rejected() {
+        return rejected.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int currentInFlight) {
+        // Long term (no load) latency: exponential moving average over a long window.
+        samples++;
+        double window = Math.min(samples, LONG_RTT_WINDOW);
+        longRttNanos = longRttNanos + (rttNanos - longRttNanos) / window;
+
+        // The latency dropped after a load spike: the long term latency converges faster.
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos = longRttNanos * LONG_RTT_DECAY;
+        }
+
+        // The limit is not used: there is no evidence that it can be increased.
+        if (currentInFlight * 2 < estimatedLimit) return;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        estimatedLimit = clamp(newLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(MIN_LIMIT, Math.min(maxLimit, value));
+    }
+}
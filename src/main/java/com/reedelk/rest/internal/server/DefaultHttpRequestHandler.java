@@ -2,38 +2,69 @@ package com.reedelk.rest.internal.server;
 
 import com.reedelk.rest.component.listener.ErrorResponse;
 import com.reedelk.rest.component.listener.Response;
+import com.reedelk.rest.internal.RequestEntityTooLargeException;
 import com.reedelk.rest.internal.ServerTooBusyException;
+import com.reedelk.rest.internal.commons.Defaults;
+import com.reedelk.rest.internal.commons.RequestBodyMode;
 import com.reedelk.rest.internal.commons.StreamingMode;
+import com.reedelk.rest.internal.metrics.RouteMetrics;
 import com.reedelk.rest.internal.server.body.BodyProvider;
 import com.reedelk.rest.internal.server.body.BodyProviderStreamAlways;
 import com.reedelk.rest.internal.server.body.BodyProviderStreamAuto;
 import com.reedelk.rest.internal.server.body.BodyProviderStreamNone;
+import com.reedelk.rest.internal.server.cache.CachedResponse;
+import com.reedelk.rest.internal.server.cache.ResponseCache;
 import com.reedelk.rest.internal.server.mapper.HttpRequestMessageMapper;
 import com.reedelk.rest.internal.server.mapper.MessageHttpResponseMapper;
+import com.reedelk.rest.internal.server.mapper.MultipartSettings;
+import com.reedelk.rest.internal.server.mapper.RequestBodyBuffers;
 import com.reedelk.runtime.api.commons.StackTraceUtils;
+import com.reedelk.runtime.api.commons.StringUtils;
 import com.reedelk.runtime.api.component.InboundEventListener;
 import com.reedelk.runtime.api.component.OnResult;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.ReferenceCountUtil;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_LENGTH;
+import static com.reedelk.rest.internal.commons.HttpHeader.RETRY_AFTER;
 import static com.reedelk.runtime.api.commons.StackTraceUtils.asByteArray;
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
 import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 import static java.lang.String.format;
 
 public class DefaultHttpRequestHandler implements HttpRequestHandler {
 
+    private static final String ZERO_CONTENT_LENGTH = "0";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private RouteMetrics metrics;
+    private FlowExecutor executor;
+    private ResponseCache responseCache;
+    private AdaptiveConcurrencyLimiter limiter;
     private InboundEventListener inboundEventListener;
     private MessageHttpResponseMapper responseMapper;
     private HttpRequestMessageMapper requestMapper;
@@ -51,33 +82,203 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
      */
     @Override
     public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
+        if (metrics == null) return serve(request, response);
+
+        metrics.recordBytesIn(contentLengthOf(request));
+        return Mono.from(serve(request, response))
+                .doFinally(signalType -> metrics.recordStatus(response.status().code()));
+    }
+
+    @Override
+    public void bind(RouteMetrics metrics) {
+        this.metrics = metrics;
+        if (limiter != null) {
+            metrics.concurrencyLimit(limiter::limit, limiter::inFlight, limiter::rejected);
+        }
+    }
+
+    /**
+     * Cached responses are sent straight away, without entering the flow.
+     */
+    private Publisher<Void> serve(HttpServerRequest request, HttpServerResponse response) {
+        if (responseCache == null ||
+                !HttpMethod.GET.equals(request.method()) ||
+                !responseCache.isCacheable(request)) {
+            return admit(request, response, null);
+        }
+
+        String cacheKey = responseCache.keyOf(request);
+        Optional<CachedResponse> cached = responseCache.get(cacheKey);
+        return cached.isPresent() ?
+                sendCached(request, response, cached.get()) :
+                admit(request, response, cacheKey);
+    }
+
+    private Publisher<Void> admit(HttpServerRequest request, HttpServerResponse response, String cacheKey) {
+        if (limiter == null) return handle(request, response, cacheKey);
+
+        // Admission control: requests above the concurrency limit are rejected
+        // before mapping the request or evaluating any script.
+        if (!limiter.tryAcquire()) return rejectServerTooBusy(response);
+
+        long start = System.nanoTime();
+        return Mono.from(handle(request, response, cacheKey))
+                .doFinally(signalType -> limiter.release(SignalType.ON_COMPLETE == signalType ?
+                        System.nanoTime() - start :
+                        -1));
+    }
+
+    /**
+     * @param cacheKey the key the response is cached with, null if the response must not be cached.
+     */
+    private Publisher<Void> handle(HttpServerRequest request, HttpServerResponse response, String cacheKey) {
+
+        // Network buffers retained by a zero copy request body, released once the response has been sent.
+        RequestBodyBuffers bodyBuffers = new RequestBodyBuffers();
 
         Message inputMessage;
         try {
             // Map HTTP request to Message object.
-            inputMessage = requestMapper.map(request);
+            inputMessage = requestMapper.map(request, bodyBuffers);
 
         } catch (Throwable exception) {
 
+            bodyBuffers.release();
+
             byte[] bodyBytes = asByteArray(exception);
 
-            response.status(INTERNAL_SERVER_ERROR);
+            // A request body exceeding the configured size limits is a client error.
+            response.status(exception instanceof RequestEntityTooLargeException ?
+                    REQUEST_ENTITY_TOO_LARGE :
+                    INTERNAL_SERVER_ERROR);
 
             response.addHeader(CONTENT_LENGTH, String.valueOf(bodyBytes.length));
 
+            if (metrics != null) metrics.recordBytesOut(bodyBytes.length);
+
             return Mono.from(response.sendByteArray(Mono.just(bodyBytes)));
         }
 
         // Propagate the event down to the processors chain by sending an event.
-        return Mono.just(inputMessage)
+        Mono<Publisher<ByteBuf>> responseBody = Mono.just(inputMessage)
 
                 // Propagate and map back the out Message as HTTP response.
                 // The sink is used to stream out the bytes to be sent to the client.
-                .flatMap(message -> Mono.create((Consumer<MonoSink<Publisher<byte[]>>>) bytesSink ->
-                        inboundEventListener.onEvent(message, new OnPipelineResult(bytesSink, response))))
+                .flatMap(message -> Mono.create((Consumer<MonoSink<Publisher<ByteBuf>>>) bytesSink ->
+                        dispatch(message, bytesSink, new OnPipelineResult(bytesSink, response))));
+
+        // The flow has been executed by the flow executor: the response
+        // is written back on the event loop of the request's channel.
+        if (executor != null) responseBody = responseBody.publishOn(eventLoopOf(response));
+
+        return responseBody
 
                 // Streams back to the HTTP response channel the response data stream
-                .flatMap(byteStream -> Mono.from(response.sendByteArray(byteStream)));
+                .flatMap(byteStream -> cacheKey == null ?
+                        send(response, byteStream) :
+                        cacheAndSend(request, response, cacheKey, byteStream))
+
+                // The flow executor is saturated.
+                .onErrorResume(RejectedExecutionException.class, exception -> Mono.from(rejectServerTooBusy(response)))
+
+                // The request body buffers can be released only after the response has been
+                // sent, since the response body might be the request body buffers themselves.
+                .doFinally(signalType -> bodyBuffers.release());
+    }
+
+    private void dispatch(Message message, MonoSink<Publisher<ByteBuf>> bytesSink, OnPipelineResult result) {
+        if (executor == null) {
+            inboundEventListener.onEvent(message, result);
+            return;
+        }
+        try {
+            executor.execute(() -> inboundEventListener.onEvent(message, result));
+        } catch (RejectedExecutionException exception) {
+            bytesSink.error(exception);
+        }
+    }
+
+    private static Scheduler eventLoopOf(HttpServerResponse response) {
+        AtomicReference<Executor> eventLoop = new AtomicReference<>();
+        response.withConnection(connection -> eventLoop.set(connection.channel().eventLoop()));
+        return Schedulers.fromExecutor(eventLoop.get());
+    }
+
+    private Mono<Void> send(HttpServerResponse response, Publisher<ByteBuf> byteStream) {
+        if (metrics == null) return Mono.from(response.send(byteStream));
+
+        // Single valued bodies are kept as Mono, so that they are written and flushed at once:
+        // Mono.from returns the given publisher itself when it is already a Mono.
+        Publisher<ByteBuf> countedByteStream = byteStream instanceof Mono ?
+                Mono.from(byteStream).doOnNext(buffer -> metrics.recordBytesOut(buffer.readableBytes())) :
+                Flux.from(byteStream).doOnNext(buffer -> metrics.recordBytesOut(buffer.readableBytes()));
+
+        long writeStart = System.nanoTime();
+        return Mono.from(response.send(countedByteStream))
+                .doFinally(signalType -> metrics.recordWriteTime(System.nanoTime() - writeStart));
+    }
+
+    /**
+     * The response body is aggregated so that it can be cached. The validators of the cached
+     * response are sent to the client, which might already hold the same representation.
+     */
+    private Mono<Void> cacheAndSend(HttpServerRequest request, HttpServerResponse response, String cacheKey, Publisher<ByteBuf> byteStream) {
+        if (!responseCache.isCacheable(response)) return send(response, byteStream);
+
+        return Flux.from(byteStream)
+                .doOnDiscard(ByteBuf.class, ReferenceCountUtil::release)
+                .collectList()
+                .flatMap(buffers -> {
+                    byte[] body = toByteArray(buffers);
+                    CachedResponse cached = responseCache.put(cacheKey, request.uri(), response, body);
+                    return sendCached(request, response, cached);
+                });
+    }
+
+    private Mono<Void> sendCached(HttpServerRequest request, HttpServerResponse response, CachedResponse cached) {
+        response.status(cached.status());
+        response.responseHeaders().set(cached.headers());
+        if (cached.isNotModified(request.requestHeaders())) {
+            response.status(NOT_MODIFIED);
+            response.responseHeaders().remove(CONTENT_LENGTH);
+            return Mono.from(response.send());
+        }
+        return send(response, Mono.just(Unpooled.wrappedBuffer(cached.body())));
+    }
+
+    private static byte[] toByteArray(List<ByteBuf> buffers) {
+        int length = 0;
+        for (ByteBuf buffer : buffers) length += buffer.readableBytes();
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (ByteBuf buffer : buffers) {
+            try {
+                int readable = buffer.readableBytes();
+                buffer.readBytes(bytes, offset, readable);
+                offset += readable;
+            } finally {
+                // The buffers are not sent, therefore we must release them here.
+                buffer.release();
+            }
+        }
+        return bytes;
+    }
+
+    private static long contentLengthOf(HttpServerRequest request) {
+        String contentLength = request.requestHeaders().get(CONTENT_LENGTH);
+        if (StringUtils.isBlank(contentLength)) return 0;
+        try {
+            return Long.parseLong(StringUtils.trim(contentLength));
+        } catch (NumberFormatException exception) {
+            return 0;
+        }
+    }
+
+    private static Publisher<Void> rejectServerTooBusy(HttpServerResponse response) {
+        response.status(SERVICE_UNAVAILABLE);
+        response.addHeader(RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.addHeader(CONTENT_LENGTH, ZERO_CONTENT_LENGTH);
+        return Mono.from(response.send());
     }
 
     /**
@@ -86,21 +287,51 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
      */
     private class OnPipelineResult implements OnResult {
 
-        private final MonoSink<Publisher<byte[]>> sink;
+        private final MonoSink<Publisher<ByteBuf>> sink;
         private final HttpServerResponse response;
+        private final long flowStart;
 
-        private OnPipelineResult(MonoSink<Publisher<byte[]>> sink, HttpServerResponse response) {
+        private OnPipelineResult(MonoSink<Publisher<ByteBuf>> sink, HttpServerResponse response) {
             this.sink = sink;
             this.response = response;
+            this.flowStart = metrics == null ? 0 : System.nanoTime();
         }
 
         @Override
         public void onResult(FlowContext flowContext, Message outMessage) {
+            recordFlowTime();
+            offload(() -> mapResult(flowContext, outMessage));
+        }
+
+        @Override
+        public void onError(FlowContext flowContext, Throwable exception) {
+            recordFlowTime();
+            offload(() -> mapError(flowContext, exception));
+        }
+
+        /**
+         * The response mapping, which might evaluate scripts, runs on the flow executor
+         * as well, whatever the thread which completed the flow.
+         */
+        private void offload(Runnable mapping) {
+            if (executor == null || executor.isCurrentThread()) {
+                mapping.run();
+                return;
+            }
+            try {
+                executor.execute(mapping);
+            } catch (RejectedExecutionException exception) {
+                // The flow has already been executed: the response is mapped anyway.
+                mapping.run();
+            }
+        }
+
+        private void mapResult(FlowContext flowContext, Message outMessage) {
             try {
 
                 responseMapper.map(outMessage, response, flowContext);
 
-                Publisher<byte[]> body = bodyProvider.from(response, outMessage, flowContext);
+                Publisher<ByteBuf> body = bodyProvider.from(response, outMessage, flowContext);
 
                 sink.success(body);
 
@@ -117,9 +348,7 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
             }
         }
 
-        @Override
-        public void onError(FlowContext flowContext, Throwable exception) {
-
+        private void mapError(FlowContext flowContext, Throwable exception) {
             Throwable realException = exception;
 
             if (exception instanceof RejectedExecutionException) {
@@ -134,12 +363,16 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
 
         }
 
+        private void recordFlowTime() {
+            if (metrics != null) metrics.recordFlowTime(System.nanoTime() - flowStart);
+        }
+
         private void handleErrorResponse(Throwable exception, FlowContext flowContext) {
 
             try {
                 responseMapper.map(exception, response, flowContext);
 
-                Publisher<byte[]> body = bodyProvider.from(response, exception, flowContext);
+                Publisher<ByteBuf> body = bodyProvider.from(response, exception, flowContext);
 
                 sink.success(body);
 
@@ -150,7 +383,8 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
                 // case we cannot do nothing and return an internal server error to the client.
                 response.status(INTERNAL_SERVER_ERROR);
 
-                Publisher<byte[]> body = StackTraceUtils.asByteStream(error);
+                Publisher<ByteBuf> body = Flux.from(StackTraceUtils.asByteStream(error))
+                        .map(Unpooled::wrappedBuffer);
 
                 sink.success(body);
             }
@@ -167,6 +401,13 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
 
         private Response response;
         private StreamingMode streaming;
+        private RequestBodyMode requestBody;
+        private MultipartSettings multipart;
+        private Boolean adaptiveConcurrencyLimit;
+        private Integer initialConcurrencyLimit;
+        private Integer maxConcurrencyLimit;
+        private FlowExecutor executor;
+        private ResponseCache responseCache;
         private ErrorResponse errorResponse;
         private ScriptEngineService scriptEngine;
         private InboundEventListener inboundEventListener;
@@ -186,6 +427,41 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
             return this;
         }
 
+        public Builder requestBody(RequestBodyMode requestBody) {
+            this.requestBody = requestBody;
+            return this;
+        }
+
+        public Builder multipart(MultipartSettings multipart) {
+            this.multipart = multipart;
+            return this;
+        }
+
+        public Builder adaptiveConcurrencyLimit(Boolean adaptiveConcurrencyLimit) {
+            this.adaptiveConcurrencyLimit = adaptiveConcurrencyLimit;
+            return this;
+        }
+
+        public Builder initialConcurrencyLimit(Integer initialConcurrencyLimit) {
+            this.initialConcurrencyLimit = initialConcurrencyLimit;
+            return this;
+        }
+
+        public Builder maxConcurrencyLimit(Integer maxConcurrencyLimit) {
+            this.maxConcurrencyLimit = maxConcurrencyLimit;
+            return this;
+        }
+
+        public Builder executor(FlowExecutor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder responseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
         public Builder errorResponse(ErrorResponse errorResponse) {
             this.errorResponse = errorResponse;
             return this;
@@ -204,9 +480,17 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
         public DefaultHttpRequestHandler build() {
             DefaultHttpRequestHandler handler = new DefaultHttpRequestHandler();
             handler.inboundEventListener = inboundEventListener;
-            handler.requestMapper = new HttpRequestMessageMapper(matchingPath);
+            handler.requestMapper = new HttpRequestMessageMapper(matchingPath, requestBody,
+                    multipart == null ? MultipartSettings.defaults() : multipart);
             handler.responseMapper = new MessageHttpResponseMapper(scriptEngine, response, errorResponse);
             handler.bodyProvider = createBodyProvider();
+            handler.responseCache = responseCache;
+            handler.executor = executor;
+            if (Defaults.RestListener.adaptiveConcurrencyLimit(adaptiveConcurrencyLimit)) {
+                handler.limiter = new AdaptiveConcurrencyLimiter(
+                        Defaults.RestListener.initialConcurrencyLimit(initialConcurrencyLimit),
+                        Defaults.RestListener.maxConcurrencyLimit(maxConcurrencyLimit));
+            }
             return handler;
         }
 
@@ -6,10 +6,7 @@ import com.reedelk.rest.internal.commons.Defaults;
 import com.reedelk.rest.internal.server.configurer.ServerConfigurer;
 import com.reedelk.rest.internal.server.configurer.ServerSecurityConfigurer;
 import com.reedelk.runtime.api.commons.StringUtils;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpMethod;
-import io.netty.util.concurrent.EventExecutorGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.netty.DisposableServer;
@@ -19,7 +16,6 @@ import reactor.netty.tcp.TcpServer;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
-import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class DefaultServer implements Server {
 
@@ -27,19 +23,21 @@ public class DefaultServer implements Server {
 
     private HttpServerRoutes routes;
     private DisposableServer server;
-    private NioEventLoopGroup bossGroup;
-    private NioEventLoopGroup workerGroup;
 
+    private final ServerEventLoops eventLoops;
     private final RESTListenerConfiguration configuration;
 
-    DefaultServer(RESTListenerConfiguration configuration) {
+    /**
+     * The given event loops must have been retained for this server,
+     * they are released when this server is stopped.
+     */
+    DefaultServer(RESTListenerConfiguration configuration, ServerEventLoops eventLoops) {
         this.configuration = configuration;
+        this.eventLoops = eventLoops;
 
-        this.routes = new DefaultServerRoutes();
-        this.bossGroup = new NioEventLoopGroup();
-        this.workerGroup = new NioEventLoopGroup();
+        this.routes = new DefaultServerRoutes(Defaults.RestListener.enableMetrics(configuration.getEnableMetrics()));
 
-        TcpServer bootstrap = createTcpServer(configuration);
+        TcpServer bootstrap = createTcpServer(configuration, eventLoops);
         HttpServer httpServer = HttpServer.from(bootstrap).handle(routes);
         this.server = ServerConfigurer.configure(httpServer, configuration).bindNow();
     }
@@ -70,9 +68,8 @@ public class DefaultServer implements Server {
 
     @Override
     public void stop() {
-        shutdownGracefully(bossGroup);
-        shutdownGracefully(workerGroup);
         shutdownSilently(server);
+        eventLoops.release();
     }
 
     @Override
@@ -93,29 +90,19 @@ public class DefaultServer implements Server {
                 '}';
     }
 
-    private TcpServer createTcpServer(RESTListenerConfiguration configuration) {
+    private static TcpServer createTcpServer(RESTListenerConfiguration configuration, ServerEventLoops eventLoops) {
+        ServerTransport transport = eventLoops.transport();
         TcpServer bootstrap = TcpServer.create();
         bootstrap = ServerSecurityConfigurer.configure(RESTListenerConfiguration.class, bootstrap, configuration);
         bootstrap = bootstrap.bootstrap(serverBootstrap -> {
             ServerConfigurer.configure(serverBootstrap, configuration);
             return serverBootstrap
-                    .channel(NioServerSocketChannel.class)
-                    .group(bossGroup, workerGroup);
+                    .channel(transport.serverChannelClass())
+                    .group(eventLoops.bossGroup(), eventLoops.workerGroup());
         }).doOnConnection(ServerConfigurer.onConnection(configuration));
         return bootstrap;
     }
 
-    private static void shutdownGracefully(EventExecutorGroup executionGroup) {
-        try {
-            executionGroup.shutdownGracefully(0, 3, SECONDS).sync();
-        } catch (InterruptedException e) {
-
-            logger.warn("Error while shutting down event group", e);
-
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private static void shutdownSilently(DisposableServer server) {
         if (server != null) {
             try {
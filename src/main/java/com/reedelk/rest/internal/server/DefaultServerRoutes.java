@@ -1,6 +1,7 @@
 package com.reedelk.rest.internal.server;
 
 import com.reedelk.rest.internal.commons.Messages.RestListener;
+import com.reedelk.rest.internal.server.uri.UriTemplateVariables;
 import com.reedelk.runtime.api.exception.PlatformException;
 import io.netty.handler.codec.http.HttpMethod;
 import org.reactivestreams.Publisher;
@@ -10,20 +11,34 @@ import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-import static com.reedelk.rest.internal.server.HttpPredicate.MatcherResult;
 import static java.util.Objects.requireNonNull;
 
 public class DefaultServerRoutes implements HttpServerRoutes {
 
     private final CopyOnWriteArrayList<HttpRouteHandler> handlers = new CopyOnWriteArrayList<>();
+    private final Map<HttpMethod, RouteTree> methodRouteTrees = new ConcurrentHashMap<>();
+    private final boolean metricsEnabled;
+
+    public DefaultServerRoutes() {
+        this(false);
+    }
+
+    /**
+     * @param metricsEnabled true if the route handlers must record their metrics. If false, no
+     *                       metrics are created and the requests are not timed at all.
+     */
+    public DefaultServerRoutes(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
 
     @Override
-    public HttpRouteHandler route(HttpPredicate predicateMatcher, HttpRequestHandler handler) {
+    public synchronized HttpRouteHandler route(HttpPredicate predicateMatcher, HttpRequestHandler handler) {
         requireNonNull(predicateMatcher, "predicateMatcher");
         requireNonNull(handler, "handler");
 
@@ -31,18 +46,22 @@ public class DefaultServerRoutes implements HttpServerRoutes {
             throw new RouteAlreadyDefinedException(predicateMatcher.getMethod().name(), predicateMatcher.getUri());
         }
 
-        HttpRouteHandler routeHandler = new HttpRouteHandler(predicateMatcher, handler);
+        HttpRouteHandler routeHandler = new HttpRouteHandler(predicateMatcher, handler, metricsEnabled);
 
+        methodRouteTrees
+                .computeIfAbsent(predicateMatcher.getMethod(), method -> new RouteTree())
+                .add(predicateMatcher.getUri(), routeHandler);
         handlers.add(routeHandler);
         return routeHandler;
     }
 
     @Override
-    public void remove(HttpMethod method, String path) {
-        handlers.stream()
-                .filter(handler -> MatcherResult.EXACT_MATCH.equals(handler.matches(method, path)))
-                .findFirst()
-                .ifPresent(handlers::remove);
+    public synchronized void remove(HttpMethod method, String path) {
+        RouteTree routeTree = methodRouteTrees.get(method);
+        if (routeTree != null) {
+            routeTree.remove(path).ifPresent(handlers::remove);
+            if (routeTree.isEmpty()) methodRouteTrees.remove(method);
+        }
     }
 
     @Override
@@ -53,9 +72,14 @@ public class DefaultServerRoutes implements HttpServerRoutes {
     @Override
     public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
         try {
-            Optional<HttpRouteHandler> matchingHandler = findMatchingHttpRouteHandler(handlers, request);
+            long routingStart = metricsEnabled ? System.nanoTime() : 0;
+            UriTemplateVariables variables = new UriTemplateVariables();
+            Optional<HttpRouteHandler> matchingHandler = findMatchingHttpRouteHandler(request.method(), request.uri(), variables);
             if (matchingHandler.isPresent()) {
-                return matchingHandler.get().apply(request, response);
+                HttpRouteHandler routeHandler = matchingHandler.get();
+                if (metricsEnabled) routeHandler.metrics().recordRoutingTime(System.nanoTime() - routingStart);
+                // The path params captured while matching are reused, the template is not matched again.
+                return routeHandler.apply(request, response, variables.asMap());
             }
             return response.sendNotFound();
         } catch (Throwable throwable) {
@@ -65,31 +89,18 @@ public class DefaultServerRoutes implements HttpServerRoutes {
     }
 
     private boolean isAlreadyRegistered(HttpMethod method, String path) {
-        // We are looking for exact matches, e.g /api/{id} -> /api/{id}
-        return handlers
-                .stream()
-                .anyMatch(handler -> MatcherResult.EXACT_MATCH.equals(handler.matches(method, path)));
+        // We are looking for routes with the same structure, e.g /api/{id} -> /api/{id} or /api/{name}
+        RouteTree routeTree = methodRouteTrees.get(method);
+        return routeTree != null && routeTree.contains(path);
     }
 
     /**
      * A route http handler is a match if there is first an exact match, matching the request uri.
      * If there is no an exact match we look for an uri template e.g /api/{ID}.
      */
-    static Optional<HttpRouteHandler> findMatchingHttpRouteHandler(List<HttpRouteHandler> handlers, HttpServerRequest request) {
-        final Iterator<HttpRouteHandler> iterator = handlers.iterator();
-        HttpRouteHandler matchingHandler = null;
-        while (iterator.hasNext()) {
-            HttpRouteHandler handler = iterator.next();
-            MatcherResult templateMatch = handler.matches(request);
-            if (MatcherResult.EXACT_MATCH.equals(templateMatch)) {
-                // Priority goes to exact matches.
-                return Optional.of(handler);
-            } else if (MatcherResult.TEMPLATE_MATCH.equals(templateMatch)) {
-                // Template match only if an exact match was not found.
-                matchingHandler = handler;
-            }
-        }
-        return matchingHandler != null ? Optional.of(matchingHandler) : Optional.empty();
+    Optional<HttpRouteHandler> findMatchingHttpRouteHandler(HttpMethod method, String uri, UriTemplateVariables variables) {
+        RouteTree routeTree = methodRouteTrees.get(method);
+        return routeTree != null ? routeTree.find(uri, variables) : Optional.empty();
     }
 
     static class RouteAlreadyDefinedException extends PlatformException {
@@ -0,0 +1,82 @@
+package com.reedelk.rest.internal.server;
+
+import com.reedelk.rest.internal.commons.ExecutionModel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.*;
+
+import static com.reedelk.rest.internal.commons.Messages.RestListener.ERROR_VIRTUAL_THREADS_NOT_AVAILABLE;
+
+/**
+ * Executes the flows of a listener, and the mapping of their results to the HTTP response,
+ * out of the Netty event loops: a slow flow or script does not stall the other connections
+ * served by the same event loop, which only performs I/O.
+ */
+public class FlowExecutor {
+
+    private static final String THREAD_POOL_NAME = "rest-listener-flow";
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    // The executor running the current thread, if any.
+    private static final ThreadLocal<FlowExecutor> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService executorService;
+
+    private FlowExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * @return the executor for the given execution model, or null if flows must be executed inline,
+     * on the event loop thread which received the request.
+     */
+    public static FlowExecutor create(ExecutionModel executionModel, int poolSize, int queueSize) {
+        if (ExecutionModel.THREAD_POOL.equals(executionModel)) {
+            ThreadPoolExecutor threadPool = new ThreadPoolExecutor(poolSize, poolSize,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    new DefaultThreadFactory(THREAD_POOL_NAME, true));
+            threadPool.allowCoreThreadTimeOut(true);
+            return new FlowExecutor(threadPool);
+        } else if (ExecutionModel.VIRTUAL_THREADS.equals(executionModel)) {
+            return new FlowExecutor(newVirtualThreadPerTaskExecutor());
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the thread pool queue is full.
+     */
+    void execute(Runnable task) {
+        executorService.execute(() -> {
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                CURRENT.remove();
+            }
+        });
+    }
+
+    boolean isCurrentThread() {
+        return CURRENT.get() == this;
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    // Virtual threads are only available from Java 21, while this module
+    // targets older versions: the executor factory is looked up at runtime.
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            String error = ERROR_VIRTUAL_THREADS_NOT_AVAILABLE.format(System.getProperty("java.version"));
+            throw new IllegalStateException(error, exception);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.reedelk.rest.internal.server;
 
+import com.reedelk.rest.internal.metrics.RouteMetrics;
 import org.reactivestreams.Publisher;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
@@ -7,4 +8,11 @@ import reactor.netty.http.server.HttpServerResponse;
 import java.util.function.BiFunction;
 
 public interface HttpRequestHandler extends BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> {
+
+    /**
+     * Called once the handler has been registered for a route. Handlers
+     * recording per route metrics keep the given route metrics.
+     */
+    default void bind(RouteMetrics metrics) {
+    }
 }
@@ -1,34 +1,48 @@
 package com.reedelk.rest.internal.server;
 
-import io.netty.handler.codec.http.HttpMethod;
+import com.reedelk.rest.internal.metrics.RouteMetrics;
 import org.reactivestreams.Publisher;
 import reactor.netty.http.server.HttpServerRequest;
 import reactor.netty.http.server.HttpServerResponse;
 
-import java.util.function.BiFunction;
+import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
-public class HttpRouteHandler implements BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> {
+public class HttpRouteHandler {
 
-    private final HttpPredicate predicateMatcher;
     private final HttpRequestHandler handler;
-
-    HttpRouteHandler(HttpPredicate predicateMatcher, HttpRequestHandler handler) {
-        this.predicateMatcher = requireNonNull(predicateMatcher, "predicateMatcher");
+    private final RouteMetrics metrics;
+
+    /**
+     * @param metricsEnabled true if the metrics of the route must be recorded. If false, the handler
+     *                       is not bound to any metrics and it does not record anything.
+     */
+    HttpRouteHandler(HttpPredicate predicateMatcher, HttpRequestHandler handler, boolean metricsEnabled) {
+        requireNonNull(predicateMatcher, "predicateMatcher");
         this.handler = requireNonNull(handler, "handler");
+        this.metrics = metricsEnabled ?
+                new RouteMetrics(predicateMatcher.getMethod().name(), predicateMatcher.getUri()) :
+                null;
+        if (metrics != null) this.handler.bind(metrics);
     }
 
-    @Override
-    public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response) {
-        return handler.apply(request.paramsResolver(predicateMatcher), response);
+    /**
+     * Applies the handler using the given path params, captured
+     * while matching the request uri against the route template.
+     */
+    public Publisher<Void> apply(HttpServerRequest request, HttpServerResponse response, Map<String, String> pathParams) {
+        return handler.apply(request.paramsResolver(uri -> pathParams), response);
     }
 
-    public HttpPredicate.MatcherResult matches(HttpServerRequest request) {
-        return predicateMatcher.matches(request.method(), request.uri());
+    /**
+     * @return the metrics of the route, null if metrics are not enabled.
+     */
+    public RouteMetrics metrics() {
+        return metrics;
     }
 
-    public HttpPredicate.MatcherResult matches(HttpMethod method, String uri) {
-        return predicateMatcher.matches(method, uri);
+    public boolean isHandledBy(HttpRequestHandler handler) {
+        return this.handler == handler;
     }
 }
@@ -0,0 +1,260 @@
+package com.reedelk.rest.internal.server;
+
+import com.reedelk.rest.internal.commons.RemoveQueryParams;
+import com.reedelk.rest.internal.server.uri.UriTemplate;
+import com.reedelk.rest.internal.server.uri.UriTemplateVariables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Segment tree indexing the routes registered for a single HTTP method.
+ * Literal path segments are resolved with a hash lookup, template segments e.g. {id}
+ * or People('{id}') are matched by the template children of a node. Templates containing
+ * a custom regex variable e.g. {page:.*} might span multiple segments, therefore they are
+ * stored in the node where the regex begins and matched against the whole request path.
+ *
+ * Lookups are lock free, mutations must be externally synchronized.
+ */
+class RouteTree {
+
+    private final Node root = new Node(null, null);
+
+    boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    /**
+     * Adds the given route handler at the position identified by the given path template.
+     * The caller must make sure that the route is not already defined using {@link #contains(String)}.
+     */
+    void add(String path, HttpRouteHandler handler) {
+        List<String> segments = templateSegmentsOf(path);
+        Node current = root;
+        for (String segment : segments) {
+            if (hasCustomRegex(segment)) {
+                current.tails.add(new Tail(path, handler));
+                return;
+            }
+            current = current.getOrCreateChild(segment);
+        }
+        current.path = path;
+        current.handler = handler;
+    }
+
+    /**
+     * @return true if a route with the same structure of the given path
+     * template is already defined, e.g. /api/{id} and /api/{name}.
+     */
+    boolean contains(String path) {
+        List<String> segments = templateSegmentsOf(path);
+        Node current = root;
+        for (String segment : segments) {
+            if (hasCustomRegex(segment)) {
+                return current.tails.stream().anyMatch(tail -> tail.path.equals(path));
+            }
+            current = current.child(segment);
+            if (current == null) return false;
+        }
+        return current.handler != null;
+    }
+
+    Optional<HttpRouteHandler> remove(String path) {
+        return Optional.ofNullable(remove(root, templateSegmentsOf(path), 0, path));
+    }
+
+    /**
+     * Exact segments have priority over template segments, which in turn have priority over
+     * custom regex templates. If a branch does not lead to a route the next candidate is tried.
+     * The path variables of the matching route are captured in the given variables.
+     */
+    Optional<HttpRouteHandler> find(String uri, UriTemplateVariables variables) {
+        String path = RemoveQueryParams.from(uri);
+        return Optional.ofNullable(find(root, path, 0, variables));
+    }
+
+    private HttpRouteHandler find(Node node, String path, int start, UriTemplateVariables variables) {
+        if (start > path.length()) {
+            // All the segments of the path have been consumed.
+            return node.handler;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end == -1) end = path.length();
+        String segment = path.substring(start, end);
+
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            HttpRouteHandler handler = find(literal, path, end + 1, variables);
+            if (handler != null) return handler;
+        }
+
+        for (Node template : node.templates) {
+            int mark = variables.mark();
+            if (template.template.match(segment, variables)) {
+                HttpRouteHandler handler = find(template, path, end + 1, variables);
+                if (handler != null) return handler;
+                // The branch did not lead to a route, we discard the variables captured so far.
+                variables.reset(mark);
+            }
+        }
+
+        for (Tail tail : node.tails) {
+            if (tail.template.match(path, variables)) return tail.handler;
+        }
+        return null;
+    }
+
+    private HttpRouteHandler remove(Node node, List<String> segments, int index, String path) {
+        if (index == segments.size()) {
+            if (node.handler == null || !path.equals(node.path)) return null;
+            HttpRouteHandler removed = node.handler;
+            node.handler = null;
+            node.path = null;
+            return removed;
+        }
+
+        String segment = segments.get(index);
+        if (hasCustomRegex(segment)) {
+            for (Tail tail : node.tails) {
+                if (tail.path.equals(path)) {
+                    node.tails.remove(tail);
+                    return tail.handler;
+                }
+            }
+            return null;
+        }
+
+        Node child = node.child(segment);
+        if (child == null) return null;
+        HttpRouteHandler removed = remove(child, segments, index + 1, path);
+        if (removed != null && child.isEmpty()) {
+            node.removeChild(child);
+        }
+        return removed;
+    }
+
+    /**
+     * Splits the given path template into segments. Slashes within curly
+     * braces e.g. {path:[a-z]+/[0-9]+} do not split a segment.
+     */
+    static List<String> templateSegmentsOf(String path) {
+        String pathWithoutQueryParams = RemoveQueryParams.from(path);
+        List<String> segments = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < pathWithoutQueryParams.length(); i++) {
+            char c = pathWithoutQueryParams.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == '/' && depth == 0) {
+                segments.add(pathWithoutQueryParams.substring(start, i));
+                start = i + 1;
+            }
+        }
+        segments.add(pathWithoutQueryParams.substring(start));
+        return segments;
+    }
+
+    private static boolean isTemplate(String segment) {
+        return segment.indexOf('{') != -1;
+    }
+
+    private static boolean hasCustomRegex(String segment) {
+        return isTemplate(segment) && segment.indexOf(':') != -1;
+    }
+
+    /**
+     * The structure of a template segment, e.g. People('{id}') -> People('{}'),
+     * templates having the same structure match exactly the same segments.
+     */
+    private static String structureOf(String segment) {
+        StringBuilder structure = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '{') {
+                if (depth++ == 0) structure.append("{}");
+            } else if (c == '}') {
+                depth--;
+            } else if (depth == 0) {
+                structure.append(c);
+            }
+        }
+        return structure.toString();
+    }
+
+    private static class Node {
+
+        private final String structure;
+        private final UriTemplate template;
+
+        private final Map<String, Node> literals = new ConcurrentHashMap<>();
+        private final List<Node> templates = new CopyOnWriteArrayList<>();
+        private final List<Tail> tails = new CopyOnWriteArrayList<>();
+
+        private volatile HttpRouteHandler handler;
+        private volatile String path;
+
+        Node(String structure, UriTemplate template) {
+            this.structure = structure;
+            this.template = template;
+        }
+
+        Node child(String segment) {
+            if (!isTemplate(segment)) return literals.get(segment);
+            String structure = structureOf(segment);
+            for (Node node : templates) {
+                if (node.structure.equals(structure)) return node;
+            }
+            return null;
+        }
+
+        Node getOrCreateChild(String segment) {
+            Node child = child(segment);
+            if (child != null) return child;
+            if (isTemplate(segment)) {
+                child = new Node(structureOf(segment), new UriTemplate(segment));
+                templates.add(child);
+            } else {
+                child = new Node(null, null);
+                literals.put(segment, child);
+            }
+            return child;
+        }
+
+        void removeChild(Node child) {
+            if (child.template != null) {
+                templates.remove(child);
+            } else {
+                literals.values().remove(child);
+            }
+        }
+
+        boolean isEmpty() {
+            return handler == null &&
+                    literals.isEmpty() &&
+                    templates.isEmpty() &&
+                    tails.isEmpty();
+        }
+    }
+
+    private static class Tail {
+
+        private final String path;
+        private final UriTemplate template;
+        private final HttpRouteHandler handler;
+
+        Tail(String path, HttpRouteHandler handler) {
+            this.path = path;
+            this.handler = handler;
+            this.template = new UriTemplate(path);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.reedelk.rest.internal.server;
+
+import com.reedelk.rest.internal.commons.TriKey;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Boss and worker event loop groups shared by all the servers using the same
+ * transport and thread counts. The groups are reference counted: each server
+ * retains them when created and releases them when stopped. The groups are
+ * shut down when the last server using them is stopped. REST Clients running
+ * on the worker group retain and release them through the server provider.
+ */
+class ServerEventLoops {
+
+    static final String WORKER_POOL_NAME = "rest-listener-worker";
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerEventLoops.class);
+
+    private final ServerTransport transport;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+
+    private int references;
+    private boolean disposed;
+
+    ServerEventLoops(ServerTransport transport, int bossThreads, int workerThreads) {
+        this.transport = transport;
+        this.bossGroup = transport.createEventLoopGroup(bossThreads, "rest-listener-boss");
+        this.workerGroup = transport.createEventLoopGroup(workerThreads, WORKER_POOL_NAME);
+    }
+
+    ServerTransport transport() {
+        return transport;
+    }
+
+    EventLoopGroup bossGroup() {
+        return bossGroup;
+    }
+
+    EventLoopGroup workerGroup() {
+        return workerGroup;
+    }
+
+    /**
+     * @return false if the event loops have already been disposed and can not be used anymore.
+     */
+    synchronized boolean retain() {
+        if (disposed) return false;
+        references++;
+        return true;
+    }
+
+    /**
+     * Shuts down the event loop groups if this was the last reference. The groups are
+     * shut down outside of the lock: waiting for them does not block retain and isDisposed.
+     */
+    void release() {
+        synchronized (this) {
+            if (disposed) return;
+            references--;
+            if (references > 0) return;
+            disposed = true;
+        }
+        shutdownGracefully(bossGroup);
+        shutdownGracefully(workerGroup);
+    }
+
+    synchronized boolean isDisposed() {
+        return disposed;
+    }
+
+    private static void shutdownGracefully(EventExecutorGroup executionGroup) {
+        try {
+            executionGroup.shutdownGracefully(0, 3, SECONDS).sync();
+        } catch (InterruptedException e) {
+
+            logger.warn("Error while shutting down event group", e);
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class Key extends TriKey<ServerTransport, Integer, Integer> {
+
+        Key(ServerTransport transport, Integer bossThreads, Integer workerThreads) {
+            super(transport, bossThreads, workerThreads);
+        }
+    }
+}
@@ -3,9 +3,15 @@ package com.reedelk.rest.internal.server;
 import com.reedelk.rest.component.RESTListenerConfiguration;
 import com.reedelk.rest.internal.commons.Defaults;
 import com.reedelk.rest.internal.commons.HostNamePortKey;
+import com.reedelk.rest.internal.metrics.BlockingWatchdog;
+import com.reedelk.rest.internal.metrics.MetricsServerDecorator;
 import com.reedelk.rest.internal.openapi.OpenApiServerDecorator;
+import io.netty.channel.EventLoopGroup;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -18,7 +24,12 @@ import static org.osgi.service.component.annotations.ServiceScope.SINGLETON;
 @Component(service = ServerProvider.class, scope = SINGLETON)
 public class ServerProvider {
 
+    @Reference
+    private BlockingWatchdog watchdog;
+
     private Map<HostNamePortKey, Server> serverMap = new ConcurrentHashMap<>();
+    // Ordered by creation, so that REST Clients always run on the event loops created first.
+    private Map<ServerEventLoops.Key, ServerEventLoops> eventLoopsMap = Collections.synchronizedMap(new LinkedHashMap<>());
 
     public Optional<Server> getOrCreate(RESTListenerConfiguration configuration) {
         HostNamePortKey key = new HostNamePortKey(
@@ -28,7 +39,12 @@ public class ServerProvider {
 
             boolean openApiDisabled = isOpenApiDisabled(configuration);
 
-            Server server = new DefaultServer(configuration);
+            Server server = createServer(configuration);
+            if (Defaults.RestListener.enableMetrics(configuration.getEnableMetrics())) {
+                // The metrics decorator must be applied first, since it hides its own
+                // route from the routes returned to the open API decorator.
+                server = new MetricsServerDecorator(server, watchdog);
+            }
             if (!openApiDisabled) {
                 // If the open api is NOT disabled we apply the OpenAPI decorator
                 // which applies for each route the OpenAPI definition.
@@ -59,7 +75,77 @@ public class ServerProvider {
                     .filter(key -> key.getValue() == server)
                     .findFirst()
                     .ifPresent(key -> serverMap.remove(key.getKey()));
+            synchronized (eventLoopsMap) {
+                eventLoopsMap.values().removeIf(ServerEventLoops::isDisposed);
+            }
+        }
+    }
+
+    /**
+     * Retains the worker event loops of the running listeners, so that a REST Client can run on
+     * the same threads: the caller must release them with {@link #releaseWorkerEventLoops(EventLoopGroup)}
+     * when done. If listeners run on different event loops, the ones created first are returned.
+     * Returns empty if there are no running listeners.
+     */
+    public Optional<EventLoopGroup> retainWorkerEventLoops() {
+        synchronized (eventLoopsMap) {
+            for (ServerEventLoops eventLoops : eventLoopsMap.values()) {
+                if (eventLoops.retain()) return of(eventLoops.workerGroup());
+            }
         }
+        return empty();
+    }
+
+    /**
+     * Releases worker event loops retained with {@link #retainWorkerEventLoops()}.
+     */
+    public void releaseWorkerEventLoops(EventLoopGroup workerGroup) {
+        ServerEventLoops retained = null;
+        synchronized (eventLoopsMap) {
+            for (ServerEventLoops eventLoops : eventLoopsMap.values()) {
+                if (eventLoops.workerGroup() == workerGroup) {
+                    retained = eventLoops;
+                    break;
+                }
+            }
+        }
+        // Releasing the last reference waits for the event loops to shut down.
+        if (retained != null) retained.release();
+    }
+
+    private Server createServer(RESTListenerConfiguration configuration) {
+        ServerEventLoops eventLoops = retainEventLoops(configuration);
+        try {
+            DefaultServer server = new DefaultServer(configuration, eventLoops);
+            Integer watchdogThreshold = configuration.getWatchdogThreshold();
+            if (watchdogThreshold != null) {
+                // Event loops shared with other servers are watched only once.
+                watchdog.watch(ServerEventLoops.WORKER_POOL_NAME, eventLoops.workerGroup(), watchdogThreshold);
+            }
+            return server;
+        } catch (RuntimeException exception) {
+            // The server could not be bound, e.g. the port is already in use.
+            eventLoops.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * Event loops are shared by all the servers using the same transport and number of
+     * threads. If the existing event loops have been disposed, new ones are created.
+     */
+    private ServerEventLoops retainEventLoops(RESTListenerConfiguration configuration) {
+        ServerTransport transport = ServerTransport.from(configuration.getTransport());
+        ServerEventLoops.Key key = new ServerEventLoops.Key(
+                transport,
+                Defaults.RestListener.bossThreads(configuration.getBossThreads()),
+                Defaults.RestListener.workerThreads(configuration.getWorkerThreads()));
+        return eventLoopsMap.compute(key, (theKey, existing) -> {
+            if (existing != null && existing.retain()) return existing;
+            ServerEventLoops eventLoops = new ServerEventLoops(theKey.getValue1(), theKey.getValue2(), theKey.getValue3());
+            eventLoops.retain();
+            return eventLoops;
+        });
     }
 
     /**
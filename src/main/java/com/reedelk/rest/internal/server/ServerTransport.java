@@ -0,0 +1,72 @@
+package com.reedelk.rest.internal.server;
+
+import com.reedelk.rest.internal.commons.Transport;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.reedelk.rest.internal.commons.Messages.RestListener.ERROR_TRANSPORT_NOT_AVAILABLE;
+
+/**
+ * The netty transport used by the listener's event loop groups and server channel.
+ */
+enum ServerTransport {
+
+    NIO {
+        @Override
+        EventLoopGroup createEventLoopGroup(int threads, String poolName) {
+            return new NioEventLoopGroup(threads, new DefaultThreadFactory(poolName));
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+    },
+
+    EPOLL {
+        @Override
+        EventLoopGroup createEventLoopGroup(int threads, String poolName) {
+            return new EpollEventLoopGroup(threads, new DefaultThreadFactory(poolName));
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerTransport.class);
+
+    abstract EventLoopGroup createEventLoopGroup(int threads, String poolName);
+
+    abstract Class<? extends ServerChannel> serverChannelClass();
+
+    /**
+     * AUTO (or null) picks the native epoll transport when available on the
+     * current platform, NIO otherwise. An explicit EPOLL transport fails
+     * if the native transport could not be loaded.
+     */
+    static ServerTransport from(Transport transport) {
+        if (Transport.NIO.equals(transport)) {
+            return NIO;
+        } else if (Transport.EPOLL.equals(transport)) {
+            if (!Epoll.isAvailable()) {
+                String error = ERROR_TRANSPORT_NOT_AVAILABLE.format(Transport.EPOLL, Epoll.unavailabilityCause().getMessage());
+                throw new IllegalStateException(error, Epoll.unavailabilityCause());
+            }
+            return EPOLL;
+        } else {
+            if (Epoll.isAvailable()) return EPOLL;
+            logger.debug("Native epoll transport not available, falling back to NIO transport", Epoll.unavailabilityCause());
+            return NIO;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.reedelk.rest.internal.server.body;
 
+import com.reedelk.runtime.api.commons.ScriptUtils;
 import com.reedelk.runtime.api.commons.StackTraceUtils;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 import reactor.netty.http.server.HttpServerResponse;
 
 public class BodyProviderStreamAlways implements BodyProvider {
@@ -14,26 +18,35 @@ public class BodyProviderStreamAlways implements BodyProvider {
 
     private final DynamicByteArray responseBody;
     private final DynamicByteArray errorResponseBody;
+    private final boolean isEvaluateMessagePayload;
 
     public BodyProviderStreamAlways(ScriptEngineService scriptEngine, DynamicByteArray responseBody, DynamicByteArray errorResponseBody) {
         this.responseBody = responseBody;
         this.scriptEngine = scriptEngine;
         this.errorResponseBody = errorResponseBody;
+        this.isEvaluateMessagePayload = ScriptUtils.isEvaluateMessagePayload(responseBody);
     }
 
     @Override
-    public Publisher<byte[]> from(HttpServerResponse response, Message message, FlowContext flowContext) {
-        return scriptEngine.evaluateStream(responseBody, flowContext, message);
+    public Publisher<ByteBuf> from(HttpServerResponse response, Message message, FlowContext flowContext) {
+        if (isEvaluateMessagePayload && ByteBufferPayload.isByteBufferStream(message)) {
+            // The payload buffers are streamed back as they are.
+            return ByteBufferPayload.stream(message);
+        }
+        return Flux.from(scriptEngine.evaluateStream(responseBody, flowContext, message))
+                .map(Unpooled::wrappedBuffer);
     }
 
     @Override
-    public Publisher<byte[]> from(HttpServerResponse response, Throwable throwable, FlowContext flowContext) {
+    public Publisher<ByteBuf> from(HttpServerResponse response, Throwable throwable, FlowContext flowContext) {
         try {
-            return scriptEngine.evaluateStream(errorResponseBody, flowContext, throwable);
+            return Flux.from(scriptEngine.evaluateStream(errorResponseBody, flowContext, throwable))
+                    .map(Unpooled::wrappedBuffer);
         } catch (Exception exception) {
             // Evaluating an error response, cannot throw again an exception,
             // Therefore we catch any exception and we return the exception message.
-            return StackTraceUtils.asByteStream(exception);
+            return Flux.from(StackTraceUtils.asByteStream(exception))
+                    .map(Unpooled::wrappedBuffer);
         }
     }
 }
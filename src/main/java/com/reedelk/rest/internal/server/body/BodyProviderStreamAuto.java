@@ -5,6 +5,7 @@ import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import io.netty.buffer.ByteBuf;
 import org.reactivestreams.Publisher;
 import reactor.netty.http.server.HttpServerResponse;
 
@@ -25,7 +26,7 @@ public class BodyProviderStreamAuto implements BodyProvider {
     }
 
     @Override
-    public Publisher<byte[]> from(HttpServerResponse response, Message message, FlowContext flowContext) {
+    public Publisher<ByteBuf> from(HttpServerResponse response, Message message, FlowContext flowContext) {
         if (isEvaluateMessagePayload) {
             if (message.content().isStream()) {
                 return streamAlways.from(response, message, flowContext);
@@ -35,7 +36,7 @@ public class BodyProviderStreamAuto implements BodyProvider {
     }
 
     @Override
-    public Publisher<byte[]> from(HttpServerResponse response, Throwable throwable, FlowContext flowContext) {
+    public Publisher<ByteBuf> from(HttpServerResponse response, Throwable throwable, FlowContext flowContext) {
         // An exception is never streamed.
         return streamNone.from(response, throwable, flowContext);
     }
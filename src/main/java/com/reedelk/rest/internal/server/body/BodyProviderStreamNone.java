@@ -1,10 +1,14 @@
 package com.reedelk.rest.internal.server.body;
 
+import com.reedelk.rest.internal.commons.StaticValue;
+import com.reedelk.runtime.api.commons.ScriptUtils;
 import com.reedelk.runtime.api.commons.StackTraceUtils;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.server.HttpServerResponse;
@@ -20,23 +24,47 @@ public class BodyProviderStreamNone implements BodyProvider {
     private final ScriptEngineService scriptEngine;
     private final DynamicByteArray responseBody;
     private final DynamicByteArray errorResponseBody;
+    private final boolean isEvaluateMessagePayload;
+
+    // Precomputed when the bodies are not scripts, null otherwise.
+    private final StaticBody staticResponseBody;
+    private final StaticBody staticErrorResponseBody;
 
     public BodyProviderStreamNone(ScriptEngineService scriptEngine, DynamicByteArray responseBody, DynamicByteArray errorResponseBody) {
         this.responseBody = responseBody;
         this.scriptEngine = scriptEngine;
         this.errorResponseBody = errorResponseBody;
+        this.isEvaluateMessagePayload = ScriptUtils.isEvaluateMessagePayload(responseBody);
+        this.staticResponseBody = StaticBody.from(responseBody);
+        this.staticErrorResponseBody = StaticBody.from(errorResponseBody);
     }
 
     // No streaming, single valued Stream (Mono)
     @Override
-    public Publisher<byte[]> from(HttpServerResponse response, Message message, FlowContext flowContext) {
+    public Publisher<ByteBuf> from(HttpServerResponse response, Message message, FlowContext flowContext) {
+        if (isEvaluateMessagePayload && ByteBufferPayload.isByteBufferStream(message)) {
+            // The payload buffers are composed into a single buffer without copying them.
+            return ByteBufferPayload.stream(message)
+                    .collectList()
+                    .map(buffers -> {
+                        ByteBuf responseBody = Unpooled.wrappedBuffer(buffers.toArray(new ByteBuf[0]));
+                        response.addHeader(CONTENT_LENGTH, String.valueOf(responseBody.readableBytes()));
+                        return responseBody;
+                    });
+        }
+        if (staticResponseBody != null) {
+            return staticResponseBody.publisher(response);
+        }
         Optional<byte[]> evaluated = scriptEngine.evaluate(responseBody, flowContext, message);
         return publisherFrom(response, evaluated);
     }
 
     // No streaming, single valued Stream (Mono)
     @Override
-    public Publisher<byte[]> from(HttpServerResponse response, Throwable throwable, FlowContext flowContext) {
+    public Publisher<ByteBuf> from(HttpServerResponse response, Throwable throwable, FlowContext flowContext) {
+        if (staticErrorResponseBody != null) {
+            return staticErrorResponseBody.publisher(response);
+        }
         try {
             Optional<byte[]> evaluated = scriptEngine.evaluate(errorResponseBody, flowContext, throwable);
             return publisherFrom(response, evaluated);
@@ -45,18 +73,43 @@ public class BodyProviderStreamNone implements BodyProvider {
             // Therefore we catch any exception and we return the exception message.
             byte[] exceptionBytes = StackTraceUtils.asByteArray(exception);
             response.addHeader(CONTENT_LENGTH, String.valueOf(exceptionBytes.length));
-            return Mono.just(exceptionBytes);
+            return Mono.just(Unpooled.wrappedBuffer(exceptionBytes));
         }
     }
 
-    private static Publisher<byte[]> publisherFrom(HttpServerResponse response, Optional<byte[]> evaluated) {
+    private static Publisher<ByteBuf> publisherFrom(HttpServerResponse response, Optional<byte[]> evaluated) {
         if (evaluated.isPresent()) {
             byte[] responseBody = evaluated.get();
             response.addHeader(CONTENT_LENGTH, String.valueOf(responseBody.length));
-            return Mono.just(responseBody);
+            return Mono.just(Unpooled.wrappedBuffer(responseBody));
         } else {
             response.addHeader(CONTENT_LENGTH, ZERO_CONTENT_LENGTH);
             return Mono.empty();
         }
     }
+
+    /**
+     * A body which is not a script: the same read-only buffer is shared by all the responses.
+     */
+    private static class StaticBody {
+
+        private final ByteBuf body;
+        private final String contentLength;
+
+        private StaticBody(byte[] body) {
+            // The buffer is never released, each response sends a duplicate with its own reader index.
+            this.body = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(body).asReadOnly());
+            this.contentLength = String.valueOf(body.length);
+        }
+
+        static StaticBody from(DynamicByteArray body) {
+            if (!StaticValue.isStatic(body)) return null;
+            return new StaticBody(StaticValue.of(body).orElse(new byte[0]));
+        }
+
+        Publisher<ByteBuf> publisher(HttpServerResponse response) {
+            response.addHeader(CONTENT_LENGTH, contentLength);
+            return body.isReadable() ? Mono.just(body.duplicate()) : Mono.empty();
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package com.reedelk.rest.internal.server.body;
+
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.content.TypedContent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A message payload made of a stream of byte buffers, e.g. a zero copy request body.
+ * Such payloads are written to the response wrapping the buffers, without copying them.
+ */
+class ByteBufferPayload {
+
+    private ByteBufferPayload() {
+    }
+
+    static boolean isByteBufferStream(Message message) {
+        TypedContent<?, ?> content = message.content();
+        return content != null &&
+                content.isStream() &&
+                ByteBuffer.class.equals(content.type());
+    }
+
+    @SuppressWarnings("unchecked")
+    static Flux<ByteBuf> stream(Message message) {
+        TypedContent<?, ?> content = message.content();
+        Publisher<ByteBuffer> byteBufferStream = (Publisher<ByteBuffer>) content.stream();
+        return Flux.from(byteBufferStream).map(Unpooled::wrappedBuffer);
+    }
+}
@@ -0,0 +1,75 @@
+package com.reedelk.rest.internal.server.cache;
+
+import com.reedelk.rest.internal.commons.ConditionalRequest;
+import com.reedelk.rest.internal.commons.HttpHeader;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * An immutable cached response: status, headers and body, together with
+ * the validators (ETag and Last-Modified) computed when it was cached.
+ */
+public class CachedResponse {
+
+    private final String path;
+    private final HttpResponseStatus status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    private final long lastModifiedMillis;
+    private final long expiresAtMillis;
+
+    CachedResponse(String path, HttpResponseStatus status, HttpHeaders responseHeaders, byte[] body, long nowMillis, long ttlMillis) {
+        this.path = path;
+        this.status = status;
+        this.body = body;
+        this.etag = ConditionalRequest.strongETag(body);
+        this.lastModifiedMillis = nowMillis;
+        this.expiresAtMillis = nowMillis + ttlMillis;
+
+        this.headers = new DefaultHttpHeaders().set(responseHeaders);
+        this.headers.remove(HttpHeader.TRANSFER_ENCODING);
+        this.headers.set(HttpHeader.CONTENT_LENGTH, body.length);
+        this.headers.set(HttpHeader.ETAG, etag);
+        this.headers.set(HttpHeader.LAST_MODIFIED, ConditionalRequest.httpDate(lastModifiedMillis));
+    }
+
+    public HttpResponseStatus status() {
+        return status;
+    }
+
+    /**
+     * @return the response headers, including Content-Length, ETag and Last-Modified. They must not be modified.
+     */
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * @return the response body. It must not be modified.
+     */
+    public byte[] body() {
+        return body;
+    }
+
+    public boolean isNotModified(HttpHeaders requestHeaders) {
+        return ConditionalRequest.isNotModified(requestHeaders, etag, lastModifiedMillis);
+    }
+
+    String path() {
+        return path;
+    }
+
+    String etag() {
+        return etag;
+    }
+
+    int size() {
+        return body.length;
+    }
+
+    boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
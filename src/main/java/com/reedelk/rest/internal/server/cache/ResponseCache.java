@@ -0,0 +1,182 @@
+package com.reedelk.rest.internal.server.cache;
+
+import com.reedelk.rest.internal.commons.HttpHeader;
+import com.reedelk.runtime.api.commons.StringUtils;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-memory cache of the responses of a route. The least recently used responses are
+ * evicted when either the maximum number of entries or the byte budget is exceeded, and each
+ * response expires after the time to live. The cache key is made of the request path, the
+ * query string and the values of the selected request headers. Requests carrying credentials
+ * which are not part of the key bypass the cache, so that a response built for a client is
+ * never sent to another one.
+ */
+public class ResponseCache {
+
+    private static final char KEY_SEPARATOR = '\n';
+    private static final char QUERY_PARAMS_START_MARKER = '?';
+    private static final String NO_STORE = "no-store";
+    private static final String NO_CACHE = "no-cache";
+    private static final String PRIVATE = "private";
+    private static final String VARY_ANY = "*";
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final List<String> keyHeaders;
+    private final LongSupplier clock;
+
+    // Guarded by this. Access ordered: the first entry is the least recently used.
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public ResponseCache(long ttlMillis, int maxEntries, long maxBytes, String keyHeaders) {
+        this(ttlMillis, maxEntries, maxBytes, keyHeaders, System::currentTimeMillis);
+    }
+
+    ResponseCache(long ttlMillis, int maxEntries, long maxBytes, String keyHeaders, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.keyHeaders = headerNamesOf(keyHeaders);
+        this.clock = clock;
+    }
+
+    public String keyOf(HttpServerRequest request) {
+        StringBuilder key = new StringBuilder(request.uri());
+        HttpHeaders requestHeaders = request.requestHeaders();
+        for (String headerName : keyHeaders) {
+            key.append(KEY_SEPARATOR);
+            List<String> values = requestHeaders.getAll(headerName);
+            if (!values.isEmpty()) key.append(String.join(",", values));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Requests asking not to use a cached response, or carrying an Authorization or Cookie
+     * header which is not part of the cache key, are neither served from nor stored in the cache.
+     */
+    public boolean isCacheable(HttpServerRequest request) {
+        HttpHeaders requestHeaders = request.requestHeaders();
+        String cacheControl = requestHeaders.get(HttpHeader.CACHE_CONTROL);
+        if (cacheControl != null && (cacheControl.contains(NO_STORE) || cacheControl.contains(NO_CACHE))) return false;
+        if (requestHeaders.contains(HttpHeader.AUTHORIZATION) && !isKeyHeader(HttpHeader.AUTHORIZATION)) return false;
+        return !requestHeaders.contains(HttpHeader.COOKIE) || isKeyHeader(HttpHeader.COOKIE);
+    }
+
+    public synchronized Optional<CachedResponse> get(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached == null) return Optional.empty();
+        if (cached.isExpired(clock.getAsLong())) {
+            remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(cached);
+    }
+
+    /**
+     * Caches the given response body, together with the current status and headers of the response.
+     * Responses bigger than the byte budget are not cached, but the returned response can still be sent.
+     */
+    public CachedResponse put(String key, String uri, HttpServerResponse response, byte[] body) {
+        CachedResponse cached = new CachedResponse(pathOf(uri), response.status(), response.responseHeaders(), body, clock.getAsLong(), ttlMillis);
+        if (cached.size() > maxBytes) return cached;
+
+        synchronized (this) {
+            remove(key);
+            entries.put(key, cached);
+            bytes += cached.size();
+            evict();
+        }
+        return cached;
+    }
+
+    /**
+     * Removes all the cached responses of requests with the given path, whatever their query string.
+     */
+    public synchronized void invalidate(String path) {
+        Iterator<CachedResponse> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CachedResponse cached = iterator.next();
+            if (cached.path().equals(path)) {
+                bytes -= cached.size();
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Only successful responses, which are not private to a client and do not vary
+     * on request headers other than the cache key headers, are cached.
+     */
+    public boolean isCacheable(HttpServerResponse response) {
+        if (!HttpResponseStatus.OK.equals(response.status())) return false;
+        HttpHeaders responseHeaders = response.responseHeaders();
+        if (responseHeaders.contains(HttpHeader.SET_COOKIE)) return false;
+        for (String vary : responseHeaders.getAll(HttpHeader.VARY)) {
+            for (String headerName : vary.split(",")) {
+                String trimmed = headerName.trim();
+                if (VARY_ANY.equals(trimmed)) return false;
+                if (StringUtils.isNotBlank(trimmed) && !isKeyHeader(trimmed)) return false;
+            }
+        }
+        String cacheControl = responseHeaders.get(HttpHeader.CACHE_CONTROL);
+        return cacheControl == null ||
+                !(cacheControl.contains(NO_STORE) || cacheControl.contains(PRIVATE));
+    }
+
+    private boolean isKeyHeader(String headerName) {
+        for (String keyHeader : keyHeaders) {
+            if (keyHeader.equalsIgnoreCase(headerName)) return true;
+        }
+        return false;
+    }
+
+    private void remove(String key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) bytes -= removed.size();
+    }
+
+    private void evict() {
+        Iterator<CachedResponse> leastRecentlyUsed = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && leastRecentlyUsed.hasNext()) {
+            bytes -= leastRecentlyUsed.next().size();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private static String pathOf(String uri) {
+        int queryParamsStartIndex = uri.indexOf(QUERY_PARAMS_START_MARKER);
+        return queryParamsStartIndex > -1 ? uri.substring(0, queryParamsStartIndex) : uri;
+    }
+
+    private static List<String> headerNamesOf(String keyHeaders) {
+        if (StringUtils.isBlank(keyHeaders)) return Collections.emptyList();
+        List<String> headerNames = new ArrayList<>();
+        for (String headerName : keyHeaders.split(",")) {
+            if (StringUtils.isNotBlank(headerName)) headerNames.add(headerName.trim());
+        }
+        return headerNames;
+    }
+}
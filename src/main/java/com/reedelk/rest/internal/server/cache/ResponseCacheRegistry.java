@@ -0,0 +1,34 @@
+package com.reedelk.rest.internal.server.cache;
+
+import org.osgi.service.component.annotations.Component;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static org.osgi.service.component.annotations.ServiceScope.SINGLETON;
+
+/**
+ * Keeps track of the response caches of all the started REST Listeners,
+ * so that flows can invalidate cached responses from scripts.
+ */
+@Component(service = ResponseCacheRegistry.class, scope = SINGLETON)
+public class ResponseCacheRegistry {
+
+    private final Set<ResponseCache> caches = new CopyOnWriteArraySet<>();
+
+    public void register(ResponseCache cache) {
+        caches.add(cache);
+    }
+
+    public void unregister(ResponseCache cache) {
+        caches.remove(cache);
+    }
+
+    public void invalidate(String path) {
+        caches.forEach(cache -> cache.invalidate(path));
+    }
+
+    public void invalidateAll() {
+        caches.forEach(ResponseCache::invalidateAll);
+    }
+}
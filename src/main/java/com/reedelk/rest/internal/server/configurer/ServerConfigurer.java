@@ -2,10 +2,12 @@ package com.reedelk.rest.internal.server.configurer;
 
 import com.reedelk.rest.component.RESTListenerConfiguration;
 import com.reedelk.rest.internal.commons.Defaults;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import reactor.netty.Connection;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.server.HttpServer;
 
 import java.util.function.Consumer;
@@ -32,6 +34,7 @@ public class ServerConfigurer {
         server = server.host(Defaults.RestListener.host(configuration.getHost()));
         server = server.port(Defaults.RestListener.port(configuration.getPort(), configuration.getProtocol()));
         server = server.compress(Defaults.RestListener.compress(configuration.getCompress()));
+        server = server.protocol(protocolsOf(configuration.getHttpVersion()));
         return server.httpRequestDecoder(decoder -> {
             decoder.validateHeaders(Defaults.RestListener.validateHeaders());
             decoder.maxChunkSize(Defaults.RestListener.maxChunkSize(configuration.getMaxChunkSize()));
@@ -40,6 +43,21 @@ public class ServerConfigurer {
         });
     }
 
+    /**
+     * HTTP/1.1 is always supported: h2c connections might start with an HTTP/1.1
+     * upgrade request and h2 connections fall back to HTTP/1.1 if the client
+     * does not negotiate h2 with ALPN.
+     */
+    static HttpProtocol[] protocolsOf(HttpProtocolVersion httpVersion) {
+        if (HttpProtocolVersion.H2C.equals(httpVersion)) {
+            return new HttpProtocol[] { HttpProtocol.HTTP11, HttpProtocol.H2C };
+        } else if (HttpProtocolVersion.H2.equals(httpVersion)) {
+            return new HttpProtocol[] { HttpProtocol.HTTP11, HttpProtocol.H2 };
+        } else {
+            return new HttpProtocol[] { HttpProtocol.HTTP11 };
+        }
+    }
+
     private static <T> void setChannelOption(ServerBootstrap serverBootstrap, ChannelOption<T> channelOption, T value) {
         if (value != null) {
             serverBootstrap.option(channelOption, value);
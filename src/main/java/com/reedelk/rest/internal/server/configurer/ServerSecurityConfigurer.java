@@ -3,6 +3,7 @@ package com.reedelk.rest.internal.server.configurer;
 import com.reedelk.rest.component.RESTListenerConfiguration;
 import com.reedelk.rest.component.listener.*;
 import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
 import com.reedelk.runtime.api.component.Implementor;
 import com.reedelk.runtime.api.exception.PlatformException;
 import io.netty.handler.ssl.SslContextBuilder;
@@ -55,6 +56,13 @@ public class ServerSecurityConfigurer {
                 contextBuilder.trustManager(getTrustManagerFactory(configurationClazz, trustStoreConfiguration));
             }
 
+            if (HttpProtocolVersion.H2.equals(configuration.getHttpVersion())) {
+                // The context is built by the http server, which adds
+                // the ALPN configuration and the ciphers required by HTTP/2.
+                sslContextSpec.sslContext(contextBuilder);
+                return;
+            }
+
             try {
                 sslContextSpec.sslContext(contextBuilder.build());
             } catch (SSLException e) {
@@ -3,6 +3,7 @@ package com.reedelk.rest.internal.server.mapper;
 import io.netty.handler.codec.http.HttpHeaders;
 import reactor.netty.http.server.HttpServerResponse;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -30,6 +31,20 @@ class AdditionalHeader {
         });
     }
 
+    /**
+     * Sets the headers relayed from a REST Client response in pass-through mode: each
+     * relayed header replaces the current one, and it keeps all the values it was received with.
+     * @param response the current http response object.
+     * @param relayedHeaders the headers relayed from the remote host response.
+     */
+    static void relayAll(HttpServerResponse response, Map<String, List<String>> relayedHeaders) {
+        HttpHeaders currentHeaders = response.responseHeaders();
+        relayedHeaders.forEach((headerName, headerValues) -> {
+            matchingHeader(currentHeaders, headerName).ifPresent(currentHeaders::remove);
+            headerValues.forEach(headerValue -> currentHeaders.add(headerName.toLowerCase(), headerValue));
+        });
+    }
+
     // Returns the matching header name
     private static Optional<String> matchingHeader(HttpHeaders headers, String targetHeaderName) {
         for (String headerName : headers.names()) {
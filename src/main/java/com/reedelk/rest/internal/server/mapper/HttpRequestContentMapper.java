@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.SynchronousSink;
 
+import java.nio.ByteBuffer;
 import java.util.function.BiConsumer;
 
 class HttpRequestContentMapper {
@@ -40,6 +41,20 @@ class HttpRequestContentMapper {
                 .withTypedPublisher(typedPublisher, mimeType);
     }
 
+    /**
+     * Maps the request body to a stream of read-only byte buffers backed by the network buffers,
+     * without copying them onto the heap. The network buffers are retained until the given
+     * request body buffers are released, i.e. when the response has been sent to the client.
+     */
+    static MessageBuilder mapZeroCopy(HttpRequestWrapper request, RequestBodyBuffers bodyBuffers) {
+        MimeType mimeType = request.mimeType();
+
+        Flux<ByteBuffer> byteBufferStream = request.data().retain().map(bodyBuffers::track);
+
+        return MessageBuilder.get(RESTListener.class)
+                .withJavaObject(byteBufferStream, ByteBuffer.class, mimeType);
+    }
+
     private static BiConsumer<ByteBuf, SynchronousSink<byte[]>> asByteArrayStream() {
         return (byteBuffer, sink) -> {
             try {
@@ -1,6 +1,7 @@
 package com.reedelk.rest.internal.server.mapper;
 
 import com.reedelk.rest.internal.attribute.RESTListenerAttributes;
+import com.reedelk.rest.internal.commons.RequestBodyMode;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.message.MessageBuilder;
 import com.reedelk.runtime.api.message.content.MimeType;
@@ -11,19 +12,36 @@ import static com.reedelk.runtime.api.message.content.MimeType.MULTIPART_FORM_DA
 public class HttpRequestMessageMapper {
 
     private final String matchingPath;
+    private final RequestBodyMode requestBodyMode;
+    private final MultipartSettings multipartSettings;
 
     public HttpRequestMessageMapper(String matchingPath) {
+        this(matchingPath, RequestBodyMode.COPY, MultipartSettings.defaults());
+    }
+
+    public HttpRequestMessageMapper(String matchingPath, RequestBodyMode requestBodyMode, MultipartSettings multipartSettings) {
         this.matchingPath = matchingPath;
+        this.requestBodyMode = requestBodyMode;
+        this.multipartSettings = multipartSettings;
     }
 
-    public Message map(HttpServerRequest httpRequest) {
+    /**
+     * @param bodyBuffers tracks the network buffers retained by a zero copy request body,
+     *                    the caller must release them once the response has been sent.
+     */
+    public Message map(HttpServerRequest httpRequest, RequestBodyBuffers bodyBuffers) {
         HttpRequestWrapper request = new HttpRequestWrapper(httpRequest);
 
         MimeType mimeType = request.mimeType();
 
-        MessageBuilder messageBuilder = MULTIPART_FORM_DATA.equals(mimeType) ?
-                HttpRequestMultipartFormDataMapper.map(request) :
-                HttpRequestContentMapper.map(request);
+        MessageBuilder messageBuilder;
+        if (MULTIPART_FORM_DATA.equals(mimeType)) {
+            messageBuilder = HttpRequestMultipartFormDataMapper.map(request, multipartSettings);
+        } else if (RequestBodyMode.ZERO_COPY.equals(requestBodyMode)) {
+            messageBuilder = HttpRequestContentMapper.mapZeroCopy(request, bodyBuffers);
+        } else {
+            messageBuilder = HttpRequestContentMapper.map(request);
+        }
 
         RESTListenerAttributes attributes = new RESTListenerAttributes(request, matchingPath);
 
@@ -2,130 +2,58 @@ package com.reedelk.rest.internal.server.mapper;
 
 import com.reedelk.rest.component.RESTListener;
 import com.reedelk.rest.internal.ExecutionException;
-import com.reedelk.runtime.api.exception.PlatformException;
+import com.reedelk.rest.internal.RequestEntityTooLargeException;
 import com.reedelk.runtime.api.message.MessageBuilder;
-import com.reedelk.runtime.api.message.content.Attachment;
-import com.reedelk.runtime.api.message.content.MimeType;
 import com.reedelk.runtime.api.type.MapOfAttachments;
-import io.netty.handler.codec.http.*;
-import io.netty.handler.codec.http.multipart.*;
-import io.netty.util.CharsetUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
 import reactor.core.publisher.Mono;
 
-import java.io.IOException;
-import java.util.Map;
-
-import static com.reedelk.rest.internal.commons.Messages.RestListener.*;
-import static io.netty.handler.codec.http.multipart.InterfaceHttpData.HttpDataType;
+import static com.reedelk.rest.internal.commons.Messages.RestListener.ERROR_MULTIPART_NOT_SUPPORTED;
+import static com.reedelk.rest.internal.commons.Messages.RestListener.ERROR_MULTIPART_REQUEST_TOO_LARGE;
+import static reactor.core.scheduler.Schedulers.boundedElastic;
 
 class HttpRequestMultipartFormDataMapper {
 
-    private static final Logger logger = LoggerFactory.getLogger(HttpRequestMultipartFormDataMapper.class);
-
     private HttpRequestMultipartFormDataMapper() {
     }
 
-    static MessageBuilder map(HttpRequestWrapper request) {
+    static MessageBuilder map(HttpRequestWrapper request, MultipartSettings settings) {
         if (HttpMethod.POST != HttpMethod.valueOf(request.method()) ||
                 HttpVersion.HTTP_1_1 != HttpVersion.valueOf(request.version())) {
             throw new ExecutionException(ERROR_MULTIPART_NOT_SUPPORTED.format());
         }
 
-        Mono<MapOfAttachments> partsMono = request.data().aggregate().flatMap(byteBuffer -> {
-
-            HttpPostRequestDecoder postDecoder = null;
-            FullHttpRequest fullHttpRequest = null;
-            try {
-
-                // POST Multipart is only supported on HTTP 1.1 and for POST method.
-                fullHttpRequest = new DefaultFullHttpRequest(
-                        HttpVersion.HTTP_1_1,
-                        HttpMethod.POST,
-                        request.requestUri(),
-                        byteBuffer,
-                        request.requestHeaders(),
-                        EmptyHttpHeaders.INSTANCE);
-
-                postDecoder = new HttpPostRequestDecoder(
-                        new DefaultHttpDataFactory(false),
-                        fullHttpRequest,
-                        CharsetUtil.UTF_8);
-
-                MapOfAttachments parts = new MapOfAttachments();
-
-                // Loop attribute/file upload parts
-                for (InterfaceHttpData data : postDecoder.getBodyHttpDatas()) {
-                    if (HttpDataType.Attribute == data.getHttpDataType()) {
-                        handleAttributePart(parts, (Attribute) data);
-
-                    } else if (HttpDataType.FileUpload == data.getHttpDataType()) {
-                        handleFileUploadPart(parts, (FileUpload) data);
-                    }
-                }
-
-                return Mono.just(parts);
+        // Requests declaring a content length above the limit are rejected before reading the body.
+        if (settings.isRequestSizeExceeded(request.contentLength())) {
+            throw new RequestEntityTooLargeException(ERROR_MULTIPART_REQUEST_TOO_LARGE.format(settings.maxRequestSize()));
+        }
 
-            } finally {
-                if (postDecoder != null) postDecoder.destroy();
-                if (fullHttpRequest != null) fullHttpRequest.release();
-            }
-        });
+        // The decoder is fed with each network buffer as soon as it is received. Decoding writes
+        // the parts above the memory threshold to temporary files and reads them back, therefore
+        // it does not run on the event loop: the buffers are retained until the decoder has
+        // copied their content.
+        Mono<MapOfAttachments> partsMono = Mono.using(
+                () -> new MultipartFormDataDecoder(request, settings),
+                decoder -> request.data()
+                        .retain()
+                        .publishOn(boundedElastic())
+                        .doOnDiscard(ByteBuf.class, ReferenceCountUtil::release)
+                        .doOnNext(chunk -> offer(decoder, chunk))
+                        .then(Mono.fromCallable(decoder::complete)),
+                MultipartFormDataDecoder::destroy);
 
         return MessageBuilder.get(RESTListener.class)
                 .withJavaObject(partsMono, MapOfAttachments.class);
     }
 
-    private static void handleFileUploadPart(Map<String,Attachment> parts, FileUpload fileUpload) {
-        String name = fileUpload.getName();
-
-        byte[] fileContentAsBytes;
+    private static void offer(MultipartFormDataDecoder decoder, ByteBuf chunk) {
         try {
-            fileContentAsBytes = fileUpload.get();
-        } catch (IOException exception) {
-            PlatformException rethrown = new PlatformException(ERROR_MULTIPART_FILE_UPLOAD_VALUE.format(name), exception);
-            logger.error("Multipart Mapper error", rethrown);
-            throw rethrown;
+            decoder.offer(chunk);
         } finally {
-            // We MUST call delete otherwise the associated ByteBuffer
-            // related to this part will NOT be released and a memory
-            // leak would occur.
-            fileUpload.delete();
+            chunk.release();
         }
-
-        String filename = fileUpload.getFilename();
-        String contentType = fileUpload.getContentType();
-        String contentTransferEncoding = fileUpload.getContentTransferEncoding();
-
-        MimeType mimeType = MimeType.parse(contentType);
-        Attachment part = Attachment.builder()
-                .name(name)
-                .attribute(MultipartAttribute.TRANSFER_ENCODING, contentTransferEncoding)
-                .attribute(MultipartAttribute.CONTENT_TYPE, contentType)
-                .attribute(MultipartAttribute.FILE_NAME, filename)
-                .data(fileContentAsBytes)
-                .mimeType(mimeType)
-                .build();
-        parts.put(name, part);
-    }
-
-    private static void handleAttributePart(Map<String,Attachment> parts, Attribute attribute) {
-        String name = attribute.getName();
-        String attributeValue;
-        try {
-            attributeValue = attribute.getValue();
-        } catch (IOException e) {
-            PlatformException rethrown = new PlatformException(ERROR_MULTIPART_ATTRIBUTE_VALUE.format(name), e);
-            logger.error("Multipart Mapper error", rethrown);
-            throw rethrown;
-        }
-
-        Attachment part = Attachment.builder()
-                .name(name)
-                .data(attributeValue.getBytes())
-                .mimeType(MimeType.TEXT_PLAIN)
-                .build();
-        parts.put(name, part);
     }
 }
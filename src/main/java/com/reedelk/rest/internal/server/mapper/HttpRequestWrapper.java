@@ -1,5 +1,6 @@
 package com.reedelk.rest.internal.server.mapper;
 
+import com.reedelk.rest.internal.commons.HttpHeader;
 import com.reedelk.rest.internal.commons.HttpHeadersAsMap;
 import com.reedelk.rest.internal.commons.MimeTypeExtract;
 import com.reedelk.rest.internal.commons.QueryParameters;
@@ -13,11 +14,12 @@ import reactor.netty.http.server.HttpServerRequest;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 
 public class HttpRequestWrapper {
 
-    private static final String QUERY_PARAMS_START_MARKER = "?";
+    private static final char QUERY_PARAMS_START_MARKER = '?';
 
     private final HttpServerRequest request;
 
@@ -47,18 +49,20 @@ public class HttpRequestWrapper {
 
     public String queryString() {
         // Keep only query parameters from the uri
-        int queryParamsStart = request.uri().indexOf("?");
+        String uri = request.uri();
+        int queryParamsStart = uri.indexOf(QUERY_PARAMS_START_MARKER);
         return queryParamsStart > -1 ?
-                request.uri().substring(queryParamsStart + 1) :
+                uri.substring(queryParamsStart + 1) :
                 StringUtils.EMPTY;
     }
 
     public String requestPath() {
         // Remove query parameters from the uri
-        int queryParamsStartIndex = request.uri().indexOf(QUERY_PARAMS_START_MARKER);
+        String uri = request.uri();
+        int queryParamsStartIndex = uri.indexOf(QUERY_PARAMS_START_MARKER);
         return queryParamsStartIndex > -1 ?
-                request.uri().substring(0, queryParamsStartIndex) :
-                request.uri();
+                uri.substring(0, queryParamsStartIndex) :
+                uri;
     }
 
     ByteBufFlux data() {
@@ -89,6 +93,34 @@ public class HttpRequestWrapper {
         return HttpHeadersAsMap.of(request.requestHeaders());
     }
 
+    /**
+     * Returns the first comma separated value of the given header without
+     * converting all the request headers into a map.
+     */
+    public Optional<String> headerFirstValue(String headerName) {
+        String headerValue = request.requestHeaders().get(headerName);
+        if (StringUtils.isBlank(headerValue)) return Optional.empty();
+        int separatorIndex = headerValue.indexOf(',');
+        String firstValue = separatorIndex > -1 ?
+                headerValue.substring(0, separatorIndex) :
+                headerValue;
+        return Optional.of(StringUtils.trim(firstValue));
+    }
+
+    /**
+     * Returns the value of the Content-Length header, or -1 if the header
+     * is missing or it is not a valid length, e.g. for chunked requests.
+     */
+    long contentLength() {
+        String contentLength = request.requestHeaders().get(HttpHeader.CONTENT_LENGTH);
+        if (StringUtils.isBlank(contentLength)) return -1;
+        try {
+            return Long.parseLong(StringUtils.trim(contentLength));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
     HttpHeaders requestHeaders() {
         return request.requestHeaders();
     }
@@ -2,20 +2,30 @@ package com.reedelk.rest.internal.server.mapper;
 
 import com.reedelk.rest.component.listener.ErrorResponse;
 import com.reedelk.rest.component.listener.Response;
+import com.reedelk.rest.internal.RequestEntityTooLargeException;
+import com.reedelk.rest.internal.commons.StaticValue;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
 import com.reedelk.runtime.api.message.content.MimeType;
 import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicStringMap;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicInteger;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import reactor.netty.http.server.HttpServerResponse;
 
+import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
 
+import static com.reedelk.rest.internal.attribute.RESTClientAttributes.HEADERS;
+import static com.reedelk.rest.internal.attribute.RESTClientAttributes.PASS_THROUGH;
+import static com.reedelk.rest.internal.attribute.RESTClientAttributes.STATUS_CODE;
 import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
 import static java.util.Optional.ofNullable;
 
 public class MessageHttpResponseMapper {
@@ -24,10 +34,31 @@ public class MessageHttpResponseMapper {
     private final ErrorResponse errorResponse;
     private final Response response;
 
+    // Precomputed when the values are not scripts, null otherwise.
+    private final HttpResponseStatus staticStatus;
+    private final HttpResponseStatus staticErrorStatus;
+    private final boolean isErrorStatusScript;
+    private final boolean isStatusSet;
+    private final Map<String,String> staticHeaders;
+    private final Map<String,String> staticErrorHeaders;
+
     public MessageHttpResponseMapper(ScriptEngineService scriptEngine, Response response, ErrorResponse errorResponse) {
         this.response = response;
         this.errorResponse = errorResponse;
         this.scriptEngine = scriptEngine;
+
+        DynamicInteger responseStatus = ofNullable(response).map(Response::getStatus).orElse(null);
+        DynamicInteger errorResponseStatus = ofNullable(errorResponse).map(ErrorResponse::getStatus).orElse(null);
+        this.staticStatus = staticStatusOf(responseStatus, OK);
+        this.isStatusSet = responseStatus != null && responseStatus.isNotNull();
+        // The default error status depends on the exception: it is not precomputed.
+        this.staticErrorStatus = staticStatusOf(errorResponseStatus, null);
+        this.isErrorStatusScript = !StaticValue.isStatic(errorResponseStatus);
+
+        DynamicStringMap responseHeaders = ofNullable(response).map(Response::getHeaders).orElse(null);
+        DynamicStringMap errorResponseHeaders = ofNullable(errorResponse).map(ErrorResponse::getHeaders).orElse(null);
+        this.staticHeaders = StaticValue.isStatic(responseHeaders) ? StaticValue.of(responseHeaders) : null;
+        this.staticErrorHeaders = StaticValue.isStatic(errorResponseHeaders) ? StaticValue.of(errorResponseHeaders) : null;
     }
 
     /**
@@ -39,15 +70,27 @@ public class MessageHttpResponseMapper {
      * @param serverResponse http response to be sent back to the client
      * @param flowContext    the flow context object holding flow variables and other contextual info
      */
+    @SuppressWarnings("unchecked")
     public void map(Message message, HttpServerResponse serverResponse, FlowContext flowContext) {
+        // A response relayed by a REST Client in pass-through mode carries the status
+        // and the headers to be sent back to the client. The status and the headers
+        // of the listener response, when set, take precedence over the relayed ones.
+        MessageAttributes attributes = message.attributes();
+        boolean passThrough = attributes != null && Boolean.TRUE.equals(attributes.get(PASS_THROUGH));
+
         // 1. Status code
-        DynamicInteger responseStatus = ofNullable(response).map(Response::getStatus).orElse(null);
-        HttpResponseStatus status = EvaluateStatusCode.withDefault(OK)
-                .withScriptEngine(scriptEngine)
-                .withStatus(responseStatus)
-                .withContext(flowContext)
-                .withMessage(message)
-                .evaluate();
+        HttpResponseStatus status = passThrough && !isStatusSet ?
+                HttpResponseStatus.valueOf((Integer) attributes.get(STATUS_CODE)) :
+                staticStatus;
+        if (status == null) {
+            DynamicInteger responseStatus = ofNullable(response).map(Response::getStatus).orElse(null);
+            status = EvaluateStatusCode.withDefault(OK)
+                    .withScriptEngine(scriptEngine)
+                    .withStatus(responseStatus)
+                    .withContext(flowContext)
+                    .withMessage(message)
+                    .evaluate();
+        }
         serverResponse.status(status);
 
         // 2. Content type
@@ -55,11 +98,18 @@ public class MessageHttpResponseMapper {
         ContentType.from(responseBody, message)
                 .ifPresent(contentType -> serverResponse.addHeader(CONTENT_TYPE, contentType));
 
-        // 3. Headers (which might override headers above)
-        Map<String,String> evaluatedResponseHeaders = ofNullable(response)
-                .map(Response::getHeaders)
-                .map(dynamicStringMap -> scriptEngine.evaluate(dynamicStringMap, flowContext, message))
-                .orElse(null);
+        // 3. Relayed headers (which might override the content type above)
+        if (passThrough) {
+            Serializable relayedHeaders = attributes.get(HEADERS);
+            if (relayedHeaders instanceof Map) {
+                AdditionalHeader.relayAll(serverResponse, (Map<String, List<String>>) relayedHeaders);
+            }
+        }
+
+        // 4. Headers (which might override headers above)
+        Map<String,String> evaluatedResponseHeaders = staticHeaders != null ?
+                staticHeaders :
+                scriptEngine.evaluate(response.getHeaders(), flowContext, message);
         AdditionalHeader.addAll(serverResponse, evaluatedResponseHeaders);
     }
 
@@ -74,13 +124,17 @@ public class MessageHttpResponseMapper {
      */
     public void map(Throwable exception, HttpServerResponse serverResponse, FlowContext flowContext) {
         // 1. Status code
-        DynamicInteger errorResponseStatus = ofNullable(errorResponse).map(ErrorResponse::getStatus).orElse(null);
-        HttpResponseStatus status = EvaluateStatusCode.withDefault(INTERNAL_SERVER_ERROR)
-                .withScriptEngine(scriptEngine)
-                .withStatus(errorResponseStatus)
-                .withContext(flowContext)
-                .withThrowable(exception)
-                .evaluate();
+        HttpResponseStatus status = staticErrorStatus;
+        if (status == null) {
+            HttpResponseStatus defaultStatus = defaultErrorStatusOf(exception);
+            DynamicInteger errorResponseStatus = ofNullable(errorResponse).map(ErrorResponse::getStatus).orElse(null);
+            status = !isErrorStatusScript ? defaultStatus : EvaluateStatusCode.withDefault(defaultStatus)
+                    .withScriptEngine(scriptEngine)
+                    .withStatus(errorResponseStatus)
+                    .withContext(flowContext)
+                    .withThrowable(exception)
+                    .evaluate();
+        }
         serverResponse.status(status);
 
         // 2. Response headers
@@ -93,10 +147,24 @@ public class MessageHttpResponseMapper {
         }
 
         // 3. Headers (which might override headers above)
-        Map<String,String> evaluatedResponseHeaders = ofNullable(errorResponse)
-                .map(ErrorResponse::getHeaders)
-                .map(dynamicStringMap -> scriptEngine.evaluate(dynamicStringMap, flowContext, exception))
-                .orElse(null);
+        Map<String,String> evaluatedResponseHeaders = staticErrorHeaders != null ?
+                staticErrorHeaders :
+                scriptEngine.evaluate(errorResponse.getHeaders(), flowContext, exception);
         AdditionalHeader.addAll(serverResponse, evaluatedResponseHeaders);
     }
+
+    // A request body exceeding the size limits while the flow reads it is a client error.
+    private static HttpResponseStatus defaultErrorStatusOf(Throwable exception) {
+        for (Throwable current = exception; current != null; current = current.getCause()) {
+            if (current instanceof RequestEntityTooLargeException) return REQUEST_ENTITY_TOO_LARGE;
+        }
+        return INTERNAL_SERVER_ERROR;
+    }
+
+    private static HttpResponseStatus staticStatusOf(DynamicInteger status, HttpResponseStatus defaultCode) {
+        if (!StaticValue.isStatic(status)) return null;
+        return StaticValue.of(status)
+                .map(HttpResponseStatus::valueOf)
+                .orElse(defaultCode);
+    }
 }
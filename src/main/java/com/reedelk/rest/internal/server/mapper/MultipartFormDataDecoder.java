@@ -0,0 +1,182 @@
+package com.reedelk.rest.internal.server.mapper;
+
+import com.reedelk.rest.internal.RequestEntityTooLargeException;
+import com.reedelk.runtime.api.exception.PlatformException;
+import com.reedelk.runtime.api.message.content.Attachment;
+import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.type.MapOfAttachments;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.multipart.*;
+import io.netty.util.CharsetUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+import static com.reedelk.rest.internal.commons.Messages.RestListener.*;
+import static io.netty.handler.codec.http.multipart.InterfaceHttpData.HttpDataType;
+
+/**
+ * Decodes a multipart/form-data request body incrementally, one network chunk at a time.
+ * Parts bigger than the memory threshold are written to temporary files while they are
+ * received. Each part is converted to an attachment as soon as it has been fully decoded,
+ * and its memory buffer or temporary file is released straight away. The attachments hold
+ * the content of the parts in memory: the part and request size limits bound it.
+ */
+class MultipartFormDataDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultipartFormDataDecoder.class);
+
+    private final MultipartSettings settings;
+    private final HttpPostRequestDecoder postDecoder;
+    private final MapOfAttachments parts = new MapOfAttachments();
+
+    private long receivedBytes;
+
+    MultipartFormDataDecoder(HttpRequestWrapper request, MultipartSettings settings) {
+        this.settings = settings;
+
+        // POST Multipart is only supported on HTTP 1.1 and for POST method.
+        // The body is not part of the request, it is offered chunk by chunk.
+        DefaultHttpRequest httpRequest = new DefaultHttpRequest(
+                HttpVersion.HTTP_1_1,
+                HttpMethod.POST,
+                request.requestUri(),
+                request.requestHeaders());
+
+        // Parts above the memory threshold are written to disk. Their temporary files are
+        // not registered for deletion on exit: the JVM would keep their paths until it stops.
+        // They are deleted as soon as the part has been collected, or when the decoder is destroyed.
+        DefaultHttpDataFactory dataFactory =
+                new DefaultHttpDataFactory(settings.memoryThreshold(), CharsetUtil.UTF_8);
+        dataFactory.setDeleteOnExit(false);
+
+        this.postDecoder = new HttpPostRequestDecoder(dataFactory, httpRequest, CharsetUtil.UTF_8);
+    }
+
+    /**
+     * Decodes the given chunk of the request body. The chunk content is copied by the decoder,
+     * therefore the caller keeps the ownership of the given buffer.
+     */
+    void offer(ByteBuf chunk) {
+        receivedBytes += chunk.readableBytes();
+        if (settings.isRequestSizeExceeded(receivedBytes)) {
+            throw new RequestEntityTooLargeException(ERROR_MULTIPART_REQUEST_TOO_LARGE.format(settings.maxRequestSize()));
+        }
+
+        postDecoder.offer(new DefaultHttpContent(chunk));
+
+        // The part currently being decoded might already be bigger than the limit.
+        InterfaceHttpData partialData = postDecoder.currentPartialHttpData();
+        if (partialData instanceof HttpData) {
+            checkPartSize((HttpData) partialData);
+        }
+
+        collectDecodedParts();
+    }
+
+    /**
+     * Signals the end of the request body and returns all the decoded parts.
+     */
+    MapOfAttachments complete() {
+        postDecoder.offer(LastHttpContent.EMPTY_LAST_CONTENT);
+        collectDecodedParts();
+        return parts;
+    }
+
+    /**
+     * Releases the parts not collected yet and deletes their temporary files, if any.
+     */
+    void destroy() {
+        postDecoder.destroy();
+    }
+
+    private void collectDecodedParts() {
+        try {
+            while (postDecoder.hasNext()) {
+                InterfaceHttpData data = postDecoder.next();
+                try {
+                    if (HttpDataType.Attribute == data.getHttpDataType()) {
+                        handleAttributePart((Attribute) data);
+
+                    } else if (HttpDataType.FileUpload == data.getHttpDataType()) {
+                        handleFileUploadPart((FileUpload) data);
+                    }
+                } finally {
+                    // We MUST release the part otherwise the associated ByteBuffer
+                    // would NOT be released and a memory leak would occur. The temporary
+                    // file of the part, if any, is deleted before releasing it.
+                    postDecoder.removeHttpDataFromClean(data);
+                    if (data instanceof HttpData) ((HttpData) data).delete();
+                    data.release();
+                }
+            }
+        } catch (HttpPostRequestDecoder.EndOfDataDecoderException endOfData) {
+            // All the parts have been decoded.
+        }
+    }
+
+    private void handleFileUploadPart(FileUpload fileUpload) {
+        String name = fileUpload.getName();
+
+        checkPartSize(fileUpload);
+
+        byte[] fileContentAsBytes;
+        try {
+            fileContentAsBytes = fileUpload.get();
+        } catch (IOException exception) {
+            PlatformException rethrown = new PlatformException(ERROR_MULTIPART_FILE_UPLOAD_VALUE.format(name), exception);
+            logger.error("Multipart Mapper error", rethrown);
+            throw rethrown;
+        }
+
+        String filename = fileUpload.getFilename();
+        String contentType = fileUpload.getContentType();
+        String contentTransferEncoding = fileUpload.getContentTransferEncoding();
+
+        MimeType mimeType = MimeType.parse(contentType);
+        Attachment part = Attachment.builder()
+                .name(name)
+                .attribute(MultipartAttribute.TRANSFER_ENCODING, contentTransferEncoding)
+                .attribute(MultipartAttribute.CONTENT_TYPE, contentType)
+                .attribute(MultipartAttribute.FILE_NAME, filename)
+                .data(fileContentAsBytes)
+                .mimeType(mimeType)
+                .build();
+        parts.put(name, part);
+    }
+
+    private void handleAttributePart(Attribute attribute) {
+        String name = attribute.getName();
+
+        checkPartSize(attribute);
+
+        String attributeValue;
+        try {
+            attributeValue = attribute.getValue();
+        } catch (IOException e) {
+            PlatformException rethrown = new PlatformException(ERROR_MULTIPART_ATTRIBUTE_VALUE.format(name), e);
+            logger.error("Multipart Mapper error", rethrown);
+            throw rethrown;
+        }
+
+        Attachment part = Attachment.builder()
+                .name(name)
+                .data(attributeValue.getBytes())
+                .mimeType(MimeType.TEXT_PLAIN)
+                .build();
+        parts.put(name, part);
+    }
+
+    private void checkPartSize(HttpData data) {
+        if (settings.isPartSizeExceeded(data.length())) {
+            throw new RequestEntityTooLargeException(
+                    ERROR_MULTIPART_PART_TOO_LARGE.format(data.getName(), settings.maxPartSize()));
+        }
+    }
+}
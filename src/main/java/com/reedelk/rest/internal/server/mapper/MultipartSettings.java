@@ -0,0 +1,44 @@
+package com.reedelk.rest.internal.server.mapper;
+
+import com.reedelk.rest.internal.commons.Defaults;
+
+/**
+ * Memory threshold and size limits applied when decoding multipart/form-data requests.
+ * A negative size limit means that there is no limit.
+ */
+public class MultipartSettings {
+
+    private final long memoryThreshold;
+    private final long maxPartSize;
+    private final long maxRequestSize;
+
+    public MultipartSettings(Integer memoryThreshold, Integer maxPartSize, Integer maxRequestSize) {
+        this.memoryThreshold = Defaults.RestListener.multipartMemoryThreshold(memoryThreshold);
+        this.maxPartSize = Defaults.RestListener.multipartMaxPartSize(maxPartSize);
+        this.maxRequestSize = Defaults.RestListener.multipartMaxRequestSize(maxRequestSize);
+    }
+
+    public static MultipartSettings defaults() {
+        return new MultipartSettings(null, null, null);
+    }
+
+    long memoryThreshold() {
+        return memoryThreshold;
+    }
+
+    long maxPartSize() {
+        return maxPartSize;
+    }
+
+    long maxRequestSize() {
+        return maxRequestSize;
+    }
+
+    boolean isPartSizeExceeded(long partSize) {
+        return maxPartSize >= 0 && partSize > maxPartSize;
+    }
+
+    boolean isRequestSizeExceeded(long requestSize) {
+        return maxRequestSize >= 0 && requestSize > maxRequestSize;
+    }
+}
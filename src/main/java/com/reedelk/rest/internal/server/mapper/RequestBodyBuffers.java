@@ -0,0 +1,50 @@
+package com.reedelk.rest.internal.server.mapper;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the network buffers backing a zero copy request body. The buffers
+ * are retained while the message flows through the pipeline and they are released
+ * once the response for the request has been sent back to the client.
+ */
+public class RequestBodyBuffers {
+
+    private List<ByteBuf> buffers;
+    private boolean released;
+
+    /**
+     * Returns a read-only view of the given retained buffer. If the buffers have
+     * already been released, e.g. the payload is read after the response has been
+     * sent, the content is copied and the given buffer released straight away.
+     */
+    synchronized ByteBuffer track(ByteBuf buffer) {
+        if (released) {
+            try {
+                ByteBuffer copy = ByteBuffer.allocate(buffer.readableBytes());
+                buffer.readBytes(copy);
+                copy.flip();
+                return copy.asReadOnlyBuffer();
+            } finally {
+                buffer.release();
+            }
+        }
+        if (buffers == null) buffers = new ArrayList<>();
+        buffers.add(buffer);
+        return buffer.nioBuffer().asReadOnlyBuffer();
+    }
+
+    public synchronized void release() {
+        if (released) return;
+        released = true;
+        if (buffers != null) {
+            // Each stream byte buffer is reference counted,
+            // therefore we must release it once we are done with it.
+            buffers.forEach(ByteBuf::release);
+            buffers = null;
+        }
+    }
+}
@@ -3,28 +3,25 @@ package com.reedelk.rest.internal.server.uri;
 
 import com.reedelk.rest.internal.commons.RemoveQueryParams;
 
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 
 import static java.util.Objects.requireNonNull;
 
 public class UriTemplate {
 
-    private final UriTemplateStructure uriTemplateStructure;
+    private final UriTemplateMatcher matcher;
 
     public UriTemplate(String uriTemplate) {
         requireNonNull(uriTemplate, "uri template");
         String uriTemplateWithoutQueryParams = RemoveQueryParams.from(uriTemplate);
-        this.uriTemplateStructure = UriTemplateStructure.from(uriTemplateWithoutQueryParams);
+        UriTemplateStructure uriTemplateStructure = UriTemplateStructure.from(uriTemplateWithoutQueryParams);
+        this.matcher = UriTemplateMatcher.from(uriTemplateStructure);
     }
 
     public boolean matches(String uri) {
         if (uri == null) return false;
         String uriWithoutQueryParams = RemoveQueryParams.from(uri);
-        Matcher matcher = uriTemplateStructure.getPattern().matcher(uriWithoutQueryParams);
-        return matcher.matches();
+        return matcher.match(uriWithoutQueryParams, null);
     }
 
     public Map<String,String> bind(String uri) {
@@ -33,17 +30,16 @@ public class UriTemplate {
         // We must remove the query parameters from the original URI.
         String uriWithoutQueryParams = RemoveQueryParams.from(uri);
 
-        List<String> variableNames = uriTemplateStructure.getVariableNames();
-        Map<String, String> result = new HashMap<>();
-        Matcher matcher = uriTemplateStructure.getPattern().matcher(uriWithoutQueryParams);
-        if (matcher.find()) {
-            // We start from the first group count (the first one is the whole string)
-            for (int i = 1; i <= matcher.groupCount(); i++) {
-                String name = variableNames.get(i - 1);
-                String value = matcher.group(i);
-                result.put(name, value);
-            }
-        }
-        return result;
+        UriTemplateVariables variables = new UriTemplateVariables();
+        matcher.match(uriWithoutQueryParams, variables);
+        return variables.asMap();
+    }
+
+    /**
+     * Matches the given path, which must not contain query parameters, and adds
+     * the captured template variables to the given variables if the path matches.
+     */
+    public boolean match(String path, UriTemplateVariables variables) {
+        return matcher.match(path, variables);
     }
 }
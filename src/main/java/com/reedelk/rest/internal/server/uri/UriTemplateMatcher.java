@@ -0,0 +1,101 @@
+package com.reedelk.rest.internal.server.uri;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.reedelk.rest.internal.server.uri.UriTemplateStructure.Part;
+
+/**
+ * Matches a path (without query parameters) against a compiled uri template and
+ * captures the template variables in the same pass. Variables are added to the
+ * given variables only if the whole path matches.
+ */
+interface UriTemplateMatcher {
+
+    boolean match(String path, UriTemplateVariables variables);
+
+    static UriTemplateMatcher from(UriTemplateStructure structure) {
+        return structure.hasCustomRegex() ?
+                new RegexMatcher(structure.getPattern(), structure.getVariableNames()) :
+                new PartsMatcher(structure.getParts());
+    }
+
+    /**
+     * Regex free matcher for templates without custom regular expressions.
+     * A variable matches any (possibly empty) sequence of characters but '/'.
+     * Like the default regex ([^/]*) variables are greedy: the matcher tries
+     * the longest value first and backtracks when the rest of the path does not match.
+     */
+    class PartsMatcher implements UriTemplateMatcher {
+
+        private final Part[] parts;
+
+        PartsMatcher(List<Part> parts) {
+            this.parts = parts.toArray(new Part[0]);
+        }
+
+        @Override
+        public boolean match(String path, UriTemplateVariables variables) {
+            return match(path, 0, 0, variables);
+        }
+
+        private boolean match(String path, int partIndex, int position, UriTemplateVariables variables) {
+            if (partIndex == parts.length) {
+                return position == path.length();
+            }
+
+            Part part = parts[partIndex];
+            if (!part.isVariable()) {
+                String literal = part.value();
+                return path.startsWith(literal, position) &&
+                        match(path, partIndex + 1, position + literal.length(), variables);
+            }
+
+            int slash = path.indexOf('/', position);
+            int maxEnd = slash == -1 ? path.length() : slash;
+
+            if (partIndex + 1 == parts.length) {
+                // Last part: the variable must consume the rest of the path.
+                if (maxEnd != path.length()) return false;
+                if (variables != null) variables.add(part.value(), path.substring(position, maxEnd));
+                return true;
+            }
+
+            for (int end = maxEnd; end >= position; end--) {
+                if (match(path, partIndex + 1, end, variables)) {
+                    if (variables != null) variables.add(part.value(), path.substring(position, end));
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Matcher for templates defining at least one variable with a custom regular expression e.g. {page:.*}.
+     */
+    class RegexMatcher implements UriTemplateMatcher {
+
+        private final Pattern pattern;
+        private final String[] variableNames;
+
+        RegexMatcher(Pattern pattern, List<String> variableNames) {
+            this.pattern = pattern;
+            this.variableNames = variableNames.toArray(new String[0]);
+        }
+
+        @Override
+        public boolean match(String path, UriTemplateVariables variables) {
+            Matcher matcher = pattern.matcher(path);
+            if (!matcher.matches()) return false;
+            if (variables != null) {
+                // We start from the first group count (the first one is the whole string)
+                for (int i = 1; i <= matcher.groupCount() && i <= variableNames.length; i++) {
+                    variables.add(variableNames[i - 1], matcher.group(i));
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.reedelk.rest.internal.server.uri;
 
 import com.reedelk.runtime.api.commons.StringUtils;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -16,10 +17,14 @@ public class UriTemplateStructure {
     private static final char BEGIN_REGEXP = '(';
 
     private final List<String> variableNames;
+    private final List<Part> parts;
+    private final boolean customRegex;
     private final Pattern pattern;
 
-    private UriTemplateStructure(List<String> variableNames, Pattern pattern) {
+    private UriTemplateStructure(List<String> variableNames, List<Part> parts, boolean customRegex, Pattern pattern) {
         this.variableNames = variableNames;
+        this.parts = parts;
+        this.customRegex = customRegex;
         this.pattern = pattern;
     }
 
@@ -31,9 +36,26 @@ public class UriTemplateStructure {
         return pattern;
     }
 
+    /**
+     * The literal and variable parts of the template in order of appearance,
+     * e.g. /People('{ID}') -> "/People('", ID, "')".
+     */
+    List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * @return true if at least one of the variables defines a custom regular expression e.g. {page:.*}.
+     */
+    boolean hasCustomRegex() {
+        return customRegex;
+    }
+
     public static UriTemplateStructure from(String template) {
         int depth = 0;
+        boolean customRegex = false;
         List<String> variableNames = new LinkedList<>();
+        List<Part> parts = new ArrayList<>();
         StringBuilder pattern = new StringBuilder();
         StringBuilder builder = new StringBuilder();
         for (int i = 0 ; i < template.length(); i++) {
@@ -44,6 +66,7 @@ public class UriTemplateStructure {
                 if (depth == 1) {
                     // beginning of a defined URI variable
                     pattern.append(quote(builder));
+                    if (builder.length() > 0) parts.add(Part.literal(builder.toString()));
                     builder = new StringBuilder();
                     continue;
                 }
@@ -57,6 +80,7 @@ public class UriTemplateStructure {
                     if (idx == -1) {
                         pattern.append(DEFAULT_REGEXP);
                         variableNames.add(variable);
+                        parts.add(Part.variable(variable));
 
                     } else {
                         if (idx + 1 == variable.length()) {
@@ -68,6 +92,8 @@ public class UriTemplateStructure {
                         pattern.append(regex);
                         pattern.append(END_REGEXP);
                         variableNames.add(variable.substring(0, idx));
+                        parts.add(Part.variable(variable.substring(0, idx)));
+                        customRegex = true;
                     }
                     builder = new StringBuilder();
                     continue;
@@ -77,12 +103,40 @@ public class UriTemplateStructure {
         }
         if (builder.length() > 0) {
             pattern.append(quote(builder));
+            parts.add(Part.literal(builder.toString()));
         }
 
-        return new UriTemplateStructure(variableNames, Pattern.compile(pattern.toString()));
+        return new UriTemplateStructure(variableNames, parts, customRegex, Pattern.compile(pattern.toString()));
     }
 
     private static String quote(StringBuilder builder) {
         return (builder.length() > 0 ? Pattern.quote(builder.toString()) : StringUtils.EMPTY);
     }
+
+    static class Part {
+
+        private final String value;
+        private final boolean variable;
+
+        private Part(String value, boolean variable) {
+            this.value = value;
+            this.variable = variable;
+        }
+
+        static Part literal(String value) {
+            return new Part(value, false);
+        }
+
+        static Part variable(String name) {
+            return new Part(name, true);
+        }
+
+        String value() {
+            return value;
+        }
+
+        boolean isVariable() {
+            return variable;
+        }
+    }
 }
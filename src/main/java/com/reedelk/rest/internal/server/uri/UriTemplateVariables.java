@@ -0,0 +1,52 @@
+package com.reedelk.rest.internal.server.uri;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Collects the variables captured while matching a request path against uri templates.
+ * Captured variables can be rolled back to a previous mark when a match attempt fails,
+ * this way the same instance is reused while backtracking through alternative templates.
+ */
+public class UriTemplateVariables {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private String[] names = new String[DEFAULT_CAPACITY];
+    private String[] values = new String[DEFAULT_CAPACITY];
+    private int size;
+
+    public int mark() {
+        return size;
+    }
+
+    public void reset(int mark) {
+        for (int i = mark; i < size; i++) {
+            names[i] = null;
+            values[i] = null;
+        }
+        size = mark;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public HashMap<String, String> asMap() {
+        HashMap<String, String> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(names[i], values[i]);
+        }
+        return map;
+    }
+
+    void add(String name, String value) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        size++;
+    }
+}
@@ -0,0 +1,331 @@
+package com.reedelk.rest.component;
+
+import com.reedelk.rest.TestComponent;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.StreamingMode;
+import com.reedelk.runtime.api.component.OnResult;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicStringMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static com.reedelk.rest.internal.commons.HttpHeader.*;
+import static com.reedelk.rest.internal.commons.RestMethod.DELETE;
+import static com.reedelk.rest.internal.commons.RestMethod.GET;
+import static com.reedelk.runtime.api.message.content.MimeType.APPLICATION_JSON;
+import static com.reedelk.runtime.api.message.content.MimeType.TEXT_PLAIN;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+// Each REST Client is disposed once its response has been asserted: the clients of a test
+// are created upfront, so that the cache of their configuration is shared and kept open.
+class RESTClientCacheTest extends RESTClientAbstractTest {
+
+    private static final String SCENARIO = "Cache";
+
+    private final String responseBody = "{\"Name\":\"John\"}";
+    private final Message emptyPayload = MessageBuilder.get(TestComponent.class).empty().build();
+
+    @Test
+    void shouldServeFreshResponseWithoutSendingRequest() {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        RESTClient first = clientWith(GET, configuration, PATH);
+        RESTClient second = clientWith(GET, configuration, PATH);
+
+        givenThat(get(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withHeader(CACHE_CONTROL, "max-age=60")
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        // When
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+
+        // Then
+        verify(1, getRequestedFor(urlEqualTo(PATH)));
+    }
+
+    @Test
+    void shouldRevalidateStaleResponseWithETag() {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        RESTClient first = clientWith(GET, configuration, PATH);
+        RESTClient second = clientWith(GET, configuration, PATH);
+
+        givenThat(get(urlEqualTo(PATH))
+                .atPriority(2)
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withHeader(CACHE_CONTROL, "max-age=0")
+                        .withHeader(ETAG, "\"v1\"")
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        givenThat(get(urlEqualTo(PATH))
+                .atPriority(1)
+                .withHeader(IF_NONE_MATCH, equalTo("\"v1\""))
+                .willReturn(aResponse()
+                        .withHeader(ETAG, "\"v1\"")
+                        .withStatus(304)));
+
+        // When
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+
+        // Then
+        verify(2, getRequestedFor(urlEqualTo(PATH)));
+        verify(1, getRequestedFor(urlEqualTo(PATH)).withHeader(IF_NONE_MATCH, equalTo("\"v1\"")));
+    }
+
+    @Test
+    void shouldNotStoreResponseWithNoStore() {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        RESTClient first = clientWith(GET, configuration, PATH);
+        RESTClient second = clientWith(GET, configuration, PATH);
+
+        givenThat(get(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withHeader(CACHE_CONTROL, "no-store, max-age=60")
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        // When
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+
+        // Then
+        verify(2, getRequestedFor(urlEqualTo(PATH)));
+    }
+
+    @Test
+    void shouldNotStorePrivateResponse() {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        RESTClient first = clientWith(GET, configuration, PATH);
+        RESTClient second = clientWith(GET, configuration, PATH);
+
+        givenThat(get(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withHeader(CACHE_CONTROL, "private, max-age=60")
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        // When
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+
+        // Then
+        verify(2, getRequestedFor(urlEqualTo(PATH)));
+    }
+
+    @Test
+    void shouldInvalidateStoredResponseWhenUnsafeMethod() {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        RESTClient first = clientWith(GET, configuration, PATH);
+        RESTClient delete = clientWith(DELETE, configuration, PATH);
+        RESTClient second = clientWith(GET, configuration, PATH);
+
+        givenThat(get(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withHeader(CACHE_CONTROL, "max-age=60")
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        givenThat(delete(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, TEXT_PLAIN.toString())
+                        .withStatus(200)
+                        .withBody("Deleted")));
+
+        // When
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+        AssertHttpResponse.isSuccessful(delete, emptyPayload, flowContext, "Deleted", TEXT_PLAIN);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+
+        // Then
+        verify(2, getRequestedFor(urlEqualTo(PATH)));
+    }
+
+    @Test
+    void shouldNotShareResponseBetweenDifferentAuthorizations() {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        DynamicStringMap headers = authorizationHeaders("Bearer first", "Bearer second");
+        RESTClient first = clientWithHeaders(configuration, headers, StreamingMode.NONE);
+        RESTClient second = clientWithHeaders(configuration, headers, StreamingMode.NONE);
+
+        givenThat(get(urlEqualTo(PATH))
+                .withHeader(AUTHORIZATION, equalTo("Bearer first"))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, TEXT_PLAIN.toString())
+                        .withHeader(CACHE_CONTROL, "max-age=60")
+                        .withStatus(200)
+                        .withBody("First")));
+
+        givenThat(get(urlEqualTo(PATH))
+                .withHeader(AUTHORIZATION, equalTo("Bearer second"))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, TEXT_PLAIN.toString())
+                        .withHeader(CACHE_CONTROL, "max-age=60")
+                        .withStatus(200)
+                        .withBody("Second")));
+
+        // When
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, "First", TEXT_PLAIN);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, "Second", TEXT_PLAIN);
+
+        // Then
+        verify(1, getRequestedFor(urlEqualTo(PATH)).withHeader(AUTHORIZATION, equalTo("Bearer first")));
+        verify(1, getRequestedFor(urlEqualTo(PATH)).withHeader(AUTHORIZATION, equalTo("Bearer second")));
+    }
+
+    @Test
+    void shouldShareResponseBetweenDifferentAuthorizationsWhenPublic() {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        DynamicStringMap headers = authorizationHeaders("Bearer first", "Bearer second");
+        RESTClient first = clientWithHeaders(configuration, headers, StreamingMode.NONE);
+        RESTClient second = clientWithHeaders(configuration, headers, StreamingMode.NONE);
+
+        givenThat(get(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withHeader(CACHE_CONTROL, "public, max-age=60")
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        // When
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, responseBody, APPLICATION_JSON);
+
+        // Then
+        verify(1, getRequestedFor(urlEqualTo(PATH)));
+    }
+
+    @Test
+    void shouldStoreResponseRevalidatedInBackgroundWhenResponseStreamingIsAuto() throws InterruptedException {
+        // Given
+        RESTClientConfiguration configuration = cacheConfiguration();
+        RESTClient first = clientWithResponseStreaming(configuration);
+        RESTClient second = clientWithResponseStreaming(configuration);
+        // Keeps the cache open while the clients used in the polling loop are disposed.
+        RESTClient keepOpen = clientWith(GET, configuration, PATH);
+
+        // Larger than the response buffer size: it would be streamed to the caller.
+        String revalidatedBody = new String(new char[20 * 1024]).replace('\0', 'a');
+
+        givenThat(get(urlEqualTo(PATH))
+                .inScenario(SCENARIO)
+                .whenScenarioStateIs(STARTED)
+                .willSetStateTo("Stored")
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, TEXT_PLAIN.toString())
+                        .withHeader(CACHE_CONTROL, "max-age=0, stale-while-revalidate=60")
+                        .withHeader(ETAG, "\"v1\"")
+                        .withStatus(200)
+                        .withBody("Stored")));
+
+        givenThat(get(urlEqualTo(PATH))
+                .inScenario(SCENARIO)
+                .whenScenarioStateIs("Stored")
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, TEXT_PLAIN.toString())
+                        .withHeader(CACHE_CONTROL, "max-age=60")
+                        .withHeader(ETAG, "\"v2\"")
+                        .withStatus(200)
+                        .withBody(revalidatedBody)));
+
+        // When: the stale response is served while it is revalidated in the background.
+        AssertHttpResponse.isSuccessful(first, emptyPayload, flowContext, "Stored", TEXT_PLAIN);
+        AssertHttpResponse.isSuccessful(second, emptyPayload, flowContext, "Stored", TEXT_PLAIN);
+
+        // Then: the revalidated response is stored and served from the cache.
+        Object body = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!revalidatedBody.equals(body) && System.currentTimeMillis() < deadline) {
+            body = bodyOf(clientWithResponseStreaming(configuration));
+            if (!revalidatedBody.equals(body)) Thread.sleep(50);
+        }
+        assertThat(body).isEqualTo(revalidatedBody);
+        verify(2, getRequestedFor(urlEqualTo(PATH)));
+        verify(1, getRequestedFor(urlEqualTo(PATH)).withHeader(IF_NONE_MATCH, equalTo("\"v1\"")));
+        keepOpen.dispose();
+    }
+
+    // The Authorization header is set by the flow, with a different value for each request.
+    private DynamicStringMap authorizationHeaders(String first, String second) {
+        DynamicStringMap headers = DynamicStringMap.from(singletonMap(AUTHORIZATION, "#[context.token]"), moduleContext);
+        doReturn(singletonMap(AUTHORIZATION, first))
+                .doReturn(singletonMap(AUTHORIZATION, second))
+                .when(scriptEngine)
+                .evaluate(eq(headers), any(FlowContext.class), any(Message.class));
+        return headers;
+    }
+
+    private RESTClient clientWithResponseStreaming(RESTClientConfiguration configuration) {
+        return clientWithHeaders(configuration, null, StreamingMode.AUTO);
+    }
+
+    private RESTClient clientWithHeaders(RESTClientConfiguration configuration, DynamicStringMap headers, StreamingMode responseStreaming) {
+        RESTClient restClient = new RESTClient();
+        restClient.setConfiguration(configuration);
+        restClient.setMethod(GET);
+        restClient.setPath(PATH);
+        if (headers != null) restClient.setHeaders(headers);
+        restClient.setResponseStreaming(responseStreaming);
+        setScriptEngine(restClient);
+        setClientFactory(restClient);
+        setConverter(restClient);
+        restClient.initialize();
+        return restClient;
+    }
+
+    private Object bodyOf(RESTClient component) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Object> body = new AtomicReference<>();
+        component.apply(flowContext, emptyPayload, new OnResult() {
+            @Override
+            public void onResult(FlowContext flowContext, Message message) {
+                body.set(message.content().data());
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(FlowContext flowContext, Throwable throwable) {
+                latch.countDown();
+            }
+        });
+        latch.await(5, SECONDS);
+        component.dispose();
+        return body.get();
+    }
+
+    private static RESTClientConfiguration cacheConfiguration() {
+        RESTClientConfiguration configuration = new RESTClientConfiguration();
+        configuration.setHost(HOST);
+        configuration.setPort(PORT);
+        configuration.setProtocol(HttpProtocol.HTTP);
+        configuration.setId(UUID.randomUUID().toString());
+        configuration.setCache(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,128 @@
+package com.reedelk.rest.component;
+
+import com.reedelk.rest.TestComponent;
+import com.reedelk.rest.component.client.HedgingConfiguration;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.RestMethod;
+import com.reedelk.runtime.api.exception.ComponentConfigurationException;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_TYPE;
+import static com.reedelk.rest.internal.commons.RestMethod.GET;
+import static com.reedelk.rest.internal.commons.RestMethod.POST;
+import static com.reedelk.runtime.api.message.content.MimeType.APPLICATION_JSON;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RESTClientHedgingTest extends RESTClientAbstractTest {
+
+    private static final String SCENARIO = "Hedging";
+    private static final int SLOW_RESPONSE_DELAY = 3000;
+
+    @Test
+    void shouldUseResponseOfSecondAttemptWhenFirstIsSlow() {
+        // Given
+        String slowResponseBody = "{\"Attempt\":\"first\"}";
+        String fastResponseBody = "{\"Attempt\":\"second\"}";
+        RESTClient component = clientWithHedging(GET, 100, 100);
+
+        givenThat(get(urlEqualTo(PATH))
+                .inScenario(SCENARIO)
+                .whenScenarioStateIs(STARTED)
+                .willSetStateTo("First attempt sent")
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withFixedDelay(SLOW_RESPONSE_DELAY)
+                        .withStatus(200)
+                        .withBody(slowResponseBody)));
+
+        givenThat(get(urlEqualTo(PATH))
+                .inScenario(SCENARIO)
+                .whenScenarioStateIs("First attempt sent")
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withStatus(200)
+                        .withBody(fastResponseBody)));
+
+        Message payload = MessageBuilder.get(TestComponent.class).empty().build();
+
+        // When
+        long start = System.currentTimeMillis();
+        AssertHttpResponse.isSuccessful(component, payload, flowContext, fastResponseBody, APPLICATION_JSON);
+
+        // Then
+        assertThat(System.currentTimeMillis() - start).isLessThan(SLOW_RESPONSE_DELAY);
+        verify(2, getRequestedFor(urlEqualTo(PATH)));
+    }
+
+    @Test
+    void shouldNotSendSecondAttemptWhenBudgetIsExhausted() {
+        // Given
+        String responseBody = "{\"Attempt\":\"first\"}";
+        RESTClient component = clientWithHedging(GET, 100, 0);
+
+        givenThat(get(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withFixedDelay(500)
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        Message payload = MessageBuilder.get(TestComponent.class).empty().build();
+
+        // When
+        AssertHttpResponse.isSuccessful(component, payload, flowContext, responseBody, APPLICATION_JSON);
+
+        // Then
+        verify(1, getRequestedFor(urlEqualTo(PATH)));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenHedgingNotIdempotentMethod() {
+        // Given
+        RESTClient restClient = new RESTClient();
+        restClient.setConfiguration(configuration());
+        restClient.setMethod(POST);
+        restClient.setPath(PATH);
+        restClient.setHedging(true);
+        setScriptEngine(restClient);
+        setClientFactory(restClient);
+
+        // Expect
+        ComponentConfigurationException thrown = assertThrows(ComponentConfigurationException.class, restClient::initialize);
+        assertThat(thrown).hasMessageContaining("RESTClient hedging is not supported with method [POST]");
+    }
+
+    private RESTClient clientWithHedging(RestMethod method, int delay, int budget) {
+        HedgingConfiguration hedgingConfiguration = new HedgingConfiguration();
+        hedgingConfiguration.setDelay(delay);
+        hedgingConfiguration.setBudget(budget);
+
+        RESTClient restClient = new RESTClient();
+        restClient.setConfiguration(configuration());
+        restClient.setMethod(method);
+        restClient.setPath(PATH);
+        restClient.setHedging(true);
+        restClient.setHedgingConfiguration(hedgingConfiguration);
+        setScriptEngine(restClient);
+        setClientFactory(restClient);
+        setConverter(restClient);
+        restClient.initialize();
+        return restClient;
+    }
+
+    private static RESTClientConfiguration configuration() {
+        RESTClientConfiguration configuration = new RESTClientConfiguration();
+        configuration.setHost(HOST);
+        configuration.setPort(PORT);
+        configuration.setProtocol(HttpProtocol.HTTP);
+        configuration.setId(UUID.randomUUID().toString());
+        return configuration;
+    }
+}
@@ -0,0 +1,145 @@
+package com.reedelk.rest.component;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reedelk.rest.TestComponent;
+import com.reedelk.rest.component.client.Authentication;
+import com.reedelk.rest.internal.commons.ClientEngine;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import com.reedelk.runtime.api.exception.ComponentConfigurationException;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_TYPE;
+import static com.reedelk.rest.internal.commons.RestMethod.GET;
+import static com.reedelk.rest.internal.commons.RestMethod.POST;
+import static com.reedelk.runtime.api.message.content.MimeType.APPLICATION_JSON;
+import static com.reedelk.runtime.api.message.content.MimeType.TEXT_PLAIN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
+
+class RESTClientNettyEngineTest extends RESTClientAbstractTest {
+
+    @Test
+    void shouldGetExecuteCorrectlyWithNettyEngine() {
+        // Given
+        String responseBody = "{\"Name\":\"John\"}";
+        RESTClient component = clientWith(GET, nettyConfiguration(), PATH);
+
+        WireMock.givenThat(get(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .withStatus(200)
+                        .withBody(responseBody)));
+
+        Message payload = MessageBuilder.get(TestComponent.class).empty().build();
+
+        // Expect
+        AssertHttpResponse
+                .isSuccessful(component, payload, flowContext, responseBody, APPLICATION_JSON);
+    }
+
+    @Test
+    void shouldPostBodyWithNettyEngine() {
+        // Given
+        String requestBody = "{\"Name\":\"John\"}";
+        byte[] requestBodyAsBytes = requestBody.getBytes();
+        String expectedResponseBody = "POST was successful";
+        RESTClient component = clientWith(POST, nettyConfiguration(), PATH, EVALUATE_PAYLOAD_BODY);
+
+        doReturn(requestBodyAsBytes)
+                .when(converterService)
+                .convert(requestBodyAsBytes, byte[].class);
+
+        doReturn(Optional.of(requestBody.getBytes()))
+                .when(scriptEngine)
+                .evaluate(eq(EVALUATE_PAYLOAD_BODY), any(FlowContext.class), any(Message.class));
+
+        givenThat(post(urlEqualTo(PATH))
+                .withRequestBody(equalToJson(requestBody))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE, TEXT_PLAIN.toString())
+                        .withStatus(200)
+                        .withBody(expectedResponseBody)));
+
+        Message payload = MessageBuilder.get(TestComponent.class).withJson(requestBody).build();
+
+        // Expect
+        AssertHttpResponse
+                .isSuccessful(component, payload, flowContext, expectedResponseBody, TEXT_PLAIN);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenHttp2OverTlsWithHttpProtocol() {
+        // Given
+        RESTClientConfiguration configuration = nettyConfiguration();
+        configuration.setHttpVersion(HttpProtocolVersion.H2);
+
+        RESTClient restClient = new RESTClient();
+        restClient.setConfiguration(configuration);
+        restClient.setMethod(GET);
+        restClient.setPath(PATH);
+        setScriptEngine(restClient);
+        setClientFactory(restClient);
+
+        // Expect
+        ComponentConfigurationException thrown = assertThrows(ComponentConfigurationException.class, restClient::initialize);
+        assertThat(thrown).hasMessageContaining("RESTClient configuration HTTP version [H2] is not supported with engine [NETTY] and protocol [HTTP]");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenHttp2WithApacheEngine() {
+        // Given
+        RESTClientConfiguration configuration = nettyConfiguration();
+        configuration.setEngine(ClientEngine.APACHE);
+        configuration.setHttpVersion(HttpProtocolVersion.H2C);
+
+        RESTClient restClient = new RESTClient();
+        restClient.setConfiguration(configuration);
+        restClient.setMethod(GET);
+        restClient.setPath(PATH);
+        setScriptEngine(restClient);
+        setClientFactory(restClient);
+
+        // Expect
+        ComponentConfigurationException thrown = assertThrows(ComponentConfigurationException.class, restClient::initialize);
+        assertThat(thrown).hasMessageContaining("RESTClient configuration HTTP version [H2C] is not supported with engine [APACHE] and protocol [HTTP]");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenDigestAuthenticationWithNettyEngine() {
+        // Given
+        RESTClientConfiguration configuration = nettyConfiguration();
+        configuration.setAuthentication(Authentication.DIGEST);
+
+        RESTClient restClient = new RESTClient();
+        restClient.setConfiguration(configuration);
+        restClient.setMethod(GET);
+        restClient.setPath(PATH);
+        setScriptEngine(restClient);
+        setClientFactory(restClient);
+
+        // Expect
+        ComponentConfigurationException thrown = assertThrows(ComponentConfigurationException.class, restClient::initialize);
+        assertThat(thrown).hasMessageContaining("RESTClient configuration engine [NETTY] does not support digest authentication");
+    }
+
+    private static RESTClientConfiguration nettyConfiguration() {
+        RESTClientConfiguration configuration = new RESTClientConfiguration();
+        configuration.setHost(HOST);
+        configuration.setPort(PORT);
+        configuration.setProtocol(HttpProtocol.HTTP);
+        configuration.setId(UUID.randomUUID().toString());
+        configuration.setEngine(ClientEngine.NETTY);
+        return configuration;
+    }
+}
@@ -0,0 +1,202 @@
+package com.reedelk.rest.component;
+
+import com.reedelk.rest.component.listener.Response;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.RequestBodyMode;
+import com.reedelk.rest.internal.server.ServerProvider;
+import com.reedelk.runtime.api.component.OnResult;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_TYPE;
+import static com.reedelk.rest.internal.commons.RestMethod.POST;
+import static com.reedelk.runtime.api.commons.ScriptUtils.EVALUATE_PAYLOAD;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * A REST Listener relaying the requests it receives to the remote host through
+ * a REST Client in pass-through mode, and the remote host responses back.
+ */
+class RESTClientPassThroughTest extends RESTClientAbstractTest {
+
+    private static final int LISTENER_PORT = 8882;
+    private static final String LISTENER_URL = "http://" + HOST + ":" + LISTENER_PORT + PATH;
+
+    private RESTListener listener;
+    private RESTClient client;
+
+    @BeforeEach
+    void setUp() {
+        super.setUp();
+        client = passThroughClient();
+        listener = relayingListener(client);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.onShutdown();
+        client.dispose();
+        super.tearDown();
+    }
+
+    @Test
+    void shouldRelayStreamedRequestAndNotSuccessfulResponseAsReceived() throws IOException {
+        // Given
+        String requestBody = "{\"name\":\"John\",\"surname\":\"Doe\"}";
+        byte[] responseBody = "{\"error\":\"Service temporarily unavailable\"}".getBytes(UTF_8);
+        byte[] gzippedResponseBody = gzip(responseBody);
+
+        givenThat(post(urlEqualTo(PATH))
+                .willReturn(aResponse()
+                        .withStatus(503)
+                        .withHeader(CONTENT_TYPE, "application/json")
+                        .withHeader("Content-Encoding", "gzip")
+                        .withHeader("Set-Cookie", "session=abc; Path=/", "theme=dark; Path=/")
+                        .withHeader("Connection", "X-Hop-By-Hop")
+                        .withHeader("X-Hop-By-Hop", "not relayed")
+                        .withBody(gzippedResponseBody)));
+
+        // The request body has no content length: it is sent chunked.
+        HttpPost request = new HttpPost(LISTENER_URL);
+        request.setHeader("X-Correlation-Id", "aabbcc");
+        request.setEntity(new InputStreamEntity(
+                new ByteArrayInputStream(requestBody.getBytes(UTF_8)), -1, ContentType.APPLICATION_JSON));
+
+        // When
+        try (CloseableHttpClient httpClient = HttpClientBuilder.create().disableContentCompression().build();
+             CloseableHttpResponse response = httpClient.execute(request)) {
+
+            // Then: the response is relayed as received, without being decompressed.
+            assertThat(response.getStatusLine().getStatusCode()).isEqualTo(503);
+            assertThat(Stream.of(response.getHeaders("Set-Cookie")).map(Header::getValue))
+                    .containsExactly("session=abc; Path=/", "theme=dark; Path=/");
+            assertThat(response.getFirstHeader("Content-Encoding").getValue()).isEqualTo("gzip");
+            assertThat(response.getFirstHeader(CONTENT_TYPE).getValue()).isEqualTo("application/json");
+            assertThat(response.getFirstHeader("X-Hop-By-Hop")).isNull();
+
+            byte[] relayedBody = EntityUtils.toByteArray(response.getEntity());
+            assertThat(relayedBody).isEqualTo(gzippedResponseBody);
+            assertThat(gunzip(relayedBody)).isEqualTo(responseBody);
+        }
+
+        // Then: the streamed request body and its headers have been relayed to the remote host.
+        verify(postRequestedFor(urlEqualTo(PATH))
+                .withHeader("X-Correlation-Id", equalTo("aabbcc"))
+                .withHeader(CONTENT_TYPE, containing("application/json"))
+                .withRequestBody(equalToJson(requestBody)));
+    }
+
+    private RESTClient passThroughClient() {
+        RESTClientConfiguration configuration = new RESTClientConfiguration();
+        configuration.setHost(HOST);
+        configuration.setPort(PORT);
+        configuration.setProtocol(HttpProtocol.HTTP);
+        configuration.setId(UUID.randomUUID().toString());
+
+        RESTClient restClient = new RESTClient();
+        restClient.setConfiguration(configuration);
+        restClient.setMethod(POST);
+        restClient.setPath(PATH);
+        restClient.setBody(EVALUATE_PAYLOAD_BODY);
+        restClient.setPassThrough(true);
+        setScriptEngine(restClient);
+        setClientFactory(restClient);
+        setConverter(restClient);
+        restClient.initialize();
+        return restClient;
+    }
+
+    private RESTListener relayingListener(RESTClient restClient) {
+        RESTListenerConfiguration configuration = new RESTListenerConfiguration();
+        configuration.setHost(HOST);
+        configuration.setPort(LISTENER_PORT);
+
+        // The relayed response body is the client response payload, a stream of byte arrays.
+        DynamicByteArray responseBody = DynamicByteArray.from(EVALUATE_PAYLOAD, moduleContext);
+        Response response = new Response();
+        response.setBody(responseBody);
+        doAnswer(invocation -> invocation.getArgument(2, Message.class).content().stream())
+                .when(scriptEngine)
+                .evaluateStream(eq(responseBody), any(FlowContext.class), any(Message.class));
+
+        RESTListener restListener = new RESTListener();
+        restListener.setConfiguration(configuration);
+        restListener.setMethod(POST);
+        restListener.setPath(PATH);
+        restListener.setResponse(response);
+        // The request body is relayed as it is received, without being aggregated.
+        restListener.setRequestBody(RequestBodyMode.ZERO_COPY);
+        setField(restListener, "provider", new ServerProvider());
+        setField(restListener, "scriptEngine", scriptEngine);
+        restListener.addEventListener((message, callback) -> restClient.apply(flowContext, message, new OnResult() {
+            @Override
+            public void onResult(FlowContext context, Message outMessage) {
+                callback.onResult(context, outMessage);
+            }
+
+            @Override
+            public void onError(FlowContext context, Throwable throwable) {
+                callback.onError(context, throwable);
+            }
+        }));
+        restListener.onStart();
+        return restListener;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+
+    private static void setField(RESTListener listener, String fieldName, Object object) {
+        try {
+            Field field = listener.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(listener, object);
+        } catch (NoSuchFieldException e) {
+            fail(String.format("Could not find  field '%s'", fieldName));
+        } catch (IllegalAccessException e) {
+            fail(String.format("Could not access field '%s'", fieldName));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.reedelk.rest.component;
+
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import com.reedelk.rest.internal.commons.RestMethod;
+import com.reedelk.runtime.api.exception.ComponentConfigurationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RESTListenerHttpVersionTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "HTTP, HTTP_1_1, true",
+            "HTTPS, HTTP_1_1, true",
+            "HTTP, H2C, true",
+            "HTTPS, H2C, false",
+            "HTTP, H2, false",
+            "HTTPS, H2, true"})
+    void shouldSupportHttpVersionOnlyWithMatchingProtocol(HttpProtocol protocol, HttpProtocolVersion httpVersion, boolean expected) {
+        // Given
+        RESTListenerConfiguration configuration = configurationWith(protocol, httpVersion);
+
+        // When
+        boolean supported = RESTListener.isHttpVersionSupported(configuration);
+
+        // Then
+        assertThat(supported).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @EnumSource(HttpProtocol.class)
+    void shouldSupportDefaultHttpVersionWithAnyProtocol(HttpProtocol protocol) {
+        // Given
+        RESTListenerConfiguration configuration = configurationWith(protocol, null);
+
+        // When
+        boolean supported = RESTListener.isHttpVersionSupported(configuration);
+
+        // Then
+        assertThat(supported).isTrue();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenH2WithHttpProtocol() {
+        // Given
+        RESTListener listener = listenerWith(configurationWith(HttpProtocol.HTTP, HttpProtocolVersion.H2));
+
+        // Expect
+        ComponentConfigurationException thrown = assertThrows(ComponentConfigurationException.class, listener::onStart);
+        assertThat(thrown).hasMessageContaining("RESTListener configuration HTTP version [H2] is not supported with protocol [HTTP]");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenH2CWithHttpsProtocol() {
+        // Given
+        RESTListener listener = listenerWith(configurationWith(HttpProtocol.HTTPS, HttpProtocolVersion.H2C));
+
+        // Expect
+        ComponentConfigurationException thrown = assertThrows(ComponentConfigurationException.class, listener::onStart);
+        assertThat(thrown).hasMessageContaining("RESTListener configuration HTTP version [H2C] is not supported with protocol [HTTPS]");
+    }
+
+    private static RESTListener listenerWith(RESTListenerConfiguration configuration) {
+        RESTListener listener = new RESTListener();
+        listener.setConfiguration(configuration);
+        listener.setMethod(RestMethod.GET);
+        listener.setPath("/resource");
+        return listener;
+    }
+
+    private static RESTListenerConfiguration configurationWith(HttpProtocol protocol, HttpProtocolVersion httpVersion) {
+        RESTListenerConfiguration configuration = new RESTListenerConfiguration();
+        configuration.setProtocol(protocol);
+        configuration.setHttpVersion(httpVersion);
+        return configuration;
+    }
+}
@@ -0,0 +1,74 @@
+package com.reedelk.rest.internal.attribute;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazyMapTest {
+
+    @Test
+    void shouldNotComputeMapUntilAccessed() {
+        // Given
+        AtomicInteger invocations = new AtomicInteger();
+
+        // When
+        LazyMap<String, String> map = new LazyMap<>(() -> {
+            invocations.incrementAndGet();
+            return new HashMap<>();
+        });
+
+        // Then
+        assertThat(map.isMaterialized()).isFalse();
+        assertThat(invocations).hasValue(0);
+    }
+
+    @Test
+    void shouldComputeMapOnlyOnce() {
+        // Given
+        AtomicInteger invocations = new AtomicInteger();
+        LazyMap<String, String> map = new LazyMap<>(() -> {
+            invocations.incrementAndGet();
+            HashMap<String, String> params = new HashMap<>();
+            params.put("id", "23");
+            return params;
+        });
+
+        // When
+        String first = map.get("id");
+        String second = map.get("id");
+
+        // Then
+        assertThat(first).isEqualTo("23");
+        assertThat(second).isEqualTo("23");
+        assertThat(map).containsEntry("id", "23").hasSize(1);
+        assertThat(invocations).hasValue(1);
+    }
+
+    @Test
+    void shouldSerializeAsWrappedMap() throws Exception {
+        // Given
+        HashMap<String, String> params = new HashMap<>();
+        params.put("id", "23");
+        LazyMap<String, String> map = new LazyMap<>(() -> params);
+
+        // When
+        Object deserialized = serializeAndDeserialize(map);
+
+        // Then
+        assertThat(deserialized).isInstanceOf(HashMap.class).isEqualTo(params);
+    }
+
+    private Object serializeAndDeserialize(Object object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return input.readObject();
+        }
+    }
+}
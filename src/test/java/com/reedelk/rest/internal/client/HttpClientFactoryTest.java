@@ -0,0 +1,95 @@
+package com.reedelk.rest.internal.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientFactoryTest {
+
+    private HttpClientFactory factory;
+    private WireMockServer server;
+
+    @BeforeEach
+    void setUp() {
+        factory = new HttpClientFactory();
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+        server.stop();
+    }
+
+    @Test
+    void shouldReturnSameBaseUrlClientToAllRestClients() {
+        // When
+        HttpClient first = factory.create();
+        HttpClient second = factory.create();
+
+        // Then
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    void shouldNotCloseBaseUrlClientWhileStillReferenced() throws Exception {
+        // Given
+        server.stubFor(get(urlEqualTo("/resource")).willReturn(aResponse().withStatus(200)));
+        HttpClient first = factory.create();
+        HttpClient second = factory.create();
+
+        // When
+        factory.release(null, null, first);
+
+        // Then
+        assertThat(send(second).getStatusLine().getStatusCode()).isEqualTo(200);
+        assertThat(factory.create()).isSameAs(second);
+    }
+
+    @Test
+    void shouldCloseBaseUrlClientWhenReleasedByAllRestClients() {
+        // Given
+        HttpClient first = factory.create();
+        HttpClient second = factory.create();
+
+        // When
+        factory.release(null, null, first);
+        factory.release(null, null, second);
+
+        // Then
+        HttpClient created = factory.create();
+        assertThat(created).isNotSameAs(first);
+    }
+
+    @Test
+    void shouldNotSendCookiesSetByServerWithBaseUrlClient() throws Exception {
+        // Given
+        server.stubFor(get(urlEqualTo("/resource"))
+                .willReturn(aResponse().withStatus(200).withHeader("Set-Cookie", "session=abc; Path=/")));
+        HttpClient client = factory.create();
+
+        // When
+        send(client);
+        send(client);
+
+        // Then
+        server.verify(2, getRequestedFor(urlEqualTo("/resource")).withHeader("Cookie", absent()));
+    }
+
+    private HttpResponse send(HttpClient client) throws Exception {
+        URI uri = URI.create("http://localhost:" + server.port() + "/resource");
+        return client.execute(HttpAsyncMethods.createGet(uri), new BasicAsyncResponseConsumer(), null).get(5, SECONDS);
+    }
+}
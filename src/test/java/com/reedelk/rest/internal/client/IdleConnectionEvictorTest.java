@@ -0,0 +1,65 @@
+package com.reedelk.rest.internal.client;
+
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdleConnectionEvictorTest {
+
+    @Mock
+    private NHttpClientConnectionManager pool;
+
+    private final IdleConnectionEvictor evictor = new IdleConnectionEvictor();
+
+    @AfterEach
+    void tearDown() {
+        evictor.shutdown();
+    }
+
+    @Test
+    void shouldCloseExpiredAndIdleConnections() {
+        // Given
+        evictor.register(pool, 30000);
+
+        // When
+        evictor.evict();
+
+        // Then
+        verify(pool).closeExpiredConnections();
+        verify(pool).closeIdleConnections(30000, MILLISECONDS);
+    }
+
+    @Test
+    void shouldCloseIdleConnectionsWithUpdatedIdleTimeout() {
+        // Given
+        evictor.register(pool, 30000);
+        evictor.register(pool, 45000);
+
+        // When
+        evictor.evict();
+
+        // Then
+        verify(pool).closeIdleConnections(45000, MILLISECONDS);
+        verify(pool, never()).closeIdleConnections(30000, MILLISECONDS);
+    }
+
+    @Test
+    void shouldNotEvictUnregisteredPool() {
+        // Given
+        evictor.register(pool, 30000);
+        evictor.unregister(pool);
+
+        // When
+        evictor.evict();
+
+        // Then
+        verifyNoInteractions(pool);
+    }
+}
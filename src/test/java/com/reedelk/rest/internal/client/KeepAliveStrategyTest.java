@@ -0,0 +1,70 @@
+package com.reedelk.rest.internal.client;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeepAliveStrategyTest {
+
+    @Test
+    void shouldUseServerKeepAliveTimeout() {
+        // Given
+        KeepAliveStrategy strategy = new KeepAliveStrategy(null);
+        HttpResponse response = responseWithKeepAlive("timeout=5, max=100");
+
+        // When
+        long duration = strategy.getKeepAliveDuration(response, new BasicHttpContext());
+
+        // Then
+        assertThat(duration).isEqualTo(5000);
+    }
+
+    @Test
+    void shouldCapServerKeepAliveTimeoutWithIdleTimeout() {
+        // Given
+        KeepAliveStrategy strategy = new KeepAliveStrategy(2000);
+        HttpResponse response = responseWithKeepAlive("timeout=120");
+
+        // When
+        long duration = strategy.getKeepAliveDuration(response, new BasicHttpContext());
+
+        // Then
+        assertThat(duration).isEqualTo(2000);
+    }
+
+    @Test
+    void shouldUseIdleTimeoutWhenServerDoesNotSendKeepAlive() {
+        // Given
+        KeepAliveStrategy strategy = new KeepAliveStrategy(30000);
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+
+        // When
+        long duration = strategy.getKeepAliveDuration(response, new BasicHttpContext());
+
+        // Then
+        assertThat(duration).isEqualTo(30000);
+    }
+
+    @Test
+    void shouldKeepAliveIndefinitelyWhenNoTimeoutIsDefined() {
+        // Given
+        KeepAliveStrategy strategy = new KeepAliveStrategy(null);
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+
+        // When
+        long duration = strategy.getKeepAliveDuration(response, new BasicHttpContext());
+
+        // Then
+        assertThat(duration).isNegative();
+    }
+
+    private static HttpResponse responseWithKeepAlive(String keepAlive) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader("Keep-Alive", keepAlive);
+        return response;
+    }
+}
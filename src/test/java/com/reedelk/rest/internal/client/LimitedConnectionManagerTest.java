@@ -0,0 +1,137 @@
+package com.reedelk.rest.internal.client;
+
+import org.apache.http.HttpHost;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LimitedConnectionManagerTest {
+
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("api.example.com", 443, "https"));
+
+    @Mock
+    private NHttpClientConnectionManager pool;
+
+    // The lease requests handed over to the shared pool.
+    private final List<BasicFuture<NHttpClientConnection>> pooled = new ArrayList<>();
+
+    private LimitedConnectionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new LimitedConnectionManager(pool, 1);
+        lenient().doAnswer(invocation -> {
+            BasicFuture<NHttpClientConnection> future = new BasicFuture<>(invocation.getArgument(5));
+            pooled.add(future);
+            return future;
+        }).when(pool).requestConnection(any(), any(), anyLong(), anyLong(), any(TimeUnit.class), any());
+    }
+
+    @Test
+    void shouldWaitForLeasedConnectionReleaseWhenMaxConnectionsAreLeased() throws Exception {
+        // Given
+        NHttpClientConnection first = mock(NHttpClientConnection.class);
+        NHttpClientConnection second = mock(NHttpClientConnection.class);
+        Future<NHttpClientConnection> firstLease = request(0);
+        pooled.get(0).completed(first);
+
+        // When
+        Future<NHttpClientConnection> secondLease = request(0);
+
+        // Then
+        assertThat(pooled).hasSize(1);
+        assertThat(secondLease.isDone()).isFalse();
+
+        // When
+        manager.releaseConnection(firstLease.get(), null, 0, MILLISECONDS);
+        pooled.get(1).completed(second);
+
+        // Then
+        verify(pool).releaseConnection(first, null, 0, MILLISECONDS);
+        assertThat(secondLease.get()).isSameAs(second);
+        assertThat(manager.leasedConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReleaseConnectionSlotWhenLeaseFails() {
+        // Given
+        request(0);
+
+        // When
+        pooled.get(0).failed(new TimeoutException("Connection lease request time out"));
+
+        // Then
+        assertThat(manager.leasedConnections()).isZero();
+    }
+
+    @Test
+    void shouldNotHandOverWaitingLeaseWhenCancelled() {
+        // Given
+        request(0);
+        Future<NHttpClientConnection> waitingLease = request(0);
+
+        // When
+        waitingLease.cancel(true);
+        pooled.get(0).failed(new TimeoutException("Connection lease request time out"));
+
+        // Then
+        assertThat(pooled).hasSize(1);
+        assertThat(manager.leasedConnections()).isZero();
+    }
+
+    @Test
+    void shouldCancelPooledLeaseWhenLeaseIsCancelled() {
+        // Given
+        Future<NHttpClientConnection> lease = request(0);
+
+        // When
+        lease.cancel(true);
+
+        // Then
+        assertThat(pooled.get(0).isCancelled()).isTrue();
+        assertThat(manager.leasedConnections()).isZero();
+    }
+
+    @Test
+    void shouldFailWaitingLeaseWhenLeaseTimeoutElapsedWhileWaiting() throws Exception {
+        // Given
+        NHttpClientConnection connection = mock(NHttpClientConnection.class);
+        Future<NHttpClientConnection> firstLease = request(0);
+        pooled.get(0).completed(connection);
+        Future<NHttpClientConnection> waitingLease = request(10);
+        Thread.sleep(50);
+
+        // When
+        manager.releaseConnection(firstLease.get(), null, 0, MILLISECONDS);
+
+        // Then
+        ExecutionException thrown = assertThrows(ExecutionException.class, waitingLease::get);
+        assertThat(thrown).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(pooled).hasSize(1);
+        assertThat(manager.leasedConnections()).isZero();
+    }
+
+    private Future<NHttpClientConnection> request(long leaseTimeout) {
+        return manager.requestConnection(ROUTE, null, 0, leaseTimeout, MILLISECONDS, null);
+    }
+}
@@ -0,0 +1,99 @@
+package com.reedelk.rest.internal.client;
+
+import com.reedelk.rest.internal.server.ServerProvider;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListenerEventLoopsTest {
+
+    @Mock
+    private ServerProvider serverProvider;
+    @Mock
+    private EventLoopGroup workerGroup;
+
+    private ListenerEventLoops eventLoops;
+
+    @BeforeEach
+    void setUp() {
+        eventLoops = new ListenerEventLoops("aabbcc", serverProvider);
+    }
+
+    @Test
+    void shouldRetainWorkerEventLoopsOnFirstRequestOnly() {
+        // Given
+        doReturn(Optional.of(workerGroup)).when(serverProvider).retainWorkerEventLoops();
+
+        // When
+        EventLoopGroup first = eventLoops.get();
+        EventLoopGroup second = eventLoops.get();
+
+        // Then
+        assertThat(first).isSameAs(workerGroup);
+        assertThat(second).isSameAs(workerGroup);
+        verify(serverProvider, times(1)).retainWorkerEventLoops();
+    }
+
+    @Test
+    void shouldNotRetainWorkerEventLoopsBeforeFirstRequest() {
+        // When
+        eventLoops.release();
+
+        // Then
+        verifyNoInteractions(serverProvider);
+    }
+
+    @Test
+    void shouldFallbackToOwnEventLoopsWhenNoListenerIsRunning() {
+        // Given
+        doReturn(Optional.empty()).when(serverProvider).retainWorkerEventLoops();
+
+        // When
+        EventLoopGroup first = eventLoops.get();
+        EventLoopGroup second = eventLoops.get();
+
+        // Then
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        verify(serverProvider, times(1)).retainWorkerEventLoops();
+    }
+
+    @Test
+    void shouldReleaseRetainedWorkerEventLoops() {
+        // Given
+        doReturn(Optional.of(workerGroup)).when(serverProvider).retainWorkerEventLoops();
+        eventLoops.get();
+
+        // When
+        eventLoops.release();
+        eventLoops.release();
+
+        // Then
+        verify(serverProvider, times(1)).releaseWorkerEventLoops(workerGroup);
+        assertThat(eventLoops.get()).isNull();
+        verify(serverProvider, times(1)).retainWorkerEventLoops();
+    }
+
+    @Test
+    void shouldNotReleaseWhenNoWorkerEventLoopsWereRetained() {
+        // Given
+        doReturn(Optional.empty()).when(serverProvider).retainWorkerEventLoops();
+        eventLoops.get();
+
+        // When
+        eventLoops.release();
+
+        // Then
+        verify(serverProvider, never()).releaseWorkerEventLoops(any());
+    }
+}
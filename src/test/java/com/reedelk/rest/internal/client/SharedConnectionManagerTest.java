@@ -0,0 +1,159 @@
+package com.reedelk.rest.internal.client;
+
+import com.reedelk.rest.component.RESTClientConfiguration;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.runtime.api.exception.ComponentConfigurationException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SharedConnectionManagerTest {
+
+    private SharedConnectionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new SharedConnectionManager(null, null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    void shouldSumMaxConnectionsOfConfigurationsWithSameRoute() {
+        // Given
+        RESTClientConfiguration first = configuration("first", "api.example.com", 443, 5);
+        RESTClientConfiguration second = configuration("second", "api.example.com", 443, 7);
+        RESTClientConfiguration third = configuration("third", "other.example.com", 443, 3);
+
+        // When
+        manager.register(first);
+        manager.register(second);
+        manager.register(third);
+        PoolingNHttpClientConnectionManager pool = (PoolingNHttpClientConnectionManager) manager.connectionManager();
+
+        // Then
+        assertThat(pool.getMaxPerRoute(SharedConnectionManager.routeOf(first))).isEqualTo(12);
+        assertThat(pool.getMaxPerRoute(SharedConnectionManager.routeOf(third))).isEqualTo(3);
+        assertThat(pool.getMaxTotal()).isEqualTo(15);
+    }
+
+    @Test
+    void shouldResetRouteLimitWhenConfigurationIsUnregistered() {
+        // Given
+        RESTClientConfiguration first = configuration("first", "api.example.com", 443, 5);
+        RESTClientConfiguration second = configuration("second", "api.example.com", 443, 7);
+        manager.register(first);
+        manager.register(second);
+        PoolingNHttpClientConnectionManager pool = (PoolingNHttpClientConnectionManager) manager.connectionManager();
+        HttpRoute route = SharedConnectionManager.routeOf(first);
+
+        // When
+        boolean firstUnregisteredIsLast = manager.unregister(first);
+
+        // Then
+        assertThat(firstUnregisteredIsLast).isFalse();
+        assertThat(pool.getMaxPerRoute(route)).isEqualTo(7);
+
+        // When
+        boolean secondUnregisteredIsLast = manager.unregister(second);
+
+        // Then
+        assertThat(secondUnregisteredIsLast).isTrue();
+        assertThat(pool.getMaxPerRoute(route)).isEqualTo(HttpClientConnectionManagerFactory.DEFAULT_CONNECTIONS_CLIENT);
+    }
+
+    @Test
+    void shouldLimitConnectionsOfEachConfigurationToItsMaxConnections() {
+        // Given
+        RESTClientConfiguration first = configuration("first", "api.example.com", 443, 5);
+        RESTClientConfiguration second = configuration("second", "api.example.com", 443, 7);
+
+        // When
+        NHttpClientConnectionManager firstManager = manager.register(first);
+        NHttpClientConnectionManager secondManager = manager.register(second);
+
+        // Then
+        assertThat(firstManager).isNotSameAs(secondManager);
+        assertThat(((LimitedConnectionManager) firstManager).maxConnections()).isEqualTo(5);
+        assertThat(((LimitedConnectionManager) secondManager).maxConnections()).isEqualTo(7);
+        assertThat(manager.register(first)).isSameAs(firstManager);
+    }
+
+    @Test
+    void shouldRejectConfigurationWithDifferentConnectionTimeToLive() {
+        // Given
+        SharedConnectionManager timeToLiveManager = new SharedConnectionManager(30000, null, null);
+        RESTClientConfiguration configuration = configuration("first", "api.example.com", 443, 5);
+        configuration.setConnectionTimeToLive(60000);
+
+        // When
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> timeToLiveManager.register(configuration));
+
+        // Then
+        assertThat(thrown).hasMessage("RESTClient configuration [first] cannot share connections: " +
+                "its connectionTimeToLive [60000] differs from [30000] of the shared connections");
+        timeToLiveManager.close();
+    }
+
+    @Test
+    void shouldRejectConfigurationWithDifferentWatchdogThreshold() {
+        // Given
+        RESTClientConfiguration configuration = configuration("first", "api.example.com", 443, 5);
+        configuration.setWatchdogThreshold(500);
+
+        // When
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> manager.register(configuration));
+
+        // Then
+        assertThat(thrown).hasMessage("RESTClient configuration [first] cannot share connections: " +
+                "its watchdogThreshold [500] differs from [null] of the shared connections");
+    }
+
+    @Test
+    void shouldAcceptNonPositiveConnectionTimeToLiveAsNeverExpiring() {
+        // Given
+        RESTClientConfiguration configuration = configuration("first", "api.example.com", 443, 5);
+        configuration.setConnectionTimeToLive(0);
+
+        // When
+        NHttpClientConnectionManager connectionManager = manager.register(configuration);
+
+        // Then
+        assertThat(connectionManager).isNotNull();
+    }
+
+    @Test
+    void shouldNotShareConnectionsWhenTrustingAllCertificates() {
+        // Given
+        RESTClientConfiguration configuration = configuration("first", "api.example.com", 443, 5);
+        configuration.setTrustCertificates(true);
+
+        // When
+        boolean shareable = SharedConnectionManager.isShareable(configuration);
+
+        // Then
+        assertThat(shareable).isFalse();
+    }
+
+    private static RESTClientConfiguration configuration(String id, String host, int port, int maxPoolConnections) {
+        RESTClientConfiguration configuration = new RESTClientConfiguration();
+        configuration.setId(id);
+        configuration.setHost(host);
+        configuration.setPort(port);
+        configuration.setProtocol(HttpProtocol.HTTPS);
+        configuration.setMaxPoolConnections(maxPoolConnections);
+        configuration.setShareConnections(true);
+        return configuration;
+    }
+}
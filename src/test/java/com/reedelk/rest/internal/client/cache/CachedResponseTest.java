@@ -0,0 +1,216 @@
+package com.reedelk.rest.internal.client.cache;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedResponseTest {
+
+    // Whole seconds, since HTTP dates have a precision of one second.
+    private static final long REQUEST_TIME = 1_600_000_000_000L;
+    private static final long RESPONSE_TIME = REQUEST_TIME + 2000;
+
+    @Test
+    void shouldComputeAgeFromApparentAgeWhenDateIsInThePast() {
+        // Given
+        HttpResponse response = response("max-age=60");
+        response.addHeader("Date", DateUtils.formatDate(new Date(RESPONSE_TIME - 10000)));
+        response.addHeader("Age", "5");
+        CachedResponse cached = cachedResponse(response);
+
+        // When
+        HttpResponse served = cached.toHttpResponse(RESPONSE_TIME + 3000);
+
+        // Then: apparent age 10s is greater than the corrected age value 5s + 2s.
+        assertThat(served.getFirstHeader("Age").getValue()).isEqualTo("13");
+    }
+
+    @Test
+    void shouldComputeAgeFromCorrectedAgeValueWhenAgeHeaderIsGreater() {
+        // Given
+        HttpResponse response = response("max-age=60");
+        response.addHeader("Date", DateUtils.formatDate(new Date(RESPONSE_TIME)));
+        response.addHeader("Age", "20");
+        CachedResponse cached = cachedResponse(response);
+
+        // When
+        HttpResponse served = cached.toHttpResponse(RESPONSE_TIME + 3000);
+
+        // Then: age value 20s, response delay 2s and resident time 3s.
+        assertThat(served.getFirstHeader("Age").getValue()).isEqualTo("25");
+        assertThat(served.getHeaders("Age")).hasSize(1);
+    }
+
+    @Test
+    void shouldBeFreshUntilMaxAgeIsReached() {
+        // Given
+        CachedResponse cached = cachedResponse(response("max-age=10"));
+
+        // Expect: the initial age is the response delay of 2s.
+        assertThat(cached.isFresh(RESPONSE_TIME + 7999)).isTrue();
+        assertThat(cached.isFresh(RESPONSE_TIME + 8000)).isFalse();
+    }
+
+    @Test
+    void shouldUseExpiresRelativeToDateWhenMaxAgeIsMissing() {
+        // Given
+        HttpResponse response = response(null);
+        response.addHeader("Date", DateUtils.formatDate(new Date(RESPONSE_TIME)));
+        response.addHeader("Expires", DateUtils.formatDate(new Date(RESPONSE_TIME + 60000)));
+        CachedResponse cached = cachedResponse(response);
+
+        // Expect
+        assertThat(cached.isFresh(RESPONSE_TIME + 50000)).isTrue();
+        assertThat(cached.isFresh(RESPONSE_TIME + 60000)).isFalse();
+    }
+
+    @Test
+    void shouldBeStaleWhenExpiresIsInvalid() {
+        // Given
+        HttpResponse response = response(null);
+        response.addHeader("Expires", "0");
+        CachedResponse cached = cachedResponse(response);
+
+        // Expect
+        assertThat(cached.isFresh(RESPONSE_TIME)).isFalse();
+    }
+
+    @Test
+    void shouldPreferSMaxAgeOverMaxAge() {
+        // Given
+        CachedResponse cached = cachedResponse(response("max-age=60, s-maxage=10"));
+
+        // Expect
+        assertThat(cached.isFresh(RESPONSE_TIME + 20000)).isFalse();
+    }
+
+    @Test
+    void shouldAllowStaleResponseWithinStaleWhileRevalidateWindow() {
+        // Given
+        CachedResponse cached = cachedResponse(response("max-age=10, stale-while-revalidate=30"));
+
+        // Expect: the response is stale after 8s of resident time.
+        assertThat(cached.isFresh(RESPONSE_TIME + 20000)).isFalse();
+        assertThat(cached.isStaleWhileRevalidate(RESPONSE_TIME + 20000)).isTrue();
+        assertThat(cached.isStaleWhileRevalidate(RESPONSE_TIME + 38000)).isTrue();
+        assertThat(cached.isStaleWhileRevalidate(RESPONSE_TIME + 38001)).isFalse();
+    }
+
+    @Test
+    void shouldNotAllowStaleResponseWhenMustRevalidate() {
+        // Given
+        CachedResponse cached = cachedResponse(response("max-age=10, must-revalidate, stale-while-revalidate=30"));
+
+        // Expect
+        assertThat(cached.isStaleWhileRevalidate(RESPONSE_TIME + 20000)).isFalse();
+    }
+
+    @Test
+    void shouldOnlyShareWithOtherAuthorizationsWhenPublicOrSMaxAge() {
+        // Expect
+        assertThat(cachedResponse(response("max-age=60")).isAuthorizationShared()).isFalse();
+        assertThat(cachedResponse(response("public, max-age=60")).isAuthorizationShared()).isTrue();
+        assertThat(cachedResponse(response("s-maxage=60")).isAuthorizationShared()).isTrue();
+    }
+
+    @Test
+    void shouldMatchRequestWithSameVaryHeaderValues() {
+        // Given
+        HttpResponse response = response("max-age=60");
+        response.addHeader("Vary", "Accept-Language");
+        HttpGet request = new HttpGet("http://localhost");
+        request.addHeader("Accept-Language", "en");
+        CachedResponse cached = CachedResponse.of(request, response, new byte[0], REQUEST_TIME, RESPONSE_TIME);
+
+        HttpGet sameLanguage = new HttpGet("http://localhost");
+        sameLanguage.addHeader("accept-language", "en");
+        HttpGet otherLanguage = new HttpGet("http://localhost");
+        otherLanguage.addHeader("Accept-Language", "it");
+
+        // Expect
+        assertThat(cached.matches(sameLanguage)).isTrue();
+        assertThat(cached.matches(otherLanguage)).isFalse();
+        assertThat(cached.matches(new HttpGet("http://localhost"))).isFalse();
+    }
+
+    @Test
+    void shouldMergeHeadersOfNotModifiedResponse() throws IOException {
+        // Given
+        HttpResponse response = response("max-age=0");
+        response.addHeader("ETag", "\"v1\"");
+        CachedResponse cached = cachedResponse(response);
+
+        HttpResponse notModified = new BasicHttpResponse(HttpVersion.HTTP_1_1, 304, "Not Modified");
+        notModified.addHeader("Cache-Control", "max-age=60");
+        notModified.addHeader("ETag", "\"v2\"");
+        notModified.addHeader("Content-Length", "0");
+
+        // When
+        CachedResponse revalidated = cached.revalidated(notModified, RESPONSE_TIME + 10000, RESPONSE_TIME + 10000);
+
+        // Then
+        assertThat(revalidated.etag()).isEqualTo("\"v2\"");
+        assertThat(revalidated.isFresh(RESPONSE_TIME + 20000)).isTrue();
+        HttpResponse served = revalidated.toHttpResponse(RESPONSE_TIME + 10000);
+        assertThat(served.getStatusLine().getStatusCode()).isEqualTo(200);
+        assertThat(served.getFirstHeader("Content-Type").getValue()).isEqualTo("text/plain");
+        assertThat(served.getFirstHeader("Content-Length")).isNull();
+        assertThat(EntityUtils.toString(served.getEntity())).isEqualTo("body");
+    }
+
+    @Test
+    void shouldWriteAndReadSerializedResponse() throws IOException {
+        // Given
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 404, null);
+        response.addHeader("Cache-Control", "max-age=10");
+        response.addHeader("Content-Type", "text/plain");
+        response.addHeader("Vary", "Accept-Language");
+        response.addHeader("Set-Cookie", "a=1");
+        response.addHeader("Set-Cookie", "b=2");
+        response.addHeader("X-Empty", null);
+        HttpGet request = new HttpGet("http://localhost");
+        request.addHeader("Accept-Language", "è");
+        CachedResponse cached = CachedResponse.of(request, response, "body".getBytes(), REQUEST_TIME, RESPONSE_TIME);
+
+        ByteBuffer buffer = ByteBuffer.allocate(cached.serializedSize());
+
+        // When
+        cached.writeTo(buffer);
+        buffer.flip();
+        CachedResponse read = CachedResponse.readFrom(buffer);
+
+        // Then
+        assertThat(buffer.hasRemaining()).isFalse();
+        assertThat(read.matches(request)).isTrue();
+        assertThat(read.isFresh(RESPONSE_TIME + 7999)).isTrue();
+        assertThat(read.isFresh(RESPONSE_TIME + 8000)).isFalse();
+        HttpResponse served = read.toHttpResponse(RESPONSE_TIME);
+        assertThat(served.getStatusLine().getStatusCode()).isEqualTo(404);
+        assertThat(served.getStatusLine().getReasonPhrase()).isEmpty();
+        assertThat(served.getHeaders("Set-Cookie")).extracting("value").containsExactly("a=1", "b=2");
+        assertThat(served.getFirstHeader("X-Empty").getValue()).isEmpty();
+        assertThat(served.getFirstHeader("Age").getValue()).isEqualTo("2");
+        assertThat(EntityUtils.toString(served.getEntity())).isEqualTo("body");
+    }
+
+    private static HttpResponse response(String cacheControl) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (cacheControl != null) response.addHeader("Cache-Control", cacheControl);
+        response.addHeader("Content-Type", "text/plain");
+        return response;
+    }
+
+    private static CachedResponse cachedResponse(HttpResponse response) {
+        return CachedResponse.of(new HttpGet("http://localhost"), response, "body".getBytes(), REQUEST_TIME, RESPONSE_TIME);
+    }
+}
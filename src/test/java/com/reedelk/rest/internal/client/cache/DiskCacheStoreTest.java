@@ -0,0 +1,152 @@
+package com.reedelk.rest.internal.client.cache;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiskCacheStoreTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("disk-cache-store-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void shouldReadStoredResponse() throws IOException {
+        // Given
+        DiskCacheStore store = new DiskCacheStore(directory, 1024 * 1024);
+        store.put("http://localhost/first", cachedResponse("first"));
+
+        // When
+        CachedResponse stored = store.get("http://localhost/first");
+
+        // Then
+        assertThat(stored).isNotNull();
+        HttpResponse response = stored.toHttpResponse(System.currentTimeMillis());
+        assertThat(response.getFirstHeader("Content-Type").getValue()).isEqualTo("text/plain");
+        assertThat(EntityUtils.toString(response.getEntity())).isEqualTo("first");
+    }
+
+    @Test
+    void shouldReplaceStoredResponseAndDeleteItsFile() throws IOException {
+        // Given
+        DiskCacheStore store = new DiskCacheStore(directory, 1024 * 1024);
+        store.put("http://localhost/first", cachedResponse("first"));
+
+        // When
+        store.put("http://localhost/first", cachedResponse("replaced"));
+
+        // Then
+        CachedResponse stored = store.get("http://localhost/first");
+        assertThat(EntityUtils.toString(stored.toHttpResponse(System.currentTimeMillis()).getEntity())).isEqualTo("replaced");
+        assertThat(filesCount()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(cachedResponse("replaced").serializedSize());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedResponseWhenFull() throws IOException {
+        // Given
+        int entrySize = cachedResponse("first").serializedSize();
+        DiskCacheStore store = new DiskCacheStore(directory, entrySize * 2);
+        store.put("http://localhost/first", cachedResponse("first"));
+        store.put("http://localhost/secnd", cachedResponse("secnd"));
+        store.get("http://localhost/first");
+
+        // When
+        store.put("http://localhost/third", cachedResponse("third"));
+
+        // Then
+        assertThat(store.get("http://localhost/first")).isNotNull();
+        assertThat(store.get("http://localhost/secnd")).isNull();
+        assertThat(store.get("http://localhost/third")).isNotNull();
+        assertThat(filesCount()).isEqualTo(2);
+        assertThat(store.size()).isEqualTo(entrySize * 2);
+    }
+
+    @Test
+    void shouldNotStoreResponseLargerThanMaxSize() throws IOException {
+        // Given
+        DiskCacheStore store = new DiskCacheStore(directory, 10);
+
+        // When
+        store.put("http://localhost/first", cachedResponse("first"));
+
+        // Then
+        assertThat(store.get("http://localhost/first")).isNull();
+        assertThat(filesCount()).isZero();
+    }
+
+    @Test
+    void shouldReturnNullAndForgetResponseWhenFileIsMissing() throws IOException {
+        // Given
+        DiskCacheStore store = new DiskCacheStore(directory, 1024 * 1024);
+        store.put("http://localhost/first", cachedResponse("first"));
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+
+        // When
+        CachedResponse stored = store.get("http://localhost/first");
+
+        // Then
+        assertThat(stored).isNull();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void shouldDeleteFilesWhenRemovedAndClosed() throws IOException {
+        // Given
+        DiskCacheStore store = new DiskCacheStore(directory, 1024 * 1024);
+        store.put("http://localhost/first", cachedResponse("first"));
+        store.put("http://localhost/second", cachedResponse("second"));
+
+        // When
+        store.remove("http://localhost/first");
+
+        // Then
+        assertThat(filesCount()).isEqualTo(1);
+
+        // When
+        store.close();
+        store.put("http://localhost/third", cachedResponse("third"));
+
+        // Then
+        assertThat(filesCount()).isZero();
+        assertThat(store.size()).isZero();
+    }
+
+    private long filesCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static CachedResponse cachedResponse(String body) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader("Cache-Control", "max-age=60");
+        response.addHeader("Content-Type", "text/plain");
+        return CachedResponse.of(new HttpGet("http://localhost"), response, body.getBytes(), 1000L, 2000L);
+    }
+}
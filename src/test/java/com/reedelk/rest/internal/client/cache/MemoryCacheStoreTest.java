@@ -0,0 +1,86 @@
+package com.reedelk.rest.internal.client.cache;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemoryCacheStoreTest {
+
+    private Path directory;
+    private MemoryCacheStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("memory-cache-store-test");
+        store = new MemoryCacheStore(1, new DiskCacheStore(directory, 1024 * 1024));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void shouldMoveEvictedResponseToDiskAndBackToMemory() throws IOException {
+        // Given
+        store.put("http://localhost/first", cachedResponse("first"));
+        store.put("http://localhost/second", cachedResponse("second"));
+
+        // When
+        CachedResponse first = store.get("http://localhost/first");
+
+        // Then
+        assertThat(first).isNotNull();
+        HttpResponse response = first.toHttpResponse(System.currentTimeMillis());
+        assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200);
+        assertThat(response.getFirstHeader("Cache-Control").getValue()).isEqualTo("max-age=60");
+        assertThat(EntityUtils.toString(response.getEntity())).isEqualTo("first");
+        assertThat(store.get("http://localhost/second")).isNotNull();
+    }
+
+    @Test
+    void shouldNotReturnResponseRemovedWhileMovedToDisk() {
+        // Given
+        store.put("http://localhost/first", cachedResponse("first"));
+        store.put("http://localhost/second", cachedResponse("second"));
+
+        // When
+        store.remove("http://localhost/first");
+
+        // Then
+        assertThat(store.get("http://localhost/first")).isNull();
+    }
+
+    @Test
+    void shouldDeleteDiskFilesWhenClosed() throws IOException {
+        // Given
+        store.put("http://localhost/first", cachedResponse("first"));
+        store.put("http://localhost/second", cachedResponse("second"));
+
+        // When
+        store.close();
+
+        // Then
+        assertThat(Files.list(directory)).isEmpty();
+    }
+
+    private static CachedResponse cachedResponse(String body) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader("Cache-Control", "max-age=60");
+        response.addHeader("Content-Type", "text/plain");
+        long now = System.currentTimeMillis();
+        return CachedResponse.of(new HttpGet("http://localhost"), response, body.getBytes(), now, now);
+    }
+}
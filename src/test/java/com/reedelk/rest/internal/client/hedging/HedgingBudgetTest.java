@@ -0,0 +1,50 @@
+package com.reedelk.rest.internal.client.hedging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingBudgetTest {
+
+    @Test
+    void shouldAllowOneHedgeEveryTenRequestsWhenBudgetIsTenPercent() {
+        // Given
+        HedgingBudget budget = new HedgingBudget(10);
+
+        // When
+        for (int i = 0; i < 9; i++) budget.onRequest();
+        boolean beforeTenRequests = budget.tryAcquire();
+        budget.onRequest();
+        boolean afterTenRequests = budget.tryAcquire();
+        boolean afterHedge = budget.tryAcquire();
+
+        // Then
+        assertThat(beforeTenRequests).isFalse();
+        assertThat(afterTenRequests).isTrue();
+        assertThat(afterHedge).isFalse();
+    }
+
+    @Test
+    void shouldNotAccumulateTokensBeyondMaximum() {
+        // Given
+        HedgingBudget budget = new HedgingBudget(100);
+        for (int i = 0; i < 1000; i++) budget.onRequest();
+
+        // When
+        int hedges = 0;
+        while (budget.tryAcquire()) hedges++;
+
+        // Then
+        assertThat(hedges).isEqualTo(10);
+    }
+
+    @Test
+    void shouldNeverAllowHedgeWhenBudgetIsZero() {
+        // Given
+        HedgingBudget budget = new HedgingBudget(0);
+        for (int i = 0; i < 100; i++) budget.onRequest();
+
+        // Expect
+        assertThat(budget.tryAcquire()).isFalse();
+    }
+}
@@ -0,0 +1,78 @@
+package com.reedelk.rest.internal.client.hedging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyPercentileTest {
+
+    @Test
+    void shouldNotHaveValueUntilEnoughLatenciesHaveBeenRecorded() {
+        // Given
+        LatencyPercentile percentile = new LatencyPercentile(95);
+
+        // When
+        for (int i = 1; i < 20; i++) percentile.record(i);
+
+        // Then
+        assertThat(percentile.value()).isEqualTo(-1);
+
+        // When
+        percentile.record(20);
+
+        // Then
+        assertThat(percentile.value()).isEqualTo(19);
+    }
+
+    @Test
+    void shouldComputePercentileOfRecordedLatencies() {
+        // Given
+        LatencyPercentile p50 = new LatencyPercentile(50);
+        LatencyPercentile p90 = new LatencyPercentile(90);
+        LatencyPercentile p100 = new LatencyPercentile(100);
+
+        // When: the latencies are recorded in reverse order, the last one triggers a recomputation.
+        for (int i = 120; i > 0; i--) {
+            p50.record(i);
+            p90.record(i);
+            p100.record(i);
+        }
+
+        // Then
+        assertThat(p50.value()).isEqualTo(60);
+        assertThat(p90.value()).isEqualTo(108);
+        assertThat(p100.value()).isEqualTo(120);
+    }
+
+    @Test
+    void shouldOnlyRecomputePercentileEveryFewLatencies() {
+        // Given
+        LatencyPercentile percentile = new LatencyPercentile(100);
+        for (int i = 0; i < 20; i++) percentile.record(10);
+
+        // When
+        for (int i = 0; i < 49; i++) percentile.record(1000);
+
+        // Then
+        assertThat(percentile.value()).isEqualTo(10);
+
+        // When
+        percentile.record(1000);
+
+        // Then
+        assertThat(percentile.value()).isEqualTo(1000);
+    }
+
+    @Test
+    void shouldOnlyKeepMostRecentLatencies() {
+        // Given
+        LatencyPercentile percentile = new LatencyPercentile(50);
+        for (int i = 0; i < 1000; i++) percentile.record(500);
+
+        // When
+        for (int i = 0; i < 1000; i++) percentile.record(5);
+
+        // Then
+        assertThat(percentile.value()).isEqualTo(5);
+    }
+}
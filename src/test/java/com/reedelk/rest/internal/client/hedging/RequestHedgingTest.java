@@ -0,0 +1,173 @@
+package com.reedelk.rest.internal.client.hedging;
+
+import com.reedelk.rest.internal.client.response.ResponseStreamEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RequestHedgingTest {
+
+    private static final int DELAY = 10;
+
+    @Mock
+    private FutureCallback<HttpResponse> callback;
+
+    private final List<FutureCallback<HttpResponse>> attemptCallbacks = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<HttpResponse>> attemptFutures = new CopyOnWriteArrayList<>();
+
+    @Test
+    void shouldCancelFirstAttemptWhenSecondAttemptCompletesFirst() throws InterruptedException {
+        // Given
+        RequestHedging hedging = new RequestHedging(DELAY, 100, null);
+        HttpResponse response = response(200);
+
+        // When
+        hedging.execute(callback, attempt(2, response));
+
+        // Then
+        awaitAttempts(2);
+        verify(callback).completed(response);
+        assertThat(attemptFutures.get(0).isCancelled()).isTrue();
+        assertThat(attemptFutures.get(1).isCancelled()).isFalse();
+    }
+
+    @Test
+    void shouldNotSendSecondAttemptWhenFirstCompletesWithinDelay() throws InterruptedException {
+        // Given
+        RequestHedging hedging = new RequestHedging(DELAY, 100, null);
+        HttpResponse response = response(200);
+
+        // When
+        hedging.execute(callback, attempt(1, response));
+        Thread.sleep(DELAY * 5);
+
+        // Then
+        assertThat(attemptCallbacks).hasSize(1);
+        verify(callback).completed(response);
+    }
+
+    @Test
+    void shouldCancelBodyOfLosingStreamedResponse() throws InterruptedException {
+        // Given
+        RequestHedging hedging = new RequestHedging(DELAY, 100, null);
+        HttpResponse winning = response(200);
+        hedging.execute(callback, attempt(2, winning));
+        awaitAttempts(2);
+
+        AtomicBoolean streamCancelled = new AtomicBoolean(false);
+        ResponseStreamEntity streamEntity = mock(ResponseStreamEntity.class);
+        doReturn(Flux.<byte[]>never().doOnCancel(() -> streamCancelled.set(true))).when(streamEntity).stream();
+        HttpResponse losing = response(200);
+        losing.setEntity(streamEntity);
+
+        // When: the losing attempt delivers its response after the winning one.
+        attemptCallbacks.get(0).completed(losing);
+        attemptCallbacks.get(0).completed(losing);
+
+        // Then
+        assertThat(streamCancelled).isTrue();
+        verify(callback).completed(winning);
+        verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    void shouldUseSecondAttemptWhenFirstIsNotSuccessful() throws InterruptedException {
+        // Given
+        RequestHedging hedging = new RequestHedging(DELAY, 100, null);
+        hedging.execute(callback, attempt(0, null));
+        awaitAttempts(2);
+        HttpResponse successful = response(200);
+
+        // When
+        attemptCallbacks.get(0).completed(response(503));
+        attemptCallbacks.get(1).completed(successful);
+
+        // Then
+        verify(callback).completed(successful);
+        verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    void shouldFailWhenNoOtherAttemptIsInFlight() throws InterruptedException {
+        // Given
+        RequestHedging hedging = new RequestHedging(DELAY, 100, null);
+        hedging.execute(callback, attempt(0, null));
+        awaitAttempts(2);
+        IOException firstError = new IOException("Connection reset");
+        IOException secondError = new IOException("Connection refused");
+
+        // When
+        attemptCallbacks.get(0).failed(firstError);
+
+        // Then
+        verify(callback, never()).failed(any());
+
+        // When
+        attemptCallbacks.get(1).failed(secondError);
+
+        // Then
+        verify(callback).failed(secondError);
+        verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    void shouldRecordLatencyFromStartOfRequestWhenHedgedAttemptWins() throws InterruptedException {
+        // Given
+        RequestHedging hedging = new RequestHedging(DELAY, 100, 50);
+
+        // When: the second attempt always completes as soon as it is sent.
+        for (int i = 0; i < 20; i++) {
+            attemptCallbacks.clear();
+            hedging.execute(callback, attempt(2, response(200)));
+            awaitAttempts(2);
+        }
+
+        // Then: the winning attempts have been sent after the hedging delay.
+        assertThat(hedging.currentDelay()).isGreaterThanOrEqualTo(DELAY);
+    }
+
+    // Attempts complete with the given response as soon as they are sent if their
+    // number is the given one, otherwise they are completed by the test, if ever.
+    private RequestHedging.Attempt attempt(int completingAttempt, HttpResponse response) {
+        return attemptCallback -> {
+            attemptCallbacks.add(attemptCallback);
+            CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+            attemptFutures.add(future);
+            if (attemptCallbacks.size() == completingAttempt) {
+                future.complete(response);
+                attemptCallback.completed(response);
+            }
+            return future;
+        };
+    }
+
+    private void awaitAttempts(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SECONDS.toMillis(5);
+        while (attemptCallbacks.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(attemptCallbacks).hasSize(count);
+    }
+
+    private static HttpResponse response(int status) {
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+    }
+}
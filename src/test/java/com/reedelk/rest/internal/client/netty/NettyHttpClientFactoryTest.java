@@ -0,0 +1,171 @@
+package com.reedelk.rest.internal.client.netty;
+
+import com.reedelk.rest.component.RESTClientConfiguration;
+import com.reedelk.rest.internal.commons.ClientEngine;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.net.URI;
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NettyHttpClientFactoryTest {
+
+    private static final int REQUESTS = 5;
+    private static final Duration RESPONSE_DELAY = Duration.ofMillis(300);
+
+    // The ids of the connections the requests have been received on: with HTTP/2 the
+    // request is received on a stream channel, whose parent is the connection.
+    private final Set<ChannelId> connections = ConcurrentHashMap.newKeySet();
+
+    private DisposableServer server;
+    private NettyHttpAsyncClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) client.close();
+        if (server != null) server.disposeNow();
+    }
+
+    @Test
+    void shouldMultiplexConcurrentRequestsOnSingleH2cConnection() throws Exception {
+        // Given
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .protocol(reactor.netty.http.HttpProtocol.HTTP11, reactor.netty.http.HttpProtocol.H2C)
+                .handle(this::delayedResponse)
+                .bindNow();
+        client = clientWith(HttpProtocol.HTTP, HttpProtocolVersion.H2C);
+
+        // When
+        List<HttpResponse> responses = sendConcurrently(URI.create("http://localhost:" + server.port() + "/resource"));
+
+        // Then
+        assertThat(responses).allSatisfy(response -> assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200));
+        assertThat(connections).hasSize(1);
+    }
+
+    @Test
+    void shouldMultiplexConcurrentRequestsOnSingleH2Connection() throws Exception {
+        // Given
+        SelfSignedCertificate certificate = selfSignedCertificate();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .protocol(reactor.netty.http.HttpProtocol.HTTP11, reactor.netty.http.HttpProtocol.H2)
+                .secure(sslContextSpec -> sslContextSpec.sslContext(
+                        SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey())))
+                .handle(this::delayedResponse)
+                .bindNow();
+        client = clientWith(HttpProtocol.HTTPS, HttpProtocolVersion.H2);
+
+        // When
+        List<HttpResponse> responses = sendConcurrently(URI.create("https://localhost:" + server.port() + "/resource"));
+
+        // Then
+        assertThat(responses).allSatisfy(response -> assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200));
+        assertThat(connections).hasSize(1);
+        certificate.delete();
+    }
+
+    @Test
+    void shouldNotCloseIdlePooledConnectionWhenSocketTimeoutElapses() throws Exception {
+        // Given
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> {
+                    request.withConnection(connection -> connections.add(connectionIdOf(connection.channel())));
+                    return response.sendString(Mono.just("response"));
+                })
+                .bindNow();
+        RESTClientConfiguration configuration = configurationWith(HttpProtocol.HTTP, HttpProtocolVersion.HTTP_1_1);
+        configuration.setSocketTimeout(200);
+        client = NettyHttpClientFactory.create(configuration, null);
+        client.start();
+        URI uri = URI.create("http://localhost:" + server.port() + "/resource");
+
+        // When
+        send(uri).get(5, SECONDS);
+        Thread.sleep(600);
+        HttpResponse response = send(uri).get(5, SECONDS);
+
+        // Then
+        assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200);
+        assertThat(connections).hasSize(1);
+    }
+
+    private Mono<Void> delayedResponse(HttpServerRequest request, HttpServerResponse response) {
+        request.withConnection(connection -> connections.add(connectionIdOf(connection.channel())));
+        return response.sendString(Mono.just("response").delayElement(RESPONSE_DELAY)).then();
+    }
+
+    private List<HttpResponse> sendConcurrently(URI uri) throws Exception {
+        // The first request establishes the connection, the following ones
+        // are sent while it is still in flight and they must share it.
+        List<Future<HttpResponse>> futures = new ArrayList<>();
+        futures.add(send(uri));
+        Thread.sleep(RESPONSE_DELAY.toMillis() / 3);
+        for (int i = 1; i < REQUESTS; i++) {
+            futures.add(send(uri));
+        }
+        List<HttpResponse> responses = new ArrayList<>();
+        for (Future<HttpResponse> future : futures) {
+            responses.add(future.get(5, SECONDS));
+        }
+        return responses;
+    }
+
+    private Future<HttpResponse> send(URI uri) {
+        return client.execute(HttpAsyncMethods.createGet(uri), new BasicAsyncResponseConsumer(), null);
+    }
+
+    private NettyHttpAsyncClient clientWith(HttpProtocol protocol, HttpProtocolVersion httpVersion) {
+        NettyHttpAsyncClient nettyClient = NettyHttpClientFactory.create(configurationWith(protocol, httpVersion), null);
+        nettyClient.start();
+        return nettyClient;
+    }
+
+    private static RESTClientConfiguration configurationWith(HttpProtocol protocol, HttpProtocolVersion httpVersion) {
+        RESTClientConfiguration configuration = new RESTClientConfiguration();
+        configuration.setId(UUID.randomUUID().toString());
+        configuration.setEngine(ClientEngine.NETTY);
+        configuration.setProtocol(protocol);
+        configuration.setHttpVersion(httpVersion);
+        configuration.setTrustCertificates(true);
+        configuration.setMaxPoolConnections(REQUESTS);
+        return configuration;
+    }
+
+    private static ChannelId connectionIdOf(Channel channel) {
+        return channel.parent() != null ? channel.parent().id() : channel.id();
+    }
+
+    private static SelfSignedCertificate selfSignedCertificate() throws CertificateException {
+        return new SelfSignedCertificate("localhost");
+    }
+}
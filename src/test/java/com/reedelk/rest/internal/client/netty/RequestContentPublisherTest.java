@@ -0,0 +1,70 @@
+package com.reedelk.rest.internal.client.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RequestContentPublisherTest {
+
+    private final byte[] content = "chunk content".getBytes();
+
+    @Test
+    void shouldWrapContentOfImmutableContentProducer() throws Exception {
+        // Given
+        HttpAsyncRequestProducer producer =
+                mock(HttpAsyncRequestProducer.class, withSettings().extraInterfaces(ImmutableContentProducer.class));
+        writeContentAndComplete(producer);
+
+        // When
+        List<ByteBuf> buffers = publish(producer);
+
+        // Then
+        assertThat(buffers).hasSize(1);
+        assertThat(buffers.get(0).array()).isSameAs(content);
+        buffers.forEach(ByteBuf::release);
+    }
+
+    @Test
+    void shouldCopyContentOfProducer() throws Exception {
+        // Given
+        HttpAsyncRequestProducer producer = mock(HttpAsyncRequestProducer.class);
+        writeContentAndComplete(producer);
+
+        // When
+        List<ByteBuf> buffers = publish(producer);
+
+        // Then
+        assertThat(buffers).hasSize(1);
+        byte[] published = new byte[buffers.get(0).readableBytes()];
+        buffers.get(0).readBytes(published);
+        assertThat(published).isEqualTo(content);
+        buffers.forEach(ByteBuf::release);
+    }
+
+    private void writeContentAndComplete(HttpAsyncRequestProducer producer) throws Exception {
+        doAnswer(invocation -> {
+            ContentEncoder encoder = invocation.getArgument(0);
+            encoder.write(ByteBuffer.wrap(content));
+            encoder.complete();
+            return null;
+        }).when(producer).produceContent(any(ContentEncoder.class), any(IOControl.class));
+    }
+
+    private static List<ByteBuf> publish(HttpAsyncRequestProducer producer) {
+        List<ByteBuf> buffers = new ArrayList<>();
+        RequestContentPublisher publisher = new RequestContentPublisher(producer, PooledByteBufAllocator.DEFAULT);
+        publisher.publisher().subscribe(buffers::add);
+        return buffers;
+    }
+}
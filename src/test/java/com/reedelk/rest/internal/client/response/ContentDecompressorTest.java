@@ -0,0 +1,76 @@
+package com.reedelk.rest.internal.client.response;
+
+import org.apache.http.message.BasicHeader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentDecompressorTest {
+
+    private final String content = "The quick brown fox jumps over the lazy dog. " +
+            "The quick brown fox jumps over the lazy dog. " +
+            "The quick brown fox jumps over the lazy dog.";
+
+    @Test
+    void shouldDecompressGzipContentChunkByChunk() throws IOException {
+        // Given
+        byte[] compressed = gzip(content.getBytes(StandardCharsets.UTF_8));
+        ContentDecompressor decompressor = ContentDecompressor.from(new BasicHeader("Content-Encoding", "gzip"));
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+
+        // When
+        for (int offset = 0; offset < compressed.length; offset += 7) {
+            byte[] chunk = Arrays.copyOfRange(compressed, offset, Math.min(offset + 7, compressed.length));
+            decompressor.decode(chunk, bytes -> decompressed.write(bytes, 0, bytes.length));
+        }
+        decompressor.finish(bytes -> decompressed.write(bytes, 0, bytes.length));
+
+        // Then
+        assertThat(new String(decompressed.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(content);
+    }
+
+    @Test
+    void shouldDecompressMultipleContentEncodingsInReverseOrder() throws IOException {
+        // Given
+        byte[] compressed = gzip(deflate(content.getBytes(StandardCharsets.UTF_8)));
+        ContentDecompressor decompressor = ContentDecompressor.from(new BasicHeader("Content-Encoding", "deflate, gzip"));
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+
+        // When
+        decompressor.decode(compressed, bytes -> decompressed.write(bytes, 0, bytes.length));
+        decompressor.finish(bytes -> decompressed.write(bytes, 0, bytes.length));
+
+        // Then
+        assertThat(new String(decompressed.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(content);
+    }
+
+    @Test
+    void shouldReturnNullWhenContentIsNotCompressed() {
+        // Expect
+        assertThat(ContentDecompressor.from(null)).isNull();
+        assertThat(ContentDecompressor.from(new BasicHeader("Content-Encoding", "identity"))).isNull();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(output)) {
+            deflater.write(data);
+        }
+        return output.toByteArray();
+    }
+}
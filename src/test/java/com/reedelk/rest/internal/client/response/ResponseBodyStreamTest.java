@@ -0,0 +1,164 @@
+package com.reedelk.rest.internal.client.response;
+
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseBodyStreamTest {
+
+    private static final int BUFFER_SIZE = 16;
+    private static final long NO_TIMEOUT = 60000;
+
+    @Mock
+    private ContentDecoder decoder;
+    @Mock
+    private IOControl ioControl;
+
+    private ResponseBodyStream stream;
+
+    @AfterEach
+    void tearDown() {
+        if (stream != null) stream.release();
+    }
+
+    @Test
+    void shouldSuspendInputWhenStreamIsNotSubscribed() throws IOException {
+        // Given
+        stream = new ResponseBodyStream(BUFFER_SIZE, null, NO_TIMEOUT);
+
+        // When
+        stream.consume(decoder, ioControl);
+
+        // Then
+        verify(ioControl).suspendInput();
+        verify(decoder, never()).read(any());
+    }
+
+    @Test
+    void shouldReadContentOnlyWhileSubscriberHasDemand() throws Exception {
+        // Given
+        stream = new ResponseBodyStream(BUFFER_SIZE, null, NO_TIMEOUT);
+        givenContent("chunk");
+        List<byte[]> received = new CopyOnWriteArrayList<>();
+        SlowSubscriber subscriber = new SlowSubscriber(received);
+        stream.stream().subscribe(subscriber);
+
+        // When: more chunks are available than the prefetched ones.
+        for (int i = 0; i < 10; i++) {
+            stream.consume(decoder, ioControl);
+        }
+
+        // Then
+        verify(decoder, times(4)).read(any());
+        verify(ioControl, atLeastOnce()).suspendInput();
+
+        // When
+        clearInvocations(ioControl);
+        subscriber.request(4);
+
+        // Then: the input is requested again once the prefetched chunks have been consumed.
+        awaitReceived(received, 4);
+        verify(ioControl, timeout(5000).atLeastOnce()).requestInput();
+    }
+
+    @Test
+    void shouldCompleteStreamSubscribedAfterBodyHasBeenReceived() throws Exception {
+        // Given
+        stream = new ResponseBodyStream(BUFFER_SIZE, null, NO_TIMEOUT);
+
+        // When
+        stream.complete();
+
+        // Then
+        List<byte[]> chunks = stream.stream().collectList().toFuture().get(5, SECONDS);
+        assertThat(chunks).isEmpty();
+    }
+
+    @Test
+    void shouldReleaseConnectionWhenStreamIsNotSubscribedInTime() throws Exception {
+        // Given
+        stream = new ResponseBodyStream(BUFFER_SIZE, null, 20);
+        stream.consume(decoder, ioControl);
+
+        // When
+        Thread.sleep(200);
+
+        // Then
+        verify(ioControl).shutdown();
+        assertThatThrownBy(() -> stream.stream().blockLast())
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void shouldNotReleaseConnectionWhenStreamIsSubscribedInTime() throws Exception {
+        // Given
+        stream = new ResponseBodyStream(BUFFER_SIZE, null, 20);
+        CompletableFuture<List<byte[]>> chunks = stream.stream().collectList().toFuture();
+
+        // When
+        Thread.sleep(200);
+        stream.complete();
+
+        // Then
+        assertThat(chunks.get(5, SECONDS)).isEmpty();
+        verify(ioControl, never()).shutdown();
+    }
+
+    private void givenContent(String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        lenient().doAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            buffer.put(bytes);
+            return bytes.length;
+        }).when(decoder).read(any());
+    }
+
+    private static void awaitReceived(List<byte[]> received, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SECONDS.toMillis(5);
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(received).hasSize(count);
+    }
+
+    // Requests nothing until it is told to.
+    private static class SlowSubscriber extends BaseSubscriber<byte[]> {
+
+        private final List<byte[]> received;
+
+        SlowSubscriber(List<byte[]> received) {
+            this.received = received;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // No demand.
+        }
+
+        @Override
+        protected void hookOnNext(byte[] value) {
+            received.add(value);
+        }
+    }
+}
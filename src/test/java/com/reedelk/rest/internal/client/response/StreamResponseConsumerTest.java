@@ -0,0 +1,149 @@
+package com.reedelk.rest.internal.client.response;
+
+import com.reedelk.rest.internal.commons.StreamingMode;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StreamResponseConsumerTest {
+
+    private static final int BUFFER_SIZE = 16;
+
+    @Mock
+    private FutureCallback<HttpResponse> callback;
+    @Mock
+    private ContentDecoder decoder;
+    @Mock
+    private IOControl ioControl;
+
+    @Test
+    void shouldNotifyStreamedResponseAsSoonAsHeadersAreReceived() throws Exception {
+        // Given
+        StreamResponseConsumer consumer = new StreamResponseConsumer(BUFFER_SIZE, StreamingMode.AUTO, false, callback);
+        HttpResponse response = response(200, -1);
+
+        // When
+        consumer.responseReceived(response);
+
+        // Then
+        verify(callback).completed(response);
+        assertThat(response.getEntity()).isInstanceOf(ResponseStreamEntity.class);
+        consumer.close();
+    }
+
+    @Test
+    void shouldBufferResponseSmallerThanBufferSizeWhenStreamingIsAuto() throws Exception {
+        // Given
+        StreamResponseConsumer consumer = new StreamResponseConsumer(BUFFER_SIZE, StreamingMode.AUTO, false, callback);
+        HttpResponse response = response(200, 10);
+
+        // When
+        consumer.responseReceived(response);
+
+        // Then
+        verifyNoInteractions(callback);
+        assertThat(response.getEntity()).isInstanceOf(ContentBufferEntity.class);
+        consumer.close();
+    }
+
+    @Test
+    void shouldBufferNotSuccessfulResponseWhenStreamingIsAlways() throws Exception {
+        // Given
+        StreamResponseConsumer consumer = new StreamResponseConsumer(BUFFER_SIZE, StreamingMode.ALWAYS, false, callback);
+        HttpResponse response = response(500, -1);
+
+        // When
+        consumer.responseReceived(response);
+
+        // Then
+        verifyNoInteractions(callback);
+        assertThat(response.getEntity()).isInstanceOf(ContentBufferEntity.class);
+        consumer.close();
+    }
+
+    @Test
+    void shouldStreamNotSuccessfulResponseInPassThroughMode() throws Exception {
+        // Given
+        StreamResponseConsumer consumer = new StreamResponseConsumer(BUFFER_SIZE, StreamingMode.NONE, true, callback);
+        HttpResponse response = response(503, 10);
+
+        // When
+        consumer.responseReceived(response);
+
+        // Then
+        verify(callback).completed(response);
+        assertThat(response.getEntity()).isInstanceOf(ResponseStreamEntity.class);
+        consumer.close();
+    }
+
+    @Test
+    void shouldPublishContentAndCompleteStreamWhenResponseIsCompleted() throws Exception {
+        // Given
+        StreamResponseConsumer consumer = new StreamResponseConsumer(BUFFER_SIZE, StreamingMode.ALWAYS, false, callback);
+        HttpResponse response = response(200, -1);
+        consumer.responseReceived(response);
+        ResponseStreamEntity entity = (ResponseStreamEntity) response.getEntity();
+        CompletableFuture<List<byte[]>> chunks = entity.stream().collectList().toFuture();
+
+        byte[] content = "response body".getBytes(StandardCharsets.UTF_8);
+        doAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            buffer.put(content);
+            return content.length;
+        }).when(decoder).read(any());
+
+        // When
+        consumer.consumeContent(decoder, ioControl);
+        consumer.responseCompleted(new BasicHttpContext());
+
+        // Then
+        assertThat(chunks.get(5, SECONDS)).containsExactly(content);
+    }
+
+    @Test
+    void shouldFailStreamWhenExchangeFailsBeforeBodyIsReceived() throws Exception {
+        // Given
+        StreamResponseConsumer consumer = new StreamResponseConsumer(BUFFER_SIZE, StreamingMode.ALWAYS, false, callback);
+        HttpResponse response = response(200, -1);
+        consumer.responseReceived(response);
+        ResponseStreamEntity entity = (ResponseStreamEntity) response.getEntity();
+        CompletableFuture<List<byte[]>> chunks = entity.stream().collectList().toFuture();
+        IllegalStateException failure = new IllegalStateException("Connection reset");
+
+        // When
+        consumer.failed(failure);
+
+        // Then
+        assertThatThrownBy(() -> chunks.get(5, SECONDS)).hasCause(failure);
+    }
+
+    private static HttpResponse response(int status, long contentLength) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContentLength(contentLength);
+        response.setEntity(entity);
+        return response;
+    }
+}
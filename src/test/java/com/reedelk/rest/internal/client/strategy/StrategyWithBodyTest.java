@@ -2,6 +2,8 @@ package com.reedelk.rest.internal.client.strategy;
 
 import com.reedelk.rest.internal.client.body.BodyResult;
 import com.reedelk.rest.internal.client.header.HeaderProvider;
+import com.reedelk.rest.internal.client.response.ResponseConsumerFactory;
+import com.reedelk.rest.internal.commons.StreamingMode;
 import com.reedelk.runtime.api.commons.ImmutableMap;
 import org.apache.http.Header;
 import org.apache.http.client.methods.HttpPost;
@@ -22,11 +24,12 @@ class StrategyWithBodyTest {
     private BodyResult bodyResult;
 
     final int responseBufferSize = 1024 * 2;
+    final ResponseConsumerFactory responseConsumerFactory = new ResponseConsumerFactory(responseBufferSize, StreamingMode.NONE);
 
     @Test
     void shouldNotAddContentTypeToHttpEntityWhenMultipart() {
         // Given
-        StrategyWithBody strategy = new StrategyWithBody(factory, responseBufferSize);
+        StrategyWithBody strategy = new StrategyWithBody(factory, responseConsumerFactory);
         HeaderProvider headerProvider = () -> ImmutableMap.of(
                 "Content-TypE", "text/plain",
                 "Accept", "application/json");
@@ -51,7 +54,7 @@ class StrategyWithBodyTest {
     @Test
     void shouldAddContentTypeToHttpEntityWhenNotMultipart() {
         // Given
-        StrategyWithBody strategy = new StrategyWithBody(factory, responseBufferSize);
+        StrategyWithBody strategy = new StrategyWithBody(factory, responseConsumerFactory);
         HeaderProvider headerProvider = () -> ImmutableMap.of(
                 "Content-TypE", "text/plain",
                 "Accept", "application/json");
@@ -0,0 +1,163 @@
+package com.reedelk.rest.internal.client.strategy;
+
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StreamRequestProducerTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Mock
+    private IOControl ioControl;
+
+    private final int requestBufferSize = 1024;
+
+    @Test
+    void shouldSuspendOutputWhenNoChunkIsAvailable() throws IOException {
+        // Given
+        StreamRequestProducer.StreamProducer producer =
+                new StreamRequestProducer.StreamProducer(Flux.never(), requestBufferSize);
+        TestEncoder encoder = new TestEncoder();
+
+        // When
+        producer.produceContent(encoder, ioControl);
+
+        // Then
+        verify(ioControl).suspendOutput();
+        assertThat(encoder.written()).isEmpty();
+        assertThat(encoder.isCompleted()).isFalse();
+    }
+
+    @Test
+    void shouldWriteAllChunksRequestingBoundedDemand() throws IOException {
+        // Given
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        Flux<byte[]> stream = Flux.range(0, 100)
+                .map(index -> new byte[] { (byte) index })
+                .doOnRequest(requests::add);
+
+        StreamRequestProducer.StreamProducer producer =
+                new StreamRequestProducer.StreamProducer(stream, requestBufferSize);
+        TestEncoder encoder = new TestEncoder();
+
+        // When
+        produceUntil(producer, encoder, encoder::isCompleted);
+
+        // Then
+        byte[] expected = new byte[100];
+        for (int i = 0; i < expected.length; i++) expected[i] = (byte) i;
+        assertThat(encoder.written()).isEqualTo(expected);
+        assertThat(requests).isNotEmpty().allMatch(requested -> requested <= 8);
+    }
+
+    @Test
+    void shouldResumeOutputWhenChunkArrives() throws IOException {
+        // Given
+        Flux<byte[]> stream = Flux.just("chunk".getBytes())
+                .delaySubscription(Duration.ofMillis(100));
+
+        StreamRequestProducer.StreamProducer producer =
+                new StreamRequestProducer.StreamProducer(stream, requestBufferSize);
+        TestEncoder encoder = new TestEncoder();
+
+        // When
+        producer.produceContent(encoder, ioControl);
+
+        // Then
+        verify(ioControl, timeout(TIMEOUT_MILLIS).atLeastOnce()).requestOutput();
+    }
+
+    @Test
+    void shouldThrowIOExceptionWhenStreamFails() {
+        // Given
+        Flux<byte[]> stream = Flux.error(new IllegalStateException("Upstream error"));
+
+        StreamRequestProducer.StreamProducer producer =
+                new StreamRequestProducer.StreamProducer(stream, requestBufferSize);
+        TestEncoder encoder = new TestEncoder();
+
+        // Expect
+        assertThatThrownBy(() -> produceUntil(producer, encoder, () -> false))
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldCancelStreamWhenClosed() throws InterruptedException {
+        // Given
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        Flux<byte[]> stream = Flux.<byte[]>never()
+                .doOnSubscribe(subscription -> subscribed.countDown())
+                .doOnCancel(cancelled::countDown);
+
+        StreamRequestProducer.StreamProducer producer =
+                new StreamRequestProducer.StreamProducer(stream, requestBufferSize);
+        assertThat(subscribed.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+
+        // When
+        producer.close();
+
+        // Then
+        assertThat(cancelled.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    // Simulates the IO reactor, which calls the producer whenever the output is requested.
+    private void produceUntil(StreamRequestProducer.StreamProducer producer, ContentEncoder encoder, BooleanSupplier condition) throws IOException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            producer.produceContent(encoder, ioControl);
+            Thread.yield();
+        }
+    }
+
+    private static class TestEncoder implements ContentEncoder {
+
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private volatile boolean completed;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            byte[] bytes = new byte[length];
+            src.get(bytes);
+            written.write(bytes, 0, length);
+            return length;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        byte[] written() {
+            return written.toByteArray();
+        }
+    }
+}
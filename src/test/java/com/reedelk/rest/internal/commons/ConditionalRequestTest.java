@@ -0,0 +1,61 @@
+package com.reedelk.rest.internal.commons;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalRequestTest {
+
+    private static final long LAST_MODIFIED = 1_500_000_000_000L;
+
+    @Test
+    void shouldComputeSameStrongETagForSameContent() {
+        // When
+        String etag1 = ConditionalRequest.strongETag("content".getBytes());
+        String etag2 = ConditionalRequest.strongETag("content".getBytes());
+        String etag3 = ConditionalRequest.strongETag("other".getBytes());
+
+        // Then
+        assertThat(etag1).isEqualTo(etag2).isNotEqualTo(etag3).hasSize(34);
+    }
+
+    @Test
+    void shouldBeNotModifiedWhenIfNoneMatchContainsETag() {
+        // Given
+        HttpHeaders requestHeaders = new DefaultHttpHeaders();
+        requestHeaders.set(HttpHeader.IF_NONE_MATCH, "\"other\", W/\"abc\"");
+
+        // Expect
+        assertThat(ConditionalRequest.isNotModified(requestHeaders, "\"abc\"", LAST_MODIFIED)).isTrue();
+    }
+
+    @Test
+    void shouldBeModifiedWhenIfNoneMatchDoesNotContainETag() {
+        // Given
+        HttpHeaders requestHeaders = new DefaultHttpHeaders();
+        requestHeaders.set(HttpHeader.IF_NONE_MATCH, "\"other\"");
+        requestHeaders.set(HttpHeader.IF_MODIFIED_SINCE, ConditionalRequest.httpDate(LAST_MODIFIED));
+
+        // Expect: If-Modified-Since is ignored when If-None-Match is present.
+        assertThat(ConditionalRequest.isNotModified(requestHeaders, "\"abc\"", LAST_MODIFIED)).isFalse();
+    }
+
+    @Test
+    void shouldBeNotModifiedWhenNotModifiedSinceDate() {
+        // Given
+        HttpHeaders requestHeaders = new DefaultHttpHeaders();
+        requestHeaders.set(HttpHeader.IF_MODIFIED_SINCE, ConditionalRequest.httpDate(LAST_MODIFIED));
+
+        // Expect
+        assertThat(ConditionalRequest.isNotModified(requestHeaders, "\"abc\"", LAST_MODIFIED)).isTrue();
+        assertThat(ConditionalRequest.isNotModified(requestHeaders, "\"abc\"", LAST_MODIFIED + 1000)).isFalse();
+    }
+
+    @Test
+    void shouldBeModifiedWhenNoConditionalHeaders() {
+        // Expect
+        assertThat(ConditionalRequest.isNotModified(new DefaultHttpHeaders(), "\"abc\"", LAST_MODIFIED)).isFalse();
+    }
+}
@@ -53,4 +53,64 @@ class DefaultsTest {
         // Then
         assertThat(actual).isEqualTo(443);
     }
+
+    @Test
+    void shouldReturnDefaultIdleConnectionTimeoutBelowLoadBalancersIdleTimeout() {
+        // Given
+        Integer given = null;
+
+        // When
+        int actual = Defaults.RestClient.idleConnectionTimeout(given);
+
+        // Then
+        assertThat(actual).isEqualTo(50000);
+    }
+
+    @Test
+    void shouldReturnGivenIdleConnectionTimeout() {
+        // Given
+        Integer given = 120000;
+
+        // When
+        int actual = Defaults.RestClient.idleConnectionTimeout(given);
+
+        // Then
+        assertThat(actual).isEqualTo(120000);
+    }
+
+    @Test
+    void shouldReturnFiniteDefaultMultipartMaxPartSize() {
+        // Given
+        Integer given = null;
+
+        // When
+        long actual = Defaults.RestListener.multipartMaxPartSize(given);
+
+        // Then
+        assertThat(actual).isEqualTo(10 * 1024 * 1024);
+    }
+
+    @Test
+    void shouldReturnFiniteDefaultMultipartMaxRequestSize() {
+        // Given
+        Integer given = null;
+
+        // When
+        long actual = Defaults.RestListener.multipartMaxRequestSize(given);
+
+        // Then
+        assertThat(actual).isEqualTo(50 * 1024 * 1024);
+    }
+
+    @Test
+    void shouldReturnGivenNegativeMultipartMaxRequestSize() {
+        // Given
+        Integer given = -1;
+
+        // When
+        long actual = Defaults.RestListener.multipartMaxRequestSize(given);
+
+        // Then
+        assertThat(actual).isEqualTo(-1);
+    }
 }
@@ -0,0 +1,103 @@
+package com.reedelk.rest.internal.commons;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PassThroughHeadersTest {
+
+    @Nested
+    @DisplayName("Relayed request headers")
+    class Request {
+
+        @Test
+        void shouldRelayEndToEndHeadersOnly() {
+            // Given
+            Map<String, List<String>> headers = new HashMap<>();
+            headers.put("Accept", asList("application/json", "text/plain"));
+            headers.put("X-Correlation-ID", singletonList("aabbcc"));
+            headers.put("Host", singletonList("localhost:8080"));
+            headers.put("Connection", singletonList("keep-alive"));
+            headers.put("Transfer-Encoding", singletonList("chunked"));
+            headers.put("Content-Length", singletonList("23"));
+
+            // When
+            Map<String, String> relayed = PassThroughHeaders.excluding(null).request(headers);
+
+            // Then
+            assertThat(relayed).hasSize(2);
+            assertThat(relayed).containsEntry("Accept", "application/json, text/plain");
+            assertThat(relayed).containsEntry("X-Correlation-ID", "aabbcc");
+        }
+
+        @Test
+        void shouldNotRelayHeadersListedInConnectionHeader() {
+            // Given
+            Map<String, List<String>> headers = new HashMap<>();
+            headers.put("connection", singletonList("X-Hop, close"));
+            headers.put("x-hop", singletonList("value1"));
+            headers.put("x-end", singletonList("value2"));
+
+            // When
+            Map<String, String> relayed = PassThroughHeaders.excluding(null).request(headers);
+
+            // Then
+            assertThat(relayed).hasSize(1);
+            assertThat(relayed).containsEntry("x-end", "value2");
+        }
+
+        @Test
+        void shouldNotRelayExcludedHeadersAndPrefixes() {
+            // Given
+            Map<String, List<String>> headers = new HashMap<>();
+            headers.put("Authorization", singletonList("Basic dXNlcjpwYXNz"));
+            headers.put("X-Internal-Token", singletonList("token"));
+            headers.put("X-Internal-User", singletonList("user"));
+            headers.put("Accept", singletonList("*/*"));
+
+            // When
+            Map<String, String> relayed = PassThroughHeaders.excluding("authorization, x-internal-*").request(headers);
+
+            // Then
+            assertThat(relayed).hasSize(1);
+            assertThat(relayed).containsEntry("Accept", "*/*");
+        }
+    }
+
+    @Nested
+    @DisplayName("Relayed response headers")
+    class Response {
+
+        @Test
+        void shouldKeepDistinctValuesOfRelayedHeaders() {
+            // Given
+            Header[] headers = new Header[] {
+                    new BasicHeader("Set-Cookie", "id=a3fWa; Expires=Wed, 21 Oct 2015 07:28:00 GMT"),
+                    new BasicHeader("Set-Cookie", "lang=en"),
+                    new BasicHeader("Content-Encoding", "gzip"),
+                    new BasicHeader("Keep-Alive", "timeout=5"),
+                    new BasicHeader("Content-Length", "345")
+            };
+
+            // When
+            TreeMap<String, List<String>> relayed = PassThroughHeaders.excluding("").response(headers);
+
+            // Then
+            assertThat(relayed).hasSize(2);
+            assertThat(relayed).containsEntry("Set-Cookie",
+                    asList("id=a3fWa; Expires=Wed, 21 Oct 2015 07:28:00 GMT", "lang=en"));
+            assertThat(relayed).containsEntry("Content-Encoding", singletonList("gzip"));
+        }
+    }
+}
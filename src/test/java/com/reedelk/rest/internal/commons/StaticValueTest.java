@@ -0,0 +1,153 @@
+package com.reedelk.rest.internal.commons;
+
+import com.reedelk.runtime.api.commons.ModuleContext;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicStringMap;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicInteger;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class StaticValueTest {
+
+    private final ModuleContext moduleContext = new ModuleContext(10L);
+
+    @Test
+    void shouldBeStaticWhenValueIsNotScript() {
+        // Given
+        DynamicByteArray value = DynamicByteArray.from("my text body", moduleContext);
+
+        // When
+        boolean isStatic = StaticValue.isStatic(value);
+
+        // Then
+        assertThat(isStatic).isTrue();
+    }
+
+    @Test
+    void shouldBeStaticWhenValueIsNullOrNullValue() {
+        // Expect
+        assertThat(StaticValue.isStatic((DynamicByteArray) null)).isTrue();
+        assertThat(StaticValue.isStatic(DynamicByteArray.from(null, moduleContext))).isTrue();
+    }
+
+    @Test
+    void shouldNotBeStaticWhenValueIsScript() {
+        // Given
+        DynamicByteArray value = DynamicByteArray.from("#[message.payload()]", moduleContext);
+
+        // When
+        boolean isStatic = StaticValue.isStatic(value);
+
+        // Then
+        assertThat(isStatic).isFalse();
+    }
+
+    @Test
+    void shouldBeStaticWhenMapValuesAreNotScripts() {
+        // Given
+        DynamicStringMap headers = DynamicStringMap.empty();
+        headers.put("header1", "my header 1");
+        headers.put("header2", "my header 2");
+
+        // Expect
+        assertThat(StaticValue.isStatic(headers)).isTrue();
+        assertThat(StaticValue.isStatic((DynamicStringMap) null)).isTrue();
+    }
+
+    @Test
+    void shouldNotBeStaticWhenAnyMapValueIsScript() {
+        // Given
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("header1", "my header 1");
+        values.put("header2", "#[context.token]");
+        DynamicStringMap headers = DynamicStringMap.from(values, moduleContext);
+
+        // When
+        boolean isStatic = StaticValue.isStatic(headers);
+
+        // Then
+        assertThat(isStatic).isFalse();
+    }
+
+    @Test
+    void shouldReturnIntegerFromText() {
+        // Given
+        DynamicInteger status = DynamicInteger.from("201", moduleContext);
+
+        // When
+        Optional<Integer> value = StaticValue.of(status);
+
+        // Then
+        assertThat(value).contains(201);
+    }
+
+    @Test
+    void shouldReturnIntegerFromNumber() {
+        // Given
+        DynamicInteger status = DynamicInteger.from(404);
+
+        // When
+        Optional<Integer> value = StaticValue.of(status);
+
+        // Then
+        assertThat(value).contains(404);
+    }
+
+    @Test
+    void shouldReturnEmptyIntegerWhenValueIsNull() {
+        // Expect
+        assertThat(StaticValue.of((DynamicInteger) null)).isEmpty();
+        assertThat(StaticValue.of(DynamicInteger.from(null, moduleContext))).isEmpty();
+    }
+
+    @Test
+    void shouldReturnUtf8BytesFromText() {
+        // Given
+        DynamicByteArray body = DynamicByteArray.from("café", moduleContext);
+
+        // When
+        Optional<byte[]> value = StaticValue.of(body);
+
+        // Then
+        assertThat(value).hasValueSatisfying(bytes -> assertThat(bytes).isEqualTo("café".getBytes(UTF_8)));
+    }
+
+    @Test
+    void shouldReturnEmptyBytesWhenValueIsNull() {
+        // Expect
+        assertThat(StaticValue.of((DynamicByteArray) null)).isEmpty();
+        assertThat(StaticValue.of(DynamicByteArray.from(null, moduleContext))).isEmpty();
+    }
+
+    @Test
+    void shouldReturnMapValues() {
+        // Given
+        DynamicStringMap headers = DynamicStringMap.empty();
+        headers.put("header1", "my header 1");
+        headers.put("header2", "my header 2");
+
+        // When
+        Map<String, String> values = StaticValue.of(headers);
+
+        // Then
+        assertThat(values).containsOnly(
+                entry("header1", "my header 1"),
+                entry("header2", "my header 2"));
+    }
+
+    @Test
+    void shouldReturnEmptyMapWhenMapIsNull() {
+        // When
+        Map<String, String> values = StaticValue.of((DynamicStringMap) null);
+
+        // Then
+        assertThat(values).isEmpty();
+    }
+}
@@ -0,0 +1,84 @@
+package com.reedelk.rest.internal.metrics;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockingWatchdogTest {
+
+    private static final String POOL_NAME = "test-event-loop";
+
+    private BlockingWatchdog watchdog;
+    private EventLoopGroup group;
+
+    @BeforeEach
+    void setUp() {
+        watchdog = new BlockingWatchdog();
+        group = new DefaultEventLoopGroup(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.dispose();
+        group.shutdownGracefully(0, 1, SECONDS);
+    }
+
+    @Test
+    void shouldCountEventLoopBlockedLongerThanThreshold() throws InterruptedException {
+        // Given
+        watchdog.watch(POOL_NAME, group, 100);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        group.execute(() -> awaitQuietly(release));
+        try {
+            waitUntil(() -> watchdog.blockedCounts().containsKey(POOL_NAME));
+        } finally {
+            release.countDown();
+        }
+
+        // Then
+        assertThat(watchdog.blockedCounts()).containsEntry(POOL_NAME, 1L);
+    }
+
+    @Test
+    void shouldNotCountEventLoopRunningShortTasks() throws InterruptedException {
+        // Given
+        watchdog.watch(POOL_NAME, group, 200);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            group.execute(() -> {});
+            Thread.sleep(20);
+        }
+
+        // Then
+        assertThat(watchdog.blockedCounts()).isEmpty();
+    }
+
+    private static void waitUntil(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(5);
+        while (!condition.isTrue() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Condition {
+        boolean isTrue();
+    }
+}
@@ -0,0 +1,50 @@
+package com.reedelk.rest.internal.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldMapEachValueToBucketContainingIt() {
+        for (long value = 0; value < 100_000; value++) {
+            // When
+            int index = LatencyHistogram.indexOf(value);
+
+            // Then
+            assertThat(value).isLessThan(LatencyHistogram.upperBoundOf(index));
+            if (index > 0) {
+                assertThat(value).isGreaterThanOrEqualTo(LatencyHistogram.upperBoundOf(index - 1));
+            }
+        }
+    }
+
+    @Test
+    void shouldReturnQuantilesWithinBucketPrecision() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordNanos(MILLISECONDS.toNanos(i));
+        }
+
+        // Then
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.sumSeconds()).isCloseTo(500.5, within(0.001));
+        assertThat(histogram.quantileSeconds(0.5)).isCloseTo(0.5, within(0.5 / 8));
+        assertThat(histogram.quantileSeconds(0.9)).isCloseTo(0.9, within(0.9 / 8));
+    }
+
+    @Test
+    void shouldReturnZeroQuantileWhenEmpty() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Expect
+        assertThat(histogram.quantileSeconds(0.99)).isZero();
+    }
+}
@@ -0,0 +1,71 @@
+package com.reedelk.rest.internal.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrometheusTextFormatTest {
+
+    @Test
+    void shouldSerializeRouteCountersWithMethodAndPathLabels() {
+        // Given
+        RouteMetrics metrics = new RouteMetrics("GET", "/api/{id}");
+        metrics.recordStatus(200);
+        metrics.recordStatus(201);
+        metrics.recordStatus(503);
+        metrics.recordBytesOut(10);
+
+        // When
+        String serialized = PrometheusTextFormat.serialize(singletonList(metrics));
+
+        // Then
+        assertThat(serialized)
+                .contains("# TYPE reedelk_rest_listener_flow_seconds summary\n")
+                .contains("reedelk_rest_listener_responses_total{method=\"GET\",path=\"/api/{id}\",status=\"2xx\"} 2\n")
+                .contains("reedelk_rest_listener_responses_total{method=\"GET\",path=\"/api/{id}\",status=\"5xx\"} 1\n")
+                .contains("reedelk_rest_listener_response_bytes_total{method=\"GET\",path=\"/api/{id}\"} 10\n")
+                .doesNotContain("reedelk_rest_listener_concurrency_limit{");
+    }
+
+    @Test
+    void shouldSerializeConcurrencyLimitWhenPresent() {
+        // Given
+        RouteMetrics metrics = new RouteMetrics("POST", "/api");
+        metrics.concurrencyLimit(() -> 20, () -> 3, () -> 7L);
+
+        // When
+        String serialized = PrometheusTextFormat.serialize(singletonList(metrics));
+
+        // Then
+        assertThat(serialized)
+                .contains("reedelk_rest_listener_concurrency_limit{method=\"POST\",path=\"/api\"} 20\n")
+                .contains("reedelk_rest_listener_in_flight_requests{method=\"POST\",path=\"/api\"} 3\n")
+                .contains("reedelk_rest_listener_rejected_requests_total{method=\"POST\",path=\"/api\"} 7\n");
+    }
+
+    @Test
+    void shouldEscapeLabelValues() {
+        // Given
+        RouteMetrics metrics = new RouteMetrics("GET", "/api/\"quoted\"");
+
+        // When
+        String serialized = PrometheusTextFormat.serialize(singletonList(metrics));
+
+        // Then
+        assertThat(serialized).contains("path=\"/api/\\\"quoted\\\"\"");
+    }
+
+    @Test
+    void shouldSerializeBlockedThreadCountsByPool() {
+        // When
+        String serialized = PrometheusTextFormat.serialize(emptyList(), singletonMap("rest-listener-worker", 3L));
+
+        // Then
+        assertThat(serialized)
+                .contains("# TYPE reedelk_rest_blocked_threads_total counter\n")
+                .contains("reedelk_rest_blocked_threads_total{pool=\"rest-listener-worker\"} 3\n");
+    }
+}
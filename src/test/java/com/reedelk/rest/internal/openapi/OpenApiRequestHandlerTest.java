@@ -1,10 +1,188 @@
 package com.reedelk.rest.internal.openapi;
 
+import com.reedelk.rest.component.RESTListenerConfiguration;
+import com.reedelk.rest.internal.commons.HttpHeader;
+import com.reedelk.rest.internal.commons.RestMethod;
+import com.reedelk.rest.internal.server.RouteDefinition;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Publisher;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 class OpenApiRequestHandlerTest {
 
+    private OpenApiRequestHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new OpenApiRequestHandler(new RESTListenerConfiguration(), Serializer.JSON);
+        handler.add(new RouteDefinition("/customers", RestMethod.GET));
+    }
+
+    @Test
+    void shouldSendDocumentWithETag() {
+        // When
+        SentResponse sent = send(new DefaultHttpHeaders());
+
+        // Then
+        assertThat(sent.status).isNull();
+        assertThat(sent.headers).containsKey(HttpHeader.ETAG);
+        assertThat(sent.headers).doesNotContainKey(HttpHeader.CONTENT_ENCODING);
+        assertThat(sent.headers).containsEntry(HttpHeader.CONTENT_LENGTH, String.valueOf(sent.body.length));
+        assertThat(new String(sent.body, StandardCharsets.UTF_8)).contains("/customers");
+    }
+
+    @Test
+    void shouldSendNotModifiedWhenIfNoneMatchMatchesETag() {
+        // Given
+        String etag = send(new DefaultHttpHeaders()).headers.get(HttpHeader.ETAG);
+        HttpHeaders headers = new DefaultHttpHeaders().add(HttpHeader.IF_NONE_MATCH, etag);
+
+        // When
+        SentResponse sent = send(headers);
+
+        // Then
+        assertThat(sent.status).isEqualTo(HttpResponseStatus.NOT_MODIFIED);
+        assertThat(sent.headers).containsEntry(HttpHeader.ETAG, etag);
+        assertThat(sent.body).isNull();
+    }
+
+    @Test
+    void shouldSendDocumentWhenIfNoneMatchDoesNotMatchETag() {
+        // Given
+        HttpHeaders headers = new DefaultHttpHeaders().add(HttpHeader.IF_NONE_MATCH, "\"outdated\"");
+
+        // When
+        SentResponse sent = send(headers);
+
+        // Then
+        assertThat(sent.status).isNull();
+        assertThat(sent.body).isNotEmpty();
+    }
+
+    @Test
+    void shouldSendGzipCompressedDocumentWhenClientAcceptsGzip() throws IOException {
+        // Given
+        SentResponse identity = send(new DefaultHttpHeaders());
+        HttpHeaders headers = new DefaultHttpHeaders().add(HttpHeader.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+
+        // When
+        SentResponse gzip = send(headers);
+
+        // Then
+        assertThat(gzip.headers).containsEntry(HttpHeader.CONTENT_ENCODING, "gzip");
+        assertThat(gzip.headers).containsEntry(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+        assertThat(gzip.headers).containsEntry(HttpHeader.CONTENT_LENGTH, String.valueOf(gzip.body.length));
+        assertThat(gzip.headers.get(HttpHeader.ETAG)).isNotEqualTo(identity.headers.get(HttpHeader.ETAG));
+        assertThat(gunzip(gzip.body)).isEqualTo(identity.body);
+    }
+
+    @Test
+    void shouldNotSendGzipCompressedDocumentWhenGzipIsNotAcceptable() {
+        // Given
+        HttpHeaders headers = new DefaultHttpHeaders().add(HttpHeader.ACCEPT_ENCODING, "gzip;q=0");
+
+        // When
+        SentResponse sent = send(headers);
+
+        // Then
+        assertThat(sent.headers).doesNotContainKey(HttpHeader.CONTENT_ENCODING);
+    }
+
+    @Test
+    void shouldSerializeDocumentAgainWhenRouteIsAdded() {
+        // Given
+        SentResponse before = send(new DefaultHttpHeaders());
+
+        // When
+        handler.add(new RouteDefinition("/orders", RestMethod.POST));
+        SentResponse after = send(new DefaultHttpHeaders());
+
+        // Then
+        assertThat(new String(before.body, StandardCharsets.UTF_8)).doesNotContain("/orders");
+        assertThat(new String(after.body, StandardCharsets.UTF_8)).contains("/orders");
+        assertThat(after.headers.get(HttpHeader.ETAG)).isNotEqualTo(before.headers.get(HttpHeader.ETAG));
+    }
+
+    @Test
+    void shouldSerializeDocumentAgainWhenRouteIsRemoved() {
+        // Given
+        RouteDefinition orders = new RouteDefinition("/orders", RestMethod.POST);
+        handler.add(orders);
+        SentResponse before = send(new DefaultHttpHeaders());
+
+        // When
+        handler.remove(orders);
+        SentResponse after = send(new DefaultHttpHeaders());
+
+        // Then
+        assertThat(new String(before.body, StandardCharsets.UTF_8)).contains("/orders");
+        assertThat(new String(after.body, StandardCharsets.UTF_8)).doesNotContain("/orders");
+    }
+
+    @SuppressWarnings("unchecked")
+    private SentResponse send(HttpHeaders requestHeaders) {
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        doReturn(requestHeaders).when(request).requestHeaders();
+
+        SentResponse sent = new SentResponse();
+        HttpServerResponse response = mock(HttpServerResponse.class);
+        doAnswer(invocation -> {
+            sent.headers.put(invocation.getArgument(0).toString(), invocation.getArgument(1).toString());
+            return response;
+        }).when(response).addHeader(anyString(), anyString());
+        doAnswer(invocation -> {
+            sent.status = invocation.getArgument(0);
+            return response;
+        }).when(response).status(any(HttpResponseStatus.class));
+
+        handler.apply(request, response);
+
+        ArgumentCaptor<Publisher<byte[]>> body = ArgumentCaptor.forClass(Publisher.class);
+        verify(response, atMost(1)).sendByteArray(body.capture());
+        if (!body.getAllValues().isEmpty()) {
+            sent.body = Mono.from(body.getValue()).block();
+        }
+        return sent;
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+
+    private static class SentResponse {
+        private final Map<String, String> headers = new HashMap<>();
+        private HttpResponseStatus status;
+        private byte[] body;
+    }
+
     // TODO: Fixme
     /**
     @Test
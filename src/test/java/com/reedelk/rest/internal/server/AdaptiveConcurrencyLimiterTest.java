@@ -0,0 +1,93 @@
+package com.reedelk.rest.internal.server;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void shouldRejectRequestsAboveLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 10);
+
+        // When
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+        assertThat(limiter.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAdmitRequestAfterRelease() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10);
+        limiter.tryAcquire();
+
+        // When
+        limiter.release(-1);
+
+        // Then
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.rejected()).isZero();
+    }
+
+    @Test
+    void shouldIncreaseLimitWhenLatencyIsStableAndLimitIsUsed() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            saturateAndRelease(limiter, MILLISECONDS.toNanos(10));
+        }
+
+        // Then
+        assertThat(limiter.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void shouldDecreaseLimitWhenLatencyGrows() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 100);
+        for (int i = 0; i < 20; i++) {
+            saturateAndRelease(limiter, MILLISECONDS.toNanos(10));
+        }
+        int limitBeforeLatencyGrows = limiter.limit();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            saturateAndRelease(limiter, MILLISECONDS.toNanos(100));
+        }
+
+        // Then
+        assertThat(limiter.limit()).isLessThan(limitBeforeLatencyGrows);
+    }
+
+    @Test
+    void shouldNotGrowAboveMaxLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 12);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            saturateAndRelease(limiter, MILLISECONDS.toNanos(10));
+        }
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(12);
+    }
+
+    private static void saturateAndRelease(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) acquired++;
+        for (int i = 0; i < acquired; i++) limiter.release(rttNanos);
+    }
+}
@@ -1,98 +1,241 @@
 package com.reedelk.rest.internal.server;
 
+import com.reedelk.rest.internal.metrics.RouteMetrics;
+import com.reedelk.rest.internal.server.uri.UriTemplateVariables;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import reactor.netty.http.server.HttpServerRequest;
 
-import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
-import static com.reedelk.rest.internal.server.HttpPredicate.MatcherResult;
+import static com.reedelk.rest.internal.server.DefaultServerRoutes.RouteAlreadyDefinedException;
+import static io.netty.handler.codec.http.HttpMethod.GET;
+import static io.netty.handler.codec.http.HttpMethod.POST;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.lenient;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class DefaultServerRoutesTest {
 
     @Mock
-    private HttpRouteHandler handler1;
-    @Mock
-    private HttpRouteHandler handler2;
-    @Mock
-    private HttpRouteHandler handler3;
+    private HttpRequestHandler handler;
 
-    @Mock
-    private HttpServerRequest request;
+    private DefaultServerRoutes routes;
+
+    @BeforeEach
+    void setUp() {
+        routes = new DefaultServerRoutes();
+    }
 
     @Test
     void shouldReturnExactMatchHandler() {
         // Given
-        doReturn(MatcherResult.TEMPLATE_MATCH).when(handler1).matches(request);
-        doReturn(MatcherResult.NO_MATCH).when(handler2).matches(request);
-        doReturn(MatcherResult.EXACT_MATCH).when(handler3).matches(request);
-
-        List<HttpRouteHandler> handlerList = Arrays.asList(handler1, handler2, handler3);
+        routes.get("/api/users/{id}", handler);
+        HttpRouteHandler exact = routes.get("/api/users/me", handler);
 
         // When
         Optional<HttpRouteHandler> actual =
-                DefaultServerRoutes.findMatchingHttpRouteHandler(handlerList, request);
+                routes.findMatchingHttpRouteHandler(GET, "/api/users/me", new UriTemplateVariables());
 
         // Then
-        assertThat(actual).isPresent().contains(handler3);
+        assertThat(actual).isPresent().contains(exact);
     }
 
     @Test
     void shouldReturnTemplateMatchHandler() {
         // Given
-        doReturn(MatcherResult.NO_MATCH).when(handler1).matches(request);
-        doReturn(MatcherResult.TEMPLATE_MATCH).when(handler2).matches(request);
-        doReturn(MatcherResult.NO_MATCH).when(handler3).matches(request);
-
-        List<HttpRouteHandler> handlerList = Arrays.asList(handler1, handler2, handler3);
+        routes.get("/api/users/me", handler);
+        HttpRouteHandler template = routes.get("/api/users/{id}", handler);
 
         // When
         Optional<HttpRouteHandler> actual =
-                DefaultServerRoutes.findMatchingHttpRouteHandler(handlerList, request);
+                routes.findMatchingHttpRouteHandler(GET, "/api/users/23?param1=value1", new UriTemplateVariables());
 
         // Then
-        assertThat(actual).isPresent().contains(handler2);
+        assertThat(actual).isPresent().contains(template);
     }
 
     @Test
     void shouldReturnEmptyHandler() {
         // Given
-        doReturn(MatcherResult.NO_MATCH).when(handler1).matches(request);
-        doReturn(MatcherResult.NO_MATCH).when(handler2).matches(request);
-        doReturn(MatcherResult.NO_MATCH).when(handler3).matches(request);
+        routes.get("/api/users/{id}", handler);
+        routes.get("/api/groups", handler);
+
+        // When
+        Optional<HttpRouteHandler> actual =
+                routes.findMatchingHttpRouteHandler(GET, "/api/users/23/manager", new UriTemplateVariables());
+
+        // Then
+        assertThat(actual).isNotPresent();
+    }
 
-        List<HttpRouteHandler> handlerList = Arrays.asList(handler1, handler2, handler3);
+    @Test
+    void shouldReturnEmptyHandlerWhenMethodDoesNotMatch() {
+        // Given
+        routes.get("/api/users", handler);
 
         // When
         Optional<HttpRouteHandler> actual =
-                DefaultServerRoutes.findMatchingHttpRouteHandler(handlerList, request);
+                routes.findMatchingHttpRouteHandler(POST, "/api/users", new UriTemplateVariables());
 
         // Then
         assertThat(actual).isNotPresent();
     }
 
     @Test
-    void shouldReturnExactMatchHandlerWhenOnlyOneMatching() {
+    void shouldFallbackToTemplateWhenExactSegmentDoesNotLeadToRoute() {
         // Given
-        doReturn(MatcherResult.NO_MATCH).when(handler1).matches(request);
-        doReturn(MatcherResult.EXACT_MATCH).when(handler2).matches(request);
-        lenient().doReturn(MatcherResult.NO_MATCH).when(handler3).matches(request);
+        routes.get("/api/users/me/settings", handler);
+        HttpRouteHandler template = routes.get("/api/users/{id}/groups", handler);
+
+        // When
+        Optional<HttpRouteHandler> actual =
+                routes.findMatchingHttpRouteHandler(GET, "/api/users/me/groups", new UriTemplateVariables());
+
+        // Then
+        assertThat(actual).isPresent().contains(template);
+    }
+
+    @Test
+    void shouldCaptureOnlyPathParamsOfMatchingRoute() {
+        // Given
+        routes.get("/api/{group}/users/{id}/settings", handler);
+        HttpRouteHandler template = routes.get("/api/{group}/{resource}/{id}/groups", handler);
+        UriTemplateVariables variables = new UriTemplateVariables();
+
+        // When
+        Optional<HttpRouteHandler> actual =
+                routes.findMatchingHttpRouteHandler(GET, "/api/admins/users/23/groups", variables);
+
+        // Then
+        assertThat(actual).isPresent().contains(template);
+        assertThat(variables.asMap())
+                .hasSize(3)
+                .containsEntry("group", "admins")
+                .containsEntry("resource", "users")
+                .containsEntry("id", "23");
+    }
+
+    @Test
+    void shouldMatchTemplateWithinSegment() {
+        // Given
+        HttpRouteHandler template = routes.get("/Airports('{ID}')/Name/$value", handler);
+
+        // When
+        Optional<HttpRouteHandler> actual =
+                routes.findMatchingHttpRouteHandler(GET, "/Airports('KSFO')/Name/$value", new UriTemplateVariables());
+
+        // Then
+        assertThat(actual).isPresent().contains(template);
+    }
+
+    @Test
+    void shouldMatchTemplateWithEmptyVariable() {
+        // Given
+        HttpRouteHandler template = routes.get("/users/{groupId}", handler);
+
+        // When
+        Optional<HttpRouteHandler> actual =
+                routes.findMatchingHttpRouteHandler(GET, "/users/", new UriTemplateVariables());
+
+        // Then
+        assertThat(actual).isPresent().contains(template);
+    }
 
-        List<HttpRouteHandler> handlerList = Arrays.asList(handler1, handler2, handler3);
+    @Test
+    void shouldMatchCustomRegexSpanningMultipleSegments() {
+        // Given
+        routes.get("/web/index.html", handler);
+        HttpRouteHandler template = routes.get("/web/{page:.*}", handler);
 
         // When
         Optional<HttpRouteHandler> actual =
-                DefaultServerRoutes.findMatchingHttpRouteHandler(handlerList, request);
+                routes.findMatchingHttpRouteHandler(GET, "/web/assets/images/logo.png", new UriTemplateVariables());
+
+        // Then
+        assertThat(actual).isPresent().contains(template);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenRouteWithSameStructureAlreadyDefined() {
+        // Given
+        routes.get("/api/users/{id}", handler);
+
+        // Expect
+        assertThatThrownBy(() -> routes.get("/api/users/{name}", handler))
+                .isInstanceOf(RouteAlreadyDefinedException.class);
+    }
+
+    @Test
+    void shouldAllowSamePathWithDifferentMethod() {
+        // Given
+        HttpRouteHandler get = routes.get("/api/users/{id}", handler);
+
+        // When
+        HttpRouteHandler post = routes.post("/api/users/{id}", handler);
+
+        // Then
+        assertThat(routes.findMatchingHttpRouteHandler(GET, "/api/users/1", new UriTemplateVariables())).contains(get);
+        assertThat(routes.findMatchingHttpRouteHandler(POST, "/api/users/1", new UriTemplateVariables())).contains(post);
+    }
+
+    @Test
+    void shouldRemoveRoute() {
+        // Given
+        routes.get("/api/users/{id}", handler);
+        routes.get("/web/{page:.*}", handler);
+
+        // When
+        routes.remove(GET, "/api/users/{id}");
+        routes.remove(GET, "/web/{page:.*}");
+
+        // Then
+        assertThat(routes.handlers()).isEmpty();
+        assertThat(routes.findMatchingHttpRouteHandler(GET, "/api/users/1", new UriTemplateVariables())).isNotPresent();
+        assertThat(routes.findMatchingHttpRouteHandler(GET, "/web/index.html", new UriTemplateVariables())).isNotPresent();
+    }
+
+    @Test
+    void shouldNotRemoveRouteWhenPathDoesNotMatchExactly() {
+        // Given
+        HttpRouteHandler template = routes.get("/api/users/{id}", handler);
+
+        // When
+        routes.remove(GET, "/api/users/{name}");
+
+        // Then
+        assertThat(routes.handlers()).containsExactly(template);
+        assertThat(routes.findMatchingHttpRouteHandler(GET, "/api/users/1", new UriTemplateVariables())).contains(template);
+    }
+
+    @Test
+    void shouldNotCreateNorBindMetricsWhenMetricsAreNotEnabled() {
+        // When
+        HttpRouteHandler routeHandler = routes.get("/api/users/{id}", handler);
+
+        // Then
+        assertThat(routeHandler.metrics()).isNull();
+        verify(handler, never()).bind(any(RouteMetrics.class));
+    }
+
+    @Test
+    void shouldCreateAndBindMetricsWhenMetricsAreEnabled() {
+        // Given
+        DefaultServerRoutes routesWithMetrics = new DefaultServerRoutes(true);
+
+        // When
+        HttpRouteHandler routeHandler = routesWithMetrics.get("/api/users/{id}", handler);
 
         // Then
-        assertThat(actual).isPresent().contains(handler2);
+        RouteMetrics metrics = routeHandler.metrics();
+        assertThat(metrics).isNotNull();
+        assertThat(metrics.method()).isEqualTo("GET");
+        assertThat(metrics.path()).isEqualTo("/api/users/{id}");
+        verify(handler).bind(metrics);
     }
 }
@@ -0,0 +1,85 @@
+package com.reedelk.rest.internal.server;
+
+import com.reedelk.rest.internal.commons.ExecutionModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlowExecutorTest {
+
+    private FlowExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) executor.shutdown();
+    }
+
+    @Test
+    void shouldNotCreateExecutorWhenExecutionModelIsInline() {
+        // When
+        executor = FlowExecutor.create(ExecutionModel.INLINE, 2, 10);
+
+        // Then
+        assertThat(executor).isNull();
+    }
+
+    @Test
+    void shouldExecuteTaskOnThreadPool() throws InterruptedException {
+        // Given
+        executor = FlowExecutor.create(ExecutionModel.THREAD_POOL, 2, 10);
+        CountDownLatch executed = new CountDownLatch(1);
+        AtomicReference<Thread> executingThread = new AtomicReference<>();
+        AtomicBoolean isCurrentThread = new AtomicBoolean();
+
+        // When
+        executor.execute(() -> {
+            executingThread.set(Thread.currentThread());
+            isCurrentThread.set(executor.isCurrentThread());
+            executed.countDown();
+        });
+
+        // Then
+        assertThat(executed.await(5, SECONDS)).isTrue();
+        assertThat(executingThread.get()).isNotEqualTo(Thread.currentThread());
+        assertThat(isCurrentThread.get()).isTrue();
+        assertThat(executor.isCurrentThread()).isFalse();
+    }
+
+    @Test
+    void shouldRejectTaskWhenThreadPoolQueueIsFull() throws InterruptedException {
+        // Given
+        executor = FlowExecutor.create(ExecutionModel.THREAD_POOL, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        assertThat(started.await(5, SECONDS)).isTrue();
+        executor.execute(() -> {});
+
+        // Expect
+        try {
+            assertThatThrownBy(() -> executor.execute(() -> {}))
+                    .isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
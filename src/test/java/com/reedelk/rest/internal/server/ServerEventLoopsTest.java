@@ -0,0 +1,45 @@
+package com.reedelk.rest.internal.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerEventLoopsTest {
+
+    @Test
+    void shouldShutdownGroupsWhenLastReferenceIsReleased() {
+        // Given
+        ServerEventLoops eventLoops = new ServerEventLoops(ServerTransport.NIO, 1, 2);
+        eventLoops.retain();
+        eventLoops.retain();
+
+        // When
+        eventLoops.release();
+
+        // Then
+        assertThat(eventLoops.isDisposed()).isFalse();
+        assertThat(eventLoops.workerGroup().isShuttingDown()).isFalse();
+
+        // When
+        eventLoops.release();
+
+        // Then
+        assertThat(eventLoops.isDisposed()).isTrue();
+        assertThat(eventLoops.bossGroup().isShutdown()).isTrue();
+        assertThat(eventLoops.workerGroup().isShutdown()).isTrue();
+    }
+
+    @Test
+    void shouldNotRetainDisposedEventLoops() {
+        // Given
+        ServerEventLoops eventLoops = new ServerEventLoops(ServerTransport.NIO, 1, 1);
+        eventLoops.retain();
+        eventLoops.release();
+
+        // When
+        boolean retained = eventLoops.retain();
+
+        // Then
+        assertThat(retained).isFalse();
+    }
+}
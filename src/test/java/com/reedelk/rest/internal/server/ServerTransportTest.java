@@ -0,0 +1,58 @@
+package com.reedelk.rest.internal.server;
+
+import com.reedelk.rest.internal.commons.Transport;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServerTransportTest {
+
+    @Test
+    void shouldReturnNioTransport() {
+        // When
+        ServerTransport transport = ServerTransport.from(Transport.NIO);
+
+        // Then
+        assertThat(transport).isEqualTo(ServerTransport.NIO);
+        assertThat(transport.serverChannelClass()).isEqualTo(NioServerSocketChannel.class);
+    }
+
+    @Test
+    void shouldAutoPickEpollTransportWhenAvailable() {
+        // When
+        ServerTransport transport = ServerTransport.from(Transport.AUTO);
+
+        // Then
+        ServerTransport expected = Epoll.isAvailable() ? ServerTransport.EPOLL : ServerTransport.NIO;
+        assertThat(transport).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldAutoPickTransportWhenNull() {
+        // When
+        ServerTransport transport = ServerTransport.from(null);
+
+        // Then
+        assertThat(transport).isEqualTo(ServerTransport.from(Transport.AUTO));
+    }
+
+    @Test
+    void shouldReturnEpollTransportOrThrowWhenNotAvailable() {
+        if (Epoll.isAvailable()) {
+            // When
+            ServerTransport transport = ServerTransport.from(Transport.EPOLL);
+
+            // Then
+            assertThat(transport.serverChannelClass()).isEqualTo(EpollServerSocketChannel.class);
+        } else {
+            // Expect
+            assertThatThrownBy(() -> ServerTransport.from(Transport.EPOLL))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageStartingWith("Transport [EPOLL] is not available on this platform");
+        }
+    }
+}
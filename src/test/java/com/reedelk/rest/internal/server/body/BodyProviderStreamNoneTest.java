@@ -0,0 +1,155 @@
+package com.reedelk.rest.internal.server.body;
+
+import com.reedelk.rest.TestComponent;
+import com.reedelk.runtime.api.commons.ModuleContext;
+import com.reedelk.runtime.api.exception.PlatformException;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.Optional;
+
+import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_LENGTH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BodyProviderStreamNoneTest {
+
+    private final ModuleContext moduleContext = new ModuleContext(10L);
+    private final Message message = MessageBuilder.get(TestComponent.class).withText("my payload").build();
+    private final Throwable exception = new PlatformException("Error while processing JSON");
+
+    @Mock
+    private FlowContext flowContext;
+    @Mock
+    private HttpServerResponse response;
+    @Mock
+    private ScriptEngineService scriptEngine;
+
+    @Test
+    void shouldSendStaticBodyWithoutEvaluatingIt() {
+        // Given
+        DynamicByteArray body = DynamicByteArray.from("my text body", moduleContext);
+        BodyProviderStreamNone provider = new BodyProviderStreamNone(scriptEngine, body, null);
+
+        // When
+        Publisher<ByteBuf> publisher = provider.from(response, message, flowContext);
+
+        // Then
+        assertThat(contentOf(publisher)).isEqualTo("my text body");
+        verify(response).addHeader(CONTENT_LENGTH, "12");
+        verifyNoInteractions(scriptEngine);
+    }
+
+    @Test
+    void shouldSendWholeStaticBodyToEachResponse() {
+        // Given
+        DynamicByteArray body = DynamicByteArray.from("my text body", moduleContext);
+        BodyProviderStreamNone provider = new BodyProviderStreamNone(scriptEngine, body, null);
+
+        // When: the first response reads its buffer.
+        ByteBuf first = Mono.from(provider.from(response, message, flowContext)).block();
+        first.readBytes(new byte[first.readableBytes()]);
+        ByteBuf second = Mono.from(provider.from(response, message, flowContext)).block();
+
+        // Then
+        assertThat(first.isReadable()).isFalse();
+        assertThat(second.toString(UTF_8)).isEqualTo("my text body");
+    }
+
+    @Test
+    void shouldSendEmptyBodyWhenStaticBodyIsEmptyText() {
+        // Given
+        DynamicByteArray body = DynamicByteArray.from("", moduleContext);
+        BodyProviderStreamNone provider = new BodyProviderStreamNone(scriptEngine, body, null);
+
+        // When
+        Publisher<ByteBuf> publisher = provider.from(response, message, flowContext);
+
+        // Then
+        assertThat(Mono.from(publisher).block()).isNull();
+        verify(response).addHeader(CONTENT_LENGTH, "0");
+        verifyNoInteractions(scriptEngine);
+    }
+
+    @Test
+    void shouldSendEmptyBodyWhenBodyIsNull() {
+        // Given
+        BodyProviderStreamNone provider = new BodyProviderStreamNone(scriptEngine, null, null);
+
+        // When
+        Publisher<ByteBuf> publisher = provider.from(response, message, flowContext);
+
+        // Then
+        assertThat(Mono.from(publisher).block()).isNull();
+        verify(response).addHeader(CONTENT_LENGTH, "0");
+        verifyNoInteractions(scriptEngine);
+    }
+
+    @Test
+    void shouldEvaluateBodyWhenBodyIsScript() {
+        // Given
+        DynamicByteArray body = DynamicByteArray.from("#[context.body]", moduleContext);
+        BodyProviderStreamNone provider = new BodyProviderStreamNone(scriptEngine, body, null);
+
+        doReturn(Optional.of("evaluated body".getBytes(UTF_8)))
+                .when(scriptEngine)
+                .evaluate(body, flowContext, message);
+
+        // When
+        Publisher<ByteBuf> publisher = provider.from(response, message, flowContext);
+
+        // Then
+        assertThat(contentOf(publisher)).isEqualTo("evaluated body");
+        verify(response).addHeader(CONTENT_LENGTH, "14");
+    }
+
+    @Test
+    void shouldSendStaticErrorBodyWithoutEvaluatingIt() {
+        // Given
+        DynamicByteArray errorBody = DynamicByteArray.from("error body", moduleContext);
+        BodyProviderStreamNone provider = new BodyProviderStreamNone(scriptEngine, null, errorBody);
+
+        // When
+        Publisher<ByteBuf> publisher = provider.from(response, exception, flowContext);
+
+        // Then
+        assertThat(contentOf(publisher)).isEqualTo("error body");
+        verify(response).addHeader(CONTENT_LENGTH, "10");
+        verifyNoInteractions(scriptEngine);
+    }
+
+    @Test
+    void shouldEvaluateErrorBodyWhenErrorBodyIsScript() {
+        // Given
+        DynamicByteArray errorBody = DynamicByteArray.from("#[error.getMessage()]", moduleContext);
+        BodyProviderStreamNone provider = new BodyProviderStreamNone(scriptEngine, null, errorBody);
+
+        doReturn(Optional.of("Error while processing JSON".getBytes(UTF_8)))
+                .when(scriptEngine)
+                .evaluate(errorBody, flowContext, exception);
+
+        // When
+        Publisher<ByteBuf> publisher = provider.from(response, exception, flowContext);
+
+        // Then
+        assertThat(contentOf(publisher)).isEqualTo("Error while processing JSON");
+        verify(response).addHeader(CONTENT_LENGTH, "27");
+    }
+
+    private static String contentOf(Publisher<ByteBuf> publisher) {
+        return Mono.from(publisher).map(buffer -> buffer.toString(UTF_8)).block();
+    }
+}
@@ -0,0 +1,283 @@
+package com.reedelk.rest.internal.server.cache;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.reedelk.rest.internal.commons.HttpHeader.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ResponseCacheTest {
+
+    private AtomicLong now = new AtomicLong(1_000_000);
+    private HttpServerResponse response;
+    private HttpHeaders responseHeaders;
+
+    @BeforeEach
+    void setUp() {
+        responseHeaders = new DefaultHttpHeaders();
+        responseHeaders.set(CONTENT_TYPE, "application/json");
+        response = mock(HttpServerResponse.class);
+        doReturn(HttpResponseStatus.OK).when(response).status();
+        doReturn(responseHeaders).when(response).responseHeaders();
+    }
+
+    @Test
+    void shouldReturnCachedResponseWithValidators() {
+        // Given
+        ResponseCache cache = cacheWith(1000, 10, 1024);
+        cache.put("key", "/api/products?page=1", response, "[1,2]".getBytes());
+
+        // When
+        CachedResponse cached = cache.get("key").get();
+
+        // Then
+        assertThat(cached.status()).isEqualTo(HttpResponseStatus.OK);
+        assertThat(cached.body()).isEqualTo("[1,2]".getBytes());
+        assertThat(cached.headers().get(CONTENT_TYPE)).isEqualTo("application/json");
+        assertThat(cached.headers().get(CONTENT_LENGTH)).isEqualTo("5");
+        assertThat(cached.headers().get(ETAG)).startsWith("\"").endsWith("\"");
+        assertThat(cached.headers().contains(LAST_MODIFIED)).isTrue();
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTimeToLive() {
+        // Given
+        ResponseCache cache = cacheWith(1000, 10, 1024);
+        cache.put("key", "/api/products", response, "[]".getBytes());
+
+        // When
+        now.addAndGet(1000);
+
+        // Then
+        assertThat(cache.get("key")).isNotPresent();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedWhenMaxEntriesExceeded() {
+        // Given
+        ResponseCache cache = cacheWith(1000, 2, 1024);
+        cache.put("key1", "/api/1", response, "1".getBytes());
+        cache.put("key2", "/api/2", response, "2".getBytes());
+        cache.get("key1");
+
+        // When
+        cache.put("key3", "/api/3", response, "3".getBytes());
+
+        // Then
+        assertThat(cache.get("key1")).isPresent();
+        assertThat(cache.get("key2")).isNotPresent();
+        assertThat(cache.get("key3")).isPresent();
+    }
+
+    @Test
+    void shouldEvictWhenByteBudgetExceeded() {
+        // Given
+        ResponseCache cache = cacheWith(1000, 10, 10);
+        cache.put("key1", "/api/1", response, "123456".getBytes());
+
+        // When
+        cache.put("key2", "/api/2", response, "123456".getBytes());
+
+        // Then
+        assertThat(cache.get("key1")).isNotPresent();
+        assertThat(cache.get("key2")).isPresent();
+        assertThat(cache.bytes()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldNotCacheResponseBiggerThanByteBudget() {
+        // Given
+        ResponseCache cache = cacheWith(1000, 10, 4);
+
+        // When
+        CachedResponse cached = cache.put("key", "/api", response, "123456".getBytes());
+
+        // Then
+        assertThat(cached.body()).isEqualTo("123456".getBytes());
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldInvalidateAllEntriesWithPath() {
+        // Given
+        ResponseCache cache = cacheWith(1000, 10, 1024);
+        cache.put("key1", "/api/products?page=1", response, "1".getBytes());
+        cache.put("key2", "/api/products?page=2", response, "2".getBytes());
+        cache.put("key3", "/api/orders", response, "3".getBytes());
+
+        // When
+        cache.invalidate("/api/products");
+
+        // Then
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("key3")).isPresent();
+        assertThat(cache.bytes()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBuildKeyFromUriAndSelectedHeaders() {
+        // Given
+        ResponseCache cache = new ResponseCache(1000, 10, 1024, "Accept, Accept-Language");
+        HttpHeaders requestHeaders = new DefaultHttpHeaders();
+        requestHeaders.set("Accept", "application/json");
+        requestHeaders.set("X-Other", "ignored");
+
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        doReturn("/api/products?page=1").when(request).uri();
+        doReturn(requestHeaders).when(request).requestHeaders();
+
+        // When
+        String key = cache.keyOf(request);
+
+        // Then
+        assertThat(key).isEqualTo("/api/products?page=1\napplication/json\n");
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenResponseSetsCookie() {
+        // Given
+        responseHeaders.set(SET_COOKIE, "session=1");
+
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(response)).isFalse();
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenStatusIsNotOk() {
+        // Given
+        doReturn(HttpResponseStatus.CREATED).when(response).status();
+
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(response)).isFalse();
+    }
+
+    @Test
+    void shouldBeCacheableWhenResponseIsOkAndNotPrivate() {
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(response)).isTrue();
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenResponseVariesOnHeaderNotInKey() {
+        // Given
+        ResponseCache cache = new ResponseCache(1000, 10, 1024, "Accept");
+        responseHeaders.set(VARY, "Accept, Accept-Language");
+
+        // Expect
+        assertThat(cache.isCacheable(response)).isFalse();
+    }
+
+    @Test
+    void shouldBeCacheableWhenResponseVariesOnKeyHeadersOnly() {
+        // Given
+        ResponseCache cache = new ResponseCache(1000, 10, 1024, "Accept, Accept-Language");
+        responseHeaders.add(VARY, "accept");
+        responseHeaders.add(VARY, "Accept-Language");
+
+        // Expect
+        assertThat(cache.isCacheable(response)).isTrue();
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenResponseVariesOnAnyHeader() {
+        // Given
+        ResponseCache cache = new ResponseCache(1000, 10, 1024, "Accept");
+        responseHeaders.set(VARY, "*");
+
+        // Expect
+        assertThat(cache.isCacheable(response)).isFalse();
+    }
+
+    @Test
+    void shouldBeCacheableWhenRequestHasNoCredentials() {
+        // Given
+        HttpServerRequest request = requestWith(new DefaultHttpHeaders().set("Accept", "application/json"));
+
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(request)).isTrue();
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenRequestHasAuthorizationNotInKey() {
+        // Given
+        HttpServerRequest request = requestWith(new DefaultHttpHeaders().set(AUTHORIZATION, "Bearer user1"));
+
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(request)).isFalse();
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenRequestHasCookieNotInKey() {
+        // Given
+        HttpServerRequest request = requestWith(new DefaultHttpHeaders().set(COOKIE, "session=1"));
+
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(request)).isFalse();
+    }
+
+    @Test
+    void shouldBeCacheableWhenRequestCredentialsArePartOfKey() {
+        // Given
+        ResponseCache cache = new ResponseCache(1000, 10, 1024, "Authorization, Cookie");
+        HttpServerRequest request = requestWith(new DefaultHttpHeaders()
+                .set(AUTHORIZATION, "Bearer user1")
+                .set(COOKIE, "session=1"));
+
+        // Expect
+        assertThat(cache.isCacheable(request)).isTrue();
+    }
+
+    @Test
+    void shouldNotServeResponseCachedForOtherCredentials() {
+        // Given
+        ResponseCache cache = new ResponseCache(1000, 10, 1024, "Authorization");
+        HttpServerRequest user1 = requestWith(new DefaultHttpHeaders().set(AUTHORIZATION, "Bearer user1"));
+        HttpServerRequest user2 = requestWith(new DefaultHttpHeaders().set(AUTHORIZATION, "Bearer user2"));
+        cache.put(cache.keyOf(user1), "/api/products", response, "user1".getBytes());
+
+        // When
+        Optional<CachedResponse> cached = cache.get(cache.keyOf(user2));
+
+        // Then
+        assertThat(cached).isNotPresent();
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenRequestCacheControlIsNoStore() {
+        // Given
+        HttpServerRequest request = requestWith(new DefaultHttpHeaders().set(CACHE_CONTROL, "no-store"));
+
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(request)).isFalse();
+    }
+
+    @Test
+    void shouldNotBeCacheableWhenRequestCacheControlIsNoCache() {
+        // Given
+        HttpServerRequest request = requestWith(new DefaultHttpHeaders().set(CACHE_CONTROL, "no-cache"));
+
+        // Expect
+        assertThat(cacheWith(1000, 10, 1024).isCacheable(request)).isFalse();
+    }
+
+    private static HttpServerRequest requestWith(HttpHeaders requestHeaders) {
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        doReturn("/api/products").when(request).uri();
+        doReturn(requestHeaders).when(request).requestHeaders();
+        return request;
+    }
+
+    private ResponseCache cacheWith(long ttlMillis, int maxEntries, long maxBytes) {
+        return new ResponseCache(ttlMillis, maxEntries, maxBytes, null, now::get);
+    }
+}
@@ -0,0 +1,46 @@
+package com.reedelk.rest.internal.server.configurer;
+
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.HttpProtocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerConfigurerTest {
+
+    @Test
+    void shouldSupportHttp11OnlyByDefault() {
+        // When
+        HttpProtocol[] protocols = ServerConfigurer.protocolsOf(null);
+
+        // Then
+        assertThat(protocols).containsExactly(HttpProtocol.HTTP11);
+    }
+
+    @Test
+    void shouldSupportHttp11OnlyWhenHttpVersionIsHttp11() {
+        // When
+        HttpProtocol[] protocols = ServerConfigurer.protocolsOf(HttpProtocolVersion.HTTP_1_1);
+
+        // Then
+        assertThat(protocols).containsExactly(HttpProtocol.HTTP11);
+    }
+
+    @Test
+    void shouldSupportH2cAndHttp11UpgradeWhenHttpVersionIsH2c() {
+        // When
+        HttpProtocol[] protocols = ServerConfigurer.protocolsOf(HttpProtocolVersion.H2C);
+
+        // Then
+        assertThat(protocols).containsExactly(HttpProtocol.HTTP11, HttpProtocol.H2C);
+    }
+
+    @Test
+    void shouldSupportH2AndHttp11FallbackWhenHttpVersionIsH2() {
+        // When
+        HttpProtocol[] protocols = ServerConfigurer.protocolsOf(HttpProtocolVersion.H2);
+
+        // Then
+        assertThat(protocols).containsExactly(HttpProtocol.HTTP11, HttpProtocol.H2);
+    }
+}
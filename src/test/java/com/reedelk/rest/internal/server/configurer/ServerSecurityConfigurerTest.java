@@ -0,0 +1,155 @@
+package com.reedelk.rest.internal.server.configurer;
+
+import com.reedelk.rest.component.RESTListenerConfiguration;
+import com.reedelk.rest.component.listener.CertificateAndPrivateKeyConfiguration;
+import com.reedelk.rest.component.listener.SecurityConfiguration;
+import com.reedelk.rest.component.listener.ServerSecurityType;
+import com.reedelk.rest.internal.commons.HttpProtocol;
+import com.reedelk.rest.internal.commons.HttpProtocolVersion;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.tcp.TcpServer;
+
+import java.security.cert.CertificateException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerSecurityConfigurerTest {
+
+    private SelfSignedCertificate certificate;
+    private DisposableServer server;
+
+    @BeforeEach
+    void setUp() throws CertificateException {
+        certificate = new SelfSignedCertificate("localhost");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.disposeNow();
+        certificate.delete();
+    }
+
+    @Test
+    void shouldNotSecureBootstrapWhenProtocolIsHttp() {
+        // Given
+        TcpServer bootstrap = TcpServer.create();
+        RESTListenerConfiguration configuration = configurationWith(HttpProtocol.HTTP, HttpProtocolVersion.H2C);
+        configuration.setSecurityConfiguration(certificateAndPrivateKey());
+
+        // When
+        TcpServer configured = ServerSecurityConfigurer.configure(RESTListenerConfiguration.class, bootstrap, configuration);
+
+        // Then
+        assertThat(configured).isSameAs(bootstrap);
+    }
+
+    @Test
+    void shouldNotSecureBootstrapWhenSecurityConfigurationIsMissing() {
+        // Given
+        TcpServer bootstrap = TcpServer.create();
+        RESTListenerConfiguration configuration = configurationWith(HttpProtocol.HTTPS, HttpProtocolVersion.H2);
+
+        // When
+        TcpServer configured = ServerSecurityConfigurer.configure(RESTListenerConfiguration.class, bootstrap, configuration);
+
+        // Then
+        assertThat(configured).isSameAs(bootstrap);
+    }
+
+    @Test
+    void shouldNegotiateH2WhenHttpVersionIsH2() {
+        // Given
+        server = bind(configurationWith(HttpProtocol.HTTPS, HttpProtocolVersion.H2));
+
+        // When
+        HttpVersion version = responseVersion(reactor.netty.http.HttpProtocol.H2, reactor.netty.http.HttpProtocol.HTTP11);
+
+        // Then
+        assertThat(version.text()).isEqualTo("HTTP/2.0");
+    }
+
+    @Test
+    void shouldFallBackToHttp11WhenH2ClientDoesNotNegotiateH2() {
+        // Given
+        server = bind(configurationWith(HttpProtocol.HTTPS, HttpProtocolVersion.H2));
+
+        // When
+        HttpVersion version = responseVersion(reactor.netty.http.HttpProtocol.HTTP11);
+
+        // Then
+        assertThat(version).isEqualTo(HttpVersion.HTTP_1_1);
+    }
+
+    @Test
+    void shouldServeHttp11WhenHttpVersionIsHttp11() {
+        // Given
+        server = bind(configurationWith(HttpProtocol.HTTPS, HttpProtocolVersion.HTTP_1_1));
+
+        // When
+        HttpVersion version = responseVersion(reactor.netty.http.HttpProtocol.H2, reactor.netty.http.HttpProtocol.HTTP11);
+
+        // Then
+        assertThat(version).isEqualTo(HttpVersion.HTTP_1_1);
+    }
+
+    @Test
+    void shouldServeHttp11WhenHttpVersionIsNotDefined() {
+        // Given
+        server = bind(configurationWith(HttpProtocol.HTTPS, null));
+
+        // When
+        HttpVersion version = responseVersion(reactor.netty.http.HttpProtocol.H2, reactor.netty.http.HttpProtocol.HTTP11);
+
+        // Then
+        assertThat(version).isEqualTo(HttpVersion.HTTP_1_1);
+    }
+
+    // Binds the server the same way the default server does.
+    private DisposableServer bind(RESTListenerConfiguration configuration) {
+        configuration.setSecurityConfiguration(certificateAndPrivateKey());
+        TcpServer bootstrap = ServerSecurityConfigurer.configure(RESTListenerConfiguration.class, TcpServer.create(), configuration);
+        HttpServer httpServer = HttpServer.from(bootstrap)
+                .handle((request, response) -> response.sendString(Mono.just("response body")));
+        return ServerConfigurer.configure(httpServer, configuration).port(0).bindNow();
+    }
+
+    private HttpVersion responseVersion(reactor.netty.http.HttpProtocol... protocols) {
+        return HttpClient.create()
+                .protocol(protocols)
+                .secure(sslContextSpec -> sslContextSpec.sslContext(
+                        SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE)))
+                .get()
+                .uri("https://localhost:" + server.port() + "/")
+                .responseSingle((response, body) -> body.then(Mono.just(response.version())))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private SecurityConfiguration certificateAndPrivateKey() {
+        CertificateAndPrivateKeyConfiguration certificateAndPrivateKey = new CertificateAndPrivateKeyConfiguration();
+        certificateAndPrivateKey.setCertificateFile(certificate.certificate().getAbsolutePath());
+        certificateAndPrivateKey.setPrivateKeyFile(certificate.privateKey().getAbsolutePath());
+        SecurityConfiguration securityConfiguration = new SecurityConfiguration();
+        securityConfiguration.setType(ServerSecurityType.CERTIFICATE_AND_PRIVATE_KEY);
+        securityConfiguration.setCertificateAndPrivateKey(certificateAndPrivateKey);
+        return securityConfiguration;
+    }
+
+    private static RESTListenerConfiguration configurationWith(HttpProtocol protocol, HttpProtocolVersion httpVersion) {
+        RESTListenerConfiguration configuration = new RESTListenerConfiguration();
+        configuration.setHost("localhost");
+        configuration.setProtocol(protocol);
+        configuration.setHttpVersion(httpVersion);
+        return configuration;
+    }
+}
@@ -62,7 +62,7 @@ class HttpRequestMessageMapperTest {
         doReturn(HttpScheme.HTTP.toString()).when(mockRequest).scheme();
 
         // When
-        Message message = mapper.map(mockRequest);
+        Message message = mapper.map(mockRequest, new RequestBodyBuffers());
 
         // Then
         HashMap<String, List<String>> expectedQueryParams = new HashMap<>();
@@ -3,6 +3,9 @@ package com.reedelk.rest.internal.server.mapper;
 import com.reedelk.rest.TestComponent;
 import com.reedelk.rest.component.listener.ErrorResponse;
 import com.reedelk.rest.component.listener.Response;
+import com.reedelk.rest.internal.RequestEntityTooLargeException;
+import com.reedelk.rest.internal.attribute.RESTClientAttributes;
+import com.reedelk.rest.internal.commons.PassThroughHeaders;
 import com.reedelk.runtime.api.commons.ModuleContext;
 import com.reedelk.runtime.api.exception.PlatformException;
 import com.reedelk.runtime.api.flow.FlowContext;
@@ -13,10 +16,14 @@ import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicmap.DynamicStringMap;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicByteArray;
 import com.reedelk.runtime.api.script.dynamicvalue.DynamicInteger;
-import com.reedelk.runtime.api.script.dynamicvalue.DynamicValue;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHttpResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -27,7 +34,6 @@ import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.netty.http.server.HttpServerResponse;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,14 +71,12 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithStatus(status);
                 Message message = MessageBuilder.get(TestComponent.class).withText("a body").build();
 
-                doReturn(Optional.of(201))
-                        .when(scriptEngine).evaluate(status, flowContext, message);
-
                 // When
                 mapper.map(message, response, flowContext);
 
                 // Then
                 verify(response).status(HttpResponseStatus.CREATED);
+                verifyNoMoreInteractions(scriptEngine);
             }
 
             @Test
@@ -100,9 +104,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithStatus(status);
                 Message message = MessageBuilder.get(TestComponent.class).withText("a body").build();
 
-                doReturn(Optional.empty())
-                        .when(scriptEngine).evaluate(status, flowContext, message);
-
                 // When
                 mapper.map(message, response, flowContext);
 
@@ -122,10 +123,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithBody(body);
                 Message message = MessageBuilder.get(TestComponent.class).withText("my text body").build();
 
-                doReturn(new HashMap<>())
-                        .when(scriptEngine)
-                        .evaluate(DynamicStringMap.empty(), flowContext, message);
-
                 // When
                 mapper.map(message, response, flowContext);
 
@@ -154,10 +151,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithBody(body);
                 Message message = MessageBuilder.get(TestComponent.class).empty().build();
 
-                doReturn(new HashMap<>())
-                        .when(scriptEngine)
-                        .evaluate(DynamicStringMap.empty(), flowContext, message);
-
                 // When
                 mapper.map(message, response, flowContext);
 
@@ -173,10 +166,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithBody(body);
                 Message message = MessageBuilder.get(TestComponent.class).empty().build();
 
-                doReturn(new HashMap<>())
-                        .when(scriptEngine)
-                        .evaluate(DynamicStringMap.empty(), flowContext, message);
-
                 // When
                 mapper.map(message, response, flowContext);
 
@@ -204,10 +193,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithAdditionalHeaders(headers);
                 Message message = MessageBuilder.get(TestComponent.class).empty().build();
 
-                doReturn(of("header1", "my header 1", "header2", "my header 2"))
-                        .when(scriptEngine)
-                        .evaluate(headers, flowContext, message);
-
                 // When
                 mapper.map(message, response, flowContext);
 
@@ -231,10 +216,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithAdditionalHeaders(headers);
                 Message message = MessageBuilder.get(TestComponent.class).empty().build();
 
-                doReturn(of("coNteNt-TyPe", "new content type"))
-                        .when(scriptEngine)
-                        .evaluate(headers, flowContext, message);
-
                 // When
                 mapper.map(message, response, flowContext);
 
@@ -260,6 +241,89 @@ class MessageHttpResponseMapperTest {
                 verifyNoMoreInteractions(scriptEngine);
             }
         }
+
+        @Nested
+        @DisplayName("Pass-through response is correct")
+        class PassThrough {
+
+            @Test
+            void shouldSetRelayedStatusAndHeadersWhenStatusIsNotSet() {
+                // Given
+                HttpHeaders initialHeaders = new DefaultHttpHeaders();
+                doReturn(initialHeaders).when(response).responseHeaders();
+
+                MessageHttpResponseMapper mapper = newMapperWithStatus(null);
+                Message message = passThroughMessage(503,
+                        new BasicHeader("Content-Type", "application/json"),
+                        new BasicHeader("Set-Cookie", "session=abc"),
+                        new BasicHeader("Set-Cookie", "theme=dark"));
+
+                // When
+                mapper.map(message, response, flowContext);
+
+                // Then
+                verify(response).status(HttpResponseStatus.SERVICE_UNAVAILABLE);
+                assertThat(initialHeaders.get(CONTENT_TYPE)).isEqualTo("application/json");
+                assertThat(initialHeaders.getAll("Set-Cookie")).containsExactly("session=abc", "theme=dark");
+                verifyNoMoreInteractions(scriptEngine);
+            }
+
+            @Test
+            void shouldSetListenerStatusWhenStatusIsSet() {
+                // Given
+                doReturn(new DefaultHttpHeaders()).when(response).responseHeaders();
+
+                DynamicInteger status = DynamicInteger.from("201", moduleContext);
+                MessageHttpResponseMapper mapper = newMapperWithStatus(status);
+                Message message = passThroughMessage(503);
+
+                // When
+                mapper.map(message, response, flowContext);
+
+                // Then
+                verify(response).status(HttpResponseStatus.CREATED);
+                verifyNoMoreInteractions(scriptEngine);
+            }
+
+            @Test
+            void shouldSetListenerStatusWhenStatusIsScript() {
+                // Given
+                doReturn(new DefaultHttpHeaders()).when(response).responseHeaders();
+
+                DynamicInteger status = DynamicInteger.from("#[myStatusCodeVar]", moduleContext);
+                MessageHttpResponseMapper mapper = newMapperWithStatus(status);
+                Message message = passThroughMessage(503);
+
+                doReturn(Optional.of(202))
+                        .when(scriptEngine)
+                        .evaluate(status, flowContext, message);
+
+                // When
+                mapper.map(message, response, flowContext);
+
+                // Then
+                verify(response).status(HttpResponseStatus.ACCEPTED);
+            }
+
+            @Test
+            void shouldOverrideRelayedHeaderWithListenerHeader() {
+                // Given
+                HttpHeaders initialHeaders = new DefaultHttpHeaders();
+                doReturn(initialHeaders).when(response).responseHeaders();
+
+                DynamicStringMap headers = DynamicStringMap.empty();
+                headers.put("content-type", "text/html");
+
+                MessageHttpResponseMapper mapper = newMapperWithAdditionalHeaders(headers);
+                Message message = passThroughMessage(200, new BasicHeader("Content-Type", "application/json"));
+
+                // When
+                mapper.map(message, response, flowContext);
+
+                // Then
+                assertThat(initialHeaders.getAll(CONTENT_TYPE)).containsExactly("text/html");
+            }
+        }
     }
 
     @Nested
@@ -316,6 +380,35 @@ class MessageHttpResponseMapperTest {
                 // Then
                 verify(response).status(HttpResponseStatus.INTERNAL_SERVER_ERROR);
             }
+
+            @Test
+            void shouldSetRequestEntityTooLargeStatusWhenRequestBodyExceedsLimitsAndStatusIsNull() {
+                // Given
+                MessageHttpResponseMapper mapper = newMapperWithErrorStatus(null);
+                Throwable exception = new PlatformException("Flow error",
+                        new RequestEntityTooLargeException("Multipart request size exceeds the maximum allowed size of 1024 bytes"));
+
+                // When
+                mapper.map(exception, response, flowContext);
+
+                // Then
+                verify(response).status(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+                verifyNoMoreInteractions(scriptEngine);
+            }
+
+            @Test
+            void shouldSetGivenHttpResponseStatusWhenRequestBodyExceedsLimits() {
+                // Given
+                DynamicInteger status = DynamicInteger.from("400", moduleContext);
+                MessageHttpResponseMapper mapper = newMapperWithErrorStatus(status);
+                Throwable exception = new RequestEntityTooLargeException("Multipart request size exceeds the maximum allowed size of 1024 bytes");
+
+                // When
+                mapper.map(exception, response, flowContext);
+
+                // Then
+                verify(response).status(HttpResponseStatus.BAD_REQUEST);
+            }
         }
 
         @Nested
@@ -329,15 +422,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithErrorBody(errorBody);
                 Throwable exception = new PlatformException("Error while processing JSON");
 
-                DynamicValue nullDynamicValue = null;
-                doReturn(Optional.empty())
-                        .when(scriptEngine)
-                        .evaluate(nullDynamicValue, flowContext, exception);
-
-                doReturn(new HashMap<>())
-                        .when(scriptEngine)
-                        .evaluate(DynamicStringMap.empty(), flowContext, exception);
-
                 // When
                 mapper.map(exception, response, flowContext);
 
@@ -349,15 +433,10 @@ class MessageHttpResponseMapperTest {
             @Test
             void shouldSetContentTypeHeaderWhenBodyIsText() {
                 // Given
-                DynamicValue nullDynamicValue = null;
-
                 DynamicByteArray errorBody = DynamicByteArray.from("my text body", moduleContext);
                 MessageHttpResponseMapper mapper = newMapperWithErrorBody(errorBody);
                 Throwable exception = new PlatformException("Error while processing JSON");
 
-                doReturn(Optional.empty())
-                        .when(scriptEngine).evaluate(nullDynamicValue, flowContext, exception);
-
                 // When
                 mapper.map(exception, response, flowContext);
 
@@ -372,15 +451,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithErrorBody(errorBody);
                 Throwable exception = new PlatformException("Error while processing JSON");
 
-                DynamicValue nullDynamicValue = null;
-                doReturn(Optional.empty())
-                        .when(scriptEngine)
-                        .evaluate(nullDynamicValue, flowContext, exception);
-
-                doReturn(new HashMap<>())
-                        .when(scriptEngine)
-                        .evaluate(DynamicStringMap.empty(), flowContext, exception);
-
                 // When
                 mapper.map(exception, response, flowContext);
 
@@ -396,15 +466,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithErrorBody(errorBody);
                 Throwable exception = new PlatformException("Error while processing JSON");
 
-                DynamicValue nullDynamicValue = null;
-                doReturn(Optional.empty())
-                        .when(scriptEngine)
-                        .evaluate(nullDynamicValue, flowContext, exception);
-
-                doReturn(new HashMap<>())
-                        .when(scriptEngine)
-                        .evaluate(DynamicStringMap.empty(), flowContext, exception);
-
                 // When
                 mapper.map(exception, response, flowContext);
 
@@ -419,15 +480,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithErrorBody(null);
                 Throwable exception = new PlatformException("Error while processing JSON");
 
-                DynamicValue nullDynamicValue = null;
-                doReturn(Optional.empty())
-                        .when(scriptEngine).evaluate(nullDynamicValue, flowContext, exception);
-
-                DynamicStringMap emptyMap = DynamicStringMap.empty();
-                doReturn(new HashMap<>())
-                        .when(scriptEngine)
-                        .evaluate(emptyMap, flowContext, exception);
-
                 // When
                 mapper.map(exception, response, flowContext);
 
@@ -455,15 +507,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithErrorAdditionalHeaders(headers);
                 Throwable exception = new PlatformException("Error while processing JSON");
 
-                doReturn(of("header1", "my header 1", "header2", "my header 2"))
-                        .when(scriptEngine)
-                        .evaluate(headers, flowContext, exception);
-
-                DynamicValue nullDynamicValue = null;
-                doReturn(Optional.empty())
-                        .when(scriptEngine)
-                        .evaluate(nullDynamicValue, flowContext, exception);
-
                 // When
                 mapper.map(exception, response, flowContext);
 
@@ -486,15 +529,6 @@ class MessageHttpResponseMapperTest {
                 MessageHttpResponseMapper mapper = newMapperWithErrorAdditionalHeaders(headers);
                 Throwable exception = new PlatformException("Error while processing JSON");
 
-                doReturn(of("coNteNt-TyPe", "new content type"))
-                        .when(scriptEngine)
-                        .evaluate(headers, flowContext, exception);
-
-                DynamicValue nullDynamicValue = null;
-                doReturn(Optional.empty())
-                        .when(scriptEngine)
-                        .evaluate(nullDynamicValue, flowContext, exception);
-
                 // When
                 mapper.map(exception, response, flowContext);
 
@@ -521,6 +555,15 @@ class MessageHttpResponseMapperTest {
         }
     }
 
+    private Message passThroughMessage(int statusCode, Header... headers) {
+        HttpResponse relayedResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, null);
+        relayedResponse.setHeaders(headers);
+        RESTClientAttributes attributes = new RESTClientAttributes(relayedResponse, PassThroughHeaders.excluding(null));
+        return MessageBuilder.get(TestComponent.class)
+                .withText("a body")
+                .attributes(attributes)
+                .build();
+    }
 
     private void assertThatStreamIs(Publisher<byte[]> actualStream, String expected) {
         List<String> block = Flux.from(actualStream).map(String::new).collectList().block();
@@ -544,9 +587,6 @@ class MessageHttpResponseMapperTest {
         response.setBody(responseBody);
         response.setStatus(statusValue);
 
-        doReturn(Optional.of(200))
-                .when(scriptEngine).evaluate(eq(statusValue), any(FlowContext.class), any(Message.class));
-
         return new MessageHttpResponseMapper(scriptEngine, response, null);
     }
 
@@ -568,9 +608,6 @@ class MessageHttpResponseMapperTest {
         response.setBody(bodyValue);
         response.setStatus(statusValue);
 
-        doReturn(Optional.of(200))
-                .when(scriptEngine).evaluate(eq(statusValue), any(FlowContext.class), any(Message.class));
-
         return new MessageHttpResponseMapper(scriptEngine, response, null);
     }
 
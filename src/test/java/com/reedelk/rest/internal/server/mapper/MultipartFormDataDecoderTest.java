@@ -0,0 +1,173 @@
+package com.reedelk.rest.internal.server.mapper;
+
+import com.reedelk.rest.internal.RequestEntityTooLargeException;
+import com.reedelk.runtime.api.message.content.Attachment;
+import com.reedelk.runtime.api.message.content.MimeType;
+import com.reedelk.runtime.api.type.MapOfAttachments;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.multipart.DiskAttribute;
+import io.netty.handler.codec.http.multipart.DiskFileUpload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.server.HttpServerRequest;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.reedelk.rest.internal.commons.HttpHeader.CONTENT_TYPE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class MultipartFormDataDecoderTest {
+
+    private static final String BOUNDARY = "----TestBoundary";
+    private static final String BODY =
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"username\"\r\n" +
+            "\r\n" +
+            "John\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"myfile\"; filename=\"file.ext\"\r\n" +
+            "Content-Type: application/octet-stream\r\n" +
+            "Content-Transfer-Encoding: binary\r\n" +
+            "\r\n" +
+            "my binary text\r\n" +
+            "--" + BOUNDARY + "--\r\n";
+
+    private HttpRequestWrapper request;
+    private MultipartFormDataDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        headers.add(CONTENT_TYPE, "multipart/form-data; boundary=" + BOUNDARY);
+
+        HttpServerRequest mockRequest = mock(HttpServerRequest.class);
+        doReturn("/upload").when(mockRequest).uri();
+        doReturn(headers).when(mockRequest).requestHeaders();
+        request = new HttpRequestWrapper(mockRequest);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (decoder != null) decoder.destroy();
+    }
+
+    @Test
+    void shouldDecodePartsOfferedInSmallChunks() {
+        // Given
+        decoder = new MultipartFormDataDecoder(request, MultipartSettings.defaults());
+
+        // When
+        offerInChunksOf(7);
+        MapOfAttachments parts = decoder.complete();
+
+        // Then
+        assertThat(parts).containsOnlyKeys("username", "myfile");
+
+        Attachment username = parts.get("username");
+        assertThat(username.data()).isEqualTo("John".getBytes());
+        assertThat(username.mimeType()).isEqualTo(MimeType.TEXT_PLAIN);
+
+        Attachment myFile = parts.get("myfile");
+        assertThat(myFile.data()).isEqualTo("my binary text".getBytes());
+        assertThat(myFile.attributes()).containsEntry(MultipartAttribute.FILE_NAME, "file.ext");
+    }
+
+    @Test
+    void shouldDecodePartsAboveMemoryThresholdWrittenToDisk() {
+        // Given
+        decoder = new MultipartFormDataDecoder(request, new MultipartSettings(4, null, null));
+
+        // When
+        offerInChunksOf(5);
+        MapOfAttachments parts = decoder.complete();
+
+        // Then
+        assertThat(parts.get("username").data()).isEqualTo("John".getBytes());
+        assertThat(parts.get("myfile").data()).isEqualTo("my binary text".getBytes());
+    }
+
+    @Test
+    void shouldDeleteTemporaryFilesOfPartsWrittenToDisk() {
+        // Given
+        Set<String> existing = temporaryFiles();
+        decoder = new MultipartFormDataDecoder(request, new MultipartSettings(4, null, null));
+
+        // When
+        offerInChunksOf(5);
+        decoder.complete();
+
+        // Then
+        assertThat(temporaryFiles()).isSubsetOf(existing);
+    }
+
+    @Test
+    void shouldDeleteTemporaryFileOfPartNotFullyReceivedWhenDestroyed() {
+        // Given
+        Set<String> existing = temporaryFiles();
+        decoder = new MultipartFormDataDecoder(request, new MultipartSettings(4, null, null));
+        ByteBuf firstChunk = Unpooled.wrappedBuffer(BODY.substring(0, BODY.length() - 20).getBytes(StandardCharsets.UTF_8));
+        decoder.offer(firstChunk);
+        firstChunk.release();
+
+        // When
+        decoder.destroy();
+        decoder = null;
+
+        // Then
+        assertThat(temporaryFiles()).isSubsetOf(existing);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPartSizeExceedsLimit() {
+        // Given
+        decoder = new MultipartFormDataDecoder(request, new MultipartSettings(null, 10, null));
+
+        // Expect
+        assertThatThrownBy(() -> {
+            offerInChunksOf(7);
+            decoder.complete();
+        }).isInstanceOf(RequestEntityTooLargeException.class)
+                .hasMessageContaining("myfile");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenRequestSizeExceedsLimit() {
+        // Given
+        decoder = new MultipartFormDataDecoder(request, new MultipartSettings(null, null, 100));
+
+        // Expect
+        assertThatThrownBy(() -> offerInChunksOf(7))
+                .isInstanceOf(RequestEntityTooLargeException.class);
+    }
+
+    // The temporary files of the parts written to disk, named as by the Netty disk data.
+    private static Set<String> temporaryFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir"))
+                .list((directory, name) -> name.startsWith(DiskFileUpload.prefix) || name.startsWith(DiskAttribute.prefix));
+        return names == null ? new HashSet<>() : new HashSet<>(Arrays.asList(names));
+    }
+
+    private void offerInChunksOf(int chunkSize) {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, body.length - offset);
+            ByteBuf chunk = Unpooled.wrappedBuffer(body, offset, length);
+            try {
+                decoder.offer(chunk);
+            } finally {
+                chunk.release();
+            }
+        }
+    }
+}
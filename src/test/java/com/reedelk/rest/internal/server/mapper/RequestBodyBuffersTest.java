@@ -0,0 +1,59 @@
+package com.reedelk.rest.internal.server.mapper;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestBodyBuffersTest {
+
+    private RequestBodyBuffers bodyBuffers = new RequestBodyBuffers();
+
+    @Test
+    void shouldReturnReadOnlyViewOfTrackedBuffer() {
+        // Given
+        ByteBuf buffer = Unpooled.directBuffer().writeBytes("test body".getBytes());
+
+        // When
+        ByteBuffer view = bodyBuffers.track(buffer);
+
+        // Then
+        assertThat(view.isReadOnly()).isTrue();
+        assertThat(StandardCharsets.UTF_8.decode(view).toString()).isEqualTo("test body");
+        assertThat(buffer.refCnt()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReleaseTrackedBuffers() {
+        // Given
+        ByteBuf buffer1 = Unpooled.directBuffer().writeBytes("one".getBytes());
+        ByteBuf buffer2 = Unpooled.directBuffer().writeBytes("two".getBytes());
+        bodyBuffers.track(buffer1);
+        bodyBuffers.track(buffer2);
+
+        // When
+        bodyBuffers.release();
+
+        // Then
+        assertThat(buffer1.refCnt()).isZero();
+        assertThat(buffer2.refCnt()).isZero();
+    }
+
+    @Test
+    void shouldCopyAndReleaseBufferTrackedAfterRelease() {
+        // Given
+        bodyBuffers.release();
+        ByteBuf buffer = Unpooled.directBuffer().writeBytes("late body".getBytes());
+
+        // When
+        ByteBuffer copy = bodyBuffers.track(buffer);
+
+        // Then
+        assertThat(buffer.refCnt()).isZero();
+        assertThat(StandardCharsets.UTF_8.decode(copy).toString()).isEqualTo("late body");
+    }
+}
@@ -103,4 +103,52 @@ class UriTemplateTest {
         // Then
         assertThat(bindings).containsEntry("page", "assets/javascript/index.js");
     }
+
+    @Test
+    void shouldBindVariablesWithinSegment() {
+        // Given
+        String template = "/Airports('{ID}')/{name}-{version}";
+        String callUri = "/Airports('KSFO')/index-v1-beta";
+
+        UriTemplate uriTemplate = new UriTemplate(template);
+
+        // When
+        Map<String, String> bindings = uriTemplate.bind(callUri);
+
+        // Then
+        assertThat(bindings).hasSize(3);
+        assertThat(bindings).containsEntry("ID", "KSFO");
+        assertThat(bindings).containsEntry("name", "index-v1");
+        assertThat(bindings).containsEntry("version", "beta");
+    }
+
+    @Test
+    void shouldNotMatchWhenLiteralSuffixDoesNotMatch() {
+        // Given
+        String template = "/Airports('{ID}')";
+        String callUri = "/Airports('KSFO')/Name";
+
+        UriTemplate uriTemplate = new UriTemplate(template);
+
+        // When
+        boolean matches = uriTemplate.matches(callUri);
+
+        // Then
+        assertThat(matches).isFalse();
+    }
+
+    @Test
+    void shouldNotMatchWhenVariableValueContainsSlash() {
+        // Given
+        String template = "/users/{groupId}";
+        String callUri = "/users/admins/34";
+
+        UriTemplate uriTemplate = new UriTemplate(template);
+
+        // When
+        boolean matches = uriTemplate.matches(callUri);
+
+        // Then
+        assertThat(matches).isFalse();
+    }
 }